@@ -3,12 +3,19 @@ package uk.gov.companieshouse.extensions.api;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration;
 import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
 
 import javax.annotation.PostConstruct;
 import java.util.TimeZone;
 
-@SpringBootApplication
+@SpringBootApplication(exclude = {
+    MongoReactiveAutoConfiguration.class,
+    MongoReactiveDataAutoConfiguration.class,
+    MongoReactiveRepositoriesAutoConfiguration.class
+})
 public class Application {
 
   public static final String APP_NAMESPACE = "extensions-api";
@@ -1,5 +1,6 @@
 package uk.gov.companieshouse.extensions.api.attachments;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonUnwrapped;
 
@@ -19,6 +20,12 @@ public class Attachment implements Serializable {
 
     private long size;
 
+    @JsonProperty("sha256")
+    private String sha256;
+
+    @JsonIgnore
+    private String fileId;
+
     public Links getLinks() {
         return links;
     }
@@ -58,4 +65,25 @@ public class Attachment implements Serializable {
     public void setSize(long size) {
         this.size = size;
     }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    /**
+     * @return the id of the stored file, which may be shared with other attachments. Attachments
+     *     added before they had ids of their own use the file id as their id.
+     */
+    @JsonIgnore
+    public String getFileId() {
+        return fileId != null ? fileId : id;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
 }
@@ -0,0 +1,190 @@
+package uk.gov.companieshouse.extensions.api.attachments;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import uk.gov.companieshouse.extensions.api.attachments.dedup.AttachmentFileIndex;
+import uk.gov.companieshouse.extensions.api.attachments.file.FileTransferApiClientResponse;
+import uk.gov.companieshouse.extensions.api.attachments.storage.AttachmentStorage;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Deletes attachment files from storage in the background so that callers do not wait on one
+ * remote call per file. Each delete is recorded in {@link PendingFileDeleteStore} before the
+ * caller returns and removed once it has succeeded, so a restart only delays it. Deletes are
+ * first attempted straight away on a small pool, and failed ones are retried with an exponential
+ * backoff by a periodic sweep.
+ */
+@Service
+public class AttachmentCleanupService {
+
+    private static final String ERROR_MESSAGE = "Unable to delete file %s, status code %s";
+    private static final String ERROR_MESSAGE_SHORT = "Unable to delete file %s";
+    private static final String GIVING_UP_MESSAGE = "Giving up deleting file %s after %d attempts";
+
+    private final AttachmentStorage attachmentStorage;
+    private final AttachmentFileIndex attachmentFileIndex;
+    private final PendingFileDeleteStore pendingFileDeleteStore;
+    private final Supplier<LocalDateTime> dateTimeSupplierNow;
+    private final ApiLogger apiLogger;
+    private final ExecutorService executor;
+    private final int maxAttempts;
+    private final long retryDelayMs;
+    private final long claimSeconds;
+    private final int batchSize;
+
+    @Autowired
+    public AttachmentCleanupService(AttachmentStorage attachmentStorage,
+                                    AttachmentFileIndex attachmentFileIndex,
+                                    PendingFileDeleteStore pendingFileDeleteStore,
+                                    Supplier<LocalDateTime> dateTimeSupplierNow,
+                                    ApiLogger apiLogger,
+                                    @Value("${ATTACHMENT_CLEANUP_THREADS:4}") int threads,
+                                    @Value("${ATTACHMENT_CLEANUP_MAX_ATTEMPTS:3}") int maxAttempts,
+                                    @Value("${ATTACHMENT_CLEANUP_RETRY_DELAY_MS:1000}") long retryDelayMs,
+                                    @Value("${ATTACHMENT_CLEANUP_CLAIM_SECONDS:300}") long claimSeconds,
+                                    @Value("${ATTACHMENT_CLEANUP_BATCH_SIZE:100}") int batchSize) {
+        this(attachmentStorage, attachmentFileIndex, pendingFileDeleteStore, dateTimeSupplierNow, apiLogger,
+            Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("attachment-cleanup-")),
+            maxAttempts, retryDelayMs, claimSeconds, batchSize);
+    }
+
+    AttachmentCleanupService(AttachmentStorage attachmentStorage,
+                             AttachmentFileIndex attachmentFileIndex,
+                             PendingFileDeleteStore pendingFileDeleteStore,
+                             Supplier<LocalDateTime> dateTimeSupplierNow,
+                             ApiLogger apiLogger,
+                             ExecutorService executor,
+                             int maxAttempts,
+                             long retryDelayMs,
+                             long claimSeconds,
+                             int batchSize) {
+        this.attachmentStorage = attachmentStorage;
+        this.attachmentFileIndex = attachmentFileIndex;
+        this.pendingFileDeleteStore = pendingFileDeleteStore;
+        this.dateTimeSupplierNow = dateTimeSupplierNow;
+        this.apiLogger = apiLogger;
+        this.executor = executor;
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMs = retryDelayMs;
+        this.claimSeconds = claimSeconds;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Records the files of the attachments for deletion and returns without waiting for them to
+     * be deleted. A file that is shared with other attachments loses a reference and is only
+     * deleted with its last one.
+     * @param attachments the attachments to delete
+     */
+    public void deleteAttachments(Collection<Attachment> attachments) {
+        LocalDateTime now = dateTimeSupplierNow.get();
+        List<PendingFileDelete> deletes = new ArrayList<>();
+        for (Attachment attachment : attachments) {
+            if (attachmentFileIndex.release(attachment)) {
+                PendingFileDelete delete = new PendingFileDelete();
+                delete.setFileId(attachment.getFileId());
+                delete.setCreatedOn(now);
+                delete.setNextAttemptOn(now);
+                deletes.add(delete);
+            }
+        }
+        if (deletes.isEmpty()) {
+            return;
+        }
+        pendingFileDeleteStore.insertAll(deletes);
+        deletes.forEach(delete -> executor.execute(() -> attemptDelete(delete.getId())));
+    }
+
+    /**
+     * Attempts the deletes that are due, which are those whose first attempt failed or was
+     * interrupted.
+     */
+    @Scheduled(fixedDelayString = "${ATTACHMENT_CLEANUP_INTERVAL_MS:60000}")
+    public void deletePendingFiles() {
+        for (int i = 0; i < batchSize; i++) {
+            LocalDateTime now = dateTimeSupplierNow.get();
+            Optional<PendingFileDelete> delete =
+                pendingFileDeleteStore.claimNextDue(now, now.plusSeconds(claimSeconds));
+            if (!delete.isPresent()) {
+                return;
+            }
+            attemptDelete(delete.get(), now);
+        }
+    }
+
+    void attemptDelete(String pendingDeleteId) {
+        LocalDateTime now = dateTimeSupplierNow.get();
+        pendingFileDeleteStore.claim(pendingDeleteId, now, now.plusSeconds(claimSeconds))
+            .ifPresent(delete -> attemptDelete(delete, now));
+    }
+
+    private void attemptDelete(PendingFileDelete delete, LocalDateTime now) {
+        if (delete(delete.getFileId())) {
+            pendingFileDeleteStore.remove(delete.getId());
+            return;
+        }
+        if (delete.getAttempts() >= maxAttempts) {
+            apiLogger.error(String.format(GIVING_UP_MESSAGE, delete.getFileId(), delete.getAttempts()));
+            pendingFileDeleteStore.markFailed(delete.getId(), now);
+            return;
+        }
+        long delayMs = retryDelayMs << (delete.getAttempts() - 1);
+        pendingFileDeleteStore.scheduleRetry(delete.getId(), now.plusNanos(delayMs * 1_000_000));
+    }
+
+    /**
+     * @return true if the file no longer needs deleting, false if the delete should be retried
+     */
+    private boolean delete(String fileId) {
+        try {
+            FileTransferApiClientResponse response = attachmentStorage.delete(fileId);
+            if (response == null || response.getHttpStatus() == null) {
+                apiLogger.error(String.format(ERROR_MESSAGE_SHORT, fileId));
+                return false;
+            }
+            HttpStatus status = response.getHttpStatus();
+            if (status.is5xxServerError()) {
+                apiLogger.error(String.format(ERROR_MESSAGE, fileId, status));
+                return false;
+            }
+            if (status.isError() && status != HttpStatus.NOT_FOUND) {
+                apiLogger.error(String.format(ERROR_MESSAGE, fileId, status));
+            }
+            return true;
+        } catch (HttpClientErrorException e) {
+            // a missing file has already been deleted, any other client error will not succeed on retry
+            if (e.getStatusCode() != HttpStatus.NOT_FOUND) {
+                apiLogger.error(String.format(ERROR_MESSAGE, fileId, e.getStatusCode()), e);
+            }
+            return true;
+        } catch (RuntimeException e) {
+            // includes server errors and the I/O failures of the local storage
+            apiLogger.error(String.format(ERROR_MESSAGE_SHORT, fileId), e);
+            return false;
+        }
+    }
+
+    /**
+     * Stops the immediate attempts. Any that had not finished are still recorded and are picked
+     * up by the sweep once their claim runs out.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -68,9 +68,16 @@ public class AttachmentDTO extends ApiObjectImpl implements Serializable {
             return this;
         }
 
+        /**
+         * Builds the DTO, preferring the size and content type found by inspecting the upload
+         * over those sent by the client.
+         */
         public AttachmentDTO build() {
+            long size = attachment.getSize() > 0 ? attachment.getSize() : file.getSize();
+            String contentType = attachment.getContentType() != null ? attachment.getContentType()
+                : file.getContentType();
             return new AttachmentDTO(attachment.getId(), links, "",
-                file.getOriginalFilename(), file.getSize(), file.getContentType());
+                file.getOriginalFilename(), size, contentType);
         }
     }
 
@@ -1,9 +1,14 @@
 package uk.gov.companieshouse.extensions.api.attachments;
 
+import java.net.URI;
+import java.util.Optional;
+
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,6 +22,7 @@ import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.multipart.MultipartFile;
 
 import uk.gov.companieshouse.extensions.api.attachments.file.FileTransferApiClientResponse;
+import uk.gov.companieshouse.extensions.api.attachments.inspection.UploadRejectedException;
 import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
 import uk.gov.companieshouse.extensions.api.logger.LogMethodCall;
 import uk.gov.companieshouse.service.ServiceException;
@@ -49,6 +55,10 @@ public class AttachmentsController {
             ServiceResult<AttachmentDTO> result = attachmentsService.addAttachment(file,
                 servletRequest.getRequestURI(), requestId, reasonId);
             return responseEntityFactory.createResponse(result);
+        } catch(UploadRejectedException e) {
+            logger.info(String.format("Upload of file %s rejected: %s", file.getOriginalFilename(),
+                e.getMessage()));
+            return ResponseEntity.status(e.getStatus()).build();
         } catch(ServiceException e) {
             logger.error(e);
             return responseEntityFactory.createResponse(ServiceResult.notFound());
@@ -75,9 +85,24 @@ public class AttachmentsController {
 
     @LogMethodCall
     @GetMapping("/{requestId}/reasons/{reasonId}/attachments/{attachmentId}/download")
-    public ResponseEntity<Void> downloadAttachmentFromRequest(@PathVariable String attachmentId, HttpServletResponse response) {
+    public ResponseEntity<Void> downloadAttachmentFromRequest(@PathVariable String requestId,
+          @PathVariable String reasonId, @PathVariable String attachmentId, HttpServletResponse response) {
+        String fileId;
+        try {
+            fileId = attachmentsService.getAttachmentFileId(requestId, reasonId, attachmentId);
+        } catch (ServiceException e) {
+            logger.info(e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+        Optional<URI> redirect = attachmentsService.getDownloadRedirect(fileId);
+        if (redirect.isPresent()) {
+            return ResponseEntity.status(HttpStatus.FOUND)
+                .location(redirect.get())
+                .cacheControl(CacheControl.noStore())
+                .build();
+        }
         try {
-            FileTransferApiClientResponse downloadServiceResult = attachmentsService.downloadAttachment(attachmentId, response);
+            FileTransferApiClientResponse downloadServiceResult = attachmentsService.downloadAttachment(fileId, response);
             return ResponseEntity.status(downloadServiceResult.getHttpStatus()).build();
         } catch(HttpClientErrorException | HttpServerErrorException e) {
             logger.error(String.format("The file-transfer-api has returned an error: %s for attachmentId %s",
@@ -2,13 +2,20 @@ package uk.gov.companieshouse.extensions.api.attachments;
 
 import org.apache.commons.lang.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.multipart.MultipartFile;
-import uk.gov.companieshouse.extensions.api.attachments.file.FileTransferApiClient;
+import uk.gov.companieshouse.extensions.api.attachments.dedup.AttachmentFileIndex;
+import uk.gov.companieshouse.extensions.api.attachments.download.DownloadUrlSigner;
 import uk.gov.companieshouse.extensions.api.attachments.file.FileTransferApiClientResponse;
+import uk.gov.companieshouse.extensions.api.attachments.inspection.InspectedMultipartFile;
+import uk.gov.companieshouse.extensions.api.attachments.inspection.UploadInspection;
+import uk.gov.companieshouse.extensions.api.attachments.inspection.UploadRejectedException;
+import uk.gov.companieshouse.extensions.api.attachments.storage.AttachmentStorage;
+import uk.gov.companieshouse.extensions.api.events.RequestEventRecorder;
 import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
 import uk.gov.companieshouse.extensions.api.logger.LogMethodCall;
 import uk.gov.companieshouse.extensions.api.reasons.ExtensionReasonEntity;
@@ -21,7 +28,11 @@ import uk.gov.companieshouse.service.links.Links;
 
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -29,49 +40,125 @@ import java.util.stream.Collectors;
 public class AttachmentsService {
 
     private ExtensionRequestsRepository requestsRepo;
-    private FileTransferApiClient fileTransferApiClient;
+    private AttachmentStorage attachmentStorage;
     private ApiLogger apiLogger;
+    private RequestEventRecorder requestEventRecorder;
+    private UploadInspection uploadInspection;
+    private AttachmentFileIndex attachmentFileIndex;
+    private boolean deduplicationEnabled;
+    private Optional<DownloadUrlSigner> downloadUrlSigner;
+    private Supplier<String> randomUUid;
 
     @Autowired
     public AttachmentsService(ExtensionRequestsRepository requestsRepo,
-                              FileTransferApiClient fileTransferApiClient,
-                              ApiLogger logger) {
+                              AttachmentStorage attachmentStorage,
+                              ApiLogger logger,
+                              RequestEventRecorder requestEventRecorder,
+                              UploadInspection uploadInspection,
+                              AttachmentFileIndex attachmentFileIndex,
+                              @Value("${ATTACHMENT_DEDUPLICATION_ENABLED:true}") boolean deduplicationEnabled,
+                              Optional<DownloadUrlSigner> downloadUrlSigner,
+                              Supplier<String> randomUUid) {
         this.requestsRepo = requestsRepo;
-        this.fileTransferApiClient = fileTransferApiClient;
+        this.attachmentStorage = attachmentStorage;
         this.apiLogger = logger;
+        this.requestEventRecorder = requestEventRecorder;
+        this.uploadInspection = uploadInspection;
+        this.attachmentFileIndex = attachmentFileIndex;
+        this.deduplicationEnabled = deduplicationEnabled;
+        this.downloadUrlSigner = downloadUrlSigner;
+        this.randomUUid = randomUUid;
     }
 
     @LogMethodCall
     public ServiceResult<AttachmentDTO>
             addAttachment(@NotNull MultipartFile file,
                           String attachmentsUri, String requestId,
-                          String reasonId) throws ServiceException {
+                          String reasonId) throws ServiceException, UploadRejectedException {
 
-        String attachmentId = uploadFile(file);
+        InspectedMultipartFile inspectedFile = uploadInspection.inspect(file);
+        Attachment attachment = createAttachment(file);
+        String fileId = deduplicationEnabled
+            ? storeDeduplicated(file, inspectedFile, attachment)
+            : storeWhileInspecting(inspectedFile, attachment);
+        attachment.setFileId(fileId);
+        // the stored file may be shared, so the attachment has an id of its own
+        String attachmentId = randomUUid.get();
+        attachment.setId(attachmentId);
 
-        Attachment attachment = createAttachment(file, attachmentId);
+        try {
+            ExtensionRequestFullEntity extension = requestsRepo.findById(requestId)
+                .orElseThrow(missingRequest(requestId));
 
-        ExtensionRequestFullEntity extension = requestsRepo.findById(requestId)
-            .orElseThrow(missingRequest(requestId));
+            extension.mapToReason(reasonId)
+                .orElseThrow(missingReason(requestId, reasonId))
+                .addAttachment(attachment);
 
-        extension.mapToReason(reasonId)
-            .orElseThrow(missingReason(requestId, reasonId))
-            .addAttachment(attachment);
+            Links links = createLinks(attachmentsUri, attachmentId);
+            attachment.setLinks(links);
+            requestEventRecorder.attachmentAdded(extension, reasonId, attachmentId);
 
-        Links links = createLinks(attachmentsUri, attachmentId);
-        attachment.setLinks(links);
-
-        requestsRepo.save(extension);
+            requestsRepo.save(extension);
+        } catch (ServiceException | RuntimeException e) {
+            releaseFile(attachment);
+            throw e;
+        }
 
         return ServiceResult.accepted(AttachmentDTO.builder()
             .withAttachment(attachment)
             .withFile(file)
-            .withLinks(links)
+            .withLinks(attachment.getLinks())
             .build());
     }
 
+    /**
+     * Inspects the upload from its local copy first, because its digest is needed to decide
+     * whether it has to be uploaded at all. Content that has already been stored is not uploaded
+     * again, and the stored file is shared.
+     * @return the id of the stored file
+     */
+    private String storeDeduplicated(MultipartFile file, InspectedMultipartFile inspectedFile,
+                                     Attachment attachment) throws ServiceException, UploadRejectedException {
+        try {
+            inspectedFile.complete(attachment);
+        } catch (UploadRejectedException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new ServiceException(String.format("Unable to read upload %s: %s",
+                file.getOriginalFilename(), e.getMessage()));
+        }
+        Optional<String> storedFileId = attachmentFileIndex.acquire(attachment.getSha256());
+        if (storedFileId.isPresent()) {
+            return storedFileId.get();
+        }
+        String fileId = uploadFile(file);
+        attachmentFileIndex.register(attachment.getSha256(), fileId);
+        return fileId;
+    }
+
+    /**
+     * Inspects the upload in the same pass as it is sent to storage.
+     * @return the id of the stored file
+     */
+    private String storeWhileInspecting(InspectedMultipartFile file, Attachment attachment)
+            throws ServiceException, UploadRejectedException {
+        String fileId;
+        try {
+            fileId = uploadFile(file);
+        } catch (RuntimeException e) {
+            // an inspector rejecting the upload part way through aborts the call to storage
+            if (file.getRejection() != null) {
+                throw file.getRejection();
+            }
+            throw e;
+        }
+        attachment.setFileId(fileId);
+        completeInspection(file, attachment);
+        return fileId;
+    }
+
     private String uploadFile(@NotNull MultipartFile file) throws ServiceException {
-        FileTransferApiClientResponse response = fileTransferApiClient.upload(file);
+        FileTransferApiClientResponse response = attachmentStorage.upload(file);
 
         HttpStatus responseHttpStatus = response.getHttpStatus();
         if (responseHttpStatus != null && responseHttpStatus.isError()) {
@@ -85,9 +172,26 @@ public class AttachmentsService {
         }
     }
 
-    private Attachment createAttachment(@NotNull MultipartFile file, String attachmentId) {
+    /**
+     * Finishes inspecting an upload that has been sent to storage. An upload that
+     * is only rejected once all of it has been seen is deleted again.
+     */
+    private void completeInspection(InspectedMultipartFile file, Attachment attachment)
+            throws ServiceException, UploadRejectedException {
+        try {
+            file.complete(attachment);
+        } catch (UploadRejectedException e) {
+            deleteAttachment(attachment.getFileId());
+            throw e;
+        } catch (IOException e) {
+            deleteAttachment(attachment.getFileId());
+            throw new ServiceException(String.format("Unable to read upload %s: %s",
+                file.getOriginalFilename(), e.getMessage()));
+        }
+    }
+
+    private Attachment createAttachment(@NotNull MultipartFile file) {
         Attachment attachment = new Attachment();
-        attachment.setId(attachmentId);
         String filename = file.getOriginalFilename();
         attachment.setName(filename);
         attachment.setSize(file.getSize());
@@ -119,42 +223,48 @@ public class AttachmentsService {
                 reasonId, attachmentId));
         }
 
-        deleteAttachment(attachmentId);
-
-        List<Attachment> updatedAttachments =
+        Map<Boolean, List<Attachment>> removed =
             reasonAttachments
                 .stream()
-                .filter(attachment -> !attachment.getId().equals(attachmentId))
-                .collect(Collectors.toList());
+                .collect(Collectors.partitioningBy(attachment -> attachment.getId().equals(attachmentId)));
 
-        if (updatedAttachments.size() == reasonAttachments.size()) {
+        if (removed.get(true).isEmpty()) {
             throw new ServiceException(String.format("Attachment %s does not exist in reason %s",
                 attachmentId, reasonId));
         }
 
-        reason.setAttachments(updatedAttachments);
+        reason.setAttachments(removed.get(false));
+        requestEventRecorder.attachmentRemoved(extension, reasonId, attachmentId);
 
         requestsRepo.save(extension);
+        // the file may be shared with other attachments, so is only deleted with its last reference
+        removed.get(true).forEach(this::releaseFile);
         return ServiceResult.deleted();
     }
 
-    private void deleteAttachment(String attachmentId) {
+    private void releaseFile(Attachment attachment) {
+        if (attachmentFileIndex.release(attachment)) {
+            deleteAttachment(attachment.getFileId());
+        }
+    }
+
+    private void deleteAttachment(String fileId) {
         final String errorMessage = "Unable to delete attachment %s, status code %s";
         final String errorMessageShort = "Unable to delete attachment %s";
         try {
-            FileTransferApiClientResponse response = fileTransferApiClient.delete(attachmentId);
+            FileTransferApiClientResponse response = attachmentStorage.delete(fileId);
             if (response == null || response.getHttpStatus() == null) {
                 apiLogger.error(String.format(errorMessageShort,
-                    attachmentId));
+                    fileId));
             } else {
                 if (response.getHttpStatus().isError()) {
                     apiLogger.error(String.format(errorMessage,
-                        attachmentId, response.getHttpStatus()));
+                        fileId, response.getHttpStatus()));
                 }
             }
         } catch (HttpClientErrorException | HttpServerErrorException e) {
             apiLogger.error(String.format(errorMessage,
-                attachmentId, e.getStatusCode()), e);
+                fileId, e.getStatusCode()), e);
         }
     }
 
@@ -167,7 +277,33 @@ public class AttachmentsService {
             "Request %s", reasonId, requestId));
     }
 
-    public FileTransferApiClientResponse downloadAttachment(String attachmentId, HttpServletResponse httpServletResponse) {
-        return fileTransferApiClient.download(attachmentId, httpServletResponse);
+    /**
+     * @return the id of the file stored for an attachment
+     */
+    public String getAttachmentFileId(String requestId, String reasonId, String attachmentId)
+            throws ServiceException {
+        ExtensionRequestFullEntity extension = requestsRepo.findById(requestId)
+            .orElseThrow(missingRequest(requestId));
+
+        return extension.mapToReason(reasonId)
+            .orElseThrow(missingReason(requestId, reasonId))
+            .getAttachments().stream()
+            .filter(attachment -> attachment.getId().equals(attachmentId))
+            .findFirst()
+            .map(Attachment::getFileId)
+            .orElseThrow(() -> new ServiceException(String.format("Attachment %s does not exist in reason %s",
+                attachmentId, reasonId)));
+    }
+
+    public FileTransferApiClientResponse downloadAttachment(String fileId, HttpServletResponse httpServletResponse) {
+        return attachmentStorage.download(fileId, httpServletResponse);
+    }
+
+    /**
+     * @return a signed URL to send the client to instead of proxying the download, empty when
+     *     downloads are proxied
+     */
+    public Optional<URI> getDownloadRedirect(String fileId) {
+        return downloadUrlSigner.map(signer -> signer.sign(fileId));
     }
 }
@@ -0,0 +1,78 @@
+package uk.gov.companieshouse.extensions.api.attachments;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A stored file that no attachment refers to any more and that still has to be deleted. It is
+ * recorded before the delete is attempted, so a delete that is interrupted by a restart is
+ * picked up again. One that has failed every attempt is kept, with the time it was given up on.
+ */
+@Document(collection = "pending_file_deletes")
+public class PendingFileDelete {
+
+    @Id
+    private String id;
+
+    private String fileId;
+
+    private int attempts;
+
+    @Indexed
+    private LocalDateTime nextAttemptOn;
+
+    private LocalDateTime createdOn;
+
+    private LocalDateTime failedOn;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptOn() {
+        return nextAttemptOn;
+    }
+
+    public void setNextAttemptOn(LocalDateTime nextAttemptOn) {
+        this.nextAttemptOn = nextAttemptOn;
+    }
+
+    public LocalDateTime getCreatedOn() {
+        return createdOn;
+    }
+
+    public void setCreatedOn(LocalDateTime createdOn) {
+        this.createdOn = createdOn;
+    }
+
+    public LocalDateTime getFailedOn() {
+        return failedOn;
+    }
+
+    public void setFailedOn(LocalDateTime failedOn) {
+        this.failedOn = failedOn;
+    }
+}
@@ -0,0 +1,88 @@
+package uk.gov.companieshouse.extensions.api.attachments;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * The outbox of file deletes. A delete is claimed before it is attempted by moving its next
+ * attempt time past the claim, so that only one node attempts it at a time and a node that
+ * stops part way through leaves it to be claimed again.
+ */
+@Component
+public class PendingFileDeleteStore {
+
+    private static final String ID = "_id";
+    private static final String ATTEMPTS = "attempts";
+    private static final String NEXT_ATTEMPT_ON = "nextAttemptOn";
+    private static final String FAILED_ON = "failedOn";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public PendingFileDeleteStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Records the deletes, filling in their ids.
+     */
+    public void insertAll(List<PendingFileDelete> deletes) {
+        mongoTemplate.insertAll(deletes);
+    }
+
+    /**
+     * Claims a particular delete if it is due.
+     * @param claimedUntil when the delete can be claimed again if this attempt does not finish
+     * @return the claimed delete with its attempt counted, empty if it is not due
+     */
+    public Optional<PendingFileDelete> claim(String id, LocalDateTime now, LocalDateTime claimedUntil) {
+        return claim(Query.query(Criteria.where(ID).is(id).andOperator(due(now))), claimedUntil);
+    }
+
+    /**
+     * Claims the delete that has been due the longest.
+     * @param claimedUntil when the delete can be claimed again if this attempt does not finish
+     * @return the claimed delete with its attempt counted, empty if none are due
+     */
+    public Optional<PendingFileDelete> claimNextDue(LocalDateTime now, LocalDateTime claimedUntil) {
+        return claim(Query.query(due(now)).with(Sort.by(NEXT_ATTEMPT_ON).ascending()), claimedUntil);
+    }
+
+    public void remove(String id) {
+        mongoTemplate.remove(Query.query(Criteria.where(ID).is(id)), PendingFileDelete.class);
+    }
+
+    public void scheduleRetry(String id, LocalDateTime nextAttemptOn) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where(ID).is(id)),
+            new Update().set(NEXT_ATTEMPT_ON, nextAttemptOn), PendingFileDelete.class);
+    }
+
+    /**
+     * Stops a delete being attempted again. It stays in the collection so that the file can be
+     * found and removed by hand.
+     */
+    public void markFailed(String id, LocalDateTime failedOn) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where(ID).is(id)),
+            new Update().set(FAILED_ON, failedOn), PendingFileDelete.class);
+    }
+
+    private Optional<PendingFileDelete> claim(Query query, LocalDateTime claimedUntil) {
+        Update update = new Update().inc(ATTEMPTS, 1).set(NEXT_ATTEMPT_ON, claimedUntil);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+            FindAndModifyOptions.options().returnNew(true), PendingFileDelete.class));
+    }
+
+    private Criteria due(LocalDateTime now) {
+        return Criteria.where(FAILED_ON).is(null).and(NEXT_ATTEMPT_ON).lte(now);
+    }
+}
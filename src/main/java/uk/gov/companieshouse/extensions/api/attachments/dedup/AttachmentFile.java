@@ -0,0 +1,55 @@
+package uk.gov.companieshouse.extensions.api.attachments.dedup;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A file held by the file-transfer-api, keyed by the SHA-256 digest of its content, with the
+ * number of attachments that refer to it.
+ */
+@Document(collection = "attachment_files")
+public class AttachmentFile {
+
+    @Id
+    private String sha256;
+
+    private String fileId;
+
+    private int referenceCount;
+
+    private LocalDateTime createdOn;
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public int getReferenceCount() {
+        return referenceCount;
+    }
+
+    public void setReferenceCount(int referenceCount) {
+        this.referenceCount = referenceCount;
+    }
+
+    public LocalDateTime getCreatedOn() {
+        return createdOn;
+    }
+
+    public void setCreatedOn(LocalDateTime createdOn) {
+        this.createdOn = createdOn;
+    }
+}
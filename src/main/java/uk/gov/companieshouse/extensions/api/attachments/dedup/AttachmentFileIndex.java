@@ -0,0 +1,95 @@
+package uk.gov.companieshouse.extensions.api.attachments.dedup;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import uk.gov.companieshouse.extensions.api.attachments.Attachment;
+
+/**
+ * Reference-counted index from content digest to file-transfer-api file id, so that the same
+ * file uploaded for several reasons or requests is only stored once. Files uploaded before the
+ * index existed, or that lost a race to be indexed, are not in it and belong to a single
+ * attachment.
+ */
+@Component
+public class AttachmentFileIndex {
+
+    private static final String SHA256 = "_id";
+    private static final String FILE_ID = "fileId";
+    private static final String REFERENCE_COUNT = "referenceCount";
+
+    private final MongoTemplate mongoTemplate;
+    private final Supplier<LocalDateTime> dateTimeSupplierNow;
+
+    @Autowired
+    public AttachmentFileIndex(MongoTemplate mongoTemplate, Supplier<LocalDateTime> dateTimeSupplierNow) {
+        this.mongoTemplate = mongoTemplate;
+        this.dateTimeSupplierNow = dateTimeSupplierNow;
+    }
+
+    /**
+     * Adds a reference to the stored file with this content, if there is one.
+     * @param sha256 the digest of the content
+     * @return the id of the stored file, empty if the content has not been stored
+     */
+    public Optional<String> acquire(String sha256) {
+        // a file whose count has reached zero is being deleted and must not be reused
+        Query query = Query.query(Criteria.where(SHA256).is(sha256).and(REFERENCE_COUNT).gt(0));
+        AttachmentFile file = mongoTemplate.findAndModify(query, new Update().inc(REFERENCE_COUNT, 1),
+            FindAndModifyOptions.options().returnNew(true), AttachmentFile.class);
+        return Optional.ofNullable(file).map(AttachmentFile::getFileId);
+    }
+
+    /**
+     * Indexes a newly uploaded file with one reference.
+     * @return false if the content was indexed by another upload in the meantime, in which case
+     *     the new file is left out of the index
+     */
+    public boolean register(String sha256, String fileId) {
+        AttachmentFile file = new AttachmentFile();
+        file.setSha256(sha256);
+        file.setFileId(fileId);
+        file.setReferenceCount(1);
+        file.setCreatedOn(dateTimeSupplierNow.get());
+        try {
+            mongoTemplate.insert(file);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Removes an attachment's reference to its file.
+     * @return true if nothing refers to the file any more and it should be deleted
+     */
+    public boolean release(Attachment attachment) {
+        if (attachment.getSha256() == null) {
+            return true;
+        }
+        Query query = Query.query(Criteria.where(SHA256).is(attachment.getSha256())
+            .and(FILE_ID).is(attachment.getFileId()));
+        AttachmentFile file = mongoTemplate.findAndModify(query, new Update().inc(REFERENCE_COUNT, -1),
+            FindAndModifyOptions.options().returnNew(true), AttachmentFile.class);
+        if (file == null) {
+            return true;
+        }
+        if (file.getReferenceCount() > 0) {
+            return false;
+        }
+        mongoTemplate.remove(Query.query(Criteria.where(SHA256).is(attachment.getSha256())
+            .and(FILE_ID).is(attachment.getFileId())
+            .and(REFERENCE_COUNT).lte(0)), AttachmentFile.class);
+        return true;
+    }
+}
@@ -0,0 +1,16 @@
+package uk.gov.companieshouse.extensions.api.attachments.download;
+
+import java.net.URI;
+
+/**
+ * Creates short-lived URLs that a client can download a file from directly, without the
+ * content passing through this API.
+ */
+public interface DownloadUrlSigner {
+
+    /**
+     * @param fileId the file-transfer-api id of the file
+     * @return a URL that gives access to the file until it expires
+     */
+    URI sign(String fileId);
+}
@@ -0,0 +1,85 @@
+package uk.gov.companieshouse.extensions.api.attachments.download;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.lang.StringUtils;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Signs download URLs with an HMAC-SHA256 of the file id and expiry time. The URLs are served
+ * by {@link SignedDownloadController}, which checks them with {@link #verify(String, long, String)}
+ * and streams the file from storage. A stand-in for a storage provider's own signed URLs.
+ */
+public class HmacDownloadUrlSigner implements DownloadUrlSigner {
+
+    public static final String EXPIRES = "expires";
+    public static final String SIGNATURE = "signature";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final String baseUrl;
+    private final SecretKeySpec key;
+    private final long ttlSeconds;
+    private final Supplier<LocalDateTime> dateTimeSupplierNow;
+
+    public HmacDownloadUrlSigner(String baseUrl, String key, long ttlSeconds,
+                                 Supplier<LocalDateTime> dateTimeSupplierNow) {
+        if (StringUtils.isBlank(key)) {
+            throw new IllegalArgumentException("A signing key is needed to sign download URLs");
+        }
+        this.baseUrl = baseUrl;
+        this.key = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.ttlSeconds = ttlSeconds;
+        this.dateTimeSupplierNow = dateTimeSupplierNow;
+    }
+
+    @Override
+    public URI sign(String fileId) {
+        long expires = nowEpochSecond() + ttlSeconds;
+        return UriComponentsBuilder.fromHttpUrl(baseUrl)
+            .pathSegment(fileId, "download")
+            .queryParam(EXPIRES, expires)
+            .queryParam(SIGNATURE, signature(fileId, expires))
+            .build()
+            .encode()
+            .toUri();
+    }
+
+    /**
+     * @return true if the signature was created by this signer for the file and has not expired
+     */
+    public boolean verify(String fileId, long expires, String signature) {
+        if (expires < nowEpochSecond() || signature == null) {
+            return false;
+        }
+        // compared in constant time so that the signature cannot be found byte by byte
+        return MessageDigest.isEqual(signature(fileId, expires).getBytes(StandardCharsets.UTF_8),
+            signature.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String signature(String fileId, long expires) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            byte[] hash = mac.doFinal((fileId + ":" + expires).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("Unable to sign download URL", e);
+        }
+    }
+
+    private long nowEpochSecond() {
+        return dateTimeSupplierNow.get().atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
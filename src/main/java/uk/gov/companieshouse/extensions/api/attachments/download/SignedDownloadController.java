@@ -0,0 +1,64 @@
+package uk.gov.companieshouse.extensions.api.attachments.download;
+
+import java.util.Optional;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import uk.gov.companieshouse.extensions.api.attachments.file.FileTransferApiClientResponse;
+import uk.gov.companieshouse.extensions.api.attachments.storage.AttachmentStorage;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+import uk.gov.companieshouse.extensions.api.logger.LogMethodCall;
+
+/**
+ * Serves the URLs signed by {@link HmacDownloadUrlSigner}. The signature stands in for the
+ * caller's authorisation, so these URLs are not behind the company authorisation of the
+ * attachment endpoints, and are not found at all unless downloads are redirected to them.
+ */
+@RestController
+public class SignedDownloadController {
+
+    private final AttachmentStorage attachmentStorage;
+    private final Optional<HmacDownloadUrlSigner> downloadUrlSigner;
+    private final ApiLogger logger;
+
+    @Autowired
+    public SignedDownloadController(AttachmentStorage attachmentStorage,
+                                    Optional<HmacDownloadUrlSigner> downloadUrlSigner, ApiLogger logger) {
+        this.attachmentStorage = attachmentStorage;
+        this.downloadUrlSigner = downloadUrlSigner;
+        this.logger = logger;
+    }
+
+    @LogMethodCall
+    @GetMapping("/extensions/downloads/{fileId}/download")
+    public ResponseEntity<Void> download(@PathVariable String fileId,
+                                         @RequestParam(HmacDownloadUrlSigner.EXPIRES) long expires,
+                                         @RequestParam(HmacDownloadUrlSigner.SIGNATURE) String signature,
+                                         HttpServletResponse response) {
+        if (!downloadUrlSigner.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!downloadUrlSigner.get().verify(fileId, expires, signature)) {
+            logger.info(String.format("Refused download of file %s with an invalid or expired signature", fileId));
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        try {
+            FileTransferApiClientResponse downloadResult = attachmentStorage.download(fileId, response);
+            return ResponseEntity.status(downloadResult.getHttpStatus()).build();
+        } catch (HttpClientErrorException | HttpServerErrorException e) {
+            logger.error(String.format("The file-transfer-api has returned an error: %s for file %s",
+                e.getMessage(), fileId));
+            return ResponseEntity.status(e.getStatusCode()).build();
+        }
+    }
+}
@@ -9,6 +9,8 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.tomcat.util.http.fileupload.IOUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -17,9 +19,11 @@ import org.springframework.http.MediaType;
 import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import uk.gov.companieshouse.extensions.api.attachments.storage.AttachmentStorage;
 import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
 import uk.gov.companieshouse.extensions.api.logger.LogMethodCall;
 
@@ -27,10 +31,10 @@ import uk.gov.companieshouse.extensions.api.logger.LogMethodCall;
  * Client for using the File-Transfer-Api for upload / download / delete of files
  */
 @Component
-public class FileTransferApiClient {
+public class FileTransferApiClient implements AttachmentStorage {
 
     private static final String DOWNLOAD_URI = "%s/%s/download";
-    private static final String DELETE_URI = "%s/%s";
+    private static final String FILE_URI = "%s/%s";
     private static final String HEADER_API_KEY = "x-api-key";
     private static final String UPLOAD = "upload";
     private static final String CONTENT_DISPOSITION_VALUE = "form-data; name=%s; filename=%s";
@@ -76,6 +80,7 @@ public class FileTransferApiClient {
      * @param httpServletResponse The HttpServletResponse to stream the file to
      * @return FileTransferApiClientResponse containing the http status
      */
+    @Override
     @LogMethodCall
     public FileTransferApiClientResponse download(String fileId, HttpServletResponse httpServletResponse) {
         String downloadUri = String.format(DOWNLOAD_URI, fileTransferApiURL, fileId);
@@ -130,11 +135,13 @@ public class FileTransferApiClient {
     /**
      * Uploads a file to the file-transfer-api
      * Creates a multipart form request containing the file and sends to
-     * the file-transfer-api. The response from the file-transfer-api contains
+     * the file-transfer-api. The file content is streamed from the file's input stream rather
+     * than loaded into memory. The response from the file-transfer-api contains
      * the new unique id for the file. This is captured and returned in the FileTransferApiClientResponse.
      * @param fileToUpload The file to upload
      * @return FileTransferApiClientResponse containing the file id if successful, and http status
      */
+    @Override
     @LogMethodCall
     public FileTransferApiClientResponse upload(MultipartFile fileToUpload) {
         return makeApiCall(
@@ -142,7 +149,7 @@ public class FileTransferApiClient {
             () -> {
                 HttpHeaders headers = createFileTransferApiHttpHeaders();
                 LinkedMultiValueMap<String, String> fileHeaderMap = createUploadFileHeader(fileToUpload);
-                HttpEntity<byte[]> fileHttpEntity = new HttpEntity<>(fileToUpload.getBytes(), fileHeaderMap);
+                HttpEntity<Resource> fileHttpEntity = new HttpEntity<>(new UploadResource(fileToUpload), fileHeaderMap);
                 LinkedMultiValueMap<String, Object> body = createUploadBody(fileHttpEntity);
                 HttpEntity<LinkedMultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
                 return restTemplate.postForEntity(fileTransferApiURL, requestEntity, FileTransferApiResponse.class);
@@ -185,7 +192,7 @@ public class FileTransferApiClient {
         return fileHeaderMap;
     }
 
-    private LinkedMultiValueMap<String, Object> createUploadBody(HttpEntity<byte[]> fileHttpEntity) {
+    private LinkedMultiValueMap<String, Object> createUploadBody(HttpEntity<Resource> fileHttpEntity) {
         LinkedMultiValueMap<String, Object> multipartReqMap = new LinkedMultiValueMap<>();
         multipartReqMap.add(UPLOAD, fileHttpEntity);
         return multipartReqMap;
@@ -196,8 +203,9 @@ public class FileTransferApiClient {
      * @param fileId of the file to delete
      * @return FileTransferApiClientResponse containing the http status
      */
+    @Override
     public FileTransferApiClientResponse delete(String fileId) {
-        String deleteUrl = String.format(DELETE_URI, fileTransferApiURL, fileId);
+        String deleteUrl = String.format(FILE_URI, fileTransferApiURL, fileId);
 
         return makeApiCall(
             //FileTransferOperation
@@ -215,4 +223,73 @@ public class FileTransferApiClient {
             }
         );
     }
+
+    /**
+     * Checks whether the file-transfer-api holds a file, without downloading it
+     * @param fileId of the file to check
+     * @return FileTransferApiClientResponse containing the http status, including an error status
+     */
+    @Override
+    public FileTransferApiClientResponse head(String fileId) {
+        String fileUrl = String.format(FILE_URI, fileTransferApiURL, fileId);
+
+        return makeApiCall(
+            //FileTransferOperation
+            () -> {
+                HttpEntity<Void> request = new HttpEntity<>(createApiKeyHeader());
+                try {
+                    return restTemplate.exchange(fileUrl, HttpMethod.HEAD, request, Void.class).getStatusCode();
+                } catch (HttpStatusCodeException e) {
+                    return e.getStatusCode();
+                }
+            },
+
+            //FileTransferResponseBuilder - the output from FileTransferOperation is the input into
+            //  this FileTransferResponseBuilder
+            status -> {
+                FileTransferApiClientResponse response = new FileTransferApiClientResponse();
+                response.setHttpStatus(status);
+                return response;
+            }
+        );
+    }
+
+    /**
+     * Exposes an uploaded file's stream to the multipart request body. The length is reported as
+     * unknown so that the stream is not read just to measure it.
+     */
+    private static class UploadResource extends AbstractResource {
+
+        private final MultipartFile file;
+
+        UploadResource(MultipartFile file) {
+            this.file = file;
+        }
+
+        @Override
+        public String getFilename() {
+            return file.getOriginalFilename();
+        }
+
+        @Override
+        public boolean exists() {
+            // the default would open the stream, which can only be read once
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return -1;
+        }
+
+        @Override
+        public String getDescription() {
+            return "Upload [" + file.getOriginalFilename() + "]";
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return file.getInputStream();
+        }
+    }
 }
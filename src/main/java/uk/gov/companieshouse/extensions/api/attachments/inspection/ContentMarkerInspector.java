@@ -0,0 +1,56 @@
+package uk.gov.companieshouse.extensions.api.attachments.inspection;
+
+import org.springframework.http.HttpStatus;
+
+import uk.gov.companieshouse.extensions.api.attachments.Attachment;
+
+/**
+ * Rejects an upload unless a sequence of bytes appears somewhere in it. Used for container
+ * formats whose signature is shared by many file types, such as zip, where the type is only
+ * known from the names of the entries inside. The sequence may span chunks.
+ */
+class ContentMarkerInspector implements UploadInspector {
+
+    private final byte[] marker;
+    private final String typeName;
+    // Knuth-Morris-Pratt failure table, so the search never looks back at earlier chunks
+    private final int[] fallback;
+    private int matched;
+    private boolean found;
+
+    ContentMarkerInspector(byte[] marker, String typeName) {
+        this.marker = marker;
+        this.typeName = typeName;
+        this.fallback = new int[marker.length];
+        for (int i = 1, length = 0; i < marker.length; i++) {
+            while (length > 0 && marker[i] != marker[length]) {
+                length = fallback[length - 1];
+            }
+            if (marker[i] == marker[length]) {
+                length++;
+            }
+            fallback[i] = length;
+        }
+    }
+
+    @Override
+    public void inspect(byte[] buffer, int offset, int length) {
+        for (int i = offset; i < offset + length && !found; i++) {
+            while (matched > 0 && buffer[i] != marker[matched]) {
+                matched = fallback[matched - 1];
+            }
+            if (buffer[i] == marker[matched]) {
+                matched++;
+            }
+            found = matched == marker.length;
+        }
+    }
+
+    @Override
+    public void complete(Attachment attachment) throws UploadRejectedException {
+        if (!found) {
+            throw new UploadRejectedException(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                String.format("Upload is not a %s", typeName));
+        }
+    }
+}
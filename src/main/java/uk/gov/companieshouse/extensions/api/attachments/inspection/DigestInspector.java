@@ -0,0 +1,39 @@
+package uk.gov.companieshouse.extensions.api.attachments.inspection;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import uk.gov.companieshouse.extensions.api.attachments.Attachment;
+
+/**
+ * Computes the SHA-256 digest of the uploaded content and records it on the attachment.
+ */
+public class DigestInspector implements UploadInspector {
+
+    private static final String ALGORITHM = "SHA-256";
+
+    private final MessageDigest digest;
+
+    public DigestInspector() {
+        try {
+            digest = MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void inspect(byte[] buffer, int offset, int length) {
+        digest.update(buffer, offset, length);
+    }
+
+    @Override
+    public void complete(Attachment attachment) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        attachment.setSha256(hex.toString());
+    }
+}
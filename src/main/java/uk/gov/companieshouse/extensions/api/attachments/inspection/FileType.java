@@ -0,0 +1,118 @@
+package uk.gov.companieshouse.extensions.api.attachments.inspection;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The file types that can be recognised from the first bytes of an upload.
+ */
+public enum FileType {
+
+    PDF("application/pdf", ascii("%PDF-")),
+    PNG("image/png", bytes(0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A)),
+    JPEG("image/jpeg", bytes(0xFF, 0xD8, 0xFF)),
+    GIF("image/gif", ascii("GIF87a"), ascii("GIF89a")),
+    TIFF("image/tiff", bytes(0x49, 0x49, 0x2A, 0x00), bytes(0x4D, 0x4D, 0x00, 0x2A)),
+    // the signature of any OLE compound file, such as xls, ppt and msi, so is only a candidate
+    DOC("application/msword", bytes(0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1)),
+    // the signature of any zip, such as xlsx, pptx and jar, so is only a candidate
+    DOCX("application/vnd.openxmlformats-officedocument.wordprocessingml.document", bytes(0x50, 0x4B, 0x03, 0x04)),
+    // has no signature, recognised by the absence of control characters instead
+    TEXT("text/plain");
+
+    // the Word stream of a compound file, whose directory stores names as UTF-16LE
+    private static final byte[] WORD_DOCUMENT_STREAM = "WordDocument".getBytes(StandardCharsets.UTF_16LE);
+    // the directory holding the parts of a Word document, whose entry names are stored in the clear
+    private static final byte[] WORD_DOCUMENT_ENTRY = ascii("word/");
+
+    private final String contentType;
+    private final List<byte[]> signatures;
+
+    FileType(String contentType, byte[]... signatures) {
+        this.contentType = contentType;
+        this.signatures = Arrays.asList(signatures);
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return an inspector for the whole content of a file whose type is only a candidate once
+     *     its first bytes have been seen, null if the first bytes are enough
+     */
+    UploadInspector newContentInspector() {
+        switch (this) {
+            case DOC:
+                return new ContentMarkerInspector(WORD_DOCUMENT_STREAM, "Word document");
+            case DOCX:
+                return new ContentMarkerInspector(WORD_DOCUMENT_ENTRY, "Word document");
+            case TEXT:
+                return new PlainTextInspector();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Works out the type of a file from its first bytes. Where several types share a signature,
+     * such as the zip based document formats, the one matching the declared content type is
+     * preferred.
+     * @param head the first bytes of the file, or all of it if it is shorter
+     * @param declaredContentType the content type sent by the client
+     * @return the file type, null if it is not recognised
+     */
+    public static FileType detect(byte[] head, String declaredContentType) {
+        List<FileType> matches = new ArrayList<>();
+        for (FileType type : values()) {
+            if (type.matchesSignature(head)) {
+                matches.add(type);
+            }
+        }
+        for (FileType type : matches) {
+            if (type.contentType.equalsIgnoreCase(String.valueOf(declaredContentType))) {
+                return type;
+            }
+        }
+        if (!matches.isEmpty()) {
+            return matches.get(0);
+        }
+        return isText(head) ? TEXT : null;
+    }
+
+    private boolean matchesSignature(byte[] head) {
+        for (byte[] signature : signatures) {
+            if (head.length >= signature.length
+                    && Arrays.equals(Arrays.copyOf(head, signature.length), signature)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isText(byte[] head) {
+        if (head.length == 0) {
+            return false;
+        }
+        for (byte b : head) {
+            if (PlainTextInspector.isControl(b & 0xff)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] ascii(String signature) {
+        return signature.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] signature = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            signature[i] = (byte) values[i];
+        }
+        return signature;
+    }
+}
@@ -0,0 +1,77 @@
+package uk.gov.companieshouse.extensions.api.attachments.inspection;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.springframework.http.HttpStatus;
+
+import uk.gov.companieshouse.extensions.api.attachments.Attachment;
+
+/**
+ * Works out the real type of an upload from its first bytes, rather than trusting the content
+ * type sent by the client, and stops the upload as soon as the type is known not to be allowed.
+ * Types whose first bytes are shared with other formats are confirmed from the rest of the
+ * content.
+ */
+public class FileTypeInspector implements UploadInspector {
+
+    public static final int HEAD_LENGTH = 512;
+
+    private final Set<String> allowedContentTypes;
+    private final String declaredContentType;
+    private final byte[] head = new byte[HEAD_LENGTH];
+    private int headLength;
+    private FileType fileType;
+    private UploadInspector contentInspector;
+
+    public FileTypeInspector(Set<String> allowedContentTypes, String declaredContentType) {
+        this.allowedContentTypes = allowedContentTypes;
+        this.declaredContentType = declaredContentType;
+    }
+
+    @Override
+    public void inspect(byte[] buffer, int offset, int length) throws UploadRejectedException {
+        if (fileType == null) {
+            int copied = Math.min(length, HEAD_LENGTH - headLength);
+            System.arraycopy(buffer, offset, head, headLength, copied);
+            headLength += copied;
+            if (headLength < HEAD_LENGTH) {
+                return;
+            }
+            fileType = check();
+            offset += copied;
+            length -= copied;
+        }
+        if (contentInspector != null) {
+            contentInspector.inspect(buffer, offset, length);
+        }
+    }
+
+    @Override
+    public void complete(Attachment attachment) throws UploadRejectedException {
+        if (fileType == null) {
+            fileType = check();
+        }
+        if (contentInspector != null) {
+            contentInspector.complete(attachment);
+        }
+        attachment.setContentType(fileType.getContentType());
+    }
+
+    private FileType check() throws UploadRejectedException {
+        FileType detected = FileType.detect(Arrays.copyOf(head, headLength), declaredContentType);
+        if (detected == null) {
+            throw new UploadRejectedException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Upload is not a recognised file type");
+        }
+        if (!allowedContentTypes.contains(detected.getContentType())) {
+            throw new UploadRejectedException(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                String.format("Upload of type %s is not allowed", detected.getContentType()));
+        }
+        // some types are only candidates until the rest of the content has been seen
+        contentInspector = detected.newContentInspector();
+        if (contentInspector != null) {
+            contentInspector.inspect(head, 0, headLength);
+        }
+        return detected;
+    }
+}
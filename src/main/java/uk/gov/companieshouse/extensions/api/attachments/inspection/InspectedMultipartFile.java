@@ -0,0 +1,107 @@
+package uk.gov.companieshouse.extensions.api.attachments.inspection;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.springframework.util.StreamUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import uk.gov.companieshouse.extensions.api.attachments.Attachment;
+
+/**
+ * An upload whose content is inspected as it is read. The content can only be read once, which
+ * is what lets the inspection run in the same pass as the upload to the file-transfer-api.
+ */
+public class InspectedMultipartFile implements MultipartFile {
+
+    private final MultipartFile file;
+    private final List<UploadInspector> inspectors;
+    private InspectingInputStream inputStream;
+
+    InspectedMultipartFile(MultipartFile file, List<UploadInspector> inspectors) {
+        this.file = file;
+        this.inspectors = inspectors;
+    }
+
+    @Override
+    public String getName() {
+        return file.getName();
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return file.getOriginalFilename();
+    }
+
+    /**
+     * @return the content type sent by the client, which has not been checked
+     */
+    @Override
+    public String getContentType() {
+        return file.getContentType();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return file.isEmpty();
+    }
+
+    /**
+     * @return the size sent by the client, which has not been checked
+     */
+    @Override
+    public long getSize() {
+        return file.getSize();
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StreamUtils.copy(getInputStream(), bytes);
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public synchronized InputStream getInputStream() throws IOException {
+        if (inputStream != null) {
+            throw new IllegalStateException("Upload content has already been read: " + getOriginalFilename());
+        }
+        inputStream = new InspectingInputStream(file.getInputStream(), inspectors);
+        return inputStream;
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        try (InputStream in = getInputStream(); FileOutputStream out = new FileOutputStream(dest)) {
+            StreamUtils.copy(in, out);
+        }
+    }
+
+    /**
+     * @return the reason the upload was rejected while it was read, null if it has not been
+     */
+    public synchronized UploadRejectedException getRejection() {
+        return inputStream == null ? null : inputStream.getRejection();
+    }
+
+    /**
+     * Finishes the inspection, reading any content that has not been read yet, and records the
+     * results on the attachment.
+     * @throws UploadRejectedException if the upload is rejected
+     */
+    public void complete(Attachment attachment) throws IOException {
+        InspectingInputStream stream;
+        synchronized (this) {
+            stream = inputStream == null ? (InspectingInputStream) getInputStream() : inputStream;
+        }
+        try {
+            stream.complete(attachment);
+        } finally {
+            stream.close();
+        }
+    }
+}
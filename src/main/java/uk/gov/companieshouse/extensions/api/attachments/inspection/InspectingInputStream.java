@@ -0,0 +1,86 @@
+package uk.gov.companieshouse.extensions.api.attachments.inspection;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import uk.gov.companieshouse.extensions.api.attachments.Attachment;
+
+/**
+ * Passes each chunk read from an upload through the inspectors before handing it on. The first
+ * rejection is remembered and thrown from every later read.
+ */
+class InspectingInputStream extends FilterInputStream {
+
+    private static final int DRAIN_BUFFER_SIZE = 8192;
+
+    private final List<UploadInspector> inspectors;
+    private UploadRejectedException rejection;
+
+    InspectingInputStream(InputStream in, List<UploadInspector> inspectors) {
+        super(in);
+        this.inspectors = inspectors;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return read == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (rejection != null) {
+            throw rejection;
+        }
+        int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            try {
+                for (UploadInspector inspector : inspectors) {
+                    inspector.inspect(buffer, offset, read);
+                }
+            } catch (UploadRejectedException e) {
+                rejection = e;
+                throw e;
+            }
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // skipped bytes would not be inspected
+        byte[] buffer = new byte[(int) Math.min(n, DRAIN_BUFFER_SIZE)];
+        int read = read(buffer, 0, buffer.length);
+        return Math.max(read, 0);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    UploadRejectedException getRejection() {
+        return rejection;
+    }
+
+    /**
+     * Reads whatever the upstream call left unread, then lets each inspector record its result.
+     */
+    void complete(Attachment attachment) throws IOException {
+        byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+        while (read(buffer, 0, buffer.length) != -1) {
+            // inspected as it is read
+        }
+        try {
+            for (UploadInspector inspector : inspectors) {
+                inspector.complete(attachment);
+            }
+        } catch (UploadRejectedException e) {
+            rejection = e;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package uk.gov.companieshouse.extensions.api.attachments.inspection;
+
+import org.springframework.http.HttpStatus;
+
+import uk.gov.companieshouse.extensions.api.attachments.Attachment;
+
+/**
+ * Checks that the whole of a text upload is plain text. Control characters, which mark binary
+ * content, and markup tags, which a browser could render as HTML, SVG or script, reject it. A
+ * tag is taken to be a {@code <} followed by a letter, {@code /}, {@code !} or {@code ?}.
+ */
+class PlainTextInspector implements UploadInspector {
+
+    private int previous = -1;
+
+    @Override
+    public void inspect(byte[] buffer, int offset, int length) throws UploadRejectedException {
+        for (int i = offset; i < offset + length; i++) {
+            int value = buffer[i] & 0xff;
+            if (isControl(value)) {
+                throw reject("Upload is not plain text");
+            }
+            if (previous == '<' && startsTag(value)) {
+                throw reject("Upload of text containing markup is not allowed");
+            }
+            previous = value;
+        }
+    }
+
+    @Override
+    public void complete(Attachment attachment) {
+        // everything is checked as it is read
+    }
+
+    static boolean isControl(int value) {
+        boolean whitespace = value == '\t' || value == '\n' || value == '\r' || value == '\f';
+        return (value < 0x20 && !whitespace) || value == 0x7f;
+    }
+
+    private static boolean startsTag(int value) {
+        return (value >= 'a' && value <= 'z') || (value >= 'A' && value <= 'Z')
+            || value == '/' || value == '!' || value == '?';
+    }
+
+    private static UploadRejectedException reject(String message) {
+        return new UploadRejectedException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, message);
+    }
+}
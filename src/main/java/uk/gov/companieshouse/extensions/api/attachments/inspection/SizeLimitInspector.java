@@ -0,0 +1,33 @@
+package uk.gov.companieshouse.extensions.api.attachments.inspection;
+
+import org.springframework.http.HttpStatus;
+
+import uk.gov.companieshouse.extensions.api.attachments.Attachment;
+
+/**
+ * Counts the bytes actually uploaded, rather than trusting the size sent by the client, and
+ * stops the upload as soon as it goes over the limit.
+ */
+public class SizeLimitInspector implements UploadInspector {
+
+    private final long maxBytes;
+    private long size;
+
+    public SizeLimitInspector(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public void inspect(byte[] buffer, int offset, int length) throws UploadRejectedException {
+        size += length;
+        if (size > maxBytes) {
+            throw new UploadRejectedException(HttpStatus.PAYLOAD_TOO_LARGE,
+                String.format("Upload is larger than the limit of %d bytes", maxBytes));
+        }
+    }
+
+    @Override
+    public void complete(Attachment attachment) {
+        attachment.setSize(size);
+    }
+}
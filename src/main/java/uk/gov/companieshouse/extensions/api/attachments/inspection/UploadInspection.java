@@ -0,0 +1,32 @@
+package uk.gov.companieshouse.extensions.api.attachments.inspection;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * The inspections every upload goes through. Each {@link UploadInspectorFactory} bean adds one.
+ */
+@Component
+public class UploadInspection {
+
+    private final List<UploadInspectorFactory> inspectorFactories;
+
+    @Autowired
+    public UploadInspection(List<UploadInspectorFactory> inspectorFactories) {
+        this.inspectorFactories = inspectorFactories;
+    }
+
+    /**
+     * Wraps an upload so that it is inspected as its content is read.
+     */
+    public InspectedMultipartFile inspect(MultipartFile file) {
+        List<UploadInspector> inspectors = inspectorFactories.stream()
+            .map(factory -> factory.create(file))
+            .collect(Collectors.toList());
+        return new InspectedMultipartFile(file, inspectors);
+    }
+}
@@ -0,0 +1,24 @@
+package uk.gov.companieshouse.extensions.api.attachments.inspection;
+
+import uk.gov.companieshouse.extensions.api.attachments.Attachment;
+
+/**
+ * Checks one upload as its bytes are streamed to the file-transfer-api. An inspector sees each
+ * chunk once, in order, and must not hold on to the chunks, so that the upload is never buffered
+ * in full. Throwing from {@link #inspect} aborts the upload.
+ */
+public interface UploadInspector {
+
+    /**
+     * Called with each chunk of the upload as it is read.
+     * @throws UploadRejectedException if the upload should go no further
+     */
+    void inspect(byte[] buffer, int offset, int length) throws UploadRejectedException;
+
+    /**
+     * Called once the whole upload has been read, to reject it or to record what was found on
+     * the attachment.
+     * @throws UploadRejectedException if the upload should not be kept
+     */
+    void complete(Attachment attachment) throws UploadRejectedException;
+}
@@ -0,0 +1,13 @@
+package uk.gov.companieshouse.extensions.api.attachments.inspection;
+
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Creates the inspector for each upload. Every factory bean is added to the inspection pipeline,
+ * in bean order.
+ */
+@FunctionalInterface
+public interface UploadInspectorFactory {
+
+    UploadInspector create(MultipartFile file);
+}
@@ -0,0 +1,23 @@
+package uk.gov.companieshouse.extensions.api.attachments.inspection;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when an inspector rejects an upload. It is an {@link IOException} so that it can be
+ * thrown from the stream being sent upstream, which stops the upload part way through.
+ */
+public class UploadRejectedException extends IOException {
+
+    private final HttpStatus status;
+
+    public UploadRejectedException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
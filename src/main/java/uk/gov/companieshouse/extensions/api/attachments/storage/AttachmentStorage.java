@@ -0,0 +1,37 @@
+package uk.gov.companieshouse.extensions.api.attachments.storage;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import uk.gov.companieshouse.extensions.api.attachments.file.FileTransferApiClientResponse;
+
+/**
+ * Where attachment files are stored. Each operation reports its outcome as an http status in
+ * the same way as the file-transfer-api, which is the default implementation.
+ */
+public interface AttachmentStorage {
+
+    /**
+     * Stores a file, reading its content once.
+     * @return the id of the stored file if successful, and the status
+     */
+    FileTransferApiClientResponse upload(MultipartFile fileToUpload);
+
+    /**
+     * Streams a stored file to the response, with its content type, length and disposition.
+     * @return the status
+     */
+    FileTransferApiClientResponse download(String fileId, HttpServletResponse httpServletResponse);
+
+    /**
+     * @return the status, which is an error status if the file could not be deleted
+     */
+    FileTransferApiClientResponse delete(String fileId);
+
+    /**
+     * Checks whether a file is stored without reading it.
+     * @return OK if the file is stored, NOT_FOUND if it is not
+     */
+    FileTransferApiClientResponse head(String fileId);
+}
@@ -0,0 +1,201 @@
+package uk.gov.companieshouse.extensions.api.attachments.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.multipart.MultipartFile;
+
+import uk.gov.companieshouse.extensions.api.attachments.file.FileTransferApiClientResponse;
+import uk.gov.companieshouse.extensions.api.attachments.inspection.FileType;
+import uk.gov.companieshouse.extensions.api.attachments.inspection.FileTypeInspector;
+
+/**
+ * Stores attachment files in a local directory, for running without the file-transfer-api, e.g.
+ * in performance tests. Each file is written under a temporary name and then renamed into place
+ * atomically, so a file that is visible is always complete. Its name and content type are kept
+ * in a properties file alongside it. The content type is detected from the stored content in the
+ * same way as the upload inspection does, rather than taken from the client.
+ */
+public class LocalAttachmentStorage implements AttachmentStorage {
+
+    private static final String TEMP_DIRECTORY = ".incoming";
+    private static final String METADATA_SUFFIX = ".properties";
+    private static final String FILE_NAME = "fileName";
+    private static final String CONTENT_TYPE = "contentType";
+    private static final String INVALID_ID = "invalid";
+    private static final long TRANSFER_CHUNK_BYTES = 8L * 1024 * 1024;
+
+    private final Path root;
+    private final Path incoming;
+    private final Supplier<String> randomUUid;
+
+    public LocalAttachmentStorage(Path root, Supplier<String> randomUUid) {
+        this.root = root;
+        this.randomUUid = randomUUid;
+        this.incoming = root.resolve(TEMP_DIRECTORY);
+        try {
+            Files.createDirectories(incoming);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @throws UncheckedIOException if the content cannot be read or written, which includes an
+     *     upload being rejected part way through
+     */
+    @Override
+    public FileTransferApiClientResponse upload(MultipartFile fileToUpload) {
+        String fileId = randomUUid.get();
+        Path tempContent = incoming.resolve(fileId);
+        Path tempMetadata = incoming.resolve(fileId + METADATA_SUFFIX);
+        try {
+            try (InputStream content = fileToUpload.getInputStream();
+                 ReadableByteChannel source = Channels.newChannel(content);
+                 FileChannel target = FileChannel.open(tempContent, StandardOpenOption.CREATE_NEW,
+                     StandardOpenOption.WRITE)) {
+                long position = 0;
+                long transferred;
+                while ((transferred = target.transferFrom(source, position, TRANSFER_CHUNK_BYTES)) > 0) {
+                    position += transferred;
+                }
+            }
+            Properties metadata = new Properties();
+            metadata.setProperty(FILE_NAME, String.valueOf(fileToUpload.getOriginalFilename()));
+            FileType fileType = detectFileType(tempContent, fileToUpload.getContentType());
+            if (fileType != null) {
+                metadata.setProperty(CONTENT_TYPE, fileType.getContentType());
+            }
+            try (OutputStream out = Files.newOutputStream(tempMetadata)) {
+                metadata.store(out, null);
+            }
+            // the metadata is moved first, so that the content is only visible once it has metadata
+            Files.move(tempMetadata, metadataPath(fileId), StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tempContent, contentPath(fileId), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(tempContent);
+            deleteQuietly(tempMetadata);
+            deleteQuietly(metadataPath(fileId));
+            throw new UncheckedIOException(e);
+        }
+        FileTransferApiClientResponse response = new FileTransferApiClientResponse();
+        response.setFileId(fileId);
+        response.setHttpStatus(HttpStatus.OK);
+        return response;
+    }
+
+    @Override
+    public FileTransferApiClientResponse download(String fileId, HttpServletResponse httpServletResponse) {
+        Path content = contentPath(fileId);
+        if (!Files.isRegularFile(content)) {
+            return response(HttpStatus.NOT_FOUND);
+        }
+        try (FileChannel source = FileChannel.open(content, StandardOpenOption.READ)) {
+            Properties metadata = readMetadata(fileId);
+            long size = source.size();
+            String contentType = metadata.getProperty(CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            httpServletResponse.setHeader(HttpHeaders.CONTENT_TYPE, contentType);
+            httpServletResponse.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(size));
+            httpServletResponse.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.builder("attachment")
+                .filename(metadata.getProperty(FILE_NAME, fileId)).build().toString());
+
+            WritableByteChannel target = Channels.newChannel(httpServletResponse.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += source.transferTo(position, size - position, target);
+            }
+            return response(HttpStatus.OK);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public FileTransferApiClientResponse delete(String fileId) {
+        try {
+            boolean deleted = Files.deleteIfExists(contentPath(fileId));
+            Files.deleteIfExists(metadataPath(fileId));
+            return response(deleted ? HttpStatus.NO_CONTENT : HttpStatus.NOT_FOUND);
+        } catch (IOException e) {
+            return response(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @Override
+    public FileTransferApiClientResponse head(String fileId) {
+        return response(Files.isRegularFile(contentPath(fileId)) ? HttpStatus.OK : HttpStatus.NOT_FOUND);
+    }
+
+    private Path contentPath(String fileId) {
+        return root.resolve(validId(fileId));
+    }
+
+    private Path metadataPath(String fileId) {
+        return root.resolve(validId(fileId) + METADATA_SUFFIX);
+    }
+
+    private String validId(String fileId) {
+        // ids are generated here, so anything else could be an attempt to reach another path
+        try {
+            return UUID.fromString(fileId).toString();
+        } catch (IllegalArgumentException e) {
+            return INVALID_ID;
+        }
+    }
+
+    private FileType detectFileType(Path content, String declaredContentType) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(FileTypeInspector.HEAD_LENGTH);
+        try (FileChannel source = FileChannel.open(content, StandardOpenOption.READ)) {
+            while (head.hasRemaining() && source.read(head) != -1) {
+                // until the head is full or the content ends
+            }
+        }
+        return FileType.detect(Arrays.copyOf(head.array(), head.position()), declaredContentType);
+    }
+
+    private Properties readMetadata(String fileId) throws IOException {
+        Properties metadata = new Properties();
+        Path path = metadataPath(fileId);
+        if (Files.exists(path)) {
+            try (InputStream in = Files.newInputStream(path)) {
+                metadata.load(in);
+            }
+        }
+        return metadata;
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // a temporary file left behind is never read, as ids are not reused
+        }
+    }
+
+    private FileTransferApiClientResponse response(HttpStatus status) {
+        FileTransferApiClientResponse response = new FileTransferApiClientResponse();
+        response.setHttpStatus(status);
+        return response;
+    }
+}
@@ -0,0 +1,137 @@
+package uk.gov.companieshouse.extensions.api.attachments.upload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local disk storage for the chunks of resumable uploads, one directory per session. Each chunk
+ * is written to a file of its own, so a chunk that loses a race to be appended to its session
+ * can be discarded without touching the chunks that were accepted. When the service runs on
+ * more than one node, UPLOAD_SPOOL_DIR should be a volume they share.
+ */
+@Component
+public class ChunkSpool {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Path root;
+
+    @Autowired
+    public ChunkSpool(@Value("${UPLOAD_SPOOL_DIR:}") String spoolDir) {
+        this.root = StringUtils.isBlank(spoolDir)
+            ? Paths.get(System.getProperty("java.io.tmpdir"), "extensions-api-uploads")
+            : Paths.get(spoolDir);
+    }
+
+    /**
+     * Writes a chunk to disk.
+     * @param maxBytes the most the chunk may contain
+     * @throws UploadSessionException if the content is longer than maxBytes, in which case
+     *     nothing is kept
+     */
+    public UploadChunk write(String sessionId, long offset, InputStream content, long maxBytes)
+            throws IOException, UploadSessionException {
+        Path directory = Files.createDirectories(root.resolve(sessionId));
+        String fileName = offset + "-" + UUID.randomUUID() + ".part";
+        Path file = directory.resolve(fileName);
+        long length = 0;
+        try (OutputStream out = Files.newOutputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                length += read;
+                if (length > maxBytes) {
+                    throw new UploadSessionException(HttpStatus.PAYLOAD_TOO_LARGE,
+                        String.format("Chunk at offset %d is longer than %d bytes", offset, maxBytes));
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | UploadSessionException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        UploadChunk chunk = new UploadChunk();
+        chunk.setFileName(fileName);
+        chunk.setOffset(offset);
+        chunk.setLength(length);
+        return chunk;
+    }
+
+    public void discard(String sessionId, UploadChunk chunk) throws IOException {
+        Files.deleteIfExists(root.resolve(sessionId).resolve(chunk.getFileName()));
+    }
+
+    /**
+     * @return the content of the chunks, in order, read from one file at a time
+     */
+    public InputStream open(String sessionId, List<UploadChunk> chunks) {
+        Path directory = root.resolve(sessionId);
+        Iterator<UploadChunk> remaining = chunks.iterator();
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            @Override
+            public boolean hasMoreElements() {
+                return remaining.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return Files.newInputStream(directory.resolve(remaining.next().getFileName()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    public void delete(String sessionId) throws IOException {
+        Path directory = root.resolve(sessionId);
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * @return the ids of the sessions with chunks on disk that have not changed since the cutoff
+     */
+    public List<String> findSessionsUnchangedSince(Instant cutoff) throws IOException {
+        List<String> sessionIds = new ArrayList<>();
+        if (!Files.exists(root)) {
+            return sessionIds;
+        }
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path directory : directories) {
+                if (Files.getLastModifiedTime(directory).toInstant().isBefore(cutoff)) {
+                    sessionIds.add(directory.getFileName().toString());
+                }
+            }
+        }
+        return sessionIds;
+    }
+}
@@ -0,0 +1,39 @@
+package uk.gov.companieshouse.extensions.api.attachments.upload;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class CreateUploadSession {
+
+    @JsonProperty("file_name")
+    private String fileName;
+
+    @JsonProperty("content_type")
+    private String contentType;
+
+    @JsonProperty("length")
+    private long length;
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public void setLength(long length) {
+        this.length = length;
+    }
+}
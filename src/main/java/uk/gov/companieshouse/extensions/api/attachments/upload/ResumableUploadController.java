@@ -0,0 +1,155 @@
+package uk.gov.companieshouse.extensions.api.attachments.upload;
+
+import java.io.IOException;
+import java.net.URI;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import uk.gov.companieshouse.extensions.api.attachments.AttachmentDTO;
+import uk.gov.companieshouse.extensions.api.attachments.inspection.UploadRejectedException;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+import uk.gov.companieshouse.extensions.api.logger.LogMethodCall;
+import uk.gov.companieshouse.service.ServiceException;
+import uk.gov.companieshouse.service.ServiceResult;
+import uk.gov.companieshouse.service.rest.response.ChResponseBody;
+import uk.gov.companieshouse.service.rest.response.PluggableResponseEntityFactory;
+
+/**
+ * Resumable uploads: create a session, PUT the file in chunks with an Upload-Offset header,
+ * then POST to complete it. The current offset is returned in the Upload-Offset header of every
+ * response, so a client can resume from it after a failure.
+ */
+@RestController
+@RequestMapping("/company/{companyNumber}/extensions/requests/{requestId}/reasons/{reasonId}/attachments/uploads")
+public class ResumableUploadController {
+
+    static final String UPLOAD_OFFSET = "Upload-Offset";
+
+    private static final String UPLOADS_PATH = "/uploads";
+
+    private final PluggableResponseEntityFactory responseEntityFactory;
+    private final ResumableUploadService resumableUploadService;
+    private final ApiLogger logger;
+
+    @Autowired
+    public ResumableUploadController(PluggableResponseEntityFactory responseEntityFactory,
+                                     ResumableUploadService resumableUploadService, ApiLogger logger) {
+        this.responseEntityFactory = responseEntityFactory;
+        this.resumableUploadService = resumableUploadService;
+        this.logger = logger;
+    }
+
+    @LogMethodCall
+    @PostMapping
+    public ResponseEntity<UploadSessionDTO> createUploadSession(@RequestBody CreateUploadSession createUploadSession,
+            @PathVariable String requestId, @PathVariable String reasonId, HttpServletRequest servletRequest) {
+        try {
+            UploadSession session = resumableUploadService.createSession(createUploadSession, requestId, reasonId);
+            return ResponseEntity.created(URI.create(servletRequest.getRequestURI() + "/" + session.getId()))
+                .header(UPLOAD_OFFSET, String.valueOf(session.getOffset()))
+                .body(new UploadSessionDTO(session));
+        } catch(UploadSessionException e) {
+            return sessionError(e);
+        } catch(ServiceException e) {
+            logger.info(e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @LogMethodCall
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<UploadSessionDTO> getUploadSession(@PathVariable String requestId,
+            @PathVariable String reasonId, @PathVariable String uploadId) {
+        try {
+            UploadSession session = resumableUploadService.getSession(uploadId, requestId, reasonId);
+            return ResponseEntity.ok()
+                .header(UPLOAD_OFFSET, String.valueOf(session.getOffset()))
+                .body(new UploadSessionDTO(session));
+        } catch(ServiceException e) {
+            logger.info(e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @LogMethodCall
+    @PutMapping("/{uploadId}")
+    public ResponseEntity<Void> uploadChunk(@PathVariable String requestId, @PathVariable String reasonId,
+            @PathVariable String uploadId, @RequestHeader(UPLOAD_OFFSET) long offset,
+            HttpServletRequest servletRequest) {
+        try {
+            long nextOffset = resumableUploadService.appendChunk(uploadId, requestId, reasonId, offset,
+                servletRequest.getInputStream());
+            return ResponseEntity.noContent().header(UPLOAD_OFFSET, String.valueOf(nextOffset)).build();
+        } catch(UploadSessionException e) {
+            return sessionError(e);
+        } catch(ServiceException e) {
+            logger.info(e.getMessage());
+            return ResponseEntity.notFound().build();
+        } catch(IOException e) {
+            logger.error(String.format("Unable to receive chunk of upload %s at offset %d", uploadId, offset), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @LogMethodCall
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<ChResponseBody<AttachmentDTO>> completeUpload(@PathVariable String requestId,
+            @PathVariable String reasonId, @PathVariable String uploadId, HttpServletRequest servletRequest) {
+        String requestUri = servletRequest.getRequestURI();
+        String attachmentsUri = requestUri.substring(0, requestUri.lastIndexOf(UPLOADS_PATH));
+        try {
+            ServiceResult<AttachmentDTO> result = resumableUploadService.complete(uploadId, requestId,
+                reasonId, attachmentsUri);
+            return responseEntityFactory.createResponse(result);
+        } catch(UploadSessionException e) {
+            return sessionError(e);
+        } catch(UploadRejectedException e) {
+            logger.info(String.format("Upload %s rejected: %s", uploadId, e.getMessage()));
+            return ResponseEntity.status(e.getStatus()).build();
+        } catch(ServiceException e) {
+            logger.error(e);
+            return responseEntityFactory.createResponse(ServiceResult.notFound());
+        } catch(HttpClientErrorException | HttpServerErrorException e) {
+            logger.error(String.format("The file-transfer-api has returned an error for upload: %s",
+                uploadId), e);
+            return ResponseEntity.status(e.getStatusCode()).build();
+        }
+    }
+
+    @LogMethodCall
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> cancelUpload(@PathVariable String requestId, @PathVariable String reasonId,
+            @PathVariable String uploadId) {
+        try {
+            resumableUploadService.cancel(uploadId, requestId, reasonId);
+            return ResponseEntity.noContent().build();
+        } catch(ServiceException e) {
+            logger.info(e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    private <T> ResponseEntity<T> sessionError(UploadSessionException e) {
+        logger.info(e.getMessage());
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(e.getStatus());
+        if (e.getOffset() != null) {
+            response.header(UPLOAD_OFFSET, String.valueOf(e.getOffset()));
+        }
+        return response.build();
+    }
+}
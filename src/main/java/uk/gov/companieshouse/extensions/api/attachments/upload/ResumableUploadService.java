@@ -0,0 +1,226 @@
+package uk.gov.companieshouse.extensions.api.attachments.upload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import uk.gov.companieshouse.extensions.api.attachments.AttachmentDTO;
+import uk.gov.companieshouse.extensions.api.attachments.AttachmentsService;
+import uk.gov.companieshouse.extensions.api.attachments.inspection.UploadRejectedException;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+import uk.gov.companieshouse.extensions.api.logger.LogMethodCall;
+import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestFullEntity;
+import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestsRepository;
+import uk.gov.companieshouse.service.ServiceException;
+import uk.gov.companieshouse.service.ServiceResult;
+
+/**
+ * Resumable uploads of attachments. A client creates a session for a file of a known length,
+ * sends it in chunks at increasing offsets, resuming from the session's offset after a failure,
+ * and then completes the session, which stores the file as an attachment of the reason.
+ */
+@Service
+public class ResumableUploadService {
+
+    private final UploadSessionStore uploadSessionStore;
+    private final ChunkSpool chunkSpool;
+    private final AttachmentsService attachmentsService;
+    private final ExtensionRequestsRepository requestsRepo;
+    private final Supplier<String> randomUUid;
+    private final Supplier<LocalDateTime> dateTimeSupplierNow;
+    private final ApiLogger apiLogger;
+    private final long maxFileBytes;
+    private final long maxChunkBytes;
+    private final long expiryMinutes;
+
+    @Autowired
+    public ResumableUploadService(UploadSessionStore uploadSessionStore,
+                                  ChunkSpool chunkSpool,
+                                  AttachmentsService attachmentsService,
+                                  ExtensionRequestsRepository requestsRepo,
+                                  Supplier<String> randomUUid,
+                                  Supplier<LocalDateTime> dateTimeSupplierNow,
+                                  ApiLogger apiLogger,
+                                  @Value("${UPLOAD_MAX_FILE_SIZE:10MB}") String maxFileSize,
+                                  @Value("${UPLOAD_CHUNK_MAX_SIZE:5MB}") String maxChunkSize,
+                                  @Value("${UPLOAD_SESSION_EXPIRY_MINUTES:1440}") long expiryMinutes) {
+        this.uploadSessionStore = uploadSessionStore;
+        this.chunkSpool = chunkSpool;
+        this.attachmentsService = attachmentsService;
+        this.requestsRepo = requestsRepo;
+        this.randomUUid = randomUUid;
+        this.dateTimeSupplierNow = dateTimeSupplierNow;
+        this.apiLogger = apiLogger;
+        this.maxFileBytes = DataSize.parse(maxFileSize).toBytes();
+        this.maxChunkBytes = DataSize.parse(maxChunkSize).toBytes();
+        this.expiryMinutes = expiryMinutes;
+    }
+
+    @LogMethodCall
+    public UploadSession createSession(CreateUploadSession createUploadSession, String requestId,
+                                       String reasonId) throws ServiceException, UploadSessionException {
+        if (StringUtils.isBlank(createUploadSession.getFileName()) || createUploadSession.getLength() < 1) {
+            throw new UploadSessionException(HttpStatus.BAD_REQUEST,
+                "An upload needs a file name and a length of at least one byte");
+        }
+        if (createUploadSession.getLength() > maxFileBytes) {
+            throw new UploadSessionException(HttpStatus.PAYLOAD_TOO_LARGE,
+                String.format("Upload of %d bytes is larger than the limit of %d bytes",
+                    createUploadSession.getLength(), maxFileBytes));
+        }
+        ExtensionRequestFullEntity extension = requestsRepo.findById(requestId)
+            .orElseThrow(() -> new ServiceException(String.format("No request found with request id %s", requestId)));
+        if (!extension.mapToReason(reasonId).isPresent()) {
+            throw new ServiceException(String.format("Reason %s not found in Request %s", reasonId, requestId));
+        }
+
+        LocalDateTime now = dateTimeSupplierNow.get();
+        UploadSession session = new UploadSession();
+        session.setId(randomUUid.get());
+        session.setRequestId(requestId);
+        session.setReasonId(reasonId);
+        session.setFileName(createUploadSession.getFileName());
+        session.setContentType(createUploadSession.getContentType());
+        session.setLength(createUploadSession.getLength());
+        session.setCreatedOn(now);
+        session.setExpiresOn(now.plusMinutes(expiryMinutes));
+        uploadSessionStore.insert(session);
+        return session;
+    }
+
+    public UploadSession getSession(String uploadId, String requestId, String reasonId) throws ServiceException {
+        return uploadSessionStore.findById(uploadId)
+            .filter(session -> session.getRequestId().equals(requestId) && session.getReasonId().equals(reasonId))
+            .filter(session -> session.getExpiresOn().isAfter(dateTimeSupplierNow.get()))
+            .orElseThrow(() -> new ServiceException(String.format("Upload %s not found for reason %s",
+                uploadId, reasonId)));
+    }
+
+    /**
+     * Spools a chunk and appends it to the session.
+     * @param offset where the client says the chunk starts, which must be the session's offset
+     * @return the offset to send the next chunk from
+     */
+    @LogMethodCall
+    public long appendChunk(String uploadId, String requestId, String reasonId, long offset,
+                            InputStream content) throws ServiceException, UploadSessionException, IOException {
+        UploadSession session = getSession(uploadId, requestId, reasonId);
+        if (session.isCompleting()) {
+            throw new UploadSessionException(HttpStatus.CONFLICT,
+                String.format("Upload %s is being completed", uploadId), session.getOffset());
+        }
+        if (offset != session.getOffset()) {
+            throw new UploadSessionException(HttpStatus.CONFLICT,
+                String.format("Upload %s is at offset %d, not %d", uploadId, session.getOffset(), offset),
+                session.getOffset());
+        }
+
+        long remaining = session.getLength() - offset;
+        UploadChunk chunk = chunkSpool.write(uploadId, offset, content, Math.min(maxChunkBytes, remaining));
+        if (!uploadSessionStore.appendChunk(uploadId, chunk, dateTimeSupplierNow.get().plusMinutes(expiryMinutes))) {
+            // another chunk was appended at this offset first
+            chunkSpool.discard(uploadId, chunk);
+            long current = uploadSessionStore.findById(uploadId).map(UploadSession::getOffset).orElse(offset);
+            throw new UploadSessionException(HttpStatus.CONFLICT,
+                String.format("Upload %s is no longer at offset %d", uploadId, offset), current);
+        }
+        return offset + chunk.getLength();
+    }
+
+    /**
+     * Stores a fully received upload as an attachment of the reason and removes the session. If
+     * storing it fails for a reason that may not recur the session is kept, so that completing
+     * it can be retried without sending the file again.
+     */
+    @LogMethodCall
+    public ServiceResult<AttachmentDTO> complete(String uploadId, String requestId, String reasonId,
+                                                 String attachmentsUri)
+            throws ServiceException, UploadSessionException, UploadRejectedException {
+        UploadSession session = getSession(uploadId, requestId, reasonId);
+        if (session.getOffset() < session.getLength()) {
+            throw new UploadSessionException(HttpStatus.CONFLICT,
+                String.format("Upload %s has received %d of %d bytes", uploadId, session.getOffset(),
+                    session.getLength()), session.getOffset());
+        }
+        if (!uploadSessionStore.claimCompletion(session, dateTimeSupplierNow.get().plusMinutes(expiryMinutes))) {
+            throw new UploadSessionException(HttpStatus.CONFLICT,
+                String.format("Upload %s is already being completed", uploadId), session.getOffset());
+        }
+
+        ServiceResult<AttachmentDTO> result;
+        try {
+            result = attachmentsService.addAttachment(new SpooledMultipartFile(chunkSpool, session),
+                attachmentsUri, requestId, reasonId);
+        } catch (UploadRejectedException e) {
+            removeSession(uploadId);
+            throw e;
+        } catch (ServiceException | RuntimeException e) {
+            uploadSessionStore.releaseCompletion(uploadId);
+            throw e;
+        }
+        removeSession(uploadId);
+        return result;
+    }
+
+    @LogMethodCall
+    public void cancel(String uploadId, String requestId, String reasonId) throws ServiceException {
+        getSession(uploadId, requestId, reasonId);
+        removeSession(uploadId);
+    }
+
+    /**
+     * Removes expired sessions with their spooled chunks, then any chunks left on disk without a
+     * session, such as those of a node that stopped part way through a chunk.
+     * @return the number of sessions removed
+     */
+    public int removeExpiredSessions(int batchSize) {
+        LocalDateTime now = dateTimeSupplierNow.get();
+        int removed = 0;
+        List<String> expiredIds;
+        do {
+            expiredIds = uploadSessionStore.findExpiredIds(now, batchSize);
+            for (String expiredId : expiredIds) {
+                if (uploadSessionStore.removeIfExpired(expiredId, now)) {
+                    deleteChunks(expiredId);
+                    removed++;
+                }
+            }
+        } while (expiredIds.size() == batchSize);
+
+        try {
+            LocalDateTime cutoff = now.minusMinutes(expiryMinutes);
+            for (String sessionId : chunkSpool.findSessionsUnchangedSince(
+                    cutoff.atZone(ZoneId.systemDefault()).toInstant())) {
+                if (!uploadSessionStore.exists(sessionId)) {
+                    deleteChunks(sessionId);
+                }
+            }
+        } catch (IOException e) {
+            apiLogger.error("Unable to list spooled upload chunks", e);
+        }
+        return removed;
+    }
+
+    private void removeSession(String uploadId) {
+        uploadSessionStore.remove(uploadId);
+        deleteChunks(uploadId);
+    }
+
+    private void deleteChunks(String uploadId) {
+        try {
+            chunkSpool.delete(uploadId);
+        } catch (IOException e) {
+            apiLogger.error(String.format("Unable to delete spooled chunks of upload %s", uploadId), e);
+        }
+    }
+}
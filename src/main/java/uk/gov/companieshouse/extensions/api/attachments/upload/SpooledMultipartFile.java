@@ -0,0 +1,70 @@
+package uk.gov.companieshouse.extensions.api.attachments.upload;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.springframework.util.StreamUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * A fully received resumable upload, presented as a multipart file so that it goes through the
+ * same inspection and storage as any other upload. Its content is streamed from the spooled
+ * chunks each time it is read.
+ */
+class SpooledMultipartFile implements MultipartFile {
+
+    private final ChunkSpool chunkSpool;
+    private final UploadSession session;
+
+    SpooledMultipartFile(ChunkSpool chunkSpool, UploadSession session) {
+        this.chunkSpool = chunkSpool;
+        this.session = session;
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return session.getFileName();
+    }
+
+    @Override
+    public String getContentType() {
+        return session.getContentType();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return session.getLength() == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return session.getLength();
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        try (InputStream content = getInputStream()) {
+            return StreamUtils.copyToByteArray(content);
+        }
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return chunkSpool.open(session.getId(), session.getChunks());
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        try (InputStream content = getInputStream()) {
+            Files.copy(content, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
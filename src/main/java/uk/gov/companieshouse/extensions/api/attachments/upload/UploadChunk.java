@@ -0,0 +1,37 @@
+package uk.gov.companieshouse.extensions.api.attachments.upload;
+
+/**
+ * A chunk of a resumable upload, spooled to its own file.
+ */
+public class UploadChunk {
+
+    private String fileName;
+
+    private long offset;
+
+    private long length;
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public void setLength(long length) {
+        this.length = length;
+    }
+}
@@ -0,0 +1,130 @@
+package uk.gov.companieshouse.extensions.api.attachments.upload;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A resumable upload of a file for a reason. The chunks received so far are spooled to disk and
+ * listed here in order, and the offset is the number of bytes received. The session expires if
+ * no chunk is received for the expiry period.
+ */
+@Document(collection = "upload_sessions")
+public class UploadSession {
+
+    @Id
+    private String id;
+
+    private String requestId;
+
+    private String reasonId;
+
+    private String fileName;
+
+    private String contentType;
+
+    private long length;
+
+    private long offset;
+
+    private List<UploadChunk> chunks = new ArrayList<>();
+
+    private boolean completing;
+
+    private LocalDateTime createdOn;
+
+    @Indexed
+    private LocalDateTime expiresOn;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+
+    public String getReasonId() {
+        return reasonId;
+    }
+
+    public void setReasonId(String reasonId) {
+        this.reasonId = reasonId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public void setLength(long length) {
+        this.length = length;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public List<UploadChunk> getChunks() {
+        return chunks;
+    }
+
+    public void setChunks(List<UploadChunk> chunks) {
+        this.chunks = chunks;
+    }
+
+    public boolean isCompleting() {
+        return completing;
+    }
+
+    public void setCompleting(boolean completing) {
+        this.completing = completing;
+    }
+
+    public LocalDateTime getCreatedOn() {
+        return createdOn;
+    }
+
+    public void setCreatedOn(LocalDateTime createdOn) {
+        this.createdOn = createdOn;
+    }
+
+    public LocalDateTime getExpiresOn() {
+        return expiresOn;
+    }
+
+    public void setExpiresOn(LocalDateTime expiresOn) {
+        this.expiresOn = expiresOn;
+    }
+}
@@ -0,0 +1,39 @@
+package uk.gov.companieshouse.extensions.api.attachments.upload;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+/**
+ * Scheduled job that removes abandoned resumable uploads and their spooled chunks. Enabled unless
+ * UPLOAD_SESSION_CLEANUP_ENABLED is false.
+ */
+@Component
+@ConditionalOnProperty(name = "UPLOAD_SESSION_CLEANUP_ENABLED", havingValue = "true", matchIfMissing = true)
+public class UploadSessionCleanupJob {
+
+    private final ResumableUploadService resumableUploadService;
+    private final ApiLogger logger;
+    private final int batchSize;
+
+    @Autowired
+    public UploadSessionCleanupJob(ResumableUploadService resumableUploadService,
+                                   ApiLogger logger,
+                                   @Value("${UPLOAD_SESSION_CLEANUP_BATCH_SIZE:100}") int batchSize) {
+        this.resumableUploadService = resumableUploadService;
+        this.logger = logger;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${UPLOAD_SESSION_CLEANUP_INTERVAL_MS:600000}")
+    public void removeExpiredSessions() {
+        int removed = resumableUploadService.removeExpiredSessions(batchSize);
+        if (removed > 0) {
+            logger.info(String.format("Removed %d expired upload sessions", removed));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package uk.gov.companieshouse.extensions.api.attachments.upload;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class UploadSessionDTO {
+
+    @JsonProperty("id")
+    private final String id;
+
+    @JsonProperty("file_name")
+    private final String fileName;
+
+    @JsonProperty("content_type")
+    private final String contentType;
+
+    @JsonProperty("length")
+    private final long length;
+
+    @JsonProperty("offset")
+    private final long offset;
+
+    @JsonProperty("expires_on")
+    private final LocalDateTime expiresOn;
+
+    public UploadSessionDTO(UploadSession session) {
+        this.id = session.getId();
+        this.fileName = session.getFileName();
+        this.contentType = session.getContentType();
+        this.length = session.getLength();
+        this.offset = session.getOffset();
+        this.expiresOn = session.getExpiresOn();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public LocalDateTime getExpiresOn() {
+        return expiresOn;
+    }
+}
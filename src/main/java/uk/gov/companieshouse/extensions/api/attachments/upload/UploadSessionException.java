@@ -0,0 +1,31 @@
+package uk.gov.companieshouse.extensions.api.attachments.upload;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when a chunk or completion of a resumable upload cannot be accepted. The offset, when
+ * known, is where the client should resume from.
+ */
+public class UploadSessionException extends Exception {
+
+    private final HttpStatus status;
+    private final Long offset;
+
+    public UploadSessionException(HttpStatus status, String message) {
+        this(status, message, null);
+    }
+
+    public UploadSessionException(HttpStatus status, String message, Long offset) {
+        super(message);
+        this.status = status;
+        this.offset = offset;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public Long getOffset() {
+        return offset;
+    }
+}
@@ -0,0 +1,108 @@
+package uk.gov.companieshouse.extensions.api.attachments.upload;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Upload session documents. Every change that depends on the state of a session is made with a
+ * conditional update, so that two nodes handling the same session cannot both apply a chunk at
+ * the same offset or both complete it.
+ */
+@Component
+public class UploadSessionStore {
+
+    private static final String ID = "_id";
+    private static final String OFFSET = "offset";
+    private static final String CHUNKS = "chunks";
+    private static final String COMPLETING = "completing";
+    private static final String EXPIRES_ON = "expiresOn";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public UploadSessionStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public void insert(UploadSession session) {
+        mongoTemplate.insert(session);
+    }
+
+    public Optional<UploadSession> findById(String id) {
+        return Optional.ofNullable(mongoTemplate.findById(id, UploadSession.class));
+    }
+
+    /**
+     * Appends a chunk, provided that nothing else has been appended since the client last read
+     * the offset and the session is not being completed.
+     * @return false if the chunk was not appended
+     */
+    public boolean appendChunk(String id, UploadChunk chunk, LocalDateTime expiresOn) {
+        Query query = Query.query(Criteria.where(ID).is(id)
+            .and(OFFSET).is(chunk.getOffset())
+            .and(COMPLETING).is(false));
+        Update update = new Update()
+            .inc(OFFSET, chunk.getLength())
+            .push(CHUNKS, chunk)
+            .set(EXPIRES_ON, expiresOn);
+        return mongoTemplate.updateFirst(query, update, UploadSession.class).getModifiedCount() == 1;
+    }
+
+    /**
+     * Marks a fully received session as being completed, after which no more chunks are accepted.
+     * @return false if the session is not fully received or is already being completed
+     */
+    public boolean claimCompletion(UploadSession session, LocalDateTime expiresOn) {
+        Query query = Query.query(Criteria.where(ID).is(session.getId())
+            .and(OFFSET).is(session.getLength())
+            .and(COMPLETING).is(false));
+        Update update = new Update().set(COMPLETING, true).set(EXPIRES_ON, expiresOn);
+        return mongoTemplate.updateFirst(query, update, UploadSession.class).getModifiedCount() == 1;
+    }
+
+    /**
+     * Lets a session whose completion failed be completed again.
+     */
+    public void releaseCompletion(String id) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where(ID).is(id)),
+            new Update().set(COMPLETING, false), UploadSession.class);
+    }
+
+    public void remove(String id) {
+        mongoTemplate.remove(Query.query(Criteria.where(ID).is(id)), UploadSession.class);
+    }
+
+    public boolean exists(String id) {
+        return mongoTemplate.exists(Query.query(Criteria.where(ID).is(id)), UploadSession.class);
+    }
+
+    public List<String> findExpiredIds(LocalDateTime now, int limit) {
+        Query query = Query.query(Criteria.where(EXPIRES_ON).lt(now))
+            .with(Sort.by(Sort.Direction.ASC, EXPIRES_ON))
+            .limit(limit);
+        query.fields().include(ID);
+        return mongoTemplate.find(query, UploadSession.class).stream()
+            .map(UploadSession::getId)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Removes a session if it is still expired, so one that received a chunk since it was found
+     * is kept.
+     * @return true if the session was removed
+     */
+    public boolean removeIfExpired(String id, LocalDateTime now) {
+        Query query = Query.query(Criteria.where(ID).is(id).and(EXPIRES_ON).lt(now));
+        return mongoTemplate.remove(query, UploadSession.class).getDeletedCount() == 1;
+    }
+}
@@ -10,8 +10,11 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import uk.gov.companieshouse.extensions.api.deadline.DeadlineClientHttpRequestFactory;
+
 @Configuration
 public class ApplicationConfiguration {
 
@@ -54,8 +57,20 @@ public class ApplicationConfiguration {
         return () -> UUID.randomUUID().toString();
     }
 
+    /**
+     * Request bodies are streamed rather than buffered, so that uploads are sent on to the
+     * file-transfer-api as they are read instead of being held in memory first. The timeouts are
+     * shortened further to fit the deadline of the request a call is made for.
+     */
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder.build();
+    public RestTemplate restTemplate(RestTemplateBuilder builder,
+            @Value("${FILE_TRANSFER_API_CONNECT_TIMEOUT_MS:5000}") int connectTimeoutMs,
+            @Value("${FILE_TRANSFER_API_READ_TIMEOUT_MS:60000}") int readTimeoutMs) {
+        return builder.requestFactory(() -> {
+            SimpleClientHttpRequestFactory requestFactory =
+                new DeadlineClientHttpRequestFactory(connectTimeoutMs, readTimeoutMs);
+            requestFactory.setBufferRequestBody(false);
+            return requestFactory;
+        }).build();
     }
 }
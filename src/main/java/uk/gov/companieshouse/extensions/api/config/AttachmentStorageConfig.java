@@ -0,0 +1,33 @@
+package uk.gov.companieshouse.extensions.api.config;
+
+import java.nio.file.Paths;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import uk.gov.companieshouse.extensions.api.attachments.storage.AttachmentStorage;
+import uk.gov.companieshouse.extensions.api.attachments.storage.LocalAttachmentStorage;
+
+/**
+ * Attachments are stored in the file-transfer-api unless ATTACHMENT_STORAGE is local, in which
+ * case they are stored in ATTACHMENT_STORAGE_LOCAL_DIR on this node.
+ */
+@Configuration
+public class AttachmentStorageConfig {
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "ATTACHMENT_STORAGE", havingValue = "local")
+    public AttachmentStorage localAttachmentStorage(
+            @Value("${ATTACHMENT_STORAGE_LOCAL_DIR:}") String directory,
+            Supplier<String> randomUUID) {
+        return new LocalAttachmentStorage(StringUtils.isBlank(directory)
+            ? Paths.get(System.getProperty("java.io.tmpdir"), "extensions-api-attachments")
+            : Paths.get(directory), randomUUID);
+    }
+}
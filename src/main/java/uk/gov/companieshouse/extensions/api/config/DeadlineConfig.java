@@ -0,0 +1,36 @@
+package uk.gov.companieshouse.extensions.api.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import uk.gov.companieshouse.extensions.api.deadline.DeadlineFilter;
+import uk.gov.companieshouse.extensions.api.isolation.RequestClass;
+
+/**
+ * Request deadlines. The defaults should be a little shorter than the router's timeouts, so that
+ * work stops at about the time the router gives up on the response.
+ */
+@Configuration
+public class DeadlineConfig {
+
+    @Bean
+    public FilterRegistrationBean<DeadlineFilter> deadlineFilter(
+            @Value("${REQUEST_DEADLINE_API_MS:10000}") long apiTimeoutMs,
+            @Value("${REQUEST_DEADLINE_TRANSFER_MS:120000}") long transferTimeoutMs) {
+        Map<RequestClass, Long> defaultTimeouts = new EnumMap<>(RequestClass.class);
+        defaultTimeouts.put(RequestClass.API, apiTimeoutMs);
+        defaultTimeouts.put(RequestClass.TRANSFER, transferTimeoutMs);
+        FilterRegistrationBean<DeadlineFilter> registration =
+            new FilterRegistrationBean<>(new DeadlineFilter(defaultTimeouts));
+        registration.addUrlPatterns("/company/*", "/extensions/*");
+        // first, so that time spent waiting in the bulkheads counts against the deadline
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,35 @@
+package uk.gov.companieshouse.extensions.api.config;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import uk.gov.companieshouse.extensions.api.attachments.download.DownloadUrlSigner;
+import uk.gov.companieshouse.extensions.api.attachments.download.HmacDownloadUrlSigner;
+
+/**
+ * Downloads are proxied through this API unless ATTACHMENT_DOWNLOAD_MODE is redirect, in which
+ * case clients are redirected to a signed URL. The HMAC signed URLs are served by this API at
+ * /extensions/downloads, so DOWNLOAD_SIGNED_URL_BASE must be the public URL of that path, and
+ * DOWNLOAD_SIGNING_KEY must be set. The HMAC signer is replaced by defining another
+ * DownloadUrlSigner bean, e.g. one for a storage provider's own signed URLs.
+ */
+@Configuration
+public class DownloadConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(DownloadUrlSigner.class)
+    @ConditionalOnProperty(name = "ATTACHMENT_DOWNLOAD_MODE", havingValue = "redirect")
+    public HmacDownloadUrlSigner downloadUrlSigner(
+            @Value("${DOWNLOAD_SIGNED_URL_BASE}") String baseUrl,
+            @Value("${DOWNLOAD_SIGNING_KEY}") String signingKey,
+            @Value("${DOWNLOAD_SIGNED_URL_TTL_SECONDS:60}") long ttlSeconds,
+            Supplier<LocalDateTime> dateTimeSupplierNow) {
+        return new HmacDownloadUrlSigner(baseUrl, signingKey, ttlSeconds, dateTimeSupplierNow);
+    }
+}
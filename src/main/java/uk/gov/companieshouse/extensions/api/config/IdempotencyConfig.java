@@ -0,0 +1,31 @@
+package uk.gov.companieshouse.extensions.api.config;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import uk.gov.companieshouse.extensions.api.idempotency.IdempotencyFilter;
+import uk.gov.companieshouse.extensions.api.idempotency.IdempotencyRecordRepository;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+@Configuration
+public class IdempotencyConfig {
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(
+            IdempotencyRecordRepository idempotencyRecordRepository,
+            Supplier<LocalDateTime> dateTimeSupplierNow,
+            Supplier<String> randomUUID,
+            @Value("${IDEMPOTENCY_PENDING_SECONDS:300}") long pendingSeconds,
+            ApiLogger logger) {
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(
+            new IdempotencyFilter(idempotencyRecordRepository, dateTimeSupplierNow, randomUUID,
+                pendingSeconds, logger));
+        registration.addUrlPatterns("/company/*");
+        return registration;
+    }
+}
@@ -14,6 +14,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import uk.gov.companieshouse.extensions.api.authorization.CompanyAuthorizationInterceptor;
 import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
 import uk.gov.companieshouse.extensions.api.logger.RequestLoggerInterceptor;
+import uk.gov.companieshouse.extensions.api.routing.ReadRoutingInterceptor;
 
 @Configuration
 public class InterceptorConfig implements WebMvcConfigurer {
@@ -31,9 +32,15 @@ public class InterceptorConfig implements WebMvcConfigurer {
         return new CompanyAuthorizationInterceptor(logger);
     }
 
+    @Bean
+    public ReadRoutingInterceptor readRoutingInterceptor() {
+        return new ReadRoutingInterceptor();
+    }
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(requestLoggerInterceptor());
+        registry.addInterceptor(readRoutingInterceptor());
         registry.addInterceptor(companyInterceptor(logger))
             .addPathPatterns("/**/attachments/**");
     }
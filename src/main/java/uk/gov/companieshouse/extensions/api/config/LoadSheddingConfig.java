@@ -0,0 +1,52 @@
+package uk.gov.companieshouse.extensions.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import uk.gov.companieshouse.extensions.api.isolation.AdaptiveLimiter;
+import uk.gov.companieshouse.extensions.api.isolation.AdaptiveLimiterMetrics;
+import uk.gov.companieshouse.extensions.api.isolation.LoadSheddingFilter;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+/**
+ * Adaptive load shedding, ahead of the fixed bulkheads. The target latency should be well within
+ * the router's timeout for the JSON endpoints. Off unless LOAD_SHEDDING_ENABLED is true.
+ */
+@Configuration
+@ConditionalOnProperty(name = "LOAD_SHEDDING_ENABLED", havingValue = "true")
+public class LoadSheddingConfig {
+
+    @Bean
+    public AdaptiveLimiter adaptiveLimiter(
+            @Value("${LOAD_SHEDDING_INITIAL_LIMIT:100}") int initialLimit,
+            @Value("${LOAD_SHEDDING_MIN_LIMIT:10}") int minLimit,
+            @Value("${LOAD_SHEDDING_MAX_LIMIT:300}") int maxLimit,
+            @Value("${LOAD_SHEDDING_TARGET_LATENCY_MS:1000}") long targetLatencyMs,
+            @Value("${LOAD_SHEDDING_BACKOFF_RATIO:0.9}") double backoffRatio,
+            @Value("${LOAD_SHEDDING_TRANSFER_SHARE:0.5}") double transferShare) {
+        return new AdaptiveLimiter(initialLimit, minLimit, maxLimit, targetLatencyMs, backoffRatio,
+            transferShare);
+    }
+
+    @Bean
+    public FilterRegistrationBean<LoadSheddingFilter> loadSheddingFilter(AdaptiveLimiter adaptiveLimiter,
+            @Value("${REQUEST_SHED_RETRY_AFTER_SECONDS:1}") long retryAfterSeconds,
+            ApiLogger logger) {
+        FilterRegistrationBean<LoadSheddingFilter> registration = new FilterRegistrationBean<>(
+            new LoadSheddingFilter(adaptiveLimiter, retryAfterSeconds, System::currentTimeMillis,
+                System::nanoTime, logger));
+        registration.addUrlPatterns("/company/*", "/extensions/*");
+        // straight after the deadline is set, so that excess requests are turned away first
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    @Bean
+    public AdaptiveLimiterMetrics adaptiveLimiterMetrics(AdaptiveLimiter adaptiveLimiter) {
+        return new AdaptiveLimiterMetrics(adaptiveLimiter);
+    }
+}
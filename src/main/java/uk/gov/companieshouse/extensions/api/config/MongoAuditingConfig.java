@@ -0,0 +1,13 @@
+package uk.gov.companieshouse.extensions.api.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.config.EnableMongoAuditing;
+
+/**
+ * Populates the auditing fields, e.g. the last modified date of a request, whenever an entity
+ * is saved.
+ */
+@Configuration
+@EnableMongoAuditing
+public class MongoAuditingConfig {
+}
@@ -0,0 +1,72 @@
+package uk.gov.companieshouse.extensions.api.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import uk.gov.companieshouse.extensions.api.isolation.RequestClass;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+import uk.gov.companieshouse.extensions.api.ratelimit.LocalRateLimiter;
+import uk.gov.companieshouse.extensions.api.ratelimit.MongoRateLimiter;
+import uk.gov.companieshouse.extensions.api.ratelimit.RateLimit;
+import uk.gov.companieshouse.extensions.api.ratelimit.RateLimitFilter;
+import uk.gov.companieshouse.extensions.api.ratelimit.RateLimiter;
+
+/**
+ * Rate limits per user and per company. Each node keeps its own buckets unless RATE_LIMIT_MODE
+ * is mongo, in which case the buckets are shared, at the cost of a read and a write to Mongo for
+ * every limited request. Off unless RATE_LIMIT_ENABLED is true.
+ */
+@Configuration
+@ConditionalOnProperty(name = "RATE_LIMIT_ENABLED", havingValue = "true")
+public class RateLimitConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "RATE_LIMIT_MODE", havingValue = "mongo")
+    public RateLimiter mongoRateLimiter(MongoTemplate mongoTemplate) {
+        return new MongoRateLimiter(mongoTemplate, System::currentTimeMillis);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(RateLimiter.class)
+    public RateLimiter localRateLimiter(
+            @Value("${RATE_LIMIT_STRIPES:64}") int stripes,
+            @Value("${RATE_LIMIT_MAX_KEYS_PER_STRIPE:1024}") int maxKeysPerStripe) {
+        return new LocalRateLimiter(stripes, maxKeysPerStripe, System::currentTimeMillis);
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimiter rateLimiter,
+            @Value("${RATE_LIMIT_USER_API_CAPACITY:60}") long userApiCapacity,
+            @Value("${RATE_LIMIT_USER_API_PER_SECOND:10}") double userApiPerSecond,
+            @Value("${RATE_LIMIT_USER_TRANSFER_CAPACITY:10}") long userTransferCapacity,
+            @Value("${RATE_LIMIT_USER_TRANSFER_PER_SECOND:1}") double userTransferPerSecond,
+            @Value("${RATE_LIMIT_COMPANY_API_CAPACITY:120}") long companyApiCapacity,
+            @Value("${RATE_LIMIT_COMPANY_API_PER_SECOND:20}") double companyApiPerSecond,
+            @Value("${RATE_LIMIT_COMPANY_TRANSFER_CAPACITY:20}") long companyTransferCapacity,
+            @Value("${RATE_LIMIT_COMPANY_TRANSFER_PER_SECOND:2}") double companyTransferPerSecond,
+            ApiLogger logger) {
+        Map<RequestClass, RateLimit> userLimits = new EnumMap<>(RequestClass.class);
+        userLimits.put(RequestClass.API, new RateLimit(userApiCapacity, userApiPerSecond));
+        userLimits.put(RequestClass.TRANSFER, new RateLimit(userTransferCapacity, userTransferPerSecond));
+        Map<RequestClass, RateLimit> companyLimits = new EnumMap<>(RequestClass.class);
+        companyLimits.put(RequestClass.API, new RateLimit(companyApiCapacity, companyApiPerSecond));
+        companyLimits.put(RequestClass.TRANSFER,
+            new RateLimit(companyTransferCapacity, companyTransferPerSecond));
+
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(
+            new RateLimitFilter(rateLimiter, userLimits, companyLimits, logger));
+        registration.addUrlPatterns("/company/*");
+        // after the bulkheads and before upload admission, so a refused upload reserves nothing
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 3);
+        return registration;
+    }
+}
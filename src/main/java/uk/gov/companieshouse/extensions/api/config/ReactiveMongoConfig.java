@@ -0,0 +1,70 @@
+package uk.gov.companieshouse.extensions.api.config;
+
+import java.util.concurrent.TimeUnit;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientOptions;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadPreference;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import uk.gov.companieshouse.extensions.api.requests.ReactiveRequestReader;
+
+/**
+ * With REACTIVE_MONGO_ENABLED=true the company request list is read with the reactive Mongo
+ * driver. The list is a SecondaryReads endpoint, so these reads prefer a secondary in the same
+ * way as the blocking reads routed by ReadRoutingConfig. Spring Boot's reactive Mongo
+ * auto-configuration is excluded, so the reactive client is only created here, when it is used.
+ * It takes its pool sizes and timeouts from the MongoClientOptions of the blocking client, and as
+ * there, options given in the connection string take precedence.
+ */
+@Configuration
+@ConditionalOnProperty(name = "REACTIVE_MONGO_ENABLED", havingValue = "true")
+public class ReactiveMongoConfig {
+
+    @Bean
+    public MongoClient reactiveMongoClient(@Value("${spring.data.mongodb.uri}") String uri,
+            MongoClientOptions mongoClientOptions) {
+        MongoClientSettings settings = MongoClientSettings.builder()
+            .applyToConnectionPoolSettings(pool -> pool
+                .minSize(mongoClientOptions.getMinConnectionsPerHost())
+                .maxSize(mongoClientOptions.getConnectionsPerHost())
+                .maxWaitTime(mongoClientOptions.getMaxWaitTime(), TimeUnit.MILLISECONDS)
+                .maxConnectionIdleTime(mongoClientOptions.getMaxConnectionIdleTime(), TimeUnit.MILLISECONDS)
+                .maxConnectionLifeTime(mongoClientOptions.getMaxConnectionLifeTime(), TimeUnit.MILLISECONDS))
+            .applyToSocketSettings(socket -> socket
+                .connectTimeout(mongoClientOptions.getConnectTimeout(), TimeUnit.MILLISECONDS)
+                .readTimeout(mongoClientOptions.getSocketTimeout(), TimeUnit.MILLISECONDS))
+            .applyToClusterSettings(cluster -> cluster
+                .serverSelectionTimeout(mongoClientOptions.getServerSelectionTimeout(), TimeUnit.MILLISECONDS))
+            .applyConnectionString(new ConnectionString(uri))
+            .build();
+        return MongoClients.create(settings);
+    }
+
+    @Bean
+    public ReactiveMongoTemplate reactiveMongoTemplate(MongoClient reactiveMongoClient,
+            MongoConverter mongoConverter,
+            @Value("${spring.data.mongodb.uri}") String uri,
+            @Value("${MONGO_SECONDARY_MAX_STALENESS_SECONDS:90}") long maxStalenessSeconds) {
+        ReactiveMongoTemplate template = new ReactiveMongoTemplate(
+            new SimpleReactiveMongoDatabaseFactory(reactiveMongoClient, new ConnectionString(uri).getDatabase()),
+            mongoConverter);
+        template.setReadPreference(ReadPreference.secondaryPreferred(maxStalenessSeconds, TimeUnit.SECONDS));
+        return template;
+    }
+
+    @Bean
+    public ReactiveRequestReader reactiveRequestReader(ReactiveMongoTemplate reactiveMongoTemplate) {
+        return new ReactiveRequestReader(reactiveMongoTemplate);
+    }
+}
@@ -0,0 +1,30 @@
+package uk.gov.companieshouse.extensions.api.config;
+
+import java.util.concurrent.TimeUnit;
+
+import com.mongodb.ReadPreference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import uk.gov.companieshouse.extensions.api.routing.ReadRoutingMongoTemplate;
+
+/**
+ * Reads for the endpoints marked with SecondaryReads prefer a secondary that is no more than
+ * MONGO_SECONDARY_MAX_STALENESS_SECONDS behind the primary, falling back to the primary when
+ * there is none. Mongo does not accept a maximum staleness of less than 90 seconds.
+ */
+@Configuration
+public class ReadRoutingConfig {
+
+    @Bean
+    public MongoTemplate mongoTemplate(MongoDbFactory mongoDbFactory, MongoConverter mongoConverter,
+            @Value("${MONGO_SECONDARY_MAX_STALENESS_SECONDS:90}") long maxStalenessSeconds) {
+        return new ReadRoutingMongoTemplate(mongoDbFactory, mongoConverter,
+            ReadPreference.secondaryPreferred(maxStalenessSeconds, TimeUnit.SECONDS));
+    }
+}
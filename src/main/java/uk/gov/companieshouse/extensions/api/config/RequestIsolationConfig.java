@@ -0,0 +1,97 @@
+package uk.gov.companieshouse.extensions.api.config;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.unit.DataSize;
+
+import uk.gov.companieshouse.extensions.api.isolation.Bulkhead;
+import uk.gov.companieshouse.extensions.api.isolation.BulkheadMetrics;
+import uk.gov.companieshouse.extensions.api.isolation.RequestClass;
+import uk.gov.companieshouse.extensions.api.isolation.RequestIsolationFilter;
+import uk.gov.companieshouse.extensions.api.isolation.SpoolBudget;
+import uk.gov.companieshouse.extensions.api.isolation.UploadAdmissionFilter;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+/**
+ * Separate capacity for attachment transfers and for the JSON endpoints. Tomcat's worker pool
+ * should be larger than the two concurrency limits and queue depths added together, so that
+ * neither class can take every worker.
+ */
+@Configuration
+public class RequestIsolationConfig {
+
+    @Bean
+    public Bulkhead transferBulkhead(
+            @Value("${TRANSFER_MAX_CONCURRENT:20}") int maxConcurrent,
+            @Value("${TRANSFER_MAX_QUEUED:20}") int maxQueued,
+            @Value("${TRANSFER_QUEUE_TIMEOUT_MS:2000}") long queueTimeoutMs) {
+        return new Bulkhead(RequestClass.TRANSFER, maxConcurrent, maxQueued, queueTimeoutMs);
+    }
+
+    @Bean
+    public Bulkhead apiBulkhead(
+            @Value("${API_MAX_CONCURRENT:100}") int maxConcurrent,
+            @Value("${API_MAX_QUEUED:50}") int maxQueued,
+            @Value("${API_QUEUE_TIMEOUT_MS:500}") long queueTimeoutMs) {
+        return new Bulkhead(RequestClass.API, maxConcurrent, maxQueued, queueTimeoutMs);
+    }
+
+    @Bean
+    public FilterRegistrationBean<RequestIsolationFilter> requestIsolationFilter(
+            @Qualifier("transferBulkhead") Bulkhead transferBulkhead,
+            @Qualifier("apiBulkhead") Bulkhead apiBulkhead,
+            @Value("${REQUEST_SHED_RETRY_AFTER_SECONDS:1}") long retryAfterSeconds,
+            ApiLogger logger) {
+        Map<RequestClass, Bulkhead> bulkheads = new EnumMap<>(RequestClass.class);
+        bulkheads.put(RequestClass.TRANSFER, transferBulkhead);
+        bulkheads.put(RequestClass.API, apiBulkhead);
+        FilterRegistrationBean<RequestIsolationFilter> registration = new FilterRegistrationBean<>(
+            new RequestIsolationFilter(bulkheads, retryAfterSeconds, logger));
+        registration.addUrlPatterns("/company/*", "/extensions/*");
+        // ahead of the filters that do work for a request, so that a shed request does none
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+
+    /**
+     * Budgets for the upload bodies held at once. The heap budget should leave room for the rest
+     * of the heap, and the disk budget should fit on the volume holding the temp and spool
+     * directories. The budgets only decide which uploads are admitted; they do not track the
+     * memory or disk an upload actually uses once it is let in.
+     */
+    @Bean
+    public FilterRegistrationBean<UploadAdmissionFilter> uploadAdmissionFilter(
+            @Value("${UPLOAD_HEAP_BUDGET:64MB}") String heapBudget,
+            @Value("${UPLOAD_DISK_BUDGET:1GB}") String diskBudget,
+            @Value("${UPLOAD_ADMISSION_MAX_QUEUED:20}") int maxQueued,
+            @Value("${UPLOAD_ADMISSION_QUEUE_TIMEOUT_MS:2000}") long queueTimeoutMs,
+            @Value("${spring.servlet.multipart.file-size-threshold:1MB}") String memoryThreshold,
+            @Value("${UPLOAD_MAX_REQUEST_SIZE:10MB}") String maxRequestSize,
+            @Value("${REQUEST_SHED_RETRY_AFTER_SECONDS:1}") long retryAfterSeconds,
+            ApiLogger logger) {
+        FilterRegistrationBean<UploadAdmissionFilter> registration = new FilterRegistrationBean<>(
+            new UploadAdmissionFilter(
+                new SpoolBudget("heap", DataSize.parse(heapBudget).toBytes(), maxQueued, queueTimeoutMs),
+                new SpoolBudget("disk", DataSize.parse(diskBudget).toBytes(), maxQueued, queueTimeoutMs),
+                DataSize.parse(memoryThreshold).toBytes(), DataSize.parse(maxRequestSize).toBytes(),
+                retryAfterSeconds, logger));
+        registration.addUrlPatterns("/company/*");
+        // after the bulkheads and rate limits, so a refused upload reserves nothing
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 4);
+        return registration;
+    }
+
+    @Bean
+    public BulkheadMetrics bulkheadMetrics(@Qualifier("transferBulkhead") Bulkhead transferBulkhead,
+            @Qualifier("apiBulkhead") Bulkhead apiBulkhead) {
+        return new BulkheadMetrics(Arrays.asList(transferBulkhead, apiBulkhead));
+    }
+}
@@ -0,0 +1,14 @@
+package uk.gov.companieshouse.extensions.api.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the background jobs. Each job is switched on or off by its own enabled flag. The jobs
+ * run on Boot's task scheduler, sized by spring.task.scheduling.pool.size, so that a long archive
+ * or expiry run does not hold up the event relay and the event stream polls behind it.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,48 @@
+package uk.gov.companieshouse.extensions.api.config;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.util.unit.DataSize;
+
+import uk.gov.companieshouse.extensions.api.attachments.inspection.DigestInspector;
+import uk.gov.companieshouse.extensions.api.attachments.inspection.FileTypeInspector;
+import uk.gov.companieshouse.extensions.api.attachments.inspection.SizeLimitInspector;
+import uk.gov.companieshouse.extensions.api.attachments.inspection.UploadInspectorFactory;
+
+/**
+ * The inspections run on every upload, in order. The cheap checks that can reject an upload come
+ * first.
+ */
+@Configuration
+public class UploadInspectionConfig {
+
+    @Bean
+    @Order(1)
+    public UploadInspectorFactory sizeLimitInspectorFactory(
+            @Value("${UPLOAD_MAX_FILE_SIZE:10MB}") String maxFileSize) {
+        long maxBytes = DataSize.parse(maxFileSize).toBytes();
+        return file -> new SizeLimitInspector(maxBytes);
+    }
+
+    @Bean
+    @Order(2)
+    public UploadInspectorFactory fileTypeInspectorFactory(
+            @Value("${UPLOAD_ALLOWED_CONTENT_TYPES:application/pdf,image/jpeg,image/png,image/gif,image/tiff,"
+                + "application/msword,application/vnd.openxmlformats-officedocument.wordprocessingml.document,"
+                + "text/plain}") String[] allowedContentTypes) {
+        Set<String> allowed = new HashSet<>(Arrays.asList(allowedContentTypes));
+        return file -> new FileTypeInspector(allowed, file.getContentType());
+    }
+
+    @Bean
+    @Order(3)
+    public UploadInspectorFactory digestInspectorFactory() {
+        return file -> new DigestInspector();
+    }
+}
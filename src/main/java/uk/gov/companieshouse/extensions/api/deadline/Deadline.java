@@ -0,0 +1,31 @@
+package uk.gov.companieshouse.extensions.api.deadline;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * The time by which a request must be finished. Measured on the monotonic clock, so it is not
+ * affected by changes to the system time.
+ */
+public class Deadline {
+
+    private final long expiresAtNanos;
+    private final LongSupplier nanoTime;
+
+    public Deadline(long timeoutMillis, LongSupplier nanoTime) {
+        this.expiresAtNanos = nanoTime.getAsLong() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.nanoTime = nanoTime;
+    }
+
+    public static Deadline in(long timeoutMillis) {
+        return new Deadline(timeoutMillis, System::nanoTime);
+    }
+
+    public long remainingMillis() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAtNanos - nanoTime.getAsLong()));
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - nanoTime.getAsLong() <= 0;
+    }
+}
@@ -0,0 +1,171 @@
+package uk.gov.companieshouse.extensions.api.deadline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Keeps Mongo operations to the deadline of the request they are made for. Reads are sent with
+ * maxTimeMS set to the time left, so that the server stops a query the client has given up on,
+ * and no operation is started once the deadline has passed. Outside a request this behaves as a
+ * plain MongoTemplate.
+ *
+ * <p>The repositories go through the overloads that take a collection name, which are the ones
+ * overridden here. Aggregations are sent with maxTimeMS too. Bulk operations are only checked
+ * when they are created: the driver cannot send a bulk write with maxTimeMS, so one that has
+ * been started runs to completion even if the deadline passes.
+ */
+public class DeadlineAwareMongoTemplate extends MongoTemplate {
+
+    private static final String ID = "_id";
+
+    public DeadlineAwareMongoTemplate(MongoDbFactory mongoDbFactory, MongoConverter mongoConverter) {
+        super(mongoDbFactory, mongoConverter);
+    }
+
+    @Override
+    public <T> List<T> find(Query query, Class<T> entityClass, String collectionName) {
+        return super.find(limit(query, "find"), entityClass, collectionName);
+    }
+
+    @Override
+    public <T> T findOne(Query query, Class<T> entityClass, String collectionName) {
+        return super.findOne(limit(query, "findOne"), entityClass, collectionName);
+    }
+
+    @Override
+    public <T> T findById(Object id, Class<T> entityClass, String collectionName) {
+        if (!RequestDeadline.current().isPresent()) {
+            return super.findById(id, entityClass, collectionName);
+        }
+        return findOne(Query.query(Criteria.where(ID).is(id)), entityClass, collectionName);
+    }
+
+    @Override
+    public boolean exists(Query query, Class<?> entityClass, String collectionName) {
+        return super.exists(limit(query, "exists"), entityClass, collectionName);
+    }
+
+    @Override
+    public <T> T findAndModify(Query query, Update update, FindAndModifyOptions options, Class<T> entityClass,
+                               String collectionName) {
+        return super.findAndModify(limit(query, "findAndModify"), update, options, entityClass, collectionName);
+    }
+
+    @Override
+    public <T> T findAndRemove(Query query, Class<T> entityClass, String collectionName) {
+        return super.findAndRemove(limit(query, "findAndRemove"), entityClass, collectionName);
+    }
+
+    @Override
+    public <T> T insert(T objectToSave, String collectionName) {
+        RequestDeadline.check("insert");
+        return super.insert(objectToSave, collectionName);
+    }
+
+    @Override
+    public <T> T save(T objectToSave, String collectionName) {
+        RequestDeadline.check("save");
+        return super.save(objectToSave, collectionName);
+    }
+
+    @Override
+    public UpdateResult updateFirst(Query query, Update update, Class<?> entityClass) {
+        RequestDeadline.check("updateFirst");
+        return super.updateFirst(query, update, entityClass);
+    }
+
+    @Override
+    public UpdateResult updateFirst(Query query, Update update, Class<?> entityClass, String collectionName) {
+        RequestDeadline.check("updateFirst");
+        return super.updateFirst(query, update, entityClass, collectionName);
+    }
+
+    @Override
+    public UpdateResult updateMulti(Query query, Update update, Class<?> entityClass) {
+        RequestDeadline.check("updateMulti");
+        return super.updateMulti(query, update, entityClass);
+    }
+
+    @Override
+    public UpdateResult updateMulti(Query query, Update update, Class<?> entityClass, String collectionName) {
+        RequestDeadline.check("updateMulti");
+        return super.updateMulti(query, update, entityClass, collectionName);
+    }
+
+    @Override
+    public UpdateResult upsert(Query query, Update update, Class<?> entityClass) {
+        RequestDeadline.check("upsert");
+        return super.upsert(query, update, entityClass);
+    }
+
+    @Override
+    public UpdateResult upsert(Query query, Update update, Class<?> entityClass, String collectionName) {
+        RequestDeadline.check("upsert");
+        return super.upsert(query, update, entityClass, collectionName);
+    }
+
+    @Override
+    public DeleteResult remove(Query query, Class<?> entityClass, String collectionName) {
+        RequestDeadline.check("remove");
+        return super.remove(query, entityClass, collectionName);
+    }
+
+    /**
+     * With a deadline, an untyped aggregation is run on the driver collection, as the aggregation
+     * options of this version of Spring Data cannot carry maxTimeMS.
+     */
+    @Override
+    public <O> AggregationResults<O> aggregate(Aggregation aggregation, String collectionName, Class<O> outputType) {
+        RequestDeadline.check("aggregate");
+        Optional<Deadline> deadline = RequestDeadline.current();
+        if (!deadline.isPresent() || aggregation instanceof TypedAggregation) {
+            return super.aggregate(aggregation, collectionName, outputType);
+        }
+        AggregationOptions options = aggregation.getOptions();
+        AggregateIterable<Document> iterable = getCollection(collectionName)
+            .aggregate(aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT), Document.class)
+            .allowDiskUse(options.isAllowDiskUse())
+            .maxTime(Math.max(1, deadline.get().remainingMillis()), TimeUnit.MILLISECONDS);
+        options.getCollation().ifPresent(collation -> iterable.collation(collation.toMongoCollation()));
+        if (options.getCursorBatchSize() != null) {
+            iterable.batchSize(options.getCursorBatchSize());
+        }
+        List<O> results = iterable.into(new ArrayList<>()).stream()
+            .map(document -> getConverter().read(outputType, document))
+            .collect(Collectors.toList());
+        return new AggregationResults<>(results, new Document());
+    }
+
+    @Override
+    public BulkOperations bulkOps(BulkOperations.BulkMode mode, Class<?> entityType, String collectionName) {
+        RequestDeadline.check("bulkOps");
+        return super.bulkOps(mode, entityType, collectionName);
+    }
+
+    private static Query limit(Query query, String work) {
+        RequestDeadline.check(work);
+        RequestDeadline.current().ifPresent(deadline -> query.maxTimeMsec(Math.max(1, deadline.remainingMillis())));
+        return query;
+    }
+}
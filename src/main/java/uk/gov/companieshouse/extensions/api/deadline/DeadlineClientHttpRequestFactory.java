@@ -0,0 +1,33 @@
+package uk.gov.companieshouse.extensions.api.deadline;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+/**
+ * Shortens the connect and read timeouts of each call to the time left before the deadline of
+ * the request it is made for, and refuses to make a call once that deadline has passed. The read
+ * timeout bounds each read rather than the whole response, so a slow download can still run a
+ * little past the deadline.
+ */
+public class DeadlineClientHttpRequestFactory extends SimpleClientHttpRequestFactory {
+
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    public DeadlineClientHttpRequestFactory(int connectTimeoutMillis, int readTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        setConnectTimeout(connectTimeoutMillis);
+        setReadTimeout(readTimeoutMillis);
+    }
+
+    @Override
+    protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+        super.prepareConnection(connection, httpMethod);
+        String work = httpMethod + " " + connection.getURL();
+        connection.setConnectTimeout((int) RequestDeadline.limit(connectTimeoutMillis, work));
+        connection.setReadTimeout((int) RequestDeadline.limit(readTimeoutMillis, work));
+    }
+}
@@ -0,0 +1,18 @@
+package uk.gov.companieshouse.extensions.api.deadline;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown instead of starting work for a request whose deadline has passed. The client will have
+ * given up on the response by then, so the work would be wasted.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class DeadlineExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String work) {
+        super("Deadline exceeded before " + work);
+    }
+}
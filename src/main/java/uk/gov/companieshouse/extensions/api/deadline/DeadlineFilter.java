@@ -0,0 +1,46 @@
+package uk.gov.companieshouse.extensions.api.deadline;
+
+import java.io.IOException;
+import java.util.Map;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang.math.NumberUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import uk.gov.companieshouse.extensions.api.isolation.RequestClass;
+
+/**
+ * Gives each request a deadline, for the rest of the request to keep to. A caller may send the
+ * time it will wait for the response in the X-Request-Timeout header, in milliseconds; otherwise,
+ * or if the caller would wait longer, the default for the class of request is used.
+ */
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_TIMEOUT = "X-Request-Timeout";
+
+    private final Map<RequestClass, Long> defaultTimeoutsMillis;
+
+    public DeadlineFilter(Map<RequestClass, Long> defaultTimeoutsMillis) {
+        this.defaultTimeoutsMillis = defaultTimeoutsMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long timeoutMillis = defaultTimeoutsMillis.get(RequestClass.of(request));
+        long requestedMillis = NumberUtils.toLong(request.getHeader(REQUEST_TIMEOUT), -1);
+        if (requestedMillis >= 0) {
+            timeoutMillis = Math.min(timeoutMillis, requestedMillis);
+        }
+        RequestDeadline.set(Deadline.in(timeoutMillis));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+}
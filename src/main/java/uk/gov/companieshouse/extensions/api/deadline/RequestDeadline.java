@@ -0,0 +1,50 @@
+package uk.gov.companieshouse.extensions.api.deadline;
+
+import java.util.Optional;
+
+/**
+ * The deadline of the request being handled on the current thread, if any. Work done outside a
+ * request, such as by the scheduled jobs, has no deadline.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    public static Optional<Deadline> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    static void set(Deadline deadline) {
+        CURRENT.set(deadline);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @throws DeadlineExceededException if the current request's deadline has passed
+     */
+    public static void check(String work) {
+        if (current().map(Deadline::isExpired).orElse(false)) {
+            throw new DeadlineExceededException(work);
+        }
+    }
+
+    /**
+     * @param timeoutMillis a timeout for some work, where 0 is no timeout
+     * @return the timeout, shortened to the time left before the current request's deadline
+     * @throws DeadlineExceededException if the current request's deadline has passed
+     */
+    public static long limit(long timeoutMillis, String work) {
+        check(work);
+        return current()
+            .map(deadline -> timeoutMillis > 0 ? Math.min(timeoutMillis, deadline.remainingMillis())
+                : deadline.remainingMillis())
+            .map(remaining -> Math.max(1, remaining))
+            .orElse(timeoutMillis);
+    }
+}
@@ -0,0 +1,37 @@
+package uk.gov.companieshouse.extensions.api.events;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import uk.gov.companieshouse.extensions.api.logger.LogMethodCall;
+
+@RestController
+@RequestMapping("${api.endpoint.events}")
+public class EventsController {
+
+    private final RequestEventService requestEventService;
+    private final int maxLimit;
+
+    @Autowired
+    public EventsController(RequestEventService requestEventService,
+                            @Value("${REQUEST_EVENT_FEED_MAX_LIMIT:500}") int maxLimit) {
+        this.requestEventService = requestEventService;
+        this.maxLimit = maxLimit;
+    }
+
+    @LogMethodCall
+    @GetMapping
+    public ResponseEntity<RequestEventFeed> getEvents(@RequestParam(value = "after", required = false) String after,
+                                                      @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        if ((after != null && !ObjectId.isValid(after)) || limit < 1 || limit > maxLimit) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(requestEventService.getFeed(after, limit));
+    }
+}
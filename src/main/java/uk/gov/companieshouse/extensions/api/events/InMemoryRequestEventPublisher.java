@@ -0,0 +1,32 @@
+package uk.gov.companieshouse.extensions.api.events;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Stand-in publisher that keeps the most recently published events in memory, for local
+ * running and tests. Consumers in other processes should read the event feed instead.
+ */
+public class InMemoryRequestEventPublisher implements RequestEventPublisher {
+
+    private final Deque<RequestEvent> publishedEvents = new ArrayDeque<>();
+    private final int capacity;
+
+    public InMemoryRequestEventPublisher(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void publish(RequestEvent event) {
+        if (publishedEvents.size() == capacity) {
+            publishedEvents.removeFirst();
+        }
+        publishedEvents.addLast(event);
+    }
+
+    public synchronized List<RequestEvent> getPublishedEvents() {
+        return new ArrayList<>(publishedEvents);
+    }
+}
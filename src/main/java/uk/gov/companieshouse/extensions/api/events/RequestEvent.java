@@ -0,0 +1,142 @@
+package uk.gov.companieshouse.extensions.api.events;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import org.springframework.data.annotation.Id;
+
+import uk.gov.companieshouse.extensions.api.requests.Status;
+
+/**
+ * A change to an extension request. Events are first held on the request document itself, so
+ * that they are written in the same operation as the change, and are then moved to the event
+ * collection by the {@link RequestEventRelay}, which gives each one its position in the feed.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RequestEvent {
+
+    // the position in the event feed, only set once the event has been relayed
+    @Id
+    @JsonProperty("position")
+    private String position;
+
+    @JsonProperty("event_id")
+    private String eventId;
+
+    @JsonProperty("type")
+    private RequestEventType type;
+
+    @JsonProperty("request_id")
+    private String requestId;
+
+    @JsonProperty("company_number")
+    private String companyNumber;
+
+    @JsonProperty("reason_id")
+    private String reasonId;
+
+    @JsonProperty("attachment_id")
+    private String attachmentId;
+
+    @JsonProperty("status")
+    private Status status;
+
+    @JsonProperty("previous_status")
+    private Status previousStatus;
+
+    @JsonProperty("occurred_on")
+    private LocalDateTime occurredOn;
+
+    @JsonProperty("relayed_on")
+    private LocalDateTime relayedOn;
+
+    public String getPosition() {
+        return position;
+    }
+
+    public void setPosition(String position) {
+        this.position = position;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public RequestEventType getType() {
+        return type;
+    }
+
+    public void setType(RequestEventType type) {
+        this.type = type;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+
+    public String getCompanyNumber() {
+        return companyNumber;
+    }
+
+    public void setCompanyNumber(String companyNumber) {
+        this.companyNumber = companyNumber;
+    }
+
+    public String getReasonId() {
+        return reasonId;
+    }
+
+    public void setReasonId(String reasonId) {
+        this.reasonId = reasonId;
+    }
+
+    public String getAttachmentId() {
+        return attachmentId;
+    }
+
+    public void setAttachmentId(String attachmentId) {
+        this.attachmentId = attachmentId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Status getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public void setPreviousStatus(Status previousStatus) {
+        this.previousStatus = previousStatus;
+    }
+
+    public LocalDateTime getOccurredOn() {
+        return occurredOn;
+    }
+
+    public void setOccurredOn(LocalDateTime occurredOn) {
+        this.occurredOn = occurredOn;
+    }
+
+    public LocalDateTime getRelayedOn() {
+        return relayedOn;
+    }
+
+    public void setRelayedOn(LocalDateTime relayedOn) {
+        this.relayedOn = relayedOn;
+    }
+}
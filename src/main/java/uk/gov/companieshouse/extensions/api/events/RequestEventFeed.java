@@ -0,0 +1,31 @@
+package uk.gov.companieshouse.extensions.api.events;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A page of the event feed. Passing next_cursor back as the after parameter continues from the
+ * end of this page.
+ */
+public class RequestEventFeed {
+
+    @JsonProperty("items")
+    private final List<RequestEvent> items;
+
+    @JsonProperty("next_cursor")
+    private final String nextCursor;
+
+    public RequestEventFeed(List<RequestEvent> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<RequestEvent> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
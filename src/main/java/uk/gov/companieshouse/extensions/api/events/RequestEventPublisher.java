@@ -0,0 +1,11 @@
+package uk.gov.companieshouse.extensions.api.events;
+
+/**
+ * Delivers relayed events to downstream systems. Delivery is at least once, so an event may be
+ * published more than once and consumers should ignore event ids they have already seen.
+ * The in-memory publisher is used unless another implementation is defined as a bean.
+ */
+public interface RequestEventPublisher {
+
+    void publish(RequestEvent event);
+}
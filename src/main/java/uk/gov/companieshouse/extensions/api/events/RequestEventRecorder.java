@@ -0,0 +1,94 @@
+package uk.gov.companieshouse.extensions.api.events;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestFullEntity;
+import uk.gov.companieshouse.extensions.api.requests.Status;
+
+/**
+ * Adds events to a request's pending events. The caller saves the request afterwards, which
+ * writes the events along with the change they describe.
+ */
+@Component
+public class RequestEventRecorder {
+
+    private final Supplier<String> randomUUID;
+    private final Supplier<LocalDateTime> dateTimeSupplierNow;
+
+    @Autowired
+    public RequestEventRecorder(Supplier<String> randomUUID, Supplier<LocalDateTime> dateTimeSupplierNow) {
+        this.randomUUID = randomUUID;
+        this.dateTimeSupplierNow = dateTimeSupplierNow;
+    }
+
+    public void requestCreated(ExtensionRequestFullEntity request) {
+        RequestEvent event = newEvent(RequestEventType.REQUEST_CREATED, request);
+        event.setStatus(request.getStatus());
+        request.addPendingEvent(event);
+    }
+
+    public void reasonAdded(ExtensionRequestFullEntity request, String reasonId) {
+        RequestEvent event = newEvent(RequestEventType.REASON_ADDED, request);
+        event.setReasonId(reasonId);
+        request.addPendingEvent(event);
+    }
+
+    public void attachmentAdded(ExtensionRequestFullEntity request, String reasonId, String attachmentId) {
+        request.addPendingEvent(attachmentEvent(RequestEventType.ATTACHMENT_ADDED, request, reasonId, attachmentId));
+    }
+
+    public void attachmentRemoved(ExtensionRequestFullEntity request, String reasonId, String attachmentId) {
+        request.addPendingEvent(attachmentEvent(RequestEventType.ATTACHMENT_REMOVED, request, reasonId, attachmentId));
+    }
+
+    /**
+     * Records a status change, if the status has changed.
+     */
+    public void statusChanged(ExtensionRequestFullEntity request, Status previousStatus) {
+        statusChangedEvent(request.getId(), request.getCompanyNumber(), previousStatus, request.getStatus())
+            .ifPresent(request::addPendingEvent);
+    }
+
+    /**
+     * Creates a status change event for a request that is updated without being loaded, for the
+     * caller to push onto the request's pending events in the same update.
+     * @return the event, empty if the status has not changed
+     */
+    public Optional<RequestEvent> statusChangedEvent(String requestId, String companyNumber,
+                                                     Status previousStatus, Status status) {
+        if (status == null || status == previousStatus) {
+            return Optional.empty();
+        }
+        RequestEvent event = newEvent(RequestEventType.STATUS_CHANGED, requestId, companyNumber);
+        event.setPreviousStatus(previousStatus);
+        event.setStatus(status);
+        return Optional.of(event);
+    }
+
+    private RequestEvent attachmentEvent(RequestEventType type, ExtensionRequestFullEntity request,
+                                         String reasonId, String attachmentId) {
+        RequestEvent event = newEvent(type, request);
+        event.setReasonId(reasonId);
+        event.setAttachmentId(attachmentId);
+        return event;
+    }
+
+    private RequestEvent newEvent(RequestEventType type, ExtensionRequestFullEntity request) {
+        return newEvent(type, request.getId(), request.getCompanyNumber());
+    }
+
+    private RequestEvent newEvent(RequestEventType type, String requestId, String companyNumber) {
+        RequestEvent event = new RequestEvent();
+        event.setEventId(randomUUID.get());
+        event.setType(type);
+        event.setRequestId(requestId);
+        event.setCompanyNumber(companyNumber);
+        event.setOccurredOn(dateTimeSupplierNow.get());
+        return event;
+    }
+}
@@ -0,0 +1,95 @@
+package uk.gov.companieshouse.extensions.api.events;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestFullEntity;
+import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestsRepository;
+
+/**
+ * Moves pending events off the request documents into the event feed and hands them to the
+ * publisher. An event is only removed from its request once it has been published, so an
+ * interruption means it is relayed again. Running on more than one node is safe for the same reason.
+ * Enabled unless REQUEST_EVENT_RELAY_ENABLED is false.
+ * Events go to the {@link RequestEventPublisher} bean if one is defined, e.g. one that sends to a
+ * message broker, and otherwise to an {@link InMemoryRequestEventPublisher}.
+ */
+@Component
+@ConditionalOnProperty(name = "REQUEST_EVENT_RELAY_ENABLED", havingValue = "true", matchIfMissing = true)
+public class RequestEventRelay {
+
+    private final ExtensionRequestsRepository extensionRequestsRepository;
+    private final RequestEventStore requestEventStore;
+    private final RequestEventPublisher requestEventPublisher;
+    private final Supplier<LocalDateTime> dateTimeSupplierNow;
+    private final ApiLogger logger;
+    private final int batchSize;
+    private boolean indexesEnsured;
+
+    @Autowired
+    public RequestEventRelay(ExtensionRequestsRepository extensionRequestsRepository,
+                             RequestEventStore requestEventStore,
+                             ObjectProvider<RequestEventPublisher> requestEventPublisher,
+                             Supplier<LocalDateTime> dateTimeSupplierNow,
+                             ApiLogger logger,
+                             @Value("${REQUEST_EVENT_RELAY_BATCH_SIZE:100}") int batchSize,
+                             @Value("${REQUEST_EVENT_MEMORY_CAPACITY:1000}") int memoryCapacity) {
+        this(extensionRequestsRepository, requestEventStore,
+            requestEventPublisher.getIfAvailable(() -> new InMemoryRequestEventPublisher(memoryCapacity)),
+            dateTimeSupplierNow, logger, batchSize);
+    }
+
+    RequestEventRelay(ExtensionRequestsRepository extensionRequestsRepository,
+                      RequestEventStore requestEventStore,
+                      RequestEventPublisher requestEventPublisher,
+                      Supplier<LocalDateTime> dateTimeSupplierNow,
+                      ApiLogger logger,
+                      int batchSize) {
+        this.extensionRequestsRepository = extensionRequestsRepository;
+        this.requestEventStore = requestEventStore;
+        this.requestEventPublisher = requestEventPublisher;
+        this.dateTimeSupplierNow = dateTimeSupplierNow;
+        this.logger = logger;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${REQUEST_EVENT_RELAY_INTERVAL_MS:2000}")
+    public void relayEvents() {
+        if (!indexesEnsured) {
+            requestEventStore.ensureIndexes();
+            indexesEnsured = true;
+        }
+        for (ExtensionRequestFullEntity request : extensionRequestsRepository.findWithPendingEvents(batchSize)) {
+            relayEvents(request);
+        }
+    }
+
+    private void relayEvents(ExtensionRequestFullEntity request) {
+        List<String> relayedEventIds = new ArrayList<>();
+        try {
+            for (RequestEvent event : request.getPendingEvents()) {
+                event.setPosition(new ObjectId().toHexString());
+                event.setRelayedOn(dateTimeSupplierNow.get());
+                requestEventStore.insert(event);
+                requestEventPublisher.publish(event);
+                relayedEventIds.add(event.getEventId());
+            }
+        } catch (RuntimeException e) {
+            logger.error(String.format("Unable to relay events for request %s", request.getId()), e);
+        }
+        if (!relayedEventIds.isEmpty()) {
+            extensionRequestsRepository.removePendingEvents(request.getId(), relayedEventIds);
+        }
+    }
+}
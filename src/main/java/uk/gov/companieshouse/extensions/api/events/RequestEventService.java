@@ -0,0 +1,58 @@
+package uk.gov.companieshouse.extensions.api.events;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import uk.gov.companieshouse.extensions.api.logger.LogMethodCall;
+
+@Component
+public class RequestEventService {
+
+    private final RequestEventStore requestEventStore;
+    private final Supplier<LocalDateTime> dateTimeSupplierNow;
+    private final long settleSeconds;
+
+    @Autowired
+    public RequestEventService(RequestEventStore requestEventStore,
+                               Supplier<LocalDateTime> dateTimeSupplierNow,
+                               @Value("${REQUEST_EVENT_FEED_SETTLE_SECONDS:5}") long settleSeconds) {
+        this.requestEventStore = requestEventStore;
+        this.dateTimeSupplierNow = dateTimeSupplierNow;
+        this.settleSeconds = settleSeconds;
+    }
+
+    /**
+     * Reads the next page of the event feed. Events relayed within the last few seconds are held
+     * back, because relays running at the same time on different nodes may not have finished
+     * writing events with earlier positions, and a consumer that moved past them would miss them.
+     * @param after the cursor returned with the previous page, null to start from the oldest event held
+     * @param limit the maximum number of events to return
+     * @return the events and the cursor to continue from
+     */
+    @LogMethodCall
+    public RequestEventFeed getFeed(String after, int limit) {
+        LocalDateTime relayedBefore = dateTimeSupplierNow.get().minusSeconds(settleSeconds);
+        List<RequestEvent> events = requestEventStore.findAfter(after, relayedBefore, limit);
+        String nextCursor = events.isEmpty() ? after : events.get(events.size() - 1).getPosition();
+        return new RequestEventFeed(events, nextCursor);
+    }
+
+    /**
+     * Gives a cursor for a consumer that only wants events from now on. Events still being held
+     * back by {@link #getFeed(String, int)} have not been read by anyone yet, so the cursor is
+     * placed before them.
+     * @return the cursor to read the feed from
+     */
+    public String getLatestCursor() {
+        long settledBefore = dateTimeSupplierNow.get().minusSeconds(settleSeconds)
+            .atZone(ZoneId.systemDefault()).toEpochSecond();
+        // positions are object ids, which start with their creation time in seconds
+        return String.format("%08x%016x", settledBefore, 0);
+    }
+}
@@ -0,0 +1,97 @@
+package uk.gov.companieshouse.extensions.api.events;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+/**
+ * The event collection behind the event feed. Events are read in the order they were relayed,
+ * using their position as the cursor, and expire after the retention period.
+ */
+@Component
+public class RequestEventStore {
+
+    static final String EVENTS_COLLECTION = "extension_request_events";
+
+    private static final String POSITION = "_id";
+    private static final String EVENT_ID = "eventId";
+    private static final String REQUEST_ID = "requestId";
+    private static final String RELAYED_ON = "relayedOn";
+
+    private final MongoTemplate mongoTemplate;
+    private final long retentionSeconds;
+
+    @Autowired
+    public RequestEventStore(MongoTemplate mongoTemplate,
+                             @Value("${REQUEST_EVENT_RETENTION_DAYS:7}") long retentionDays) {
+        this.mongoTemplate = mongoTemplate;
+        this.retentionSeconds = retentionDays * 24 * 60 * 60;
+    }
+
+    /**
+     * Creates the indexes the feed relies on, if they do not already exist. These are not
+     * declared on {@link RequestEvent} because it is also embedded in the request documents.
+     */
+    public void ensureIndexes() {
+        IndexOperations indexOperations = mongoTemplate.indexOps(EVENTS_COLLECTION);
+        indexOperations.ensureIndex(new Index().on(EVENT_ID, Sort.Direction.ASC).unique());
+        indexOperations.ensureIndex(new Index().on(REQUEST_ID, Sort.Direction.ASC).on(POSITION, Sort.Direction.ASC));
+        indexOperations.ensureIndex(new Index().on(RELAYED_ON, Sort.Direction.ASC).expire(retentionSeconds));
+    }
+
+    /**
+     * Adds a relayed event to the feed.
+     * @return false if the event had already been added
+     */
+    public boolean insert(RequestEvent event) {
+        try {
+            mongoTemplate.insert(event, EVENTS_COLLECTION);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the events after a position in the feed.
+     * @param after the position to read from, null to read from the oldest event still held
+     * @param relayedBefore only events relayed before this time are returned
+     * @param limit the maximum number of events to return
+     * @return the events in feed order
+     */
+    public List<RequestEvent> findAfter(String after, LocalDateTime relayedBefore, int limit) {
+        Criteria criteria = Criteria.where(RELAYED_ON).lt(relayedBefore);
+        if (after != null) {
+            criteria.and(POSITION).gt(after);
+        }
+        Query query = Query.query(criteria)
+            .with(Sort.by(POSITION).ascending())
+            .limit(limit);
+        return mongoTemplate.find(query, RequestEvent.class, EVENTS_COLLECTION);
+    }
+
+    /**
+     * Reads the events for one request after a position in the feed, for a client catching up
+     * on what it missed while disconnected.
+     * @param requestId the request the events are for
+     * @param after the position of the last event the client received
+     * @param limit the maximum number of events to return
+     * @return the events in feed order
+     */
+    public List<RequestEvent> findForRequestAfter(String requestId, String after, int limit) {
+        Query query = Query.query(Criteria.where(REQUEST_ID).is(requestId).and(POSITION).gt(after))
+            .with(Sort.by(POSITION).ascending())
+            .limit(limit);
+        return mongoTemplate.find(query, RequestEvent.class, EVENTS_COLLECTION);
+    }
+}
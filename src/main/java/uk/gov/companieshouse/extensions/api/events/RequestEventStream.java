@@ -0,0 +1,144 @@
+package uk.gov.companieshouse.extensions.api.events;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+/**
+ * Pushes the events for a request to clients holding a server-sent events connection open for
+ * it. The event feed is tailed once per node for all connected clients, so events relayed on
+ * any node reach every client. Each event is sent with its feed position as its id, which the
+ * client sends back as Last-Event-ID when it reconnects so that it is sent what it missed.
+ * A client may occasionally be sent an event twice around a reconnection.
+ */
+@Component
+public class RequestEventStream {
+
+    private final RequestEventService requestEventService;
+    private final RequestEventStore requestEventStore;
+    private final ApiLogger logger;
+    private final long timeoutMillis;
+    private final long reconnectMillis;
+    private final int batchSize;
+    private final Map<String, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private String cursor;
+
+    @Autowired
+    public RequestEventStream(RequestEventService requestEventService,
+                              RequestEventStore requestEventStore,
+                              ApiLogger logger,
+                              @Value("${REQUEST_EVENT_STREAM_TIMEOUT_MS:600000}") long timeoutMillis,
+                              @Value("${REQUEST_EVENT_STREAM_RECONNECT_MS:3000}") long reconnectMillis,
+                              @Value("${REQUEST_EVENT_STREAM_BATCH_SIZE:100}") int batchSize) {
+        this.requestEventService = requestEventService;
+        this.requestEventStore = requestEventStore;
+        this.logger = logger;
+        this.timeoutMillis = timeoutMillis;
+        this.reconnectMillis = reconnectMillis;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Opens a connection for the events of a request.
+     * @param requestId the request to send events for
+     * @param lastEventId the id of the last event the client received, null if it is a new client
+     * @return the open connection
+     */
+    public SseEmitter subscribe(String requestId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitters.computeIfAbsent(requestId, id -> new CopyOnWriteArraySet<>()).add(emitter);
+        emitter.onCompletion(() -> remove(requestId, emitter));
+        emitter.onTimeout(() -> remove(requestId, emitter));
+        emitter.onError(e -> remove(requestId, emitter));
+
+        if (send(requestId, emitter, SseEmitter.event().reconnectTime(reconnectMillis).comment("connected"))
+                && lastEventId != null && ObjectId.isValid(lastEventId)) {
+            for (RequestEvent event : requestEventStore.findForRequestAfter(requestId, lastEventId, batchSize)) {
+                if (!send(requestId, emitter, toMessage(event))) {
+                    break;
+                }
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Sends the events relayed since the last poll to the clients connected for them. The feed
+     * is only read while there are clients connected.
+     */
+    @Scheduled(fixedDelayString = "${REQUEST_EVENT_STREAM_POLL_INTERVAL_MS:1000}")
+    public synchronized void pollEvents() {
+        if (emitters.isEmpty()) {
+            cursor = null;
+            return;
+        }
+        if (cursor == null) {
+            cursor = requestEventService.getLatestCursor();
+        }
+        RequestEventFeed feed;
+        do {
+            feed = requestEventService.getFeed(cursor, batchSize);
+            feed.getItems().forEach(this::dispatch);
+            cursor = feed.getNextCursor();
+        } while (feed.getItems().size() == batchSize);
+    }
+
+    /**
+     * Sends a comment to every open connection, so that idle connections are not closed by
+     * proxies and closed connections are noticed.
+     */
+    @Scheduled(fixedDelayString = "${REQUEST_EVENT_STREAM_HEARTBEAT_INTERVAL_MS:15000}")
+    public void sendHeartbeats() {
+        emitters.forEach((requestId, requestEmitters) ->
+            requestEmitters.forEach(emitter -> send(requestId, emitter, SseEmitter.event().comment("heartbeat"))));
+    }
+
+    int getConnectionCount() {
+        return emitters.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void dispatch(RequestEvent event) {
+        Set<SseEmitter> requestEmitters = emitters.get(event.getRequestId());
+        if (requestEmitters != null) {
+            requestEmitters.forEach(emitter -> send(event.getRequestId(), emitter, toMessage(event)));
+        }
+    }
+
+    private SseEmitter.SseEventBuilder toMessage(RequestEvent event) {
+        return SseEmitter.event()
+            .id(event.getPosition())
+            .name(event.getType().name())
+            .data(event, MediaType.APPLICATION_JSON);
+    }
+
+    private boolean send(String requestId, SseEmitter emitter, SseEmitter.SseEventBuilder message) {
+        try {
+            emitter.send(message);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // the client has gone away, the container completes the emitter
+            logger.debug(String.format("Event stream for request %s closed: %s", requestId, e.getMessage()));
+            remove(requestId, emitter);
+            return false;
+        }
+    }
+
+    private void remove(String requestId, SseEmitter emitter) {
+        emitters.computeIfPresent(requestId, (id, requestEmitters) -> {
+            requestEmitters.remove(emitter);
+            return requestEmitters.isEmpty() ? null : requestEmitters;
+        });
+    }
+}
@@ -0,0 +1,9 @@
+package uk.gov.companieshouse.extensions.api.events;
+
+public enum RequestEventType {
+    REQUEST_CREATED,
+    REASON_ADDED,
+    ATTACHMENT_ADDED,
+    ATTACHMENT_REMOVED,
+    STATUS_CHANGED
+}
@@ -0,0 +1,153 @@
+package uk.gov.companieshouse.extensions.api.idempotency;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang.StringUtils;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+/**
+ * Makes the create request, add reason and upload attachment endpoints safe to retry. When one
+ * of them is called with an Idempotency-Key header the successful response is stored against
+ * the key and the caller's identity, and a retry with the same key is given the stored response
+ * without the request being handled again. A retry that arrives while the original is still
+ * being handled gets a 409, and a key reused for a different request gets a 422. The original
+ * only holds the key for a short lease, so if it is lost without its record being completed or
+ * removed, a retry after the lease has expired is handled in its place.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
+    private static final String ERIC_IDENTITY = "ERIC-identity";
+    private static final Pattern IDEMPOTENT_PATHS = Pattern.compile(
+        "^/company/[^/]+/extensions/requests(/[^/]+/reasons(/[^/]+/attachments)?)?/?$");
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final Supplier<LocalDateTime> dateTimeSupplierNow;
+    private final Supplier<String> randomUUID;
+    private final long pendingSeconds;
+    private final ApiLogger logger;
+
+    public IdempotencyFilter(IdempotencyRecordRepository idempotencyRecordRepository,
+                             Supplier<LocalDateTime> dateTimeSupplierNow,
+                             Supplier<String> randomUUID,
+                             long pendingSeconds,
+                             ApiLogger logger) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.dateTimeSupplierNow = dateTimeSupplierNow;
+        this.randomUUID = randomUUID;
+        this.pendingSeconds = pendingSeconds;
+        this.logger = logger;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // keys are scoped to the caller, so a request without an identity is never replayed
+        return !HttpMethod.POST.matches(request.getMethod())
+            || StringUtils.isBlank(request.getHeader(IDEMPOTENCY_KEY))
+            || StringUtils.isBlank(request.getHeader(ERIC_IDENTITY))
+            || !IDEMPOTENT_PATHS.matcher(request.getRequestURI()).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String id = request.getHeader(ERIC_IDENTITY) + ":" + request.getHeader(IDEMPOTENCY_KEY);
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(id);
+        record.setMethod(request.getMethod());
+        record.setRequestUri(request.getRequestURI());
+        LocalDateTime now = dateTimeSupplierNow.get();
+        record.setCreatedOn(now);
+        record.setLeaseId(randomUUID.get());
+        record.setPendingUntil(now.plusSeconds(pendingSeconds));
+
+        try {
+            idempotencyRecordRepository.insert(record);
+        } catch (DuplicateKeyException e) {
+            if (!idempotencyRecordRepository.takeOverExpired(record, now)) {
+                replay(idempotencyRecordRepository.findById(id), request, response);
+                return;
+            }
+            logger.info(String.format("Taking over request with %s %s after its lease expired", IDEMPOTENCY_KEY,
+                request.getHeader(IDEMPOTENCY_KEY)));
+        }
+        handleFirstRequest(record, request, response, filterChain);
+    }
+
+    private void handleFirstRequest(IdempotencyRecord record, HttpServletRequest request,
+                                    HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, responseWrapper);
+        } catch (ServletException | IOException | RuntimeException e) {
+            idempotencyRecordRepository.release(record);
+            throw e;
+        }
+
+        if (HttpStatus.valueOf(responseWrapper.getStatus()).is2xxSuccessful()) {
+            record.setCompleted(true);
+            record.setStatus(responseWrapper.getStatus());
+            record.setContentType(responseWrapper.getContentType());
+            record.setLocation(responseWrapper.getHeader(HttpHeaders.LOCATION));
+            record.setBody(responseWrapper.getContentAsByteArray());
+            if (!idempotencyRecordRepository.complete(record)) {
+                logger.info(String.format("Request with %s %s was taken over before it completed",
+                    IDEMPOTENCY_KEY, request.getHeader(IDEMPOTENCY_KEY)));
+            }
+        } else {
+            // only successes are kept, so a failed request can be retried with the same key
+            idempotencyRecordRepository.release(record);
+        }
+        responseWrapper.copyBodyToResponse();
+    }
+
+    private void replay(Optional<IdempotencyRecord> existing, HttpServletRequest request,
+                        HttpServletResponse response) throws IOException {
+        if (!existing.isPresent() || !existing.get().isCompleted()) {
+            logger.info(String.format("Request with %s %s is already in progress", IDEMPOTENCY_KEY,
+                request.getHeader(IDEMPOTENCY_KEY)));
+            response.setStatus(HttpStatus.CONFLICT.value());
+            return;
+        }
+
+        IdempotencyRecord record = existing.get();
+        if (!record.getMethod().equals(request.getMethod()) || !record.getRequestUri().equals(request.getRequestURI())) {
+            logger.info(String.format("%s %s was used for %s %s", IDEMPOTENCY_KEY,
+                request.getHeader(IDEMPOTENCY_KEY), record.getMethod(), record.getRequestUri()));
+            response.setStatus(HttpStatus.UNPROCESSABLE_ENTITY.value());
+            return;
+        }
+
+        response.setStatus(record.getStatus());
+        response.setHeader(IDEMPOTENT_REPLAYED, "true");
+        if (record.getContentType() != null) {
+            response.setContentType(record.getContentType());
+        }
+        if (record.getLocation() != null) {
+            response.setHeader(HttpHeaders.LOCATION, record.getLocation());
+        }
+        if (record.getBody() != null) {
+            response.setContentLength(record.getBody().length);
+            response.getOutputStream().write(record.getBody());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package uk.gov.companieshouse.extensions.api.idempotency;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * The response to a request made with an Idempotency-Key header. The record is created before
+ * the request is handled, so a concurrent retry can see that it is still in progress, and
+ * completed with the response once the request succeeds. While it is pending the record is
+ * leased to the request handling it, and a retry may take it over once the lease has expired.
+ * Records expire after a day.
+ */
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+
+    @Id
+    private String id;
+
+    private String method;
+
+    private String requestUri;
+
+    private boolean completed;
+
+    private int status;
+
+    private String contentType;
+
+    private String location;
+
+    private byte[] body;
+
+    private String leaseId;
+
+    private LocalDateTime pendingUntil;
+
+    @Indexed(name = "created_on_ttl", expireAfterSeconds = 86400)
+    private LocalDateTime createdOn;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getRequestUri() {
+        return requestUri;
+    }
+
+    public void setRequestUri(String requestUri) {
+        this.requestUri = requestUri;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public void setBody(byte[] body) {
+        this.body = body;
+    }
+
+    public String getLeaseId() {
+        return leaseId;
+    }
+
+    public void setLeaseId(String leaseId) {
+        this.leaseId = leaseId;
+    }
+
+    public LocalDateTime getPendingUntil() {
+        return pendingUntil;
+    }
+
+    public void setPendingUntil(LocalDateTime pendingUntil) {
+        this.pendingUntil = pendingUntil;
+    }
+
+    public LocalDateTime getCreatedOn() {
+        return createdOn;
+    }
+
+    public void setCreatedOn(LocalDateTime createdOn) {
+        this.createdOn = createdOn;
+    }
+}
@@ -0,0 +1,7 @@
+package uk.gov.companieshouse.extensions.api.idempotency;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface IdempotencyRecordRepository extends MongoRepository<IdempotencyRecord, String>,
+    IdempotencyRecordRepositoryCustom {
+}
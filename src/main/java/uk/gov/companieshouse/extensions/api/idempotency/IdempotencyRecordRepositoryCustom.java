@@ -0,0 +1,32 @@
+package uk.gov.companieshouse.extensions.api.idempotency;
+
+import java.time.LocalDateTime;
+
+/**
+ * Updates to idempotency records that only apply while the caller still holds the record's
+ * pending lease, implemented against the MongoTemplate in {@link IdempotencyRecordRepositoryImpl}
+ */
+public interface IdempotencyRecordRepositoryCustom {
+
+    /**
+     * Takes over a record whose request is still pending but whose lease expired before now,
+     * replacing its lease with the lease of the given record.
+     * @param record the record of the retry taking over, with its new lease
+     * @param now leases that expired before this time can be taken over
+     * @return true if the record was taken over, false if it has completed or is still leased
+     */
+    boolean takeOverExpired(IdempotencyRecord record, LocalDateTime now);
+
+    /**
+     * Stores the response on a pending record, provided its lease is still held.
+     * @param record the completed record
+     * @return true if the record was completed, false if the lease was taken over
+     */
+    boolean complete(IdempotencyRecord record);
+
+    /**
+     * Removes a pending record, provided its lease is still held, so the key can be used again.
+     * @param record the pending record
+     */
+    void release(IdempotencyRecord record);
+}
@@ -0,0 +1,71 @@
+package uk.gov.companieshouse.extensions.api.idempotency;
+
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+public class IdempotencyRecordRepositoryImpl implements IdempotencyRecordRepositoryCustom {
+
+    private static final String ID = "_id";
+    private static final String METHOD = "method";
+    private static final String REQUEST_URI = "requestUri";
+    private static final String COMPLETED = "completed";
+    private static final String STATUS = "status";
+    private static final String CONTENT_TYPE = "contentType";
+    private static final String LOCATION = "location";
+    private static final String BODY = "body";
+    private static final String CREATED_ON = "createdOn";
+    private static final String LEASE_ID = "leaseId";
+    private static final String PENDING_UNTIL = "pendingUntil";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public IdempotencyRecordRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public boolean takeOverExpired(IdempotencyRecord record, LocalDateTime now) {
+        // records written before leases were added have no pending date and are treated as expired
+        Query query = Query.query(Criteria.where(ID).is(record.getId())
+            .and(COMPLETED).is(false)
+            .orOperator(
+                Criteria.where(PENDING_UNTIL).is(null),
+                Criteria.where(PENDING_UNTIL).lt(now)));
+        Update update = new Update()
+            .set(METHOD, record.getMethod())
+            .set(REQUEST_URI, record.getRequestUri())
+            .set(CREATED_ON, record.getCreatedOn())
+            .set(LEASE_ID, record.getLeaseId())
+            .set(PENDING_UNTIL, record.getPendingUntil());
+        return mongoTemplate.updateFirst(query, update, IdempotencyRecord.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public boolean complete(IdempotencyRecord record) {
+        Update update = new Update()
+            .set(COMPLETED, true)
+            .set(STATUS, record.getStatus())
+            .set(CONTENT_TYPE, record.getContentType())
+            .set(LOCATION, record.getLocation())
+            .set(BODY, record.getBody())
+            .unset(PENDING_UNTIL);
+        return mongoTemplate.updateFirst(heldLease(record), update, IdempotencyRecord.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public void release(IdempotencyRecord record) {
+        mongoTemplate.remove(heldLease(record), IdempotencyRecord.class);
+    }
+
+    private Query heldLease(IdempotencyRecord record) {
+        return Query.query(Criteria.where(ID).is(record.getId())
+            .and(COMPLETED).is(false)
+            .and(LEASE_ID).is(record.getLeaseId()));
+    }
+}
@@ -0,0 +1,113 @@
+package uk.gov.companieshouse.extensions.api.isolation;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A limit on the requests in flight that adapts to the latency they see, by additive increase
+ * and multiplicative decrease. A latency sample over the target shrinks the limit by the backoff
+ * ratio, at most once for each round of requests: the requests already in flight when the limit
+ * was cut were admitted under the old limit, so their latency says nothing about the new one. A
+ * sample within the target grows the limit by one when the limit is in use, so the limit rises
+ * only as far as the load needs it to.
+ *
+ * <p>Transfers may use only a share of the limit, so that as the limit falls they are shed
+ * before the cheap JSON requests are.
+ */
+public class AdaptiveLimiter {
+
+    private static final double SMOOTHING = 0.1;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyMs;
+    private final double backoffRatio;
+    private final double transferShare;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<RequestClass, LongAdder> rejected = new EnumMap<>(RequestClass.class);
+    private double limit;
+    private double averageQueueingMs;
+    private double averageServiceMs;
+    private boolean backedOff;
+    private long lastBackoffNanos;
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, long targetLatencyMs,
+                           double backoffRatio, double transferShare) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyMs = targetLatencyMs;
+        this.backoffRatio = backoffRatio;
+        this.transferShare = transferShare;
+        for (RequestClass requestClass : RequestClass.values()) {
+            rejected.put(requestClass, new LongAdder());
+        }
+    }
+
+    /**
+     * @return true if the request may be handled, in which case {@link #release()} must be
+     *     called once it has been
+     */
+    public boolean tryAcquire(RequestClass requestClass) {
+        int allowed = requestClass == RequestClass.TRANSFER
+            ? Math.max(1, (int) (getLimit() * transferShare))
+            : getLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                rejected.get(requestClass).increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Adjusts the limit for the latency of a request that has been handled.
+     * @param startedAtNanos the {@link System#nanoTime()} at which handling started
+     * @param queueingMs how long the request waited before it was handled
+     * @param serviceMs how long it took to handle
+     */
+    public synchronized void onSample(long startedAtNanos, long queueingMs, long serviceMs) {
+        averageQueueingMs += SMOOTHING * (queueingMs - averageQueueingMs);
+        averageServiceMs += SMOOTHING * (serviceMs - averageServiceMs);
+        if (queueingMs + serviceMs > targetLatencyMs) {
+            if (!backedOff || startedAtNanos - lastBackoffNanos > 0) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                backedOff = true;
+                lastBackoffNanos = startedAtNanos + TimeUnit.MILLISECONDS.toNanos(serviceMs);
+            }
+        } else if (inFlight.get() * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected(RequestClass requestClass) {
+        return rejected.get(requestClass).sum();
+    }
+
+    public synchronized double getAverageQueueingMs() {
+        return averageQueueingMs;
+    }
+
+    public synchronized double getAverageServiceMs() {
+        return averageServiceMs;
+    }
+}
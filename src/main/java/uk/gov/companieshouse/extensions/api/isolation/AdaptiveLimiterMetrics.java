@@ -0,0 +1,36 @@
+package uk.gov.companieshouse.extensions.api.isolation;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes the adaptive limit, the requests counted against it, the smoothed latencies it
+ * adapts to, and the requests it has shed of each class.
+ */
+public class AdaptiveLimiterMetrics implements MeterBinder {
+
+    private final AdaptiveLimiter limiter;
+
+    public AdaptiveLimiterMetrics(AdaptiveLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("extensions.shedding.limit", limiter, AdaptiveLimiter::getLimit)
+            .description("Requests that may be in flight").register(registry);
+        Gauge.builder("extensions.shedding.in_flight", limiter, AdaptiveLimiter::getInFlight)
+            .description("Requests in flight").register(registry);
+        Gauge.builder("extensions.shedding.queueing", limiter, AdaptiveLimiter::getAverageQueueingMs)
+            .baseUnit("milliseconds").description("Smoothed queueing time of JSON requests").register(registry);
+        Gauge.builder("extensions.shedding.service", limiter, AdaptiveLimiter::getAverageServiceMs)
+            .baseUnit("milliseconds").description("Smoothed service time of JSON requests").register(registry);
+        for (RequestClass requestClass : RequestClass.values()) {
+            FunctionCounter.builder("extensions.shedding.rejected", limiter, l -> l.getRejected(requestClass))
+                .tag("class", requestClass.name().toLowerCase())
+                .description("Requests shed with a 503").register(registry);
+        }
+    }
+}
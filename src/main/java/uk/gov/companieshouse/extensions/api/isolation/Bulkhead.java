@@ -0,0 +1,78 @@
+package uk.gov.companieshouse.extensions.api.isolation;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the requests of one class that are handled at once. A request that arrives when the
+ * limit is reached waits for up to the queue timeout, and is rejected straight away when the
+ * queue is full, so a burst is shed rather than piling up.
+ */
+public class Bulkhead {
+
+    private final RequestClass requestClass;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long queueTimeoutMs;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    public Bulkhead(RequestClass requestClass, int maxConcurrent, int maxQueued, long queueTimeoutMs) {
+        this.requestClass = requestClass;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * @return true if the request may be handled, in which case {@link #release()} must be
+     *     called once it has been
+     */
+    public boolean tryAcquire() throws InterruptedException {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        try {
+            if (permits.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } finally {
+            queued.decrementAndGet();
+        }
+        rejected.increment();
+        return false;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public RequestClass getRequestClass() {
+        return requestClass;
+    }
+
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+}
@@ -0,0 +1,37 @@
+package uk.gov.companieshouse.extensions.api.isolation;
+
+import java.util.Collection;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes the in-progress, queued and rejected requests of each request class, tagged with
+ * the class.
+ */
+public class BulkheadMetrics implements MeterBinder {
+
+    private final Collection<Bulkhead> bulkheads;
+
+    public BulkheadMetrics(Collection<Bulkhead> bulkheads) {
+        this.bulkheads = bulkheads;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Bulkhead bulkhead : bulkheads) {
+            Tags tags = Tags.of("class", bulkhead.getRequestClass().name().toLowerCase());
+            Gauge.builder("extensions.requests.active", bulkhead, Bulkhead::getActive)
+                .tags(tags).description("Requests being handled").register(registry);
+            Gauge.builder("extensions.requests.queued", bulkhead, Bulkhead::getQueued)
+                .tags(tags).description("Requests waiting to be handled").register(registry);
+            Gauge.builder("extensions.requests.capacity", bulkhead, Bulkhead::getMaxConcurrent)
+                .tags(tags).description("Requests that can be handled at once").register(registry);
+            FunctionCounter.builder("extensions.requests.rejected", bulkhead, Bulkhead::getRejected)
+                .tags(tags).description("Requests shed with a 503").register(registry);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package uk.gov.companieshouse.extensions.api.isolation;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+/**
+ * Rejects requests with a 503 straight away once the adaptive limit is reached, rather than
+ * letting them queue until the router gives up on them.
+ *
+ * <p>The queueing time of a request is measured from the time the router received it, which it
+ * sends in the X-Request-Start header as milliseconds since the epoch, optionally prefixed with
+ * "t=". Without the header only the time spent in this service counts. Only JSON requests are
+ * sampled, as the time a transfer takes depends mostly on the size of the file.
+ */
+public class LoadSheddingFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_START = "X-Request-Start";
+
+    private final AdaptiveLimiter limiter;
+    private final long retryAfterSeconds;
+    private final LongSupplier currentTimeMillis;
+    private final LongSupplier nanoTime;
+    private final ApiLogger logger;
+
+    public LoadSheddingFilter(AdaptiveLimiter limiter, long retryAfterSeconds, LongSupplier currentTimeMillis,
+                              LongSupplier nanoTime, ApiLogger logger) {
+        this.limiter = limiter;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.currentTimeMillis = currentTimeMillis;
+        this.nanoTime = nanoTime;
+        this.logger = logger;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestClass requestClass = RequestClass.of(request);
+        long queueingMs = queueingMillis(request);
+        if (!limiter.tryAcquire(requestClass)) {
+            logger.info(String.format("Shedding %s request %s %s, limit %d", requestClass,
+                request.getMethod(), request.getRequestURI(), limiter.getLimit()));
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        long start = nanoTime.getAsLong();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiter.release();
+            if (requestClass == RequestClass.API) {
+                limiter.onSample(start, queueingMs,
+                    TimeUnit.NANOSECONDS.toMillis(nanoTime.getAsLong() - start));
+            }
+        }
+    }
+
+    private long queueingMillis(HttpServletRequest request) {
+        String requestStart = StringUtils.removeStart(request.getHeader(REQUEST_START), "t=");
+        long receivedMillis = NumberUtils.toLong(requestStart, -1);
+        if (receivedMillis < 0) {
+            return 0;
+        }
+        // a clock that is ahead of ours must not make the queueing time negative
+        return Math.max(0, currentTimeMillis.getAsLong() - receivedMillis);
+    }
+}
@@ -0,0 +1,51 @@
+package uk.gov.companieshouse.extensions.api.isolation;
+
+import java.util.regex.Pattern;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.HttpMethod;
+
+/**
+ * The classes of request that are given separate capacity, so that one cannot use up the
+ * capacity of the other.
+ */
+public enum RequestClass {
+
+    /**
+     * Requests that move attachment content: uploads, upload chunks and downloads. These are
+     * few, but each can hold a thread for as long as the transfer takes.
+     */
+    TRANSFER,
+
+    /**
+     * Every other request. These are the cheap JSON requests.
+     */
+    API;
+
+    private static final Pattern ATTACHMENT_PATHS = Pattern.compile(
+        "^/company/[^/]+/extensions/requests/[^/]+/reasons/[^/]+/attachments(/.*)?$");
+    private static final Pattern SIGNED_DOWNLOAD_PATHS = Pattern.compile("^/extensions/downloads/[^/]+/download$");
+
+    public static RequestClass of(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        if (SIGNED_DOWNLOAD_PATHS.matcher(uri).matches()) {
+            return TRANSFER;
+        }
+        if (!ATTACHMENT_PATHS.matcher(uri).matches()) {
+            return API;
+        }
+        return sendsContent(request) || uri.endsWith("/download") ? TRANSFER : API;
+    }
+
+    /**
+     * @return true if the request is a transfer whose body is attachment content
+     */
+    public static boolean isUpload(HttpServletRequest request) {
+        return sendsContent(request) && ATTACHMENT_PATHS.matcher(request.getRequestURI()).matches();
+    }
+
+    private static boolean sendsContent(HttpServletRequest request) {
+        return HttpMethod.POST.matches(request.getMethod()) || HttpMethod.PUT.matches(request.getMethod());
+    }
+}
@@ -0,0 +1,59 @@
+package uk.gov.companieshouse.extensions.api.isolation;
+
+import java.io.IOException;
+import java.util.Map;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+/**
+ * Handles each request within the bulkhead of its class, and returns a 503 with a Retry-After
+ * header when that class is at capacity. A burst of attachment transfers is then shed before
+ * it can hold the threads that the JSON endpoints need.
+ */
+public class RequestIsolationFilter extends OncePerRequestFilter {
+
+    private final Map<RequestClass, Bulkhead> bulkheads;
+    private final long retryAfterSeconds;
+    private final ApiLogger logger;
+
+    public RequestIsolationFilter(Map<RequestClass, Bulkhead> bulkheads, long retryAfterSeconds,
+                                  ApiLogger logger) {
+        this.bulkheads = bulkheads;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.logger = logger;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Bulkhead bulkhead = bulkheads.get(RequestClass.of(request));
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            logger.info(String.format("Shedding %s request %s %s, %d in progress", bulkhead.getRequestClass(),
+                request.getMethod(), request.getRequestURI(), bulkhead.getActive()));
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            bulkhead.release();
+        }
+    }
+}
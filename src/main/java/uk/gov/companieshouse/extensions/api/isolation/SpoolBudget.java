@@ -0,0 +1,91 @@
+package uk.gov.companieshouse.extensions.api.isolation;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A number of bytes that the uploads in progress may hold between them, in memory or on disk.
+ * An upload reserves its declared length before its body is read, and waits for up to the queue
+ * timeout if the budget is spent. Waiting uploads are admitted in no particular order, but a new
+ * upload never overtakes one that is already waiting.
+ */
+public class SpoolBudget {
+
+    private final String name;
+    private final long capacityBytes;
+    private final int maxQueued;
+    private final long queueTimeoutMs;
+    private long reservedBytes;
+    private int queued;
+    private long rejected;
+
+    public SpoolBudget(String name, long capacityBytes, int maxQueued, long queueTimeoutMs) {
+        this.name = name;
+        this.capacityBytes = capacityBytes;
+        this.maxQueued = maxQueued;
+        this.queueTimeoutMs = queueTimeoutMs;
+    }
+
+    /**
+     * @return true if the bytes were reserved, in which case {@link #release(long)} must be
+     *     called with the same number once the upload has finished
+     */
+    public synchronized boolean tryReserve(long bytes) throws InterruptedException {
+        if (bytes > capacityBytes) {
+            rejected++;
+            return false;
+        }
+        if (queued == 0 && fits(bytes)) {
+            reservedBytes += bytes;
+            return true;
+        }
+        if (queued >= maxQueued) {
+            rejected++;
+            return false;
+        }
+        queued++;
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(queueTimeoutMs);
+            while (!fits(bytes)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    rejected++;
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            reservedBytes += bytes;
+            return true;
+        } finally {
+            queued--;
+        }
+    }
+
+    public synchronized void release(long bytes) {
+        reservedBytes -= bytes;
+        notifyAll();
+    }
+
+    private boolean fits(long bytes) {
+        return reservedBytes + bytes <= capacityBytes;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCapacityBytes() {
+        return capacityBytes;
+    }
+
+    public synchronized long getReservedBytes() {
+        return reservedBytes;
+    }
+
+    public synchronized int getQueued() {
+        return queued;
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+}
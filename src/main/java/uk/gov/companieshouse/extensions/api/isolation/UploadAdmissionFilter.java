@@ -0,0 +1,76 @@
+package uk.gov.companieshouse.extensions.api.isolation;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+/**
+ * Admits an upload only if its declared Content-Length fits in what is left of the spool budget,
+ * before any of its body is read. Bodies no larger than the multipart file size threshold are
+ * held in memory and count against the heap budget; larger ones, and upload chunks, are spooled
+ * to disk. An upload without a Content-Length is counted at the largest size a request may be.
+ */
+public class UploadAdmissionFilter extends OncePerRequestFilter {
+
+    private final SpoolBudget heapBudget;
+    private final SpoolBudget diskBudget;
+    private final long memoryThresholdBytes;
+    private final long maxRequestBytes;
+    private final long retryAfterSeconds;
+    private final ApiLogger logger;
+
+    public UploadAdmissionFilter(SpoolBudget heapBudget, SpoolBudget diskBudget, long memoryThresholdBytes,
+                                 long maxRequestBytes, long retryAfterSeconds, ApiLogger logger) {
+        this.heapBudget = heapBudget;
+        this.diskBudget = diskBudget;
+        this.memoryThresholdBytes = memoryThresholdBytes;
+        this.maxRequestBytes = maxRequestBytes;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.logger = logger;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !RequestClass.isUpload(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long declared = request.getContentLengthLong();
+        // anything over the maximum is refused by the multipart resolver before it is spooled
+        long bytes = declared < 0 ? maxRequestBytes : Math.min(declared, maxRequestBytes);
+        SpoolBudget budget = bytes <= memoryThresholdBytes && !HttpMethod.PUT.matches(request.getMethod())
+            ? heapBudget : diskBudget;
+        boolean reserved;
+        try {
+            reserved = budget.tryReserve(bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reserved = false;
+        }
+        if (!reserved) {
+            logger.info(String.format("Refusing upload %s of %d bytes, %d of %d %s bytes in use",
+                request.getRequestURI(), bytes, budget.getReservedBytes(), budget.getCapacityBytes(),
+                budget.getName()));
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            budget.release(bytes);
+        }
+    }
+}
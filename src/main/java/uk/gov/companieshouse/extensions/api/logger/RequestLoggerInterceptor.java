@@ -38,7 +38,7 @@ public class RequestLoggerInterceptor extends HandlerInterceptorAdapter {
      * @param request
      * @return company number or empty string if not found
      */
-    private String getCompanyNumber(HttpServletRequest request) {
+    public static String getCompanyNumber(HttpServletRequest request) {
         String uri = request.getRequestURI();
         boolean isPreviousTokenCompany = false;
         for (String token : uri.split("/")) {
@@ -0,0 +1,29 @@
+package uk.gov.companieshouse.extensions.api.processor;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class LeaseRequest {
+
+    @JsonProperty("worker_id")
+    private String workerId;
+
+    // only read when a lease is released
+    @JsonProperty("processed")
+    private boolean processed;
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    public void setWorkerId(String workerId) {
+        this.workerId = workerId;
+    }
+
+    public boolean isProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(boolean processed) {
+        this.processed = processed;
+    }
+}
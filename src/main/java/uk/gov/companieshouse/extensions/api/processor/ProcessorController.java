@@ -0,0 +1,131 @@
+package uk.gov.companieshouse.extensions.api.processor;
+
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+import uk.gov.companieshouse.extensions.api.logger.LogMethodCall;
+import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestFullEntity;
+import uk.gov.companieshouse.extensions.api.requests.ProcessingLease;
+import uk.gov.companieshouse.extensions.api.requests.RequestBatchResponse;
+import uk.gov.companieshouse.extensions.api.requests.RequestField;
+import uk.gov.companieshouse.extensions.api.requests.RequestStatusUpdate;
+import uk.gov.companieshouse.extensions.api.requests.RequestStatusUpdateResult;
+import uk.gov.companieshouse.extensions.api.requests.RequestsService;
+import uk.gov.companieshouse.extensions.api.response.ListResponse;
+import uk.gov.companieshouse.extensions.api.routing.SecondaryReads;
+import uk.gov.companieshouse.service.ServiceException;
+
+@RestController
+@RequestMapping("${api.endpoint.processor}")
+public class ProcessorController {
+
+    private final ProcessorService processorService;
+    private final RequestsService requestsService;
+    private final ApiLogger logger;
+    private final int maxStatusUpdates;
+    private final int maxBatchIds;
+
+    @Autowired
+    public ProcessorController(ProcessorService processorService, RequestsService requestsService, ApiLogger logger,
+                               @Value("${PROCESSOR_MAX_STATUS_UPDATES:500}") int maxStatusUpdates,
+                               @Value("${PROCESSOR_MAX_BATCH_IDS:100}") int maxBatchIds) {
+        this.processorService = processorService;
+        this.requestsService = requestsService;
+        this.logger = logger;
+        this.maxStatusUpdates = maxStatusUpdates;
+        this.maxBatchIds = maxBatchIds;
+    }
+
+    /**
+     * Fetches many requests by id in one call, e.g. {@code ?ids=1,2,3&fields=status,created_on}.
+     * Ids that match no request are listed in the response rather than failing the call.
+     */
+    @LogMethodCall
+    @SecondaryReads
+    @GetMapping
+    public ResponseEntity<RequestBatchResponse> getRequestsByIds(@RequestParam("ids") List<String> ids,
+            @RequestParam(value = "fields", required = false) List<String> fields) {
+        if (ids.isEmpty() || ids.size() > maxBatchIds) {
+            logger.info(String.format("Rejected batch fetch of %d requests", ids.size()));
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(
+            requestsService.getExtensionsRequestsByIds(ids, RequestField.fromParameters(fields)));
+    }
+
+    @LogMethodCall
+    @PostMapping("/claims")
+    public ResponseEntity<ExtensionRequestFullEntity> claimNextRequest(@RequestBody LeaseRequest leaseRequest) {
+        if (StringUtils.isBlank(leaseRequest.getWorkerId())) {
+            return ResponseEntity.badRequest().build();
+        }
+        return processorService.claimNextRequest(leaseRequest.getWorkerId())
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.noContent().build());
+    }
+
+    @LogMethodCall
+    @PutMapping("/{requestId}/lease")
+    public ResponseEntity<ProcessingLease> renewLease(@PathVariable String requestId,
+                                                      @RequestBody LeaseRequest leaseRequest) {
+        if (StringUtils.isBlank(leaseRequest.getWorkerId())) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            ProcessingLease lease = new ProcessingLease();
+            lease.setOwner(leaseRequest.getWorkerId());
+            lease.setExpiresOn(processorService.renewLease(requestId, leaseRequest.getWorkerId()));
+            return ResponseEntity.ok(lease);
+        } catch (ServiceException e) {
+            logger.info(e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @LogMethodCall
+    @PostMapping("/{requestId}/lease/release")
+    public ResponseEntity<Void> releaseLease(@PathVariable String requestId,
+                                             @RequestBody LeaseRequest leaseRequest) {
+        if (StringUtils.isBlank(leaseRequest.getWorkerId())) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            processorService.releaseLease(requestId, leaseRequest.getWorkerId(), leaseRequest.isProcessed());
+            return ResponseEntity.noContent().build();
+        } catch (ServiceException e) {
+            logger.info(e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /**
+     * Updates the status of many requests in one call. Each item gets its own outcome, so the
+     * response is 200 even when some of the requests could not be updated.
+     */
+    @LogMethodCall
+    @PostMapping("/status")
+    public ResponseEntity<ListResponse<RequestStatusUpdateResult>> updateStatuses(
+            @RequestBody List<RequestStatusUpdate> updates) {
+        if (updates.isEmpty() || updates.size() > maxStatusUpdates) {
+            logger.info(String.format("Rejected bulk status update of %d items", updates.size()));
+            return ResponseEntity.badRequest().build();
+        }
+        List<RequestStatusUpdateResult> results = processorService.updateStatuses(updates);
+        return ResponseEntity.ok(ListResponse.<RequestStatusUpdateResult>builder()
+            .withItems(results)
+            .build());
+    }
+}
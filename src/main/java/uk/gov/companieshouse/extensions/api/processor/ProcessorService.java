@@ -0,0 +1,198 @@
+package uk.gov.companieshouse.extensions.api.processor;
+
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.extensions.api.events.RequestEvent;
+import uk.gov.companieshouse.extensions.api.events.RequestEventRecorder;
+import uk.gov.companieshouse.extensions.api.logger.LogMethodCall;
+import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestFullEntity;
+import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestsRepository;
+import uk.gov.companieshouse.extensions.api.requests.RequestStatusUpdate;
+import uk.gov.companieshouse.extensions.api.requests.RequestStatusUpdateResult;
+import uk.gov.companieshouse.extensions.api.requests.RequestStatusUpdateResult.Outcome;
+import uk.gov.companieshouse.extensions.api.requests.Status;
+import uk.gov.companieshouse.extensions.api.summary.RequestSummaryService;
+import uk.gov.companieshouse.service.ServiceException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Hands SUBMITTED requests out to processor workers one at a time. A worker claims a request,
+ * which leases it to that worker for a fixed period, renews the lease while it is still working
+ * and releases it when it is done. A worker that dies simply lets its lease expire, after which
+ * the request can be claimed again.
+ */
+@Component
+public class ProcessorService {
+
+    private static final List<String> SUMMARY_PROPERTIES = Arrays.asList("companyNumber", "status");
+
+    private final ExtensionRequestsRepository extensionRequestsRepository;
+    private final RequestSummaryService requestSummaryService;
+    private final RequestEventRecorder requestEventRecorder;
+    private final Supplier<LocalDateTime> dateTimeSupplierNow;
+    private final long leaseSeconds;
+
+    @Autowired
+    public ProcessorService(ExtensionRequestsRepository extensionRequestsRepository,
+                            RequestSummaryService requestSummaryService,
+                            RequestEventRecorder requestEventRecorder,
+                            Supplier<LocalDateTime> dateTimeSupplierNow,
+                            @Value("${PROCESSOR_LEASE_SECONDS:300}") long leaseSeconds) {
+        this.extensionRequestsRepository = extensionRequestsRepository;
+        this.requestSummaryService = requestSummaryService;
+        this.requestEventRecorder = requestEventRecorder;
+        this.dateTimeSupplierNow = dateTimeSupplierNow;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    /**
+     * Claims the oldest SUBMITTED request that has not been processed and is not leased to
+     * another worker.
+     * @param workerId the worker claiming the request
+     * @return the claimed request, empty if there is nothing waiting
+     */
+    @LogMethodCall
+    public Optional<ExtensionRequestFullEntity> claimNextRequest(String workerId) {
+        LocalDateTime now = dateTimeSupplierNow.get();
+        return extensionRequestsRepository.claimNextSubmittedRequest(workerId, now, now.plusSeconds(leaseSeconds));
+    }
+
+    /**
+     * Extends the worker's lease on a request by the lease period from now.
+     * @return when the renewed lease expires
+     * @throws ServiceException if the worker does not hold the lease
+     */
+    @LogMethodCall
+    public LocalDateTime renewLease(String requestId, String workerId) throws ServiceException {
+        LocalDateTime leaseExpiresOn = dateTimeSupplierNow.get().plusSeconds(leaseSeconds);
+        if (!extensionRequestsRepository.renewProcessingLease(requestId, workerId, leaseExpiresOn)) {
+            throw leaseNotHeld(requestId, workerId);
+        }
+        return leaseExpiresOn;
+    }
+
+    /**
+     * Releases the worker's lease on a request. A processed request leaves the queue, otherwise
+     * it is returned to the queue to be claimed again.
+     * @throws ServiceException if the worker does not hold the lease
+     */
+    @LogMethodCall
+    public void releaseLease(String requestId, String workerId, boolean processed) throws ServiceException {
+        LocalDateTime processedOn = processed ? dateTimeSupplierNow.get() : null;
+        if (!extensionRequestsRepository.releaseProcessingLease(requestId, workerId, processedOn)) {
+            throw leaseNotHeld(requestId, workerId);
+        }
+    }
+
+    /**
+     * Applies many status updates at once. The requests are looked up with one query and the
+     * updates for those that exist are applied with one bulk write. Several updates for the same
+     * request are combined into one write, which only applies if the request still has the status
+     * that was read, so an update that races with another change is reported as a conflict.
+     * @param updates the updates to apply
+     * @return the outcome of each update, in the same order
+     */
+    @LogMethodCall
+    public List<RequestStatusUpdateResult> updateStatuses(List<RequestStatusUpdate> updates) {
+        Set<String> ids = updates.stream()
+            .map(RequestStatusUpdate::getRequestId)
+            .filter(StringUtils::isNotBlank)
+            .collect(Collectors.toSet());
+        // the current status of each request, so the company summaries can be moved on
+        Map<String, ExtensionRequestFullEntity> existing = new HashMap<>();
+        extensionRequestsRepository.findAllByIds(ids, SUMMARY_PROPERTIES)
+            .forEach(request -> existing.put(request.getId(), request));
+
+        // one combined update per request, in the order the requests first appear
+        Map<String, RequestStatusUpdate> combined = new LinkedHashMap<>();
+        // the status change events written with each combined update
+        Map<String, List<RequestEvent>> events = new HashMap<>();
+        Map<String, Status> statuses = new HashMap<>();
+        existing.values().forEach(request -> statuses.put(request.getId(), request.getStatus()));
+        for (RequestStatusUpdate update : updates) {
+            ExtensionRequestFullEntity request = existing.get(update.getRequestId());
+            if (request != null) {
+                combine(combined.computeIfAbsent(request.getId(), this::emptyUpdate), update);
+                requestEventRecorder.statusChangedEvent(request.getId(), request.getCompanyNumber(),
+                        statuses.get(request.getId()), update.getStatus())
+                    .ifPresent(event -> events.computeIfAbsent(request.getId(), id -> new ArrayList<>()).add(event));
+                if (update.getStatus() != null) {
+                    statuses.put(request.getId(), update.getStatus());
+                }
+            }
+        }
+
+        List<RequestStatusUpdate> toApply = new ArrayList<>(combined.values());
+        Map<Integer, Outcome> notApplied = toApply.isEmpty() ? Collections.emptyMap()
+            : extensionRequestsRepository.updateStatuses(toApply,
+                toApply.stream().map(update -> existing.get(update.getRequestId()).getStatus())
+                    .collect(Collectors.toList()),
+                toApply.stream().map(update -> events.getOrDefault(update.getRequestId(), Collections.emptyList()))
+                    .collect(Collectors.toList()),
+                dateTimeSupplierNow.get());
+        Map<String, Outcome> outcomes = new HashMap<>();
+        for (int i = 0; i < toApply.size(); i++) {
+            RequestStatusUpdate update = toApply.get(i);
+            Outcome outcome = notApplied.getOrDefault(i, Outcome.UPDATED);
+            outcomes.put(update.getRequestId(), outcome);
+            if (outcome == Outcome.UPDATED) {
+                recordStatusChange(existing.get(update.getRequestId()), update.getStatus());
+            }
+        }
+
+        List<RequestStatusUpdateResult> results = new ArrayList<>();
+        for (RequestStatusUpdate update : updates) {
+            Outcome outcome;
+            if (StringUtils.isBlank(update.getRequestId())) {
+                outcome = Outcome.INVALID;
+            } else if (!existing.containsKey(update.getRequestId())) {
+                outcome = Outcome.NOT_FOUND;
+            } else {
+                outcome = outcomes.get(update.getRequestId());
+            }
+            results.add(new RequestStatusUpdateResult(update.getRequestId(), outcome));
+        }
+        return results;
+    }
+
+    private RequestStatusUpdate emptyUpdate(String requestId) {
+        RequestStatusUpdate update = new RequestStatusUpdate();
+        update.setRequestId(requestId);
+        return update;
+    }
+
+    private void combine(RequestStatusUpdate combined, RequestStatusUpdate update) {
+        // each update sets the auto accepted flag, and a missing status leaves the last one in place
+        combined.setIsAutoAccepted(update.getIsAutoAccepted());
+        if (update.getStatus() != null) {
+            combined.setStatus(update.getStatus());
+        }
+    }
+
+    private void recordStatusChange(ExtensionRequestFullEntity request, Status status) {
+        if (status == null) {
+            return;
+        }
+        requestSummaryService.recordStatusChange(request.getCompanyNumber(), request.getStatus(), status);
+        request.setStatus(status);
+    }
+
+    private ServiceException leaseNotHeld(String requestId, String workerId) {
+        return new ServiceException(
+            String.format("Request: %s is not leased to worker: %s", requestId, workerId));
+    }
+}
@@ -0,0 +1,82 @@
+package uk.gov.companieshouse.extensions.api.ratelimit;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Buckets held by this node. Keys are spread across stripes, each with its own lock, so requests
+ * for different clients rarely wait for each other. Each stripe keeps its most recently used
+ * buckets only; a bucket that is dropped would have refilled by the time it is needed again, as
+ * long as the stripes are large enough.
+ */
+public class LocalRateLimiter implements RateLimiter {
+
+    private final Stripe[] stripes;
+    private final LongSupplier currentTimeMillis;
+
+    public LocalRateLimiter(int stripeCount, int maxKeysPerStripe, LongSupplier currentTimeMillis) {
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(maxKeysPerStripe);
+        }
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    @Override
+    public List<RateLimitDecision> tryTakeAll(Map<String, RateLimit> limits) {
+        // stripes are always locked in the same order, so two requests cannot wait on each other
+        int[] stripeIndexes = limits.keySet().stream()
+            .mapToInt(this::stripeIndex)
+            .distinct()
+            .sorted()
+            .toArray();
+        return takeAllLocked(stripeIndexes, 0, limits);
+    }
+
+    private List<RateLimitDecision> takeAllLocked(int[] stripeIndexes, int next, Map<String, RateLimit> limits) {
+        if (next < stripeIndexes.length) {
+            synchronized (stripes[stripeIndexes[next]]) {
+                return takeAllLocked(stripeIndexes, next + 1, limits);
+            }
+        }
+        long now = currentTimeMillis.getAsLong();
+        List<TokenBucket> buckets = new ArrayList<>();
+        boolean allHaveTokens = true;
+        for (Map.Entry<String, RateLimit> entry : limits.entrySet()) {
+            TokenBucket bucket = stripes[stripeIndex(entry.getKey())]
+                .computeIfAbsent(entry.getKey(), k -> new TokenBucket(entry.getValue().getCapacity(), now));
+            allHaveTokens &= bucket.refill(entry.getValue(), now);
+            buckets.add(bucket);
+        }
+        List<RateLimitDecision> decisions = new ArrayList<>();
+        int i = 0;
+        for (RateLimit limit : limits.values()) {
+            decisions.add(buckets.get(i++).decide(limit, allHaveTokens));
+        }
+        return decisions;
+    }
+
+    private int stripeIndex(String key) {
+        return Math.floorMod(key.hashCode(), stripes.length);
+    }
+
+    private static class Stripe extends LinkedHashMap<String, TokenBucket> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxKeys;
+
+        Stripe(int maxKeys) {
+            super(16, 0.75f, true);
+            this.maxKeys = maxKeys;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+            return size() > maxKeys;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package uk.gov.companieshouse.extensions.api.ratelimit;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Buckets kept in Mongo, so that a client's limit applies across every node. A token is taken
+ * with a conditional update on the bucket as it was read, and the read is retried if another
+ * node took one first. A bucket too busy to update in a few attempts lets the request through,
+ * as the limiter does when Mongo cannot be reached. The buckets for a request are all read before
+ * any token is taken, but not locked, so a bucket emptied by another node in between can still
+ * refuse a request that has already taken tokens from the others.
+ */
+public class MongoRateLimiter implements RateLimiter {
+
+    private static final String ID = "_id";
+    private static final String TOKENS = "tokens";
+    private static final String UPDATED_AT = "updatedAt";
+    private static final String EXPIRES_ON = "expiresOn";
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final MongoTemplate mongoTemplate;
+    private final LongSupplier currentTimeMillis;
+
+    public MongoRateLimiter(MongoTemplate mongoTemplate, LongSupplier currentTimeMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    @Override
+    public List<RateLimitDecision> tryTakeAll(Map<String, RateLimit> limits) {
+        long now = currentTimeMillis.getAsLong();
+        List<RateLimitBucket> stored = new ArrayList<>();
+        List<TokenBucket> buckets = new ArrayList<>();
+        boolean allHaveTokens = true;
+        for (Map.Entry<String, RateLimit> entry : limits.entrySet()) {
+            RateLimitBucket read = mongoTemplate.findById(entry.getKey(), RateLimitBucket.class);
+            TokenBucket bucket = toTokenBucket(read, entry.getValue(), now);
+            allHaveTokens &= bucket.refill(entry.getValue(), now);
+            stored.add(read);
+            buckets.add(bucket);
+        }
+
+        List<RateLimitDecision> decisions = new ArrayList<>();
+        int i = 0;
+        for (Map.Entry<String, RateLimit> entry : limits.entrySet()) {
+            decisions.add(allHaveTokens
+                ? take(entry.getKey(), entry.getValue(), stored.get(i), buckets.get(i))
+                : buckets.get(i).decide(entry.getValue(), false));
+            i++;
+        }
+        return decisions;
+    }
+
+    private RateLimitDecision take(String key, RateLimit limit, RateLimitBucket stored, TokenBucket bucket) {
+        RateLimitDecision decision = bucket.decide(limit, true);
+        for (int attempt = 1; decision.isAllowed() && !write(key, stored, bucket, decision); attempt++) {
+            if (attempt == MAX_ATTEMPTS) {
+                // the request is let through rather than refused because other clients share the bucket
+                return decision;
+            }
+            long now = currentTimeMillis.getAsLong();
+            stored = mongoTemplate.findById(key, RateLimitBucket.class);
+            bucket = toTokenBucket(stored, limit, now);
+            bucket.refill(limit, now);
+            decision = bucket.decide(limit, true);
+        }
+        return decision;
+    }
+
+    private boolean write(String key, RateLimitBucket stored, TokenBucket bucket, RateLimitDecision decision) {
+        return stored == null ? insert(key, bucket, decision) : update(stored, bucket, decision);
+    }
+
+    private static TokenBucket toTokenBucket(RateLimitBucket stored, RateLimit limit, long now) {
+        return stored == null ? new TokenBucket(limit.getCapacity(), now)
+            : new TokenBucket(stored.getTokens(), stored.getUpdatedAt());
+    }
+
+    private boolean insert(String key, TokenBucket bucket, RateLimitDecision decision) {
+        RateLimitBucket stored = new RateLimitBucket();
+        stored.setId(key);
+        stored.setTokens(bucket.getTokens());
+        stored.setUpdatedAt(bucket.getUpdatedAtMillis());
+        stored.setExpiresOn(expiresOn(bucket, decision));
+        try {
+            mongoTemplate.insert(stored);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private boolean update(RateLimitBucket stored, TokenBucket bucket, RateLimitDecision decision) {
+        Query query = Query.query(Criteria.where(ID).is(stored.getId())
+            .and(TOKENS).is(stored.getTokens())
+            .and(UPDATED_AT).is(stored.getUpdatedAt()));
+        Update update = new Update()
+            .set(TOKENS, bucket.getTokens())
+            .set(UPDATED_AT, bucket.getUpdatedAtMillis())
+            .set(EXPIRES_ON, expiresOn(bucket, decision));
+        return mongoTemplate.updateFirst(query, update, RateLimitBucket.class).getModifiedCount() == 1;
+    }
+
+    private static LocalDateTime expiresOn(TokenBucket bucket, RateLimitDecision decision) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(bucket.getUpdatedAtMillis()), ZoneId.systemDefault())
+            .plusSeconds(decision.getResetSeconds() + 1);
+    }
+}
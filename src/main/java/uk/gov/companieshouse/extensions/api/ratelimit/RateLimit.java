@@ -0,0 +1,24 @@
+package uk.gov.companieshouse.extensions.api.ratelimit;
+
+/**
+ * A token bucket limit: a client may send a burst of up to the capacity, after which it may send
+ * requests at the refill rate.
+ */
+public class RateLimit {
+
+    private final long capacity;
+    private final double refillPerSecond;
+
+    public RateLimit(long capacity, double refillPerSecond) {
+        this.capacity = capacity;
+        this.refillPerSecond = refillPerSecond;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public double getRefillPerSecond() {
+        return refillPerSecond;
+    }
+}
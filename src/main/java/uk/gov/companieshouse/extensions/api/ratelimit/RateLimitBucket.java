@@ -0,0 +1,56 @@
+package uk.gov.companieshouse.extensions.api.ratelimit;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A token bucket shared by every node. Mongo removes it once it would have refilled.
+ */
+@Document(collection = "rate_limits")
+public class RateLimitBucket {
+
+    @Id
+    private String id;
+
+    private double tokens;
+
+    private long updatedAt;
+
+    @Indexed(expireAfterSeconds = 0)
+    private LocalDateTime expiresOn;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public double getTokens() {
+        return tokens;
+    }
+
+    public void setTokens(double tokens) {
+        this.tokens = tokens;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getExpiresOn() {
+        return expiresOn;
+    }
+
+    public void setExpiresOn(LocalDateTime expiresOn) {
+        this.expiresOn = expiresOn;
+    }
+}
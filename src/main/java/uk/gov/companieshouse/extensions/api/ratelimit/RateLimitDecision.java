@@ -0,0 +1,51 @@
+package uk.gov.companieshouse.extensions.api.ratelimit;
+
+/**
+ * The outcome of taking a token from a bucket, with what is needed for the rate limit headers.
+ */
+public class RateLimitDecision {
+
+    private final boolean allowed;
+    private final long limit;
+    private final long remaining;
+    private final long resetSeconds;
+    private final long retryAfterSeconds;
+
+    public RateLimitDecision(boolean allowed, long limit, long remaining, long resetSeconds,
+                             long retryAfterSeconds) {
+        this.allowed = allowed;
+        this.limit = limit;
+        this.remaining = remaining;
+        this.resetSeconds = resetSeconds;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public boolean isAllowed() {
+        return allowed;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the number of requests that could be sent now
+     */
+    public long getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * @return the number of seconds until the bucket is full again
+     */
+    public long getResetSeconds() {
+        return resetSeconds;
+    }
+
+    /**
+     * @return the number of seconds until a refused request would be allowed, or 0 if allowed
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,107 @@
+package uk.gov.companieshouse.extensions.api.ratelimit;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import uk.gov.companieshouse.extensions.api.isolation.RequestClass;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+import uk.gov.companieshouse.extensions.api.logger.RequestLoggerInterceptor;
+
+/**
+ * Limits the rate of requests from each user and for each company, with separate limits for
+ * each class of request. A request must be allowed by both its user's bucket and its company's
+ * bucket, and a token is only taken from either if both have one. The response carries the
+ * RateLimit headers of whichever bucket has fewer requests left, and a refused request gets a 429
+ * with Retry-After.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public static final String RATE_LIMIT_LIMIT = "RateLimit-Limit";
+    public static final String RATE_LIMIT_REMAINING = "RateLimit-Remaining";
+    public static final String RATE_LIMIT_RESET = "RateLimit-Reset";
+
+    private static final String ERIC_IDENTITY = "ERIC-identity";
+
+    private final RateLimiter rateLimiter;
+    private final Map<RequestClass, RateLimit> userLimits;
+    private final Map<RequestClass, RateLimit> companyLimits;
+    private final ApiLogger logger;
+
+    public RateLimitFilter(RateLimiter rateLimiter, Map<RequestClass, RateLimit> userLimits,
+                           Map<RequestClass, RateLimit> companyLimits, ApiLogger logger) {
+        this.rateLimiter = rateLimiter;
+        this.userLimits = userLimits;
+        this.companyLimits = companyLimits;
+        this.logger = logger;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestClass requestClass = RequestClass.of(request);
+        Map<String, RateLimit> limits = new LinkedHashMap<>();
+        String identity = request.getHeader(ERIC_IDENTITY);
+        if (StringUtils.isNotBlank(identity)) {
+            limits.put(key("user", identity, requestClass), userLimits.get(requestClass));
+        }
+        String companyNumber = RequestLoggerInterceptor.getCompanyNumber(request);
+        if (StringUtils.isNotBlank(companyNumber)) {
+            limits.put(key("company", companyNumber, requestClass), companyLimits.get(requestClass));
+        }
+        if (limits.isEmpty()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        List<RateLimitDecision> decisions;
+        try {
+            decisions = rateLimiter.tryTakeAll(limits);
+        } catch (RuntimeException e) {
+            // a limiter that cannot be reached should not stop requests being handled
+            logger.error("Unable to apply rate limits", e);
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RateLimitDecision reported = null;
+        for (RateLimitDecision decision : decisions) {
+            if (reported == null || isMoreRestrictive(decision, reported)) {
+                reported = decision;
+            }
+        }
+        response.setHeader(RATE_LIMIT_LIMIT, String.valueOf(reported.getLimit()));
+        response.setHeader(RATE_LIMIT_REMAINING, String.valueOf(reported.getRemaining()));
+        response.setHeader(RATE_LIMIT_RESET, String.valueOf(reported.getResetSeconds()));
+        if (!reported.isAllowed()) {
+            logger.info(String.format("Rate limit reached for %s request %s %s", requestClass,
+                request.getMethod(), request.getRequestURI()));
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(reported.getRetryAfterSeconds()));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static boolean isMoreRestrictive(RateLimitDecision decision, RateLimitDecision than) {
+        if (decision.isAllowed() != than.isAllowed()) {
+            return !decision.isAllowed();
+        }
+        return decision.getRemaining() < than.getRemaining();
+    }
+
+    private static String key(String scope, String id, RequestClass requestClass) {
+        return scope + ":" + id + ":" + requestClass;
+    }
+}
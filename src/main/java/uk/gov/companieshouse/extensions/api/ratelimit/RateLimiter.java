@@ -0,0 +1,27 @@
+package uk.gov.companieshouse.extensions.api.ratelimit;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a token bucket for each key.
+ */
+public interface RateLimiter {
+
+    /**
+     * Takes a token from the bucket for each key, creating full buckets where there are none.
+     * Every bucket is checked first, and tokens are only taken if each of them has one, so a
+     * request refused by one bucket does not use up the others.
+     * @param limits the limit of each bucket, by key, in the order the decisions are wanted
+     * @return the decision for each bucket, in the order of the keys
+     */
+    List<RateLimitDecision> tryTakeAll(Map<String, RateLimit> limits);
+
+    /**
+     * Takes a token from the bucket for the key, creating a full bucket if there is none.
+     */
+    default RateLimitDecision tryTake(String key, RateLimit limit) {
+        return tryTakeAll(Collections.singletonMap(key, limit)).get(0);
+    }
+}
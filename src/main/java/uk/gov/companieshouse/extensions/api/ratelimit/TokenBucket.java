@@ -0,0 +1,60 @@
+package uk.gov.companieshouse.extensions.api.ratelimit;
+
+/**
+ * The tokens left in one bucket and when they were counted. Tokens are added for the time that
+ * has passed whenever one is taken, rather than by a timer.
+ */
+class TokenBucket {
+
+    private double tokens;
+    private long updatedAtMillis;
+
+    TokenBucket(double tokens, long updatedAtMillis) {
+        this.tokens = tokens;
+        this.updatedAtMillis = updatedAtMillis;
+    }
+
+    RateLimitDecision tryTake(RateLimit limit, long nowMillis) {
+        refill(limit, nowMillis);
+        return decide(limit, true);
+    }
+
+    /**
+     * Adds the tokens for the time that has passed since they were last counted.
+     * @return true if there is a token to take
+     */
+    boolean refill(RateLimit limit, long nowMillis) {
+        if (nowMillis > updatedAtMillis) {
+            double refill = (nowMillis - updatedAtMillis) * limit.getRefillPerSecond() / 1000;
+            tokens = Math.min(limit.getCapacity(), tokens + refill);
+            updatedAtMillis = nowMillis;
+        }
+        return tokens >= 1;
+    }
+
+    /**
+     * @param take whether to take a token if there is one, false to only report on the bucket
+     */
+    RateLimitDecision decide(RateLimit limit, boolean take) {
+        boolean allowed = tokens >= 1;
+        if (allowed && take) {
+            tokens -= 1;
+        }
+        long resetSeconds = secondsToRefill(limit.getCapacity() - tokens, limit);
+        long retryAfterSeconds = allowed ? 0 : Math.max(1, secondsToRefill(1 - tokens, limit));
+        return new RateLimitDecision(allowed, limit.getCapacity(), (long) Math.floor(tokens),
+            resetSeconds, retryAfterSeconds);
+    }
+
+    private static long secondsToRefill(double tokensNeeded, RateLimit limit) {
+        return (long) Math.ceil(tokensNeeded / limit.getRefillPerSecond());
+    }
+
+    double getTokens() {
+        return tokens;
+    }
+
+    long getUpdatedAtMillis() {
+        return updatedAtMillis;
+    }
+}
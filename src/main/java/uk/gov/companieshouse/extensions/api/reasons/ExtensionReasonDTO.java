@@ -1,14 +1,24 @@
 package uk.gov.companieshouse.extensions.api.reasons;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonUnwrapped;
 
+import uk.gov.companieshouse.extensions.api.attachments.Attachment;
 import uk.gov.companieshouse.service.links.Links;
 
+import java.util.List;
+
 public class ExtensionReasonDTO extends ExtensionReason {
     // key = hash of attachment id, value = uri of attachment
     @JsonUnwrapped
     private Links attachments;
 
+    // only populated when the attachments have been requested with the expand parameter
+    @JsonProperty("attachment_details")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Attachment> attachmentDetails;
+
     public Links getAttachments() {
         return attachments;
     }
@@ -17,4 +27,11 @@ public class ExtensionReasonDTO extends ExtensionReason {
         this.attachments = attachments;
     }
 
+    public List<Attachment> getAttachmentDetails() {
+        return attachmentDetails;
+    }
+
+    public void setAttachmentDetails(List<Attachment> attachmentDetails) {
+        this.attachmentDetails = attachmentDetails;
+    }
 }
@@ -4,12 +4,24 @@ import org.springframework.stereotype.Component;
 import uk.gov.companieshouse.extensions.api.requests.ExtensionsLinkKeys;
 import uk.gov.companieshouse.service.links.Links;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
 @Component
 public class ExtensionReasonMapper {
     public ExtensionReasonDTO entityToDTO(ExtensionReasonEntity entity) {
+        return entityToDTO(entity, false);
+    }
+
+    /**
+     * Maps a reason entity to its DTO
+     * @param entity the reason to map
+     * @param withAttachmentDetails whether to embed the metadata of each attachment as well
+     *                              as the attachment links
+     * @return the mapped DTO
+     */
+    public ExtensionReasonDTO entityToDTO(ExtensionReasonEntity entity, boolean withAttachmentDetails) {
         ExtensionReasonDTO extensionReasonDTO = new ExtensionReasonDTO();
         extensionReasonDTO.setEtag(entity.getEtag());
         extensionReasonDTO.setReasonInformation(entity.getReasonInformation());
@@ -29,6 +41,10 @@ public class ExtensionReasonMapper {
         attachments.setLinks(linksMap);
         extensionReasonDTO.setAttachments(attachments);
 
+        if (withAttachmentDetails) {
+            extensionReasonDTO.setAttachmentDetails(new ArrayList<>(entity.getAttachments()));
+        }
+
         return extensionReasonDTO;
     }
 }
@@ -7,6 +7,7 @@ import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
 import uk.gov.companieshouse.extensions.api.logger.LogMethodCall;
 import uk.gov.companieshouse.extensions.api.requests.ExtensionsLinkKeys;
 import uk.gov.companieshouse.extensions.api.response.ListResponse;
+import uk.gov.companieshouse.extensions.api.routing.SecondaryReads;
 import uk.gov.companieshouse.service.ServiceException;
 import uk.gov.companieshouse.service.ServiceResult;
 
@@ -27,6 +28,7 @@ public class ReasonsController {
     }
 
     @LogMethodCall
+    @SecondaryReads
     @GetMapping("/{requestId}/reasons")
     public ResponseEntity<ListResponse<ExtensionReasonDTO>> getReasons(@PathVariable String requestId) {
         try {
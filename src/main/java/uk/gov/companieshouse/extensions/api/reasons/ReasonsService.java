@@ -6,8 +6,10 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import uk.gov.companieshouse.extensions.api.attachments.Attachment;
-import uk.gov.companieshouse.extensions.api.attachments.file.FileTransferApiClient;
+import uk.gov.companieshouse.extensions.api.attachments.dedup.AttachmentFileIndex;
 import uk.gov.companieshouse.extensions.api.attachments.file.FileTransferApiClientResponse;
+import uk.gov.companieshouse.extensions.api.attachments.storage.AttachmentStorage;
+import uk.gov.companieshouse.extensions.api.events.RequestEventRecorder;
 import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
 import uk.gov.companieshouse.extensions.api.logger.LogMethodCall;
 import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestFullEntity;
@@ -31,22 +33,28 @@ public class ReasonsService {
     private ExtensionRequestsRepository extensionRequestsRepository;
     private ExtensionReasonMapper reasonMapper;
     private Supplier<String> randomUUid;
-    private FileTransferApiClient fileTransferApiClient;
+    private AttachmentStorage attachmentStorage;
     private ApiLogger apiLogger;
+    private RequestEventRecorder requestEventRecorder;
+    private AttachmentFileIndex attachmentFileIndex;
 
     @Autowired
     public ReasonsService(RequestsService requestsService,
                           ExtensionRequestsRepository extensionRequestsRepository,
                           ExtensionReasonMapper reasonMapper,
                           Supplier<String> randomUUid,
-                          FileTransferApiClient fileTransferApiClient,
-                          ApiLogger apiLogger) {
+                          AttachmentStorage attachmentStorage,
+                          ApiLogger apiLogger,
+                          RequestEventRecorder requestEventRecorder,
+                          AttachmentFileIndex attachmentFileIndex) {
         this.requestsService = requestsService;
         this.extensionRequestsRepository = extensionRequestsRepository;
         this.reasonMapper = reasonMapper;
         this.randomUUid = randomUUid;
-        this.fileTransferApiClient = fileTransferApiClient;
+        this.attachmentStorage = attachmentStorage;
         this.apiLogger = apiLogger;
+        this.requestEventRecorder = requestEventRecorder;
+        this.attachmentFileIndex = attachmentFileIndex;
     }
 
     @LogMethodCall
@@ -101,6 +109,7 @@ public class ReasonsService {
         ExtensionReasonEntity extensionReasonEntity = extensionReasonEntityBuilder.build();
 
         extensionRequestFullEntity.addReason(extensionReasonEntity);
+        requestEventRecorder.reasonAdded(extensionRequestFullEntity, uuid);
 
         ExtensionReasonEntity savedEntity = extensionRequestsRepository
             .save(extensionRequestFullEntity)
@@ -145,8 +154,12 @@ public class ReasonsService {
         if (reasonToBeDeleted.isPresent()) {
             List<Attachment> attachmentsToBeDeleted = reasonToBeDeleted.get().getAttachments();
             for (Attachment attachment : attachmentsToBeDeleted) {
+                if (!attachmentFileIndex.release(attachment)) {
+                    // still shared with another attachment
+                    continue;
+                }
                 try {
-                    FileTransferApiClientResponse response = fileTransferApiClient.delete(attachment.getId());
+                    FileTransferApiClientResponse response = attachmentStorage.delete(attachment.getFileId());
 
                     if (response == null || response.getHttpStatus() == null) {
                         apiLogger.error(String.format(errorMessageShort,
@@ -1,5 +1,9 @@
 package uk.gov.companieshouse.extensions.api.requests;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import uk.gov.companieshouse.extensions.api.reasons.ExtensionReasonDTO;
 import uk.gov.companieshouse.service.links.Links;
 
 import java.util.ArrayList;
@@ -10,6 +14,11 @@ public class ExtensionRequestFullDTO extends ExtensionRequestFull {
     // key = hash of reason id, value = uri of reason
     private final List<Links> reasons = new ArrayList<>();
 
+    // only populated when the reasons have been requested with the expand parameter
+    @JsonProperty("expanded_reasons")
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private final List<ExtensionReasonDTO> expandedReasons = new ArrayList<>();
+
     public List<Links> getReasons() {
         return reasons;
     }
@@ -17,4 +26,12 @@ public class ExtensionRequestFullDTO extends ExtensionRequestFull {
     public void addReason(Links reason) {
         reasons.add(reason);
     }
+
+    public List<ExtensionReasonDTO> getExpandedReasons() {
+        return expandedReasons;
+    }
+
+    public void addExpandedReason(ExtensionReasonDTO reason) {
+        expandedReasons.add(reason);
+    }
 }
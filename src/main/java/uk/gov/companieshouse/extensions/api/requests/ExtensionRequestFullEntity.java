@@ -1,18 +1,51 @@
 package uk.gov.companieshouse.extensions.api.requests;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import uk.gov.companieshouse.extensions.api.events.RequestEvent;
 import uk.gov.companieshouse.extensions.api.reasons.ExtensionReasonEntity;
 
 @Document(collection = "extension_requests")
+@CompoundIndexes({
+    @CompoundIndex(name = "status_last_modified_on", def = "{'status': 1, 'lastModifiedOn': 1}"),
+    @CompoundIndex(name = "processing_queue", def = "{'status': 1, 'processedOn': 1, '_id': 1}"),
+    @CompoundIndex(name = "pending_events", def = "{'pendingEvents.eventId': 1}", sparse = true)
+})
 public class ExtensionRequestFullEntity extends ExtensionRequestFull {
 
     private List<ExtensionReasonEntity> reasons = new ArrayList<>();
 
+    // set by mongo auditing each time the request is saved
+    @LastModifiedDate
+    @JsonProperty("last_modified_on")
+    private LocalDateTime lastModifiedOn;
+
+    // held by a processor worker while it works on a SUBMITTED request
+    @JsonIgnore
+    private ProcessingLease processingLease;
+
+    @JsonProperty("processed_on")
+    private LocalDateTime processedOn;
+
+    // events written with the change they describe, until the relay moves them to the event feed
+    @JsonIgnore
+    private List<RequestEvent> pendingEvents = new ArrayList<>();
+
+    // identifies the bulk status update last applied, so that updates that did not match are found
+    @JsonIgnore
+    private String statusUpdateId;
+
     public void addReason(ExtensionReasonEntity extensionReason) {
         if (reasons != null) {
             reasons.add(extensionReason);
@@ -27,6 +60,53 @@ public class ExtensionRequestFullEntity extends ExtensionRequestFull {
         this.reasons = reasons;
     }
 
+    public LocalDateTime getLastModifiedOn() {
+        return lastModifiedOn;
+    }
+
+    public void setLastModifiedOn(LocalDateTime lastModifiedOn) {
+        this.lastModifiedOn = lastModifiedOn;
+    }
+
+    public ProcessingLease getProcessingLease() {
+        return processingLease;
+    }
+
+    public void setProcessingLease(ProcessingLease processingLease) {
+        this.processingLease = processingLease;
+    }
+
+    public LocalDateTime getProcessedOn() {
+        return processedOn;
+    }
+
+    public void setProcessedOn(LocalDateTime processedOn) {
+        this.processedOn = processedOn;
+    }
+
+    public List<RequestEvent> getPendingEvents() {
+        return pendingEvents;
+    }
+
+    public void setPendingEvents(List<RequestEvent> pendingEvents) {
+        this.pendingEvents = pendingEvents;
+    }
+
+    public String getStatusUpdateId() {
+        return statusUpdateId;
+    }
+
+    public void setStatusUpdateId(String statusUpdateId) {
+        this.statusUpdateId = statusUpdateId;
+    }
+
+    public void addPendingEvent(RequestEvent event) {
+        if (pendingEvents == null) {
+            pendingEvents = new ArrayList<>();
+        }
+        pendingEvents.add(event);
+    }
+
     public Optional<ExtensionReasonEntity> mapToReason(String reasonId) {
         return reasons.stream()
             .filter(reason -> reason.getId().equals(reasonId))
@@ -1,13 +1,34 @@
 package uk.gov.companieshouse.extensions.api.requests;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import uk.gov.companieshouse.extensions.api.logger.LogMethodCall;
+import uk.gov.companieshouse.extensions.api.reasons.ExtensionReasonMapper;
+
+import java.util.Collections;
+import java.util.Set;
 
 @Component
 public class ExtensionRequestMapper {
 
+    @Autowired
+    private ExtensionReasonMapper reasonMapper;
+
     @LogMethodCall
     public ExtensionRequestFullDTO entityToDTO(ExtensionRequestFullEntity entity) {
+        return entityToDTO(entity, Collections.emptySet());
+    }
+
+    /**
+     * Maps a request entity to its DTO, embedding any nested resources that were asked for
+     * so the caller does not need to follow the reason links
+     * @param entity the request to map
+     * @param expansions the nested resources to embed
+     * @return the mapped DTO
+     */
+    @LogMethodCall
+    public ExtensionRequestFullDTO entityToDTO(ExtensionRequestFullEntity entity,
+                                               Set<RequestExpansion> expansions) {
 
         ExtensionRequestFullDTO dto = new ExtensionRequestFullDTO();
 
@@ -25,6 +46,13 @@ public class ExtensionRequestMapper {
             reason -> dto.addReason(reason.getLinks())
         );
 
+        if (expansions.contains(RequestExpansion.REASONS)) {
+            boolean withAttachments = expansions.contains(RequestExpansion.ATTACHMENTS);
+            entity.getReasons().forEach(
+                reason -> dto.addExpandedReason(reasonMapper.entityToDTO(reason, withAttachments))
+            );
+        }
+
         return dto;
     }
 }
@@ -6,7 +6,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import java.util.List;
 
 public interface ExtensionRequestsRepository extends MongoRepository<ExtensionRequestFullEntity,
-    String> {
+    String>, ExtensionRequestsRepositoryCustom {
 
     List<ExtensionRequestFullEntity> findAllByCompanyNumber(final String companyNumber, Sort sort);
 }
@@ -0,0 +1,175 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import org.springframework.data.domain.Sort;
+import uk.gov.companieshouse.extensions.api.events.RequestEvent;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Repository operations that cannot be expressed as derived queries and are implemented
+ * directly against the MongoTemplate in {@link ExtensionRequestsRepositoryImpl}
+ */
+public interface ExtensionRequestsRepositoryCustom {
+
+    /**
+     * Finds a request by id, sharing the query with any other lookups of the same id that are
+     * already in progress. Replaces the repository's own findById.
+     * @param id the id of the request
+     * @return the request, empty if there is no request with that id
+     */
+    Optional<ExtensionRequestFullEntity> findById(String id);
+
+    /**
+     * Streams the requests for a company from an open Mongo cursor rather than loading them
+     * all into a list. The returned stream must be closed to release the cursor.
+     * @param companyNumber the company to find requests for
+     * @param sort the order to return the requests in
+     * @return a stream backed by the cursor
+     */
+    Stream<ExtensionRequestFullEntity> streamAllByCompanyNumber(String companyNumber, Sort sort);
+
+    /**
+     * Removes a request in a single atomic operation, returning the document as it was
+     * before removal so that anything it referenced can be cleaned up afterwards.
+     * @param id the id of the request to remove
+     * @return the removed request, empty if there was no request with that id
+     */
+    Optional<ExtensionRequestFullEntity> findAndRemoveById(String id);
+
+    /**
+     * Finds OPEN requests that have not been modified since the cutoff. Requests saved before
+     * the last modified date was recorded are judged on their created date instead. Requests
+     * with events still waiting to be published are skipped.
+     * @param cutoff requests last modified before this time are expired
+     * @param limit the maximum number of ids to return
+     * @return the ids of the expired requests
+     */
+    List<String> findExpiredOpenRequestIds(LocalDateTime cutoff, int limit);
+
+    /**
+     * Removes a request only if it is still OPEN and has still not been modified since the
+     * cutoff, so a request that is submitted or updated concurrently is left alone.
+     * @param id the id of the request to remove
+     * @param cutoff requests last modified before this time are expired
+     * @return the removed request, empty if it no longer matched
+     */
+    Optional<ExtensionRequestFullEntity> findAndRemoveExpiredOpenRequest(String id, LocalDateTime cutoff);
+
+    /**
+     * Moves one batch of processed SUBMITTED and rejected requests that have not been modified
+     * since the cutoff into the archive collection, skipping any with events still waiting to be
+     * published. SUBMITTED requests still queued for or leased to the processor are left alone.
+     * Requests are written to the archive before they are removed from the live collection, so an
+     * interrupted batch is simply repeated.
+     * @param cutoff requests last modified before this time are archived
+     * @param limit the maximum number of requests to move
+     * @return the number of requests read for archiving, less than the limit once none remain
+     */
+    int archiveRequests(LocalDateTime cutoff, int limit);
+
+    /**
+     * Creates the indexes the archive lookups rely on, if they do not already exist.
+     */
+    void ensureArchiveIndexes();
+
+    /**
+     * Atomically claims the oldest SUBMITTED request that has not been processed and is not
+     * leased, or whose lease has expired, by taking a lease on it for the given worker.
+     * @param owner the worker taking the lease
+     * @param now the current time, leases expiring before this are treated as released
+     * @param leaseExpiresOn when the new lease expires
+     * @return the claimed request with its new lease, empty if there is nothing to claim
+     */
+    Optional<ExtensionRequestFullEntity> claimNextSubmittedRequest(String owner, LocalDateTime now,
+                                                                   LocalDateTime leaseExpiresOn);
+
+    /**
+     * Extends a lease, provided it is still held by the given worker.
+     * @param id the id of the leased request
+     * @param owner the worker holding the lease
+     * @param leaseExpiresOn when the renewed lease expires
+     * @return true if the lease was renewed, false if the worker no longer holds it
+     */
+    boolean renewProcessingLease(String id, String owner, LocalDateTime leaseExpiresOn);
+
+    /**
+     * Gives up a lease, provided it is still held by the given worker. When a processed date is
+     * given the request is marked as processed and will not be claimed again, otherwise it goes
+     * back into the queue.
+     * @param id the id of the leased request
+     * @param owner the worker holding the lease
+     * @param processedOn when the request was processed, null if it was not
+     * @return true if the lease was released, false if the worker no longer holds it
+     */
+    boolean releaseProcessingLease(String id, String owner, LocalDateTime processedOn);
+
+    /**
+     * Finds the requests with the given ids in the live collection with a single query.
+     * @param ids the ids of the requests to find
+     * @param properties the entity properties to read, all of them if empty. The id is always read.
+     * @return the requests that were found, in no particular order
+     */
+    List<ExtensionRequestFullEntity> findAllByIds(Collection<String> ids, Collection<String> properties);
+
+    /**
+     * Patches a request's status with a targeted update, so that the rest of the document, such
+     * as a processing lease or the pending events, is left as it is.
+     * @param id the id of the request to patch
+     * @param expectedStatus the status the patch was worked out from. The request is only patched
+     *                       if it still has this status.
+     * @param patch the status patch to apply
+     * @param event the event to add to the request's pending events in the same update, null if
+     *              there is none
+     * @param modifiedOn recorded as the last modified date of the request
+     * @return the patched request, empty if there is no request with this id and status
+     */
+    Optional<ExtensionRequestFullEntity> patchStatus(String id, Status expectedStatus, RequestStatus patch,
+                                                     RequestEvent event, LocalDateTime modifiedOn);
+
+    /**
+     * Applies status updates with a single unordered bulk write. A failed update does not stop
+     * the others from being applied.
+     * @param updates the updates to apply, each naming a different existing request
+     * @param expectedStatuses the status each update was worked out from, by position in the list
+     *                         of updates. A request is only updated if it still has this status.
+     * @param events the events to add to each request's pending events in the same update, by
+     *               position in the list of updates
+     * @param modifiedOn recorded as the last modified date of each updated request
+     * @return the outcome of each update that was not applied, by its position in the list,
+     *         FAILED if the write failed and CONFLICT if the request no longer had the expected status
+     */
+    Map<Integer, RequestStatusUpdateResult.Outcome> updateStatuses(List<RequestStatusUpdate> updates,
+                                                                   List<Status> expectedStatuses,
+                                                                   List<List<RequestEvent>> events,
+                                                                   LocalDateTime modifiedOn);
+
+    /**
+     * Finds requests that have events waiting to be relayed, reading only their ids and
+     * pending events.
+     * @param limit the maximum number of requests to return
+     * @return the requests with pending events
+     */
+    List<ExtensionRequestFullEntity> findWithPendingEvents(int limit);
+
+    /**
+     * Removes relayed events from a request's pending events, leaving any added since.
+     * @param id the id of the request
+     * @param eventIds the ids of the events that have been relayed
+     */
+    void removePendingEvents(String id, Collection<String> eventIds);
+
+    Optional<ExtensionRequestFullEntity> findArchivedById(String id);
+
+    List<ExtensionRequestFullEntity> findAllArchivedByIds(Collection<String> ids, Collection<String> properties);
+
+    List<ExtensionRequestFullEntity> findAllArchivedByCompanyNumber(String companyNumber, Sort sort);
+
+    Stream<ExtensionRequestFullEntity> streamAllArchivedByCompanyNumber(String companyNumber, Sort sort);
+
+    Optional<ExtensionRequestFullEntity> findAndRemoveArchivedById(String id);
+}
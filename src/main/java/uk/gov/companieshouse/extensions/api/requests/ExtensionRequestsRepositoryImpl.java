@@ -0,0 +1,329 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.StreamUtils;
+import uk.gov.companieshouse.extensions.api.events.RequestEvent;
+import uk.gov.companieshouse.extensions.api.requests.RequestStatusUpdateResult.Outcome;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ExtensionRequestsRepositoryImpl implements ExtensionRequestsRepositoryCustom {
+
+    static final String ARCHIVE_COLLECTION = "extension_requests_archive";
+
+    private static final String ID = "_id";
+    private static final String COMPANY_NUMBER = "companyNumber";
+    private static final String STATUS = "status";
+    private static final String CREATED_ON = "createdOn";
+    private static final String LAST_MODIFIED_ON = "lastModifiedOn";
+    private static final String PROCESSING_LEASE = "processingLease";
+    private static final String PROCESSING_LEASE_OWNER = "processingLease.owner";
+    private static final String PROCESSING_LEASE_EXPIRES_ON = "processingLease.expiresOn";
+    private static final String PROCESSED_ON = "processedOn";
+    private static final String IS_AUTO_ACCEPTED = "isAutoAccepted";
+    private static final String PENDING_EVENTS = "pendingEvents";
+    private static final String EVENT_ID = "eventId";
+    private static final String PENDING_EVENT_ID = "pendingEvents.eventId";
+    private static final String STATUS_UPDATE_ID = "statusUpdateId";
+
+    private final MongoTemplate mongoTemplate;
+    private final RequestReadCoalescer readCoalescer;
+    private final int cursorBatchSize;
+
+    @Autowired
+    public ExtensionRequestsRepositoryImpl(MongoTemplate mongoTemplate, RequestReadCoalescer readCoalescer,
+                                           @Value("${MONGO_CURSOR_BATCH_SIZE:100}") int cursorBatchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.readCoalescer = readCoalescer;
+        this.cursorBatchSize = cursorBatchSize;
+    }
+
+    @Override
+    public Optional<ExtensionRequestFullEntity> findById(String id) {
+        String collection = mongoTemplate.getCollectionName(ExtensionRequestFullEntity.class);
+        Document document = readCoalescer.read(id, () -> mongoTemplate.findById(id, Document.class, collection));
+        return Optional.ofNullable(document)
+            .map(found -> mongoTemplate.getConverter().read(ExtensionRequestFullEntity.class, found));
+    }
+
+    @Override
+    public Stream<ExtensionRequestFullEntity> streamAllByCompanyNumber(String companyNumber, Sort sort) {
+        Query query = Query.query(Criteria.where(COMPANY_NUMBER).is(companyNumber))
+            .with(sort)
+            .cursorBatchSize(cursorBatchSize);
+        return StreamUtils.createStreamFromIterator(
+            mongoTemplate.stream(query, ExtensionRequestFullEntity.class));
+    }
+
+    @Override
+    public Optional<ExtensionRequestFullEntity> findAndRemoveById(String id) {
+        Query query = Query.query(Criteria.where(ID).is(id));
+        Optional<ExtensionRequestFullEntity> removed =
+            Optional.ofNullable(mongoTemplate.findAndRemove(query, ExtensionRequestFullEntity.class));
+        readCoalescer.forget(id);
+        return removed;
+    }
+
+    @Override
+    public List<String> findExpiredOpenRequestIds(LocalDateTime cutoff, int limit) {
+        Query query = Query.query(expiredOpenRequest(cutoff)).limit(limit);
+        query.fields().include(ID);
+        return mongoTemplate.find(query, ExtensionRequestFullEntity.class).stream()
+            .map(ExtensionRequestFullEntity::getId)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<ExtensionRequestFullEntity> findAndRemoveExpiredOpenRequest(String id, LocalDateTime cutoff) {
+        Query query = Query.query(Criteria.where(ID).is(id)).addCriteria(expiredOpenRequest(cutoff));
+        Optional<ExtensionRequestFullEntity> removed =
+            Optional.ofNullable(mongoTemplate.findAndRemove(query, ExtensionRequestFullEntity.class));
+        readCoalescer.forget(id);
+        return removed;
+    }
+
+    @Override
+    public int archiveRequests(LocalDateTime cutoff, int limit) {
+        List<ExtensionRequestFullEntity> requests =
+            mongoTemplate.find(Query.query(archivableRequest(cutoff)).limit(limit), ExtensionRequestFullEntity.class);
+        if (requests.isEmpty()) {
+            return 0;
+        }
+
+        // the documents are converted directly rather than saved through the template so that
+        // auditing does not overwrite their last modified date
+        List<ReplaceOneModel<Document>> archiveWrites = new ArrayList<>();
+        List<Object> ids = new ArrayList<>();
+        for (ExtensionRequestFullEntity request : requests) {
+            Document document = new Document();
+            mongoTemplate.getConverter().write(request, document);
+            archiveWrites.add(new ReplaceOneModel<>(Filters.eq(ID, document.get(ID)), document,
+                new ReplaceOptions().upsert(true)));
+            ids.add(document.get(ID));
+        }
+        mongoTemplate.getCollection(ARCHIVE_COLLECTION)
+            .bulkWrite(archiveWrites, new BulkWriteOptions().ordered(false));
+
+        // anything modified since it was read stays in the live collection, which is always read first
+        mongoTemplate.remove(Query.query(Criteria.where(ID).in(ids)).addCriteria(archivableRequest(cutoff)),
+            ExtensionRequestFullEntity.class);
+        requests.forEach(request -> readCoalescer.forget(request.getId()));
+        return requests.size();
+    }
+
+    @Override
+    public void ensureArchiveIndexes() {
+        mongoTemplate.indexOps(ARCHIVE_COLLECTION)
+            .ensureIndex(new Index().on(COMPANY_NUMBER, Sort.Direction.ASC));
+    }
+
+    @Override
+    public Optional<ExtensionRequestFullEntity> claimNextSubmittedRequest(String owner, LocalDateTime now,
+                                                                          LocalDateTime leaseExpiresOn) {
+        // oldest first, using the creation time held in the object id
+        Query query = Query.query(Criteria.where(STATUS).is(Status.SUBMITTED.name())
+                .and(PROCESSED_ON).is(null)
+                .orOperator(
+                    Criteria.where(PROCESSING_LEASE).is(null),
+                    Criteria.where(PROCESSING_LEASE_EXPIRES_ON).lt(now)))
+            .with(Sort.by(ID).ascending());
+        Update update = new Update()
+            .set(PROCESSING_LEASE_OWNER, owner)
+            .set(PROCESSING_LEASE_EXPIRES_ON, leaseExpiresOn);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+            FindAndModifyOptions.options().returnNew(true), ExtensionRequestFullEntity.class));
+    }
+
+    @Override
+    public boolean renewProcessingLease(String id, String owner, LocalDateTime leaseExpiresOn) {
+        Query query = Query.query(Criteria.where(ID).is(id).and(PROCESSING_LEASE_OWNER).is(owner));
+        Update update = new Update().set(PROCESSING_LEASE_EXPIRES_ON, leaseExpiresOn);
+        return mongoTemplate.updateFirst(query, update, ExtensionRequestFullEntity.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public boolean releaseProcessingLease(String id, String owner, LocalDateTime processedOn) {
+        Query query = Query.query(Criteria.where(ID).is(id).and(PROCESSING_LEASE_OWNER).is(owner));
+        Update update = new Update().unset(PROCESSING_LEASE);
+        if (processedOn != null) {
+            // completing the request counts as activity, auditing does not run on updates
+            update.set(PROCESSED_ON, processedOn).set(LAST_MODIFIED_ON, processedOn);
+        }
+        return mongoTemplate.updateFirst(query, update, ExtensionRequestFullEntity.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public List<ExtensionRequestFullEntity> findAllByIds(Collection<String> ids, Collection<String> properties) {
+        Query query = Query.query(Criteria.where(ID).in(ids));
+        properties.forEach(query.fields()::include);
+        return mongoTemplate.find(query, ExtensionRequestFullEntity.class);
+    }
+
+    @Override
+    public Optional<ExtensionRequestFullEntity> patchStatus(String id, Status expectedStatus, RequestStatus patch,
+                                                            RequestEvent event, LocalDateTime modifiedOn) {
+        Query query = Query.query(Criteria.where(ID).is(id).and(STATUS).is(expectedStatus));
+        Update update = new Update()
+            .set(IS_AUTO_ACCEPTED, patch.getIsAutoAccepted())
+            .set(LAST_MODIFIED_ON, modifiedOn);
+        if (patch.getStatus() != null) {
+            update.set(STATUS, patch.getStatus());
+        }
+        if (event != null) {
+            update.push(PENDING_EVENTS, event);
+        }
+        try {
+            return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), ExtensionRequestFullEntity.class));
+        } finally {
+            readCoalescer.forget(id);
+        }
+    }
+
+    @Override
+    public Map<Integer, Outcome> updateStatuses(List<RequestStatusUpdate> updates, List<Status> expectedStatuses,
+                                                List<List<RequestEvent>> events, LocalDateTime modifiedOn) {
+        BulkOperations bulkOperations =
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ExtensionRequestFullEntity.class);
+        List<String> statusUpdateIds = new ArrayList<>();
+        for (int i = 0; i < updates.size(); i++) {
+            RequestStatusUpdate statusUpdate = updates.get(i);
+            String statusUpdateId = new ObjectId().toHexString();
+            statusUpdateIds.add(statusUpdateId);
+            // matches the patch endpoint, where a missing status leaves the current one in place
+            Update update = new Update()
+                .set(IS_AUTO_ACCEPTED, statusUpdate.getIsAutoAccepted())
+                .set(LAST_MODIFIED_ON, modifiedOn)
+                .set(STATUS_UPDATE_ID, statusUpdateId);
+            if (statusUpdate.getStatus() != null) {
+                update.set(STATUS, statusUpdate.getStatus());
+            }
+            if (!events.get(i).isEmpty()) {
+                update.push(PENDING_EVENTS).each(events.get(i).toArray());
+            }
+            bulkOperations.updateOne(Query.query(Criteria.where(ID).is(statusUpdate.getRequestId())
+                .and(STATUS).is(expectedStatuses.get(i))), update);
+        }
+
+        Map<Integer, Outcome> notApplied = new HashMap<>();
+        int matched;
+        try {
+            matched = bulkOperations.execute().getMatchedCount();
+        } catch (BulkOperationException e) {
+            e.getErrors().forEach(error -> notApplied.put(error.getIndex(), Outcome.FAILED));
+            matched = e.getResult().getMatchedCount();
+        } finally {
+            updates.forEach(statusUpdate -> readCoalescer.forget(statusUpdate.getRequestId()));
+        }
+
+        if (matched + notApplied.size() < updates.size()) {
+            // the bulk result only counts matches, so the updates that did not match are found by their ids
+            Map<String, String> applied = new HashMap<>();
+            findAllByIds(updates.stream().map(RequestStatusUpdate::getRequestId).collect(Collectors.toList()),
+                Collections.singletonList(STATUS_UPDATE_ID))
+                .forEach(request -> applied.put(request.getId(), request.getStatusUpdateId()));
+            for (int i = 0; i < updates.size(); i++) {
+                if (!notApplied.containsKey(i)
+                        && !statusUpdateIds.get(i).equals(applied.get(updates.get(i).getRequestId()))) {
+                    notApplied.put(i, Outcome.CONFLICT);
+                }
+            }
+        }
+        return notApplied;
+    }
+
+    @Override
+    public List<ExtensionRequestFullEntity> findWithPendingEvents(int limit) {
+        Query query = Query.query(Criteria.where(PENDING_EVENT_ID).exists(true)).limit(limit);
+        query.fields().include(ID).include(PENDING_EVENTS);
+        return mongoTemplate.find(query, ExtensionRequestFullEntity.class);
+    }
+
+    @Override
+    public void removePendingEvents(String id, Collection<String> eventIds) {
+        Update update = new Update().pull(PENDING_EVENTS,
+            new Document(EVENT_ID, new Document("$in", new ArrayList<>(eventIds))));
+        mongoTemplate.updateFirst(Query.query(Criteria.where(ID).is(id)), update, ExtensionRequestFullEntity.class);
+    }
+
+    @Override
+    public Optional<ExtensionRequestFullEntity> findArchivedById(String id) {
+        return Optional.ofNullable(mongoTemplate.findById(id, ExtensionRequestFullEntity.class, ARCHIVE_COLLECTION));
+    }
+
+    @Override
+    public List<ExtensionRequestFullEntity> findAllArchivedByIds(Collection<String> ids,
+                                                                 Collection<String> properties) {
+        Query query = Query.query(Criteria.where(ID).in(ids));
+        properties.forEach(query.fields()::include);
+        return mongoTemplate.find(query, ExtensionRequestFullEntity.class, ARCHIVE_COLLECTION);
+    }
+
+    @Override
+    public List<ExtensionRequestFullEntity> findAllArchivedByCompanyNumber(String companyNumber, Sort sort) {
+        Query query = Query.query(Criteria.where(COMPANY_NUMBER).is(companyNumber)).with(sort);
+        return mongoTemplate.find(query, ExtensionRequestFullEntity.class, ARCHIVE_COLLECTION);
+    }
+
+    @Override
+    public Stream<ExtensionRequestFullEntity> streamAllArchivedByCompanyNumber(String companyNumber, Sort sort) {
+        Query query = Query.query(Criteria.where(COMPANY_NUMBER).is(companyNumber))
+            .with(sort)
+            .cursorBatchSize(cursorBatchSize);
+        return StreamUtils.createStreamFromIterator(
+            mongoTemplate.stream(query, ExtensionRequestFullEntity.class, ARCHIVE_COLLECTION));
+    }
+
+    @Override
+    public Optional<ExtensionRequestFullEntity> findAndRemoveArchivedById(String id) {
+        Query query = Query.query(Criteria.where(ID).is(id));
+        return Optional.ofNullable(
+            mongoTemplate.findAndRemove(query, ExtensionRequestFullEntity.class, ARCHIVE_COLLECTION));
+    }
+
+    private Criteria expiredOpenRequest(LocalDateTime cutoff) {
+        return notModifiedSince(Criteria.where(STATUS).is(Status.OPEN.name())
+            .and(PENDING_EVENT_ID).exists(false), cutoff);
+    }
+
+    private Criteria archivableRequest(LocalDateTime cutoff) {
+        // claiming and renewing a lease do not count as activity, so a SUBMITTED request is only
+        // finished once the processor has released it as processed
+        Criteria finished = new Criteria().orOperator(
+            Criteria.where(STATUS).is(Status.REJECTED_MAX_EXT_LENGTH_EXCEEDED.name()),
+            Criteria.where(STATUS).is(Status.SUBMITTED.name()).and(PROCESSED_ON).exists(true));
+        return new Criteria().andOperator(finished,
+            notModifiedSince(Criteria.where(PENDING_EVENT_ID).exists(false), cutoff));
+    }
+
+    private Criteria notModifiedSince(Criteria criteria, LocalDateTime cutoff) {
+        return criteria.orOperator(
+            Criteria.where(LAST_MODIFIED_ON).lt(cutoff),
+            Criteria.where(LAST_MODIFIED_ON).exists(false).and(CREATED_ON).lt(cutoff));
+    }
+}
@@ -0,0 +1,47 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+/**
+ * Scheduled job that removes OPEN requests that were never submitted. Only created when
+ * OPEN_REQUEST_EXPIRY_ENABLED is true.
+ */
+@Component
+@ConditionalOnProperty(name = "OPEN_REQUEST_EXPIRY_ENABLED", havingValue = "true")
+public class OpenRequestExpiryJob {
+
+    private final RequestsService requestsService;
+    private final Supplier<LocalDateTime> dateTimeSupplierNow;
+    private final ApiLogger logger;
+    private final int expiryDays;
+    private final int batchSize;
+
+    @Autowired
+    public OpenRequestExpiryJob(RequestsService requestsService,
+                                Supplier<LocalDateTime> dateTimeSupplierNow,
+                                ApiLogger logger,
+                                @Value("${OPEN_REQUEST_EXPIRY_DAYS:30}") int expiryDays,
+                                @Value("${OPEN_REQUEST_EXPIRY_BATCH_SIZE:100}") int batchSize) {
+        this.requestsService = requestsService;
+        this.dateTimeSupplierNow = dateTimeSupplierNow;
+        this.logger = logger;
+        this.expiryDays = expiryDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${OPEN_REQUEST_EXPIRY_CRON:0 0 2 * * *}")
+    public void expireOpenRequests() {
+        LocalDateTime cutoff = dateTimeSupplierNow.get().minusDays(expiryDays);
+        logger.info(String.format("Removing OPEN requests with no activity since %s", cutoff));
+        int deleted = requestsService.deleteExpiredOpenRequests(cutoff, batchSize);
+        logger.info(String.format("Removed %d expired OPEN requests", deleted));
+    }
+}
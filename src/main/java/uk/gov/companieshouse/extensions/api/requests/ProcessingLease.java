@@ -0,0 +1,34 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Records which processor worker currently holds a SUBMITTED request and until when. A lease
+ * that has passed its expiry can be claimed by another worker.
+ */
+public class ProcessingLease {
+
+    @JsonProperty("owner")
+    private String owner;
+
+    @JsonProperty("expires_on")
+    private LocalDateTime expiresOn;
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public LocalDateTime getExpiresOn() {
+        return expiresOn;
+    }
+
+    public void setExpiresOn(LocalDateTime expiresOn) {
+        this.expiresOn = expiresOn;
+    }
+}
@@ -0,0 +1,54 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import uk.gov.companieshouse.extensions.api.logger.LogMethodCall;
+import uk.gov.companieshouse.extensions.api.response.ListResponse;
+
+/**
+ * The company request list, read with the reactive Mongo driver when REACTIVE_MONGO_ENABLED is
+ * true. Spring MVC handles the Mono asynchronously, so the servlet thread goes back to the pool
+ * while the queries run. The route and payload are those of {@link RequestListController}.
+ */
+@RestController
+@RequestMapping("/")
+@ConditionalOnProperty(name = "REACTIVE_MONGO_ENABLED", havingValue = "true")
+public class ReactiveRequestListController {
+
+    @Autowired
+    private RequestsService requestsService;
+
+    @Autowired
+    private ExtensionRequestMapper extensionRequestMapper;
+
+    @LogMethodCall
+    @GetMapping("${api.endpoint.extensions}")
+    public Mono<ResponseEntity<ListResponse<ExtensionRequestFullDTO>>> getExtensionRequestsListByCompanyNumber(
+            @PathVariable String companyNumber,
+            @RequestParam(value = "expand", required = false) List<String> expand) {
+
+        Set<RequestExpansion> expansions = RequestExpansion.fromParameters(expand);
+        return requestsService.getExtensionsRequestListByCompanyNumberAsync(companyNumber)
+                .map(requests -> {
+                    List<ExtensionRequestFullDTO> requestFullDTOList = requests.stream()
+                            .map(entity -> extensionRequestMapper.entityToDTO(entity, expansions))
+                            .collect(Collectors.toList());
+                    ListResponse<ExtensionRequestFullDTO> extensionRequestList = ListResponse
+                            .<ExtensionRequestFullDTO>builder()
+                            .withItems(requestFullDTOList).build();
+                    return ResponseEntity.ok(extensionRequestList);
+                });
+    }
+}
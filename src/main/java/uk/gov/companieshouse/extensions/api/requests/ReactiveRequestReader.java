@@ -0,0 +1,68 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Mono;
+import uk.gov.companieshouse.extensions.api.deadline.Deadline;
+import uk.gov.companieshouse.extensions.api.deadline.DeadlineExceededException;
+import uk.gov.companieshouse.extensions.api.deadline.RequestDeadline;
+
+/**
+ * Reads a company's requests with the reactive Mongo driver, so the servlet thread is returned to
+ * the pool while the queries run rather than waiting on the socket. Only the list endpoint reads
+ * this way; the writes and single request reads stay on the blocking repository.
+ */
+public class ReactiveRequestReader {
+
+    private static final String COMPANY_NUMBER = "companyNumber";
+    private static final String WORK = "reading the company's requests";
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    public ReactiveRequestReader(ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    /**
+     * The deadline is read on the calling thread, since the queries complete on a driver thread
+     * where the request's thread-locals are not set.
+     */
+    public Mono<List<ExtensionRequestFullEntity>> findAllByCompanyNumber(String companyNumber,
+                                                                       boolean includeArchived) {
+        RequestDeadline.check(WORK);
+        Optional<Deadline> deadline = RequestDeadline.current();
+
+        Mono<List<ExtensionRequestFullEntity>> requests = find(companyNumber, deadline, null);
+        if (includeArchived) {
+            requests = requests.zipWith(
+                find(companyNumber, deadline, ExtensionRequestsRepositoryImpl.ARCHIVE_COLLECTION),
+                RequestsService::mergeArchived);
+        }
+        if (deadline.isPresent()) {
+            long remaining = Math.max(1, deadline.get().remainingMillis());
+            requests = requests.timeout(Duration.ofMillis(remaining),
+                Mono.defer(() -> Mono.error(new DeadlineExceededException(WORK))));
+        }
+        return requests;
+    }
+
+    /**
+     * @param collection the collection to read, or null for the live requests
+     */
+    private Mono<List<ExtensionRequestFullEntity>> find(String companyNumber, Optional<Deadline> deadline,
+                                                       String collection) {
+        Query query = Query.query(Criteria.where(COMPANY_NUMBER).is(companyNumber))
+            .with(Sort.by("_id").descending());
+        deadline.ifPresent(d -> query.maxTimeMsec(Math.max(1, d.remainingMillis())));
+        if (collection == null) {
+            return mongoOperations.find(query, ExtensionRequestFullEntity.class).collectList();
+        }
+        return mongoOperations.find(query, ExtensionRequestFullEntity.class, collection).collectList();
+    }
+}
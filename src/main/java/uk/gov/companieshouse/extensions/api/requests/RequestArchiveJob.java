@@ -0,0 +1,48 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+/**
+ * Scheduled job that moves old SUBMITTED and rejected requests out of the live collection so
+ * that its indexes stay small. Only created when REQUEST_ARCHIVE_ENABLED is true. Reads only see
+ * archived requests when REQUEST_ARCHIVE_READ_FALLBACK_ENABLED is also true.
+ */
+@Component
+@ConditionalOnProperty(name = "REQUEST_ARCHIVE_ENABLED", havingValue = "true")
+public class RequestArchiveJob {
+
+    private final RequestsService requestsService;
+    private final Supplier<LocalDateTime> dateTimeSupplierNow;
+    private final ApiLogger logger;
+    private final int archiveAfterDays;
+    private final int batchSize;
+
+    @Autowired
+    public RequestArchiveJob(RequestsService requestsService,
+                             Supplier<LocalDateTime> dateTimeSupplierNow,
+                             ApiLogger logger,
+                             @Value("${REQUEST_ARCHIVE_AFTER_DAYS:180}") int archiveAfterDays,
+                             @Value("${REQUEST_ARCHIVE_BATCH_SIZE:100}") int batchSize) {
+        this.requestsService = requestsService;
+        this.dateTimeSupplierNow = dateTimeSupplierNow;
+        this.logger = logger;
+        this.archiveAfterDays = archiveAfterDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${REQUEST_ARCHIVE_CRON:0 30 3 * * *}")
+    public void archiveRequests() {
+        LocalDateTime cutoff = dateTimeSupplierNow.get().minusDays(archiveAfterDays);
+        logger.info(String.format("Archiving finished requests with no activity since %s", cutoff));
+        int archived = requestsService.archiveRequests(cutoff, batchSize);
+        logger.info(String.format("Archived %d requests", archived));
+    }
+}
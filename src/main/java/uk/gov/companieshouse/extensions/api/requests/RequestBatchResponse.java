@@ -0,0 +1,31 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The result of fetching several requests by id: the requests that were found, in the order
+ * their ids were given, and the ids that matched no request.
+ */
+public class RequestBatchResponse {
+
+    @JsonProperty("items")
+    private final List<ExtensionRequestFullEntity> items;
+
+    @JsonProperty("missing_ids")
+    private final List<String> missingIds;
+
+    public RequestBatchResponse(List<ExtensionRequestFullEntity> items, List<String> missingIds) {
+        this.items = items;
+        this.missingIds = missingIds;
+    }
+
+    public List<ExtensionRequestFullEntity> getItems() {
+        return items;
+    }
+
+    public List<String> getMissingIds() {
+        return missingIds;
+    }
+}
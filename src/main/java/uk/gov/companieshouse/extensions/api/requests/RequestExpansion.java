@@ -0,0 +1,56 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Nested resources that can be embedded in an extension request response using the
+ * {@code expand} query parameter, e.g. {@code ?expand=reasons,attachments}
+ */
+public enum RequestExpansion {
+    /**
+     * Embeds the full reason resources rather than just their links.
+     */
+    REASONS("reasons"),
+
+    /**
+     * Embeds the attachment metadata of each reason. Implies {@link #REASONS}.
+     */
+    ATTACHMENTS("attachments");
+
+    private final String parameter;
+
+    RequestExpansion(String parameter) {
+        this.parameter = parameter;
+    }
+
+    public String getParameter() {
+        return parameter;
+    }
+
+    /**
+     * Converts the values of the expand query parameter into a set of expansions.
+     * Unrecognised values are ignored.
+     * @param parameters the raw expand values, may be null
+     * @return the requested expansions, empty if none were requested
+     */
+    public static Set<RequestExpansion> fromParameters(List<String> parameters) {
+        if (parameters == null || parameters.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<RequestExpansion> expansions = EnumSet.noneOf(RequestExpansion.class);
+        for (String parameter : parameters) {
+            Arrays.stream(values())
+                .filter(expansion -> expansion.parameter.equalsIgnoreCase(parameter.trim()))
+                .findAny()
+                .ifPresent(expansions::add);
+        }
+        if (expansions.contains(ATTACHMENTS)) {
+            expansions.add(REASONS);
+        }
+        return expansions;
+    }
+}
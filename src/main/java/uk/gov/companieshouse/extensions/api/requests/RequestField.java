@@ -0,0 +1,66 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fields of an extension request that can be selected with the {@code fields} query parameter,
+ * named as they appear in the response, e.g. {@code ?fields=status,created_on}. The id is
+ * always returned.
+ */
+public enum RequestField {
+    ETAG("etag", "etag"),
+    COMPANY_NUMBER("companyNumber", "companyNumber"),
+    IS_AUTO_ACCEPTED("is_auto_accepted", "isAutoAccepted"),
+    CREATED_ON("created_on", "createdOn"),
+    CREATED_BY("created_by", "createdBy"),
+    ACCOUNTING_PERIOD_START_ON("accounting_period_start_on", "accountingPeriodStartOn"),
+    ACCOUNTING_PERIOD_END_ON("accounting_period_end_on", "accountingPeriodEndOn"),
+    LINKS("links", "links"),
+    STATUS("status", "status"),
+    REASONS("reasons", "reasons"),
+    LAST_MODIFIED_ON("last_modified_on", "lastModifiedOn"),
+    PROCESSED_ON("processed_on", "processedOn");
+
+    private final String parameter;
+    private final String property;
+
+    RequestField(String parameter, String property) {
+        this.parameter = parameter;
+        this.property = property;
+    }
+
+    public String getParameter() {
+        return parameter;
+    }
+
+    /**
+     * @return the name of the entity property the field is read from
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Converts the values of the fields query parameter into a set of fields.
+     * Unrecognised values are ignored.
+     * @param parameters the raw fields values, may be null
+     * @return the selected fields, empty if none were selected
+     */
+    public static Set<RequestField> fromParameters(List<String> parameters) {
+        if (parameters == null || parameters.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<RequestField> fields = EnumSet.noneOf(RequestField.class);
+        for (String parameter : parameters) {
+            Arrays.stream(values())
+                .filter(field -> field.parameter.equalsIgnoreCase(parameter.trim()))
+                .findAny()
+                .ifPresent(fields::add);
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,52 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import uk.gov.companieshouse.extensions.api.logger.LogMethodCall;
+import uk.gov.companieshouse.extensions.api.response.ListResponse;
+import uk.gov.companieshouse.extensions.api.routing.SecondaryReads;
+
+/**
+ * The company request list, read on the request thread. Replaced by
+ * {@link ReactiveRequestListController} when REACTIVE_MONGO_ENABLED is true.
+ */
+@RestController
+@RequestMapping("/")
+@ConditionalOnProperty(name = "REACTIVE_MONGO_ENABLED", havingValue = "false", matchIfMissing = true)
+public class RequestListController {
+
+    @Autowired
+    private RequestsService requestsService;
+
+    @Autowired
+    private ExtensionRequestMapper extensionRequestMapper;
+
+    @LogMethodCall
+    @SecondaryReads
+    @GetMapping("${api.endpoint.extensions}")
+    public ResponseEntity<ListResponse<ExtensionRequestFullDTO>> getExtensionRequestsListByCompanyNumber(
+            @PathVariable String companyNumber,
+            @RequestParam(value = "expand", required = false) List<String> expand) {
+
+        Set<RequestExpansion> expansions = RequestExpansion.fromParameters(expand);
+        List<ExtensionRequestFullDTO> requestFullDTOList = requestsService
+                .getExtensionsRequestListByCompanyNumber(companyNumber).stream()
+                .map(entity -> extensionRequestMapper.entityToDTO(entity, expansions))
+                .collect(Collectors.toList());
+
+        ListResponse<ExtensionRequestFullDTO> extensionRequestList = ListResponse.<ExtensionRequestFullDTO>builder()
+                .withItems(requestFullDTOList).build();
+        return ResponseEntity.ok(extensionRequestList);
+    }
+}
@@ -0,0 +1,143 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import uk.gov.companieshouse.extensions.api.deadline.Deadline;
+import uk.gov.companieshouse.extensions.api.deadline.DeadlineExceededException;
+import uk.gov.companieshouse.extensions.api.deadline.RequestDeadline;
+import uk.gov.companieshouse.extensions.api.routing.ReadRouting;
+
+/**
+ * Lets concurrent reads of the same request share one query. The first read of an id runs the
+ * query and any read of that id that arrives while it is running waits for its result instead of
+ * querying again. A query is forgotten before its result is handed out, so a read that arrives
+ * after the query has completed always runs a new one. A query is also forgotten when the
+ * request is written, so a read that starts after a write does not join a query that may have
+ * read the request before it.
+ *
+ * <p>The result is shared as the raw document; each reader maps its own entity from it, as the
+ * entities are mutable. Reads allowed to go to a secondary only share queries with each other, so
+ * a read that needs the primary never gets a secondary's result.
+ *
+ * <p>The query runs under the deadline of the read that started it. If it fails once that
+ * deadline has passed, the failure is not handed to the reads waiting on it, as their own
+ * deadlines may be later; they query again instead. A waiting read gives up when its own
+ * deadline passes.
+ */
+@Component
+public class RequestReadCoalescer extends AbstractMongoEventListener<ExtensionRequestFullEntity> {
+
+    private static final String ID = "_id";
+    private static final String SECONDARY = "secondary:";
+
+    private final ConcurrentMap<String, CompletableFuture<Document>> inFlight = new ConcurrentHashMap<>();
+    private final Supplier<Optional<Deadline>> currentDeadline;
+
+    public RequestReadCoalescer() {
+        this(RequestDeadline::current);
+    }
+
+    RequestReadCoalescer(Supplier<Optional<Deadline>> currentDeadline) {
+        this.currentDeadline = currentDeadline;
+    }
+
+    public Document read(String id, Supplier<Document> query) {
+        String key = ReadRouting.isSecondaryAllowed() ? SECONDARY + id : id;
+        Optional<Deadline> deadline = currentDeadline.get();
+        while (true) {
+            CompletableFuture<Document> flight = new CompletableFuture<>();
+            CompletableFuture<Document> existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null) {
+                return runQuery(key, flight, query, deadline);
+            }
+            try {
+                return join(existing, deadline);
+            } catch (LeaderDeadlineExceeded e) {
+                // the query failed because the read that started it ran out of time; try again
+                // under this read's own deadline
+            }
+        }
+    }
+
+    public void forget(String id) {
+        inFlight.remove(id);
+        inFlight.remove(SECONDARY + id);
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<ExtensionRequestFullEntity> event) {
+        forget(event.getSource().getId());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<ExtensionRequestFullEntity> event) {
+        Object id = event.getSource().get(ID);
+        if (id != null) {
+            forget(id.toString());
+        }
+    }
+
+    private Document runQuery(String key, CompletableFuture<Document> flight, Supplier<Document> query,
+                              Optional<Deadline> deadline) {
+        Document document;
+        try {
+            document = query.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            boolean deadlineExceeded = e instanceof DeadlineExceededException
+                || deadline.map(Deadline::isExpired).orElse(false);
+            flight.completeExceptionally(deadlineExceeded ? new LeaderDeadlineExceeded() : e);
+            throw e;
+        }
+        inFlight.remove(key, flight);
+        flight.complete(document);
+        return document;
+    }
+
+    private static Document join(CompletableFuture<Document> flight, Optional<Deadline> deadline) {
+        try {
+            if (deadline.isPresent()) {
+                return flight.get(Math.max(1, deadline.get().remainingMillis()), TimeUnit.MILLISECONDS);
+            }
+            return flight.get();
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("waiting for a shared read of the request");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a shared read of the request", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Completes a query that failed because the read that started it ran out of time.
+     */
+    private static class LeaderDeadlineExceeded extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        LeaderDeadlineExceeded() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One item of a bulk status update, naming the request the status applies to
+ */
+public class RequestStatusUpdate extends RequestStatus {
+
+    @JsonProperty("request_id")
+    private String requestId;
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+}
@@ -0,0 +1,36 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The outcome of one item of a bulk status update
+ */
+public class RequestStatusUpdateResult {
+
+    public enum Outcome {
+        UPDATED,
+        NOT_FOUND,
+        INVALID,
+        FAILED,
+        CONFLICT
+    }
+
+    @JsonProperty("request_id")
+    private final String requestId;
+
+    @JsonProperty("outcome")
+    private final Outcome outcome;
+
+    public RequestStatusUpdateResult(String requestId, Outcome outcome) {
+        this.requestId = requestId;
+        this.outcome = outcome;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+}
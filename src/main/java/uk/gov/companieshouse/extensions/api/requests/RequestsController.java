@@ -3,25 +3,37 @@ package uk.gov.companieshouse.extensions.api.requests;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import javax.servlet.http.HttpServletRequest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import uk.gov.companieshouse.extensions.api.events.RequestEventStream;
 import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
 import uk.gov.companieshouse.extensions.api.logger.LogMethodCall;
-import uk.gov.companieshouse.extensions.api.response.ListResponse;
+import uk.gov.companieshouse.extensions.api.response.StreamingListResponse;
+import uk.gov.companieshouse.extensions.api.routing.SecondaryReads;
+import uk.gov.companieshouse.extensions.api.summary.RequestSummary;
+import uk.gov.companieshouse.extensions.api.summary.RequestSummaryService;
 import uk.gov.companieshouse.service.ServiceException;
 
 @RestController
@@ -40,6 +52,15 @@ public class RequestsController {
     @Autowired
     private ApiLogger logger;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RequestSummaryService requestSummaryService;
+
+    @Autowired
+    private RequestEventStream requestEventStream;
+
     @LogMethodCall
     @PostMapping("${api.endpoint.extensions}")
     public ResponseEntity<ExtensionRequestFullDTO> createExtensionRequestResource(
@@ -71,18 +92,44 @@ public class RequestsController {
                 .body(extensionRequestFullDTO);
     }
 
+    /**
+     * Streaming variant of the company list in {@link RequestListController}, selected with
+     * {@code stream=true}. The requests are read from a Mongo cursor and written to the response
+     * one at a time, so memory use does not grow with the number of requests the company has.
+     * The response body is the same as the non-streaming list.
+     */
     @LogMethodCall
-    @GetMapping("${api.endpoint.extensions}")
-    public ResponseEntity<ListResponse<ExtensionRequestFullDTO>> getExtensionRequestsListByCompanyNumber(
-            @PathVariable String companyNumber) {
-
-        List<ExtensionRequestFullDTO> requestFullDTOList = requestsService
-                .getExtensionsRequestListByCompanyNumber(companyNumber).stream()
-                .map(extensionRequestMapper::entityToDTO).collect(Collectors.toList());
+    @SecondaryReads
+    @GetMapping(value = "${api.endpoint.extensions}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamExtensionRequestsListByCompanyNumber(
+            @PathVariable String companyNumber,
+            @RequestParam(value = "expand", required = false) List<String> expand) {
+
+        Set<RequestExpansion> expansions = RequestExpansion.fromParameters(expand);
+        Stream<ExtensionRequestFullDTO> requestFullDTOStream = requestsService
+                .streamExtensionsRequestListByCompanyNumber(companyNumber)
+                .map(entity -> extensionRequestMapper.entityToDTO(entity, expansions));
+
+        StreamingListResponse<ExtensionRequestFullDTO> extensionRequestList = StreamingListResponse
+                .<ExtensionRequestFullDTO>builder()
+                .withObjectMapper(objectMapper)
+                .withLogger(logger)
+                .withItems(requestFullDTOStream)
+                .build();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(extensionRequestList);
+    }
 
-        ListResponse<ExtensionRequestFullDTO> extensionRequestList = ListResponse.<ExtensionRequestFullDTO>builder()
-                .withItems(requestFullDTOList).build();
-        return ResponseEntity.ok(extensionRequestList);
+    /**
+     * Counts of the company's requests by status, for callers that only need to know whether
+     * the company has requests in a given status rather than the requests themselves.
+     */
+    @LogMethodCall
+    @SecondaryReads
+    @GetMapping("${api.endpoint.extensions}/summary")
+    public ResponseEntity<RequestSummary> getRequestSummary(@PathVariable String companyNumber) {
+        return ResponseEntity.ok(requestSummaryService.getSummary(companyNumber));
     }
 
     @LogMethodCall
@@ -92,6 +139,33 @@ public class RequestsController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @LogMethodCall
+    @GetMapping(value = "${api.endpoint.extensions}/{requestId}", params = "expand")
+    public ResponseEntity<ExtensionRequestFullDTO> getExpandedExtensionRequestById(@PathVariable String requestId,
+            @RequestParam("expand") List<String> expand) {
+        Set<RequestExpansion> expansions = RequestExpansion.fromParameters(expand);
+        return requestsService.getExtensionsRequestById(requestId)
+                .map(entity -> extensionRequestMapper.entityToDTO(entity, expansions))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Opens a server-sent events connection that is sent an event whenever the request's status,
+     * reasons or attachments change, for clients that would otherwise poll the request.
+     */
+    @LogMethodCall
+    @GetMapping(value = "${api.endpoint.extensions}/{requestId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamExtensionRequestEvents(@PathVariable String requestId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        if (!requestsService.getExtensionsRequestById(requestId).isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+            .header("X-Accel-Buffering", "no")
+            .body(requestEventStream.subscribe(requestId, lastEventId));
+    }
+
     @LogMethodCall
     @PatchMapping("${api.endpoint.extensions}/{requestId}")
     public ResponseEntity<ExtensionRequestFullEntity> patchRequest(@PathVariable String requestId,
@@ -106,7 +180,13 @@ public class RequestsController {
 
     @LogMethodCall
     @DeleteMapping("${api.endpoint.extensions}/{requestId}")
-    public boolean deleteExtensionRequestById(@PathVariable String requestId) {
-      return false;
+    public ResponseEntity<Void> deleteExtensionRequestById(@PathVariable String requestId) {
+        try {
+            requestsService.deleteExtensionsRequestById(requestId);
+            return ResponseEntity.noContent().build();
+        } catch (ServiceException e) {
+            logger.info(e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
     }
 }
@@ -1,43 +1,278 @@
 package uk.gov.companieshouse.extensions.api.requests;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import uk.gov.companieshouse.extensions.api.attachments.Attachment;
+import uk.gov.companieshouse.extensions.api.attachments.AttachmentCleanupService;
+import uk.gov.companieshouse.extensions.api.events.RequestEvent;
+import uk.gov.companieshouse.extensions.api.events.RequestEventRecorder;
 import uk.gov.companieshouse.extensions.api.logger.LogMethodCall;
+import uk.gov.companieshouse.extensions.api.summary.RequestSummaryService;
 import uk.gov.companieshouse.service.ServiceException;
 import uk.gov.companieshouse.service.links.Links;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 public class RequestsService {
 
+    private static final int PATCH_ATTEMPTS = 5;
+
     @Autowired
     private Supplier<LocalDateTime> dateTimeSupplierNow;
 
     @Autowired
     private ExtensionRequestsRepository extensionRequestsRepository;
 
+    @Autowired
+    private AttachmentCleanupService attachmentCleanupService;
+
+    @Autowired
+    private RequestSummaryService requestSummaryService;
+
+    @Autowired
+    private RequestEventRecorder requestEventRecorder;
+
+    @Autowired(required = false)
+    private ReactiveRequestReader reactiveRequestReader;
+
+    @Value("${REQUEST_ARCHIVE_READ_FALLBACK_ENABLED:false}")
+    private boolean archiveFallbackEnabled;
+
+    /**
+     * Finds a request in the live collection, falling back to the archive when archive reads
+     * are enabled.
+     */
     @LogMethodCall
     public Optional<ExtensionRequestFullEntity> getExtensionsRequestById(String id) {
-        return extensionRequestsRepository.findById(id);
+        Optional<ExtensionRequestFullEntity> request = extensionRequestsRepository.findById(id);
+        if (!request.isPresent() && archiveFallbackEnabled) {
+            return extensionRequestsRepository.findArchivedById(id);
+        }
+        return request;
     }
 
+    /**
+     * Lists the requests for a company, newest first. When archive reads are enabled the
+     * archived requests are included, with the live copy taking precedence if a request is in both.
+     */
     @LogMethodCall
     public List<ExtensionRequestFullEntity> getExtensionsRequestListByCompanyNumber(String companyNumber) {
-        return extensionRequestsRepository.findAllByCompanyNumber(companyNumber, Sort.by("_id").descending());
+        List<ExtensionRequestFullEntity> requests =
+            extensionRequestsRepository.findAllByCompanyNumber(companyNumber, Sort.by("_id").descending());
+        if (!archiveFallbackEnabled) {
+            return requests;
+        }
+
+        List<ExtensionRequestFullEntity> archivedRequests =
+            extensionRequestsRepository.findAllArchivedByCompanyNumber(companyNumber, Sort.by("_id").descending());
+        return mergeArchived(requests, archivedRequests);
+    }
+
+    /**
+     * The company list as {@link #getExtensionsRequestListByCompanyNumber} reads it, but without
+     * holding a thread while the queries run. Only available when reactive Mongo reads are enabled.
+     */
+    @LogMethodCall
+    public Mono<List<ExtensionRequestFullEntity>> getExtensionsRequestListByCompanyNumberAsync(
+            String companyNumber) {
+        if (reactiveRequestReader == null) {
+            throw new IllegalStateException("Reactive Mongo reads are not enabled");
+        }
+        return reactiveRequestReader.findAllByCompanyNumber(companyNumber, archiveFallbackEnabled);
+    }
+
+    /**
+     * Adds the archived requests to the live ones, newest first, with the live copy taking
+     * precedence if a request is in both.
+     */
+    static List<ExtensionRequestFullEntity> mergeArchived(List<ExtensionRequestFullEntity> requests,
+                                                          List<ExtensionRequestFullEntity> archivedRequests) {
+        if (archivedRequests.isEmpty()) {
+            return requests;
+        }
+        Set<String> liveIds = requests.stream()
+            .map(ExtensionRequestFullEntity::getId)
+            .collect(Collectors.toSet());
+        List<ExtensionRequestFullEntity> allRequests = new ArrayList<>(requests);
+        archivedRequests.stream()
+            .filter(archived -> !liveIds.contains(archived.getId()))
+            .forEach(allRequests::add);
+        allRequests.sort(Comparator.comparing(ExtensionRequestFullEntity::getId).reversed());
+        return allRequests;
+    }
+
+    /**
+     * Streams the requests for a company from a Mongo cursor. The caller is responsible for
+     * closing the stream. When archive reads are enabled the archived requests follow the live
+     * ones, so the two are each in order but not merged.
+     */
+    @LogMethodCall
+    public Stream<ExtensionRequestFullEntity> streamExtensionsRequestListByCompanyNumber(String companyNumber) {
+        Stream<ExtensionRequestFullEntity> requests =
+            extensionRequestsRepository.streamAllByCompanyNumber(companyNumber, Sort.by("_id").descending());
+        if (!archiveFallbackEnabled) {
+            return requests;
+        }
+
+        // the live stream is fully consumed before the archive stream is read
+        Set<String> liveIds = new HashSet<>();
+        return Stream.concat(
+            requests.peek(request -> liveIds.add(request.getId())),
+            extensionRequestsRepository.streamAllArchivedByCompanyNumber(companyNumber, Sort.by("_id").descending())
+                .filter(archived -> !liveIds.contains(archived.getId())));
+    }
+
+    /**
+     * Finds many requests by id with one query, reading only the given fields if any are given.
+     * When archive reads are enabled, ids not found in the live collection are looked up in the
+     * archive with one further query.
+     * @param ids the ids of the requests to find, duplicates are ignored
+     * @param fields the fields to read, all of them if empty
+     * @return the requests found, in the order of their ids, and the ids that were not found
+     */
+    @LogMethodCall
+    public RequestBatchResponse getExtensionsRequestsByIds(List<String> ids, Set<RequestField> fields) {
+        Set<String> distinctIds = new LinkedHashSet<>(ids);
+        List<String> properties = fields.stream()
+            .map(RequestField::getProperty)
+            .collect(Collectors.toList());
+
+        Map<String, ExtensionRequestFullEntity> found = new HashMap<>();
+        extensionRequestsRepository.findAllByIds(distinctIds, properties)
+            .forEach(request -> found.put(request.getId(), request));
+        if (archiveFallbackEnabled && found.size() < distinctIds.size()) {
+            List<String> notFound = distinctIds.stream()
+                .filter(id -> !found.containsKey(id))
+                .collect(Collectors.toList());
+            extensionRequestsRepository.findAllArchivedByIds(notFound, properties)
+                .forEach(request -> found.put(request.getId(), request));
+        }
+
+        List<ExtensionRequestFullEntity> items = new ArrayList<>();
+        List<String> missingIds = new ArrayList<>();
+        for (String id : distinctIds) {
+            if (found.containsKey(id)) {
+                items.add(found.get(id));
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new RequestBatchResponse(items, missingIds);
     }
 
     @LogMethodCall
     public ExtensionRequestFullEntity patchRequest(String requestId, RequestStatus status) throws ServiceException {
-        ExtensionRequestFullEntity entity = extensionRequestsRepository.findById(requestId)
+        for (int attempt = 0; attempt < PATCH_ATTEMPTS; attempt++) {
+            ExtensionRequestFullEntity entity = extensionRequestsRepository.findById(requestId)
+                    .orElseThrow(() -> new ServiceException(String.format("Request: %s cannot be found", requestId)));
+
+            Status previousStatus = entity.getStatus();
+            RequestEvent event = requestEventRecorder.statusChangedEvent(entity.getId(), entity.getCompanyNumber(),
+                previousStatus, status.getStatus()).orElse(null);
+            Optional<ExtensionRequestFullEntity> patched = extensionRequestsRepository.patchStatus(requestId,
+                previousStatus, status, event, dateTimeSupplierNow.get());
+            if (patched.isPresent()) {
+                requestSummaryService.recordStatusChange(patched.get().getCompanyNumber(), previousStatus,
+                    patched.get().getStatus());
+                return patched.get();
+            }
+            // the status changed after it was read, so the event and summary change would be wrong
+        }
+        throw new ServiceException(String.format("Request: %s was changed by another update", requestId));
+    }
+
+    /**
+     * Removes the request document and hands its attachments to the cleanup service, so the
+     * time taken does not depend on how many files the request had.
+     */
+    @LogMethodCall
+    public ExtensionRequestFullEntity deleteExtensionsRequestById(String requestId) throws ServiceException {
+        Optional<ExtensionRequestFullEntity> removed = extensionRequestsRepository.findAndRemoveById(requestId);
+        if (archiveFallbackEnabled) {
+            Optional<ExtensionRequestFullEntity> removedFromArchive =
+                extensionRequestsRepository.findAndRemoveArchivedById(requestId);
+            if (!removed.isPresent()) {
+                removed = removedFromArchive;
+            }
+        }
+        ExtensionRequestFullEntity deletedEntity = removed
                 .orElseThrow(() -> new ServiceException(String.format("Request: %s cannot be found", requestId)));
 
-        entity = PatchRequestMapper.INSTANCE.patchEntity(status, entity);
-        return extensionRequestsRepository.save(entity);
+        deleteAttachments(deletedEntity);
+        requestSummaryService.recordRemoved(deletedEntity.getCompanyNumber());
+        return deletedEntity;
+    }
+
+    /**
+     * Removes OPEN requests that have had no activity since the cutoff, in batches, along with
+     * their attachments. Each request is removed with a conditional delete, so running this on
+     * several nodes at once is safe and a request that is updated mid-run is kept.
+     * @param cutoff requests last modified before this time are removed
+     * @param batchSize the number of requests to look up at a time
+     * @return the number of requests removed
+     */
+    @LogMethodCall
+    public int deleteExpiredOpenRequests(LocalDateTime cutoff, int batchSize) {
+        int deleted = 0;
+        List<String> expiredIds;
+        do {
+            expiredIds = extensionRequestsRepository.findExpiredOpenRequestIds(cutoff, batchSize);
+            for (String expiredId : expiredIds) {
+                Optional<ExtensionRequestFullEntity> deletedEntity =
+                    extensionRequestsRepository.findAndRemoveExpiredOpenRequest(expiredId, cutoff);
+                if (deletedEntity.isPresent()) {
+                    deleteAttachments(deletedEntity.get());
+                    requestSummaryService.recordRemoved(deletedEntity.get().getCompanyNumber());
+                    deleted++;
+                }
+            }
+        } while (expiredIds.size() == batchSize);
+        return deleted;
+    }
+
+    /**
+     * Moves finished requests that have not been modified since the cutoff into the archive
+     * collection, a batch at a time.
+     * @param cutoff requests last modified before this time are archived
+     * @param batchSize the number of requests to move at a time
+     * @return the number of requests read for archiving
+     */
+    @LogMethodCall
+    public int archiveRequests(LocalDateTime cutoff, int batchSize) {
+        extensionRequestsRepository.ensureArchiveIndexes();
+        int archived = 0;
+        int batchArchived;
+        do {
+            batchArchived = extensionRequestsRepository.archiveRequests(cutoff, batchSize);
+            archived += batchArchived;
+        } while (batchArchived == batchSize);
+        return archived;
+    }
+
+    private void deleteAttachments(ExtensionRequestFullEntity deletedEntity) {
+        List<Attachment> attachments = deletedEntity.getReasons().stream()
+                .flatMap(reason -> reason.getAttachments().stream())
+                .collect(Collectors.toList());
+
+        if (!attachments.isEmpty()) {
+            attachmentCleanupService.deleteAttachments(attachments);
+        }
     }
 
     public ExtensionRequestFullEntity insertExtensionsRequest(ExtensionCreateRequest extensionCreateRequest, CreatedBy
@@ -60,6 +295,9 @@ public class RequestsService {
         Links links = new Links();
         links.setLink(ExtensionsLinkKeys.SELF, linkToSelf);
         extensionRequestFullEntity.setLinks(links);
-        return extensionRequestsRepository.save(extensionRequestFullEntity);
+        requestEventRecorder.requestCreated(extensionRequestFullEntity);
+        ExtensionRequestFullEntity linkedEntity = extensionRequestsRepository.save(extensionRequestFullEntity);
+        requestSummaryService.recordCreated(linkedEntity);
+        return linkedEntity;
     }
 }
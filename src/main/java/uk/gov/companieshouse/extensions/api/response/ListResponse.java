@@ -3,10 +3,13 @@ package uk.gov.companieshouse.extensions.api.response;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
 import java.util.ArrayList;
 import java.util.List;
 
+// the order Jackson already used, as renamed properties follow the others; StreamingListResponse relies on it
+@JsonPropertyOrder({"etag", "items", "items_per_page", "start_index", "total_results"})
 public class ListResponse<T> {
 
     private final String etag;
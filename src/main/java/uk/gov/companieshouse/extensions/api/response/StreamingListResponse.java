@@ -0,0 +1,125 @@
+package uk.gov.companieshouse.extensions.api.response;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the same JSON document as {@link ListResponse}, but serialises each item as it is
+ * pulled from the stream instead of from a fully materialised list. The fields are written in
+ * the order fixed by the {@code @JsonPropertyOrder} of ListResponse, with the items before the
+ * counts, so the total can be counted while the items are written and the stream is only
+ * consumed once. The item stream is closed once the response has been written.
+ * <p>
+ * If reading the items fails part-way through, the failure is logged and rethrown without
+ * closing the JSON, so the response is aborted rather than ended as a shorter list.
+ */
+public class StreamingListResponse<T> implements StreamingResponseBody {
+
+    private static final String STREAM_ERROR_MESSAGE = "Aborting list response after %d items";
+
+    private final ObjectMapper objectMapper;
+    private final ApiLogger logger;
+    private final String etag;
+    private final int itemsPerPage;
+    private final int startIndex;
+    private final Stream<T> items;
+
+    public StreamingListResponse(ObjectMapper objectMapper, ApiLogger logger, String etag,
+                                 int itemsPerPage, int startIndex, Stream<T> items) {
+        this.objectMapper = objectMapper;
+        this.logger = logger;
+        this.etag = etag;
+        this.itemsPerPage = itemsPerPage;
+        this.startIndex = startIndex;
+        this.items = items;
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        try (Stream<T> itemStream = items;
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // a failed response must not be completed into valid JSON when the generator is closed
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+
+            generator.writeStartObject();
+            generator.writeStringField("etag", etag);
+
+            int totalResults = 0;
+            generator.writeArrayFieldStart("items");
+            try {
+                Iterator<T> iterator = itemStream.iterator();
+                while (iterator.hasNext()) {
+                    generator.writeObject(iterator.next());
+                    totalResults++;
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.error(String.format(STREAM_ERROR_MESSAGE, totalResults), e);
+                throw e;
+            }
+            generator.writeEndArray();
+
+            generator.writeNumberField("items_per_page", itemsPerPage);
+            generator.writeNumberField("start_index", startIndex);
+            generator.writeNumberField("total_results", totalResults);
+            generator.writeEndObject();
+        }
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    public static class Builder<T> {
+        private ObjectMapper objectMapper;
+        private ApiLogger logger;
+        private String etag;
+        private int itemsPerPage;
+        private int startIndex;
+        private Stream<T> items;
+
+        public Builder<T> withObjectMapper(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+            return this;
+        }
+
+        public Builder<T> withLogger(ApiLogger logger) {
+            this.logger = logger;
+            return this;
+        }
+
+        public Builder<T> withEtag(String etag) {
+            this.etag = etag;
+            return this;
+        }
+
+        public Builder<T> withItemsPerPage(int itemsPerPage) {
+            this.itemsPerPage = itemsPerPage;
+            return this;
+        }
+
+        public Builder<T> withStartIndex(int startIndex) {
+            this.startIndex = startIndex;
+            return this;
+        }
+
+        public Builder<T> withItems(Stream<T> items) {
+            this.items = items;
+            return this;
+        }
+
+        public StreamingListResponse<T> build() {
+            if (items == null) {
+                items = Stream.empty();
+            }
+            return new StreamingListResponse<>(objectMapper, logger, etag, itemsPerPage, startIndex, items);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package uk.gov.companieshouse.extensions.api.routing;
+
+/**
+ * Whether the reads made on the current thread may go to a secondary. Reads go to the primary
+ * unless the endpoint being handled allows otherwise.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> SECONDARY = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    public static boolean isSecondaryAllowed() {
+        return Boolean.TRUE.equals(SECONDARY.get());
+    }
+
+    static void allowSecondary() {
+        SECONDARY.set(Boolean.TRUE);
+    }
+
+    static void clear() {
+        SECONDARY.remove();
+    }
+}
@@ -0,0 +1,37 @@
+package uk.gov.companieshouse.extensions.api.routing;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Allows reads from a secondary while a GET endpoint marked with {@link SecondaryReads} is
+ * handled. Streamed responses carry on reading from the cursor opened by the handler, which
+ * stays on the server it was opened on.
+ */
+public class ReadRoutingInterceptor extends HandlerInterceptorAdapter {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (HttpMethod.GET.matches(request.getMethod()) && handler instanceof HandlerMethod
+                && ((HandlerMethod) handler).hasMethodAnnotation(SecondaryReads.class)) {
+            ReadRouting.allowSecondary();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        ReadRouting.clear();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        ReadRouting.clear();
+    }
+}
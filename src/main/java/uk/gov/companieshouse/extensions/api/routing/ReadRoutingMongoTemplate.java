@@ -0,0 +1,31 @@
+package uk.gov.companieshouse.extensions.api.routing;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoCollection;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import uk.gov.companieshouse.extensions.api.deadline.DeadlineAwareMongoTemplate;
+
+/**
+ * Sends reads to a secondary, when the endpoint being handled allows it, with the given read
+ * preference. Writes always go to the primary, whatever the read preference.
+ */
+public class ReadRoutingMongoTemplate extends DeadlineAwareMongoTemplate {
+
+    private final ReadPreference secondaryReadPreference;
+
+    public ReadRoutingMongoTemplate(MongoDbFactory mongoDbFactory, MongoConverter mongoConverter,
+                                    ReadPreference secondaryReadPreference) {
+        super(mongoDbFactory, mongoConverter);
+        this.secondaryReadPreference = secondaryReadPreference;
+    }
+
+    @Override
+    protected MongoCollection<Document> prepareCollection(MongoCollection<Document> collection) {
+        MongoCollection<Document> prepared = super.prepareCollection(collection);
+        return ReadRouting.isSecondaryAllowed() ? prepared.withReadPreference(secondaryReadPreference) : prepared;
+    }
+}
@@ -0,0 +1,18 @@
+package uk.gov.companieshouse.extensions.api.routing;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET endpoint whose reads may be served by a Mongo secondary, and so may be a little
+ * behind the primary. Endpoints a client uses to read back what it has just written, such as
+ * fetching a single request after creating it, should not be marked.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SecondaryReads {
+}
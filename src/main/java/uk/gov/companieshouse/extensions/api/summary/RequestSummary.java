@@ -0,0 +1,93 @@
+package uk.gov.companieshouse.extensions.api.summary;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Counts of a company's extension requests by status, kept up to date as requests are created
+ * and change status so that callers do not need to fetch the whole list to count them.
+ */
+@Document(collection = "extension_request_summaries")
+public class RequestSummary {
+
+    @Id
+    @JsonProperty("company_number")
+    private String companyNumber;
+
+    // keyed by Status name
+    @JsonProperty("counts")
+    private Map<String, Integer> counts = new HashMap<>();
+
+    @JsonProperty("latest_request_id")
+    private String latestRequestId;
+
+    @JsonProperty("last_updated_on")
+    private LocalDateTime lastUpdatedOn;
+
+    // set once the counts have been rebuilt from the requests, rather than only incremented
+    @JsonIgnore
+    private boolean complete;
+
+    // increased by every change, so that a rebuild can tell whether it raced with one
+    @JsonIgnore
+    private long revision;
+
+    public String getCompanyNumber() {
+        return companyNumber;
+    }
+
+    public void setCompanyNumber(String companyNumber) {
+        this.companyNumber = companyNumber;
+    }
+
+    public Map<String, Integer> getCounts() {
+        return counts;
+    }
+
+    public void setCounts(Map<String, Integer> counts) {
+        this.counts = counts;
+    }
+
+    public void addCount(String status, int count) {
+        counts.merge(status, count, Integer::sum);
+    }
+
+    public String getLatestRequestId() {
+        return latestRequestId;
+    }
+
+    public void setLatestRequestId(String latestRequestId) {
+        this.latestRequestId = latestRequestId;
+    }
+
+    public LocalDateTime getLastUpdatedOn() {
+        return lastUpdatedOn;
+    }
+
+    public void setLastUpdatedOn(LocalDateTime lastUpdatedOn) {
+        this.lastUpdatedOn = lastUpdatedOn;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(long revision) {
+        this.revision = revision;
+    }
+}
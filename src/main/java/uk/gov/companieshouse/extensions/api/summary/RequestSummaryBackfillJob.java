@@ -0,0 +1,34 @@
+package uk.gov.companieshouse.extensions.api.summary;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+/**
+ * One-off job that builds the summaries of companies whose requests were created before the
+ * summaries were kept, or whose summary could not be rebuilt. It runs once, shortly after
+ * startup, and only when REQUEST_SUMMARY_BACKFILL_ENABLED is true. Summaries that are already
+ * complete are skipped, so running it again does no harm.
+ */
+@Component
+@ConditionalOnProperty(name = "REQUEST_SUMMARY_BACKFILL_ENABLED", havingValue = "true")
+public class RequestSummaryBackfillJob {
+
+    private final RequestSummaryService requestSummaryService;
+    private final ApiLogger logger;
+
+    @Autowired
+    public RequestSummaryBackfillJob(RequestSummaryService requestSummaryService, ApiLogger logger) {
+        this.requestSummaryService = requestSummaryService;
+        this.logger = logger;
+    }
+
+    @Scheduled(initialDelayString = "${REQUEST_SUMMARY_BACKFILL_DELAY_MS:60000}", fixedDelay = Long.MAX_VALUE)
+    public void backfillSummaries() {
+        logger.info("Backfilling request summaries");
+        int rebuilt = requestSummaryService.backfillSummaries();
+        logger.info(String.format("Backfilled %d request summaries", rebuilt));
+    }
+}
@@ -0,0 +1,7 @@
+package uk.gov.companieshouse.extensions.api.summary;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface RequestSummaryRepository extends MongoRepository<RequestSummary, String>,
+    RequestSummaryRepositoryCustom {
+}
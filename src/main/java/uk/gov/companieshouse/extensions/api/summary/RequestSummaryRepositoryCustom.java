@@ -0,0 +1,61 @@
+package uk.gov.companieshouse.extensions.api.summary;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import uk.gov.companieshouse.extensions.api.requests.Status;
+
+/**
+ * Single document updates that keep a company's summary in step with its requests. The
+ * increments create the summary if there is none, so that no change is lost, but a summary is
+ * only complete once its counts have been rebuilt from the requests.
+ */
+public interface RequestSummaryRepositoryCustom {
+
+    /**
+     * Counts a newly created request.
+     * @param companyNumber the company the request belongs to
+     * @param status the status the request was created with
+     * @param requestId the id of the new request, recorded as the latest if it is newer
+     * @param updatedOn when the request was created
+     */
+    void recordCreated(String companyNumber, Status status, String requestId, LocalDateTime updatedOn);
+
+    /**
+     * Moves a request from one status count to another.
+     * @param companyNumber the company the request belongs to
+     * @param from the status the request had
+     * @param to the status the request has now
+     * @param updatedOn when the status changed
+     */
+    void recordStatusChange(String companyNumber, Status from, Status to, LocalDateTime updatedOn);
+
+    /**
+     * Marks a summary as no longer complete, so that it is not served until it is rebuilt.
+     * @param companyNumber the company whose summary is out of date
+     */
+    void markIncomplete(String companyNumber);
+
+    /**
+     * Builds a summary by counting the company's requests in the live and archive collections.
+     * @param companyNumber the company to summarise
+     * @param builtOn recorded as the last updated time of the summary
+     * @return the summary, not saved
+     */
+    RequestSummary buildSummary(String companyNumber, LocalDateTime builtOn);
+
+    /**
+     * Stores a rebuilt summary as complete, but only if the stored one has not changed since
+     * it was read.
+     * @param summary the rebuilt summary
+     * @param expectedRevision the revision of the summary read before the rebuild, null if
+     *     there was none
+     * @return false if the summary was changed in the meantime, in which case nothing is stored
+     */
+    boolean replaceIfUnchanged(RequestSummary summary, Long expectedRevision);
+
+    /**
+     * @return the numbers of every company with a request in the live or archive collection
+     */
+    Set<String> findCompanyNumbers();
+}
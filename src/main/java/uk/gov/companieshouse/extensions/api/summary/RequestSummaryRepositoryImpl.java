@@ -0,0 +1,130 @@
+package uk.gov.companieshouse.extensions.api.summary;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import uk.gov.companieshouse.extensions.api.requests.Status;
+
+public class RequestSummaryRepositoryImpl implements RequestSummaryRepositoryCustom {
+
+    private static final String REQUESTS_COLLECTION = "extension_requests";
+    private static final String ARCHIVE_COLLECTION = "extension_requests_archive";
+
+    private static final String ID = "_id";
+    private static final String COMPANY_NUMBER = "companyNumber";
+    private static final String STATUS = "status";
+    private static final String COUNT = "count";
+    private static final String COUNTS = "counts";
+    private static final String COUNT_OF = "counts.";
+    private static final String LATEST_REQUEST_ID = "latestRequestId";
+    private static final String LAST_UPDATED_ON = "lastUpdatedOn";
+    private static final String COMPLETE = "complete";
+    private static final String REVISION = "revision";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public RequestSummaryRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void recordCreated(String companyNumber, Status status, String requestId, LocalDateTime updatedOn) {
+        // ids are object ids, so the greatest is the most recently created
+        Update update = new Update()
+            .inc(COUNT_OF + status.name(), 1)
+            .max(LATEST_REQUEST_ID, requestId)
+            .set(LAST_UPDATED_ON, updatedOn)
+            .inc(REVISION, 1);
+        mongoTemplate.upsert(byCompany(companyNumber), update, RequestSummary.class);
+    }
+
+    @Override
+    public void recordStatusChange(String companyNumber, Status from, Status to, LocalDateTime updatedOn) {
+        Update update = new Update()
+            .inc(COUNT_OF + from.name(), -1)
+            .inc(COUNT_OF + to.name(), 1)
+            .set(LAST_UPDATED_ON, updatedOn)
+            .inc(REVISION, 1);
+        mongoTemplate.upsert(byCompany(companyNumber), update, RequestSummary.class);
+    }
+
+    @Override
+    public void markIncomplete(String companyNumber) {
+        Update update = new Update()
+            .set(COMPLETE, false)
+            .inc(REVISION, 1);
+        mongoTemplate.updateFirst(byCompany(companyNumber), update, RequestSummary.class);
+    }
+
+    @Override
+    public RequestSummary buildSummary(String companyNumber, LocalDateTime builtOn) {
+        RequestSummary summary = new RequestSummary();
+        summary.setCompanyNumber(companyNumber);
+        summary.setLastUpdatedOn(builtOn);
+
+        Aggregation countByStatus = Aggregation.newAggregation(
+            Aggregation.match(Criteria.where(COMPANY_NUMBER).is(companyNumber)),
+            Aggregation.group(STATUS).count().as(COUNT).max(ID).as(LATEST_REQUEST_ID));
+        for (String collection : Arrays.asList(REQUESTS_COLLECTION, ARCHIVE_COLLECTION)) {
+            for (Document group : mongoTemplate.aggregate(countByStatus, collection, Document.class)
+                    .getMappedResults()) {
+                summary.addCount(group.getString(ID), group.getInteger(COUNT));
+                String latestRequestId = group.get(LATEST_REQUEST_ID).toString();
+                if (summary.getLatestRequestId() == null
+                        || latestRequestId.compareTo(summary.getLatestRequestId()) > 0) {
+                    summary.setLatestRequestId(latestRequestId);
+                }
+            }
+        }
+        return summary;
+    }
+
+    @Override
+    public boolean replaceIfUnchanged(RequestSummary summary, Long expectedRevision) {
+        if (expectedRevision == null) {
+            summary.setComplete(true);
+            summary.setRevision(1);
+            try {
+                mongoTemplate.insert(summary);
+                return true;
+            } catch (DuplicateKeyException e) {
+                // an increment created the summary while the requests were being counted
+                return false;
+            }
+        }
+        Update update = new Update()
+            .set(COUNTS, summary.getCounts())
+            .set(LATEST_REQUEST_ID, summary.getLatestRequestId())
+            .set(LAST_UPDATED_ON, summary.getLastUpdatedOn())
+            .set(COMPLETE, true)
+            .inc(REVISION, 1);
+        Query query = byCompany(summary.getCompanyNumber())
+            .addCriteria(Criteria.where(REVISION).is(expectedRevision));
+        return mongoTemplate.updateFirst(query, update, RequestSummary.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public Set<String> findCompanyNumbers() {
+        Set<String> companyNumbers = new TreeSet<>();
+        for (String collection : Arrays.asList(REQUESTS_COLLECTION, ARCHIVE_COLLECTION)) {
+            companyNumbers.addAll(mongoTemplate.findDistinct(new Query(), COMPANY_NUMBER, collection, String.class));
+        }
+        return companyNumbers;
+    }
+
+    private Query byCompany(String companyNumber) {
+        return Query.query(Criteria.where(ID).is(companyNumber));
+    }
+}
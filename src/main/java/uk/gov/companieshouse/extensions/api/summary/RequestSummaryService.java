@@ -0,0 +1,109 @@
+package uk.gov.companieshouse.extensions.api.summary;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import uk.gov.companieshouse.extensions.api.logger.LogMethodCall;
+import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestFullEntity;
+import uk.gov.companieshouse.extensions.api.requests.Status;
+
+/**
+ * Maintains the per-company request summaries. Creating a request or changing its status is
+ * applied to the summary with an atomic upsert straight after the request is written, so the
+ * change is kept even if the summary does not exist yet. A summary is only served once it has
+ * been rebuilt from the company's requests, which {@link RequestSummaryBackfillJob} does for
+ * existing companies; until then the requests are counted on each read instead.
+ *
+ * <p>Removing a request rebuilds the summary, because the latest request id cannot be worked
+ * out from the summary alone. A rebuild only stores its counts if no change was applied to the
+ * summary while the requests were being counted, and starts again otherwise.
+ */
+@Component
+public class RequestSummaryService {
+
+    private static final int MAX_REBUILD_ATTEMPTS = 3;
+
+    private final RequestSummaryRepository requestSummaryRepository;
+    private final Supplier<LocalDateTime> dateTimeSupplierNow;
+
+    @Autowired
+    public RequestSummaryService(RequestSummaryRepository requestSummaryRepository,
+                                 Supplier<LocalDateTime> dateTimeSupplierNow) {
+        this.requestSummaryRepository = requestSummaryRepository;
+        this.dateTimeSupplierNow = dateTimeSupplierNow;
+    }
+
+    /**
+     * Gets the summary for a company, counting the company's requests if there is no complete
+     * summary yet. Every status is included in the counts, with zero for those the company has
+     * none of.
+     */
+    @LogMethodCall
+    public RequestSummary getSummary(String companyNumber) {
+        RequestSummary summary = requestSummaryRepository.findById(companyNumber)
+            .filter(RequestSummary::isComplete)
+            .orElseGet(() -> requestSummaryRepository.buildSummary(companyNumber, dateTimeSupplierNow.get()));
+        for (Status status : Status.values()) {
+            summary.getCounts().putIfAbsent(status.name(), 0);
+        }
+        return summary;
+    }
+
+    @LogMethodCall
+    public void recordCreated(ExtensionRequestFullEntity request) {
+        requestSummaryRepository.recordCreated(request.getCompanyNumber(), request.getStatus(),
+            request.getId(), dateTimeSupplierNow.get());
+    }
+
+    @LogMethodCall
+    public void recordStatusChange(String companyNumber, Status from, Status to) {
+        if (from == null || to == null || from == to) {
+            return;
+        }
+        requestSummaryRepository.recordStatusChange(companyNumber, from, to, dateTimeSupplierNow.get());
+    }
+
+    @LogMethodCall
+    public void recordRemoved(String companyNumber) {
+        // stops the summary being served if the rebuild does not get through
+        requestSummaryRepository.markIncomplete(companyNumber);
+        rebuildSummary(companyNumber);
+    }
+
+    /**
+     * Rebuilds the summary of every company that does not have a complete one.
+     * @return the number of summaries rebuilt
+     */
+    public int backfillSummaries() {
+        int rebuilt = 0;
+        for (String companyNumber : requestSummaryRepository.findCompanyNumbers()) {
+            boolean complete = requestSummaryRepository.findById(companyNumber)
+                .map(RequestSummary::isComplete)
+                .orElse(false);
+            if (!complete && rebuildSummary(companyNumber)) {
+                rebuilt++;
+            }
+        }
+        return rebuilt;
+    }
+
+    /**
+     * @return false if the summary kept changing while it was rebuilt, in which case it is left
+     *     incomplete and the requests are counted on each read
+     */
+    boolean rebuildSummary(String companyNumber) {
+        for (int attempt = 0; attempt < MAX_REBUILD_ATTEMPTS; attempt++) {
+            Long revision = requestSummaryRepository.findById(companyNumber)
+                .map(RequestSummary::getRevision)
+                .orElse(null);
+            RequestSummary summary = requestSummaryRepository.buildSummary(companyNumber, dateTimeSupplierNow.get());
+            if (requestSummaryRepository.replaceIfUnchanged(summary, revision)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
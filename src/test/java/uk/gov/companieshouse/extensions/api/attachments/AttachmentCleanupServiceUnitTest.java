@@ -0,0 +1,221 @@
+package uk.gov.companieshouse.extensions.api.attachments;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import uk.gov.companieshouse.extensions.api.attachments.dedup.AttachmentFileIndex;
+import uk.gov.companieshouse.extensions.api.attachments.file.FileTransferApiClient;
+import uk.gov.companieshouse.extensions.api.attachments.file.FileTransferApiClientResponse;
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class AttachmentCleanupServiceUnitTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MS = 100L;
+    private static final long CLAIM_SECONDS = 300L;
+    private static final int BATCH_SIZE = 10;
+    private static final LocalDateTime NOW = LocalDateTime.of(2020, 3, 31, 9, 0);
+    private static final LocalDateTime CLAIMED_UNTIL = NOW.plusSeconds(CLAIM_SECONDS);
+
+    @Mock
+    private FileTransferApiClient fileTransferApiClient;
+
+    @Mock
+    private AttachmentFileIndex attachmentFileIndex;
+
+    @Mock
+    private PendingFileDeleteStore pendingFileDeleteStore;
+
+    @Mock
+    private ApiLogger apiLogger;
+
+    @Mock
+    private ExecutorService executor;
+
+    @Captor
+    private ArgumentCaptor<List<PendingFileDelete>> deletesCaptor;
+
+    private AttachmentCleanupService service;
+
+    @Before
+    public void setup() {
+        service = new AttachmentCleanupService(fileTransferApiClient, attachmentFileIndex, pendingFileDeleteStore,
+            () -> NOW, apiLogger, executor, MAX_ATTEMPTS, RETRY_DELAY_MS, CLAIM_SECONDS, BATCH_SIZE);
+    }
+
+    @Test
+    public void willRecordDeletesBeforeAttemptingThem() {
+        when(attachmentFileIndex.release(any(Attachment.class))).thenReturn(true);
+        doAnswer(invocation -> {
+            List<PendingFileDelete> deletes = invocation.getArgument(0);
+            deletes.get(0).setId("pending1");
+            deletes.get(1).setId("pending2");
+            return null;
+        }).when(pendingFileDeleteStore).insertAll(any());
+
+        service.deleteAttachments(Arrays.asList(attachment("file1"), attachment("file2")));
+
+        verify(pendingFileDeleteStore).insertAll(deletesCaptor.capture());
+        assertEquals("file1", deletesCaptor.getValue().get(0).getFileId());
+        assertEquals(NOW, deletesCaptor.getValue().get(0).getNextAttemptOn());
+        assertEquals("file2", deletesCaptor.getValue().get(1).getFileId());
+        verify(executor, times(2)).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void willNotDeleteFileStillSharedWithAnotherAttachment() {
+        Attachment shared = attachment("file1");
+        when(attachmentFileIndex.release(shared)).thenReturn(false);
+
+        service.deleteAttachments(Collections.singletonList(shared));
+
+        verify(attachmentFileIndex).release(shared);
+        verifyZeroInteractions(pendingFileDeleteStore, executor);
+    }
+
+    @Test
+    public void willRemoveRecordOnceFileIsDeleted() {
+        when(pendingFileDeleteStore.claim("pending1", NOW, CLAIMED_UNTIL)).thenReturn(Optional.of(pending(1)));
+        when(fileTransferApiClient.delete("file1")).thenReturn(response(HttpStatus.NO_CONTENT));
+
+        service.attemptDelete("pending1");
+
+        verify(pendingFileDeleteStore).remove("pending1");
+    }
+
+    @Test
+    public void willNotAttemptDeleteClaimedElsewhere() {
+        when(pendingFileDeleteStore.claim("pending1", NOW, CLAIMED_UNTIL)).thenReturn(Optional.empty());
+
+        service.attemptDelete("pending1");
+
+        verifyZeroInteractions(fileTransferApiClient);
+    }
+
+    @Test
+    public void willRetryWithBackoffOnServerError() {
+        when(pendingFileDeleteStore.claim("pending1", NOW, CLAIMED_UNTIL)).thenReturn(Optional.of(pending(2)));
+        when(fileTransferApiClient.delete("file1")).thenReturn(response(HttpStatus.INTERNAL_SERVER_ERROR));
+
+        service.attemptDelete("pending1");
+
+        verify(pendingFileDeleteStore).scheduleRetry("pending1", NOW.plusNanos(RETRY_DELAY_MS * 2 * 1_000_000));
+        verify(pendingFileDeleteStore, never()).remove(anyString());
+    }
+
+    @Test
+    public void willRetryWhenServerErrorIsThrown() {
+        when(pendingFileDeleteStore.claim("pending1", NOW, CLAIMED_UNTIL)).thenReturn(Optional.of(pending(1)));
+        when(fileTransferApiClient.delete("file1")).thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+
+        service.attemptDelete("pending1");
+
+        verify(pendingFileDeleteStore).scheduleRetry("pending1", NOW.plusNanos(RETRY_DELAY_MS * 1_000_000));
+    }
+
+    @Test
+    public void willRetryWhenStorageCannotBeRead() {
+        when(pendingFileDeleteStore.claim("pending1", NOW, CLAIMED_UNTIL)).thenReturn(Optional.of(pending(1)));
+        when(fileTransferApiClient.delete("file1")).thenThrow(new UncheckedIOException(new IOException("disk")));
+
+        service.attemptDelete("pending1");
+
+        verify(pendingFileDeleteStore).scheduleRetry("pending1", NOW.plusNanos(RETRY_DELAY_MS * 1_000_000));
+    }
+
+    @Test
+    public void willNotRetryWhenFileIsAlreadyGone() {
+        when(pendingFileDeleteStore.claim("pending1", NOW, CLAIMED_UNTIL)).thenReturn(Optional.of(pending(1)));
+        when(fileTransferApiClient.delete("file1")).thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+
+        service.attemptDelete("pending1");
+
+        verify(pendingFileDeleteStore).remove("pending1");
+        verify(apiLogger, never()).error(anyString(), any(Exception.class));
+    }
+
+    @Test
+    public void willKeepRecordWhenGivingUp() {
+        when(pendingFileDeleteStore.claim("pending1", NOW, CLAIMED_UNTIL))
+            .thenReturn(Optional.of(pending(MAX_ATTEMPTS)));
+        when(fileTransferApiClient.delete("file1")).thenReturn(null);
+
+        service.attemptDelete("pending1");
+
+        verify(apiLogger).error("Giving up deleting file file1 after 3 attempts");
+        verify(pendingFileDeleteStore).markFailed("pending1", NOW);
+        verify(pendingFileDeleteStore, never()).remove(anyString());
+    }
+
+    @Test
+    public void willSweepDueDeletes() {
+        when(pendingFileDeleteStore.claimNextDue(NOW, CLAIMED_UNTIL))
+            .thenReturn(Optional.of(pending(2)))
+            .thenReturn(Optional.empty());
+        when(fileTransferApiClient.delete("file1")).thenReturn(response(HttpStatus.NO_CONTENT));
+
+        service.deletePendingFiles();
+
+        verify(pendingFileDeleteStore, times(2)).claimNextDue(NOW, CLAIMED_UNTIL);
+        verify(pendingFileDeleteStore).remove("pending1");
+    }
+
+    @Test
+    public void willShutdownExecutor() {
+        service.shutdown();
+
+        verify(executor).shutdownNow();
+    }
+
+    private Attachment attachment(String fileId) {
+        Attachment attachment = new Attachment();
+        attachment.setId("attachment-" + fileId);
+        attachment.setFileId(fileId);
+        return attachment;
+    }
+
+    private PendingFileDelete pending(int attempts) {
+        PendingFileDelete delete = new PendingFileDelete();
+        delete.setId("pending1");
+        delete.setFileId("file1");
+        delete.setAttempts(attempts);
+        return delete;
+    }
+
+    private FileTransferApiClientResponse response(HttpStatus status) {
+        FileTransferApiClientResponse response = new FileTransferApiClientResponse();
+        response.setHttpStatus(status);
+        return response;
+    }
+}
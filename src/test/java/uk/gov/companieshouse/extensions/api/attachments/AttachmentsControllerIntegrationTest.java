@@ -114,6 +114,7 @@ public class AttachmentsControllerIntegrationTest {
     public void testDownloadAttachmentFromRequest() throws Exception {
         FileTransferApiClientResponse dummyDownloadResponse = Utils.dummyDownloadResponse();
 
+        when(attachmentsService.getAttachmentFileId(anyString(), anyString(), anyString())).thenReturn("123");
         when(attachmentsService.downloadAttachment(anyString(), any(HttpServletResponse.class)))
             .thenReturn(dummyDownloadResponse);
 
@@ -128,6 +129,7 @@ public class AttachmentsControllerIntegrationTest {
         FileTransferApiClientResponse dummyDownloadResponse = new FileTransferApiClientResponse();
         dummyDownloadResponse.setHttpStatus(HttpStatus.INTERNAL_SERVER_ERROR);
 
+        when(attachmentsService.getAttachmentFileId(anyString(), anyString(), anyString())).thenReturn("123");
         when(attachmentsService.downloadAttachment(anyString(), any(HttpServletResponse.class)))
             .thenReturn(dummyDownloadResponse);
 
@@ -13,6 +13,7 @@ import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.multipart.MultipartFile;
 import uk.gov.companieshouse.extensions.api.Utils.Utils;
 import uk.gov.companieshouse.extensions.api.attachments.file.FileTransferApiClientResponse;
+import uk.gov.companieshouse.extensions.api.attachments.inspection.UploadRejectedException;
 import uk.gov.companieshouse.extensions.api.groups.Unit;
 import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
 import uk.gov.companieshouse.service.ServiceException;
@@ -28,16 +29,20 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.net.URI;
+import java.util.Optional;
 
 @Category(Unit.class)
 @RunWith(MockitoJUnitRunner.class)
 public class AttachmentsControllerUnitTest {
 
     private static final String ATTACHMENT_ID = "123";
+    private static final String FILE_ID = "5agf-g6hh";
     private static final String REQUEST_ID = "ABC";
     private static final String REASON_ID = "MNB";
 
@@ -82,24 +87,59 @@ public class AttachmentsControllerUnitTest {
     }
 
     @Test
-    public void willReturnStatusFromDownload() {
+    public void willReturnStatusFromDownload() throws ServiceException {
         HttpServletResponse response = new MockHttpServletResponse();
         FileTransferApiClientResponse dummyDownloadResponse = Utils.dummyDownloadResponse();
         dummyDownloadResponse.setHttpStatus(HttpStatus.NOT_FOUND);
 
-        when(attachmentsService.downloadAttachment(ATTACHMENT_ID, response))
+        when(attachmentsService.getAttachmentFileId(REQUEST_ID, REASON_ID, ATTACHMENT_ID)).thenReturn(FILE_ID);
+        when(attachmentsService.downloadAttachment(FILE_ID, response))
                 .thenReturn(dummyDownloadResponse);
 
         AttachmentsController controller = new AttachmentsController(
                 PluggableResponseEntityFactory.buildWithStandardFactories(), attachmentsService, logger);
 
-        ResponseEntity responseEntity = controller.downloadAttachmentFromRequest(ATTACHMENT_ID, response);
+        ResponseEntity responseEntity = controller.downloadAttachmentFromRequest(REQUEST_ID, REASON_ID, ATTACHMENT_ID, response);
 
         assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
         assertNull(responseEntity.getBody());
         assertTrue(responseEntity.getHeaders().isEmpty());
     }
 
+    @Test
+    public void willRedirectDownloadToSignedUrl() throws ServiceException {
+        HttpServletResponse response = new MockHttpServletResponse();
+        URI signedUrl = URI.create("https://files.example/123/download?expires=1&signature=abc");
+        when(attachmentsService.getAttachmentFileId(REQUEST_ID, REASON_ID, ATTACHMENT_ID)).thenReturn(FILE_ID);
+        when(attachmentsService.getDownloadRedirect(FILE_ID)).thenReturn(Optional.of(signedUrl));
+
+        AttachmentsController controller = new AttachmentsController(
+                PluggableResponseEntityFactory.buildWithStandardFactories(), attachmentsService, logger);
+
+        ResponseEntity responseEntity = controller.downloadAttachmentFromRequest(REQUEST_ID, REASON_ID, ATTACHMENT_ID, response);
+
+        assertEquals(HttpStatus.FOUND, responseEntity.getStatusCode());
+        assertEquals(signedUrl, responseEntity.getHeaders().getLocation());
+        assertEquals("no-store", responseEntity.getHeaders().getCacheControl());
+        verify(attachmentsService, never()).downloadAttachment(anyString(), any(HttpServletResponse.class));
+    }
+
+    @Test
+    public void willReturn404DownloadingUnknownAttachment() throws ServiceException {
+        HttpServletResponse response = new MockHttpServletResponse();
+        when(attachmentsService.getAttachmentFileId(REQUEST_ID, REASON_ID, ATTACHMENT_ID))
+                .thenThrow(new ServiceException("Attachment 123 does not exist in reason MNB"));
+
+        AttachmentsController controller = new AttachmentsController(
+                PluggableResponseEntityFactory.buildWithStandardFactories(), attachmentsService, logger);
+
+        ResponseEntity responseEntity = controller.downloadAttachmentFromRequest(REQUEST_ID, REASON_ID,
+                ATTACHMENT_ID, response);
+
+        assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
+        verify(attachmentsService, never()).downloadAttachment(anyString(), any(HttpServletResponse.class));
+    }
+
     @Test
     public void willReturn415FromInvalidUpload() throws ServiceException, IOException {
         HttpClientErrorException expectedException = 
@@ -119,6 +159,22 @@ public class AttachmentsControllerUnitTest {
         assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, entity.getStatusCode());
     }
 
+    @Test
+    public void willReturnStatusOfRejectedUpload() throws ServiceException, IOException {
+        when(servletRequest.getRequestURI()).thenReturn("url");
+        when(attachmentsService.addAttachment(any(MultipartFile.class), anyString(), anyString(),
+            anyString())).thenThrow(new UploadRejectedException(HttpStatus.PAYLOAD_TOO_LARGE, "too large"));
+
+        AttachmentsController controller =
+            new AttachmentsController(PluggableResponseEntityFactory.buildWithStandardFactories(),
+                attachmentsService, logger);
+
+        ResponseEntity entity = controller.uploadAttachmentToRequest(Utils.mockMultipartFile(),
+            "123","1234", servletRequest);
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, entity.getStatusCode());
+    }
+
     @Test
     public void willReturn500FromFileTransferServerError() throws ServiceException, IOException {
         HttpServerErrorException expectedException = 
@@ -142,13 +198,14 @@ public class AttachmentsControllerUnitTest {
     public void willCatchHttpClientExceptions_download() throws ServiceException, IOException {
         HttpServletResponse response = new MockHttpServletResponse();
 
-        when(attachmentsService.downloadAttachment(ATTACHMENT_ID, response))
+        when(attachmentsService.getAttachmentFileId(REQUEST_ID, REASON_ID, ATTACHMENT_ID)).thenReturn(FILE_ID);
+        when(attachmentsService.downloadAttachment(FILE_ID, response))
                 .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
 
         AttachmentsController controller = new AttachmentsController(
                 PluggableResponseEntityFactory.buildWithStandardFactories(), attachmentsService, logger);
 
-        ResponseEntity responseEntity = controller.downloadAttachmentFromRequest(ATTACHMENT_ID, response);
+        ResponseEntity responseEntity = controller.downloadAttachmentFromRequest(REQUEST_ID, REASON_ID, ATTACHMENT_ID, response);
 
         assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
         assertNull(responseEntity.getBody());
@@ -159,13 +216,14 @@ public class AttachmentsControllerUnitTest {
     public void willCatchHttpServerExceptions_download() throws ServiceException, IOException {
         HttpServletResponse response = new MockHttpServletResponse();
 
-        when(attachmentsService.downloadAttachment(ATTACHMENT_ID, response))
+        when(attachmentsService.getAttachmentFileId(REQUEST_ID, REASON_ID, ATTACHMENT_ID)).thenReturn(FILE_ID);
+        when(attachmentsService.downloadAttachment(FILE_ID, response))
                 .thenThrow(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR));
 
         AttachmentsController controller = new AttachmentsController(
                 PluggableResponseEntityFactory.buildWithStandardFactories(), attachmentsService, logger);
 
-        ResponseEntity responseEntity = controller.downloadAttachmentFromRequest(ATTACHMENT_ID, response);
+        ResponseEntity responseEntity = controller.downloadAttachmentFromRequest(REQUEST_ID, REASON_ID, ATTACHMENT_ID, response);
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, responseEntity.getStatusCode());
         assertNull(responseEntity.getBody());
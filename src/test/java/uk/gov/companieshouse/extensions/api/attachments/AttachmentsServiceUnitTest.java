@@ -13,10 +13,16 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletResponse;
@@ -29,13 +35,23 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.http.HttpStatus;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.multipart.MultipartFile;
 
 import uk.gov.companieshouse.extensions.api.Utils.Utils;
+import uk.gov.companieshouse.extensions.api.attachments.dedup.AttachmentFileIndex;
 import uk.gov.companieshouse.extensions.api.attachments.file.FileTransferApiClient;
 import uk.gov.companieshouse.extensions.api.attachments.file.FileTransferApiClientResponse;
+import uk.gov.companieshouse.extensions.api.attachments.inspection.DigestInspector;
+import uk.gov.companieshouse.extensions.api.attachments.inspection.FileTypeInspector;
+import uk.gov.companieshouse.extensions.api.attachments.inspection.SizeLimitInspector;
+import uk.gov.companieshouse.extensions.api.attachments.inspection.UploadInspection;
+import uk.gov.companieshouse.extensions.api.attachments.inspection.UploadRejectedException;
+import uk.gov.companieshouse.extensions.api.events.RequestEventRecorder;
 import uk.gov.companieshouse.extensions.api.groups.Unit;
 import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
 import uk.gov.companieshouse.extensions.api.reasons.ExtensionReasonEntity;
@@ -55,6 +71,8 @@ public class AttachmentsServiceUnitTest {
     private static final String ACCESS_URL = "/dummyUrl";
     private static final String UPLOAD_ID = "5agf-g6hh";
     private static final String NO_FILE_ID_MESSAGE = "No file id returned from file upload";
+    private static final long MAX_UPLOAD_BYTES = 20;
+    private static final String SHA256 = "c2a4f4903509957d138e216a6d2c0d7867235c61088c02ca5cf38f2332407b00";
 
     @Mock
     private ExtensionRequestsRepository repo;
@@ -65,12 +83,30 @@ public class AttachmentsServiceUnitTest {
     @Mock
     private ApiLogger apiLogger;
 
+    @Mock
+    private RequestEventRecorder requestEventRecorder;
+
+    @Mock
+    private AttachmentFileIndex attachmentFileIndex;
+
+    private UploadInspection uploadInspection;
+
     private AttachmentsService service;
 
+    private Supplier<String> randomUUid;
+
     @Before
     public void setup() {
-        service = new AttachmentsService(repo, fileTransferApiClient, apiLogger);
+        AtomicInteger attachmentIds = new AtomicInteger();
+        randomUUid = () -> "attachment-" + attachmentIds.incrementAndGet();
+        uploadInspection = new UploadInspection(Arrays.asList(
+            file -> new SizeLimitInspector(MAX_UPLOAD_BYTES),
+            file -> new FileTypeInspector(Collections.singleton("text/plain"), file.getContentType()),
+            file -> new DigestInspector()));
+        service = new AttachmentsService(repo, fileTransferApiClient, apiLogger, requestEventRecorder,
+            uploadInspection, attachmentFileIndex, false, Optional.empty(), randomUUid);
         when(fileTransferApiClient.upload(any(MultipartFile.class))).thenReturn(getSuccessfulUploadResponse());
+        when(attachmentFileIndex.release(any(Attachment.class))).thenReturn(true);
     }
 
     @Test
@@ -104,6 +140,10 @@ public class AttachmentsServiceUnitTest {
         assertTrue(linkUrl.startsWith(ACCESS_URL));
         assertFalse(linkUrl.endsWith(ACCESS_URL + "/"));
         assertNotNull(entityAttachment.get().getId());
+        assertEquals(10, entityAttachment.get().getSize());
+        assertEquals("c2a4f4903509957d138e216a6d2c0d7867235c61088c02ca5cf38f2332407b00",
+            entityAttachment.get().getSha256());
+        verify(requestEventRecorder).attachmentAdded(entity, REASON_ID, entityAttachment.get().getId());
 
         verify(repo).save(entity);
         verify(repo).findById(REQUEST_ID);
@@ -170,6 +210,43 @@ public class AttachmentsServiceUnitTest {
         }
     }
 
+    @Test
+    public void willRejectAndDeleteUploadOfDisallowedType() throws Exception {
+        MultipartFile pdf = new MockMultipartFile("file", "file.txt", "text/plain", "%PDF-1.4".getBytes());
+
+        try {
+            service.addAttachment(pdf, ACCESS_URL, REQUEST_ID, REASON_ID);
+            fail();
+        } catch(UploadRejectedException e) {
+            assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, e.getStatus());
+        }
+        verify(fileTransferApiClient).delete(UPLOAD_ID);
+        verify(repo, never()).save(any(ExtensionRequestFullEntity.class));
+    }
+
+    @Test
+    public void willAbortUploadOverSizeLimit() throws Exception {
+        MultipartFile large = new MockMultipartFile("file", "file.txt", "text/plain",
+            "this text is longer than the limit".getBytes());
+        when(fileTransferApiClient.upload(any(MultipartFile.class))).thenAnswer(invocation -> {
+            // as the RestTemplate does when the request body cannot be read
+            try (InputStream content = invocation.getArgument(0, MultipartFile.class).getInputStream()) {
+                StreamUtils.drain(content);
+            } catch (IOException e) {
+                throw new ResourceAccessException("I/O error on POST request", e);
+            }
+            return getSuccessfulUploadResponse();
+        });
+
+        try {
+            service.addAttachment(large, ACCESS_URL, REQUEST_ID, REASON_ID);
+            fail();
+        } catch(UploadRejectedException e) {
+            assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, e.getStatus());
+        }
+        verify(fileTransferApiClient, never()).delete(anyString());
+    }
+
     @Test
     public void willThrowServiceExceptionIfUploadErrors() throws Exception {
         when(fileTransferApiClient.upload(any(MultipartFile.class))).thenReturn(getUnsuccessfulUploadResponse());
@@ -302,9 +379,6 @@ public class AttachmentsServiceUnitTest {
 
         assertFalse(entity.getReasons().get(0).getAttachments().isEmpty());
 
-        HttpClientErrorException exception = new HttpClientErrorException(HttpStatus.NOT_FOUND);
-        when(fileTransferApiClient.delete("12345ab")).thenThrow(exception);
-
         when(repo.findById(entity.getId()))
             .thenReturn(Optional.of(entity));
 
@@ -318,8 +392,126 @@ public class AttachmentsServiceUnitTest {
         }
 
         verify(repo, never()).save(entity);
-        verify(fileTransferApiClient, times(1)).delete("12345ab");
-        verify(apiLogger).error("Unable to delete attachment 12345ab, status code 404 NOT_FOUND", exception);
+        verify(fileTransferApiClient, never()).delete(anyString());
+        verify(attachmentFileIndex, never()).release(any(Attachment.class));
+    }
+
+    @Test
+    public void willNotDeleteFileStillSharedWithAnotherAttachment() throws ServiceException {
+        ExtensionRequestFullEntity entity = Utils.dummyRequestEntity();
+        List<ExtensionReasonEntity> reasons = new ArrayList<>();
+        reasons.add(Utils.dummyReasonEntity());
+        entity.setReasons(reasons);
+        addAttachmentToReason(entity.getReasons().get(0), "12345");
+        Attachment shared = entity.getReasons().get(0).getAttachments().get(0);
+
+        when(repo.findById(entity.getId()))
+            .thenReturn(Optional.of(entity));
+        when(attachmentFileIndex.release(shared)).thenReturn(false);
+
+        service.removeAttachment(entity.getId(), entity.getReasons().get(0).getId(), "12345");
+
+        assertTrue(entity.getReasons().get(0).getAttachments().isEmpty());
+        verify(repo).save(entity);
+        verify(fileTransferApiClient, never()).delete(anyString());
+    }
+
+    @Test
+    public void willReuseStoredFileWithSameContent() throws Exception {
+        AttachmentsService deduplicatingService = deduplicatingService();
+        ExtensionRequestFullEntity entity = Utils.dummyRequestEntity();
+        ExtensionReasonEntity reasonEntity = new ExtensionReasonEntity();
+        reasonEntity.setId(REASON_ID);
+        entity.setReasons(new ArrayList<>(Collections.singletonList(reasonEntity)));
+        when(repo.findById(REQUEST_ID)).thenReturn(Optional.of(entity));
+        when(attachmentFileIndex.acquire(SHA256)).thenReturn(Optional.of("stored-file"));
+
+        ServiceResult<AttachmentDTO> result = deduplicatingService.addAttachment(Utils.mockMultipartFile(),
+            ACCESS_URL, REQUEST_ID, REASON_ID);
+
+        assertEquals("attachment-1", result.getData().getId());
+        Attachment attachment = reasonEntity.getAttachments().get(0);
+        assertEquals("attachment-1", attachment.getId());
+        assertEquals("stored-file", attachment.getFileId());
+        assertEquals(SHA256, attachment.getSha256());
+        verify(fileTransferApiClient, never()).upload(any(MultipartFile.class));
+        verify(attachmentFileIndex, never()).register(anyString(), anyString());
+        verify(repo).save(entity);
+    }
+
+    @Test
+    public void willUploadAndIndexFileWithNewContent() throws Exception {
+        AttachmentsService deduplicatingService = deduplicatingService();
+        ExtensionRequestFullEntity entity = Utils.dummyRequestEntity();
+        ExtensionReasonEntity reasonEntity = new ExtensionReasonEntity();
+        reasonEntity.setId(REASON_ID);
+        entity.setReasons(new ArrayList<>(Collections.singletonList(reasonEntity)));
+        when(repo.findById(REQUEST_ID)).thenReturn(Optional.of(entity));
+        when(attachmentFileIndex.acquire(SHA256)).thenReturn(Optional.empty());
+
+        deduplicatingService.addAttachment(Utils.mockMultipartFile(), ACCESS_URL, REQUEST_ID, REASON_ID);
+
+        assertEquals(UPLOAD_ID, reasonEntity.getAttachments().get(0).getFileId());
+        verify(fileTransferApiClient).upload(any(MultipartFile.class));
+        verify(attachmentFileIndex).register(SHA256, UPLOAD_ID);
+    }
+
+    @Test
+    public void willGiveSameFileUploadedTwiceSeparateAttachments() throws Exception {
+        AttachmentsService deduplicatingService = deduplicatingService();
+        ExtensionRequestFullEntity entity = Utils.dummyRequestEntity();
+        ExtensionReasonEntity reasonEntity = new ExtensionReasonEntity();
+        reasonEntity.setId(REASON_ID);
+        entity.setReasons(new ArrayList<>(Collections.singletonList(reasonEntity)));
+        when(repo.findById(REQUEST_ID)).thenReturn(Optional.of(entity));
+        when(attachmentFileIndex.acquire(SHA256)).thenReturn(Optional.of("stored-file"));
+        when(attachmentFileIndex.release(any(Attachment.class))).thenReturn(false);
+
+        deduplicatingService.addAttachment(Utils.mockMultipartFile(), ACCESS_URL, REQUEST_ID, REASON_ID);
+        deduplicatingService.addAttachment(Utils.mockMultipartFile(), ACCESS_URL, REQUEST_ID, REASON_ID);
+        deduplicatingService.removeAttachment(REQUEST_ID, REASON_ID, "attachment-1");
+
+        assertEquals(1, reasonEntity.getAttachments().size());
+        assertEquals("attachment-2", reasonEntity.getAttachments().get(0).getId());
+        assertEquals("stored-file", reasonEntity.getAttachments().get(0).getFileId());
+        verify(attachmentFileIndex, times(1)).release(any(Attachment.class));
+        verify(fileTransferApiClient, never()).delete(anyString());
+    }
+
+    @Test
+    public void willReleaseFileWhenSavingAttachmentFails() throws Exception {
+        AttachmentsService deduplicatingService = deduplicatingService();
+        ExtensionRequestFullEntity entity = Utils.dummyRequestEntity();
+        ExtensionReasonEntity reasonEntity = new ExtensionReasonEntity();
+        reasonEntity.setId(REASON_ID);
+        entity.setReasons(new ArrayList<>(Collections.singletonList(reasonEntity)));
+        when(repo.findById(REQUEST_ID)).thenReturn(Optional.of(entity));
+        when(attachmentFileIndex.acquire(SHA256)).thenReturn(Optional.of("stored-file"));
+        when(repo.save(entity)).thenThrow(new IllegalStateException("mongo unavailable"));
+
+        try {
+            deduplicatingService.addAttachment(Utils.mockMultipartFile(), ACCESS_URL, REQUEST_ID, REASON_ID);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("mongo unavailable", e.getMessage());
+        }
+        verify(attachmentFileIndex).release(any(Attachment.class));
+        verify(fileTransferApiClient).delete("stored-file");
+    }
+
+    @Test
+    public void willNotStoreRejectedUploadWhenDeduplicating() throws Exception {
+        AttachmentsService deduplicatingService = deduplicatingService();
+        MultipartFile pdf = new MockMultipartFile("file", "file.txt", "text/plain", "%PDF-1.4".getBytes());
+
+        try {
+            deduplicatingService.addAttachment(pdf, ACCESS_URL, REQUEST_ID, REASON_ID);
+            fail();
+        } catch(UploadRejectedException e) {
+            assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, e.getStatus());
+        }
+        verify(fileTransferApiClient, never()).upload(any(MultipartFile.class));
+        verify(attachmentFileIndex, never()).acquire(anyString());
     }
 
     @Test
@@ -454,6 +646,18 @@ public class AttachmentsServiceUnitTest {
         assertNotNull(downloadServiceResult);
     }
 
+    @Test
+    public void willSignDownloadRedirectWhenSignerConfigured() {
+        URI signedUrl = URI.create("https://files.example/5agf-g6hh/download?expires=1&signature=abc");
+        AttachmentsService redirectingService = new AttachmentsService(repo, fileTransferApiClient, apiLogger,
+            requestEventRecorder, uploadInspection, attachmentFileIndex, false, Optional.of(fileId -> signedUrl),
+            randomUUid);
+
+        assertEquals(Optional.of(signedUrl), redirectingService.getDownloadRedirect(UPLOAD_ID));
+        assertFalse(service.getDownloadRedirect(UPLOAD_ID).isPresent());
+        verify(fileTransferApiClient, never()).download(anyString(), any(HttpServletResponse.class));
+    }
+
     private void addAttachmentToReason(ExtensionReasonEntity reason, String attachmentId) {
         Attachment attachment = new Attachment();
         attachment.setSize(2L);
@@ -473,4 +677,9 @@ public class AttachmentsServiceUnitTest {
         fileTransferApiClientResponse.setHttpStatus(HttpStatus.INTERNAL_SERVER_ERROR);
         return fileTransferApiClientResponse;
     }
+
+    private AttachmentsService deduplicatingService() {
+        return new AttachmentsService(repo, fileTransferApiClient, apiLogger, requestEventRecorder,
+            uploadInspection, attachmentFileIndex, true, Optional.empty(), randomUUid);
+    }
 }
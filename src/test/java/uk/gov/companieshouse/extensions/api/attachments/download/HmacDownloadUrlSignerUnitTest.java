@@ -0,0 +1,78 @@
+package uk.gov.companieshouse.extensions.api.attachments.download;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class HmacDownloadUrlSignerUnitTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2020, 1, 1, 12, 0);
+    private static final long TTL_SECONDS = 60;
+
+    @Mock
+    private Supplier<LocalDateTime> dateTimeSupplierNow;
+
+    private HmacDownloadUrlSigner signer;
+
+    @Before
+    public void setup() {
+        signer = new HmacDownloadUrlSigner("http://localhost:8081/", "secret", TTL_SECONDS, dateTimeSupplierNow);
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+    }
+
+    @Test
+    public void willSignDownloadUrlForFile() {
+        UriComponents url = UriComponentsBuilder.fromUri(signer.sign("file1")).build();
+
+        assertEquals("/file1/download", url.getPath());
+        long expires = Long.parseLong(url.getQueryParams().getFirst(HmacDownloadUrlSigner.EXPIRES));
+        assertEquals(NOW.atZone(ZoneId.systemDefault()).toEpochSecond() + TTL_SECONDS, expires);
+        assertTrue(signer.verify("file1", expires, url.getQueryParams().getFirst(HmacDownloadUrlSigner.SIGNATURE)));
+    }
+
+    @Test
+    public void willNotVerifySignatureForAnotherFile() {
+        Map<String, String> params = queryParams(signer.sign("file1"));
+
+        assertFalse(signer.verify("file2", Long.parseLong(params.get(HmacDownloadUrlSigner.EXPIRES)),
+            params.get(HmacDownloadUrlSigner.SIGNATURE)));
+    }
+
+    @Test
+    public void willNotVerifyExpiredUrl() {
+        Map<String, String> params = queryParams(signer.sign("file1"));
+        when(dateTimeSupplierNow.get()).thenReturn(NOW.plusSeconds(TTL_SECONDS + 1));
+
+        assertFalse(signer.verify("file1", Long.parseLong(params.get(HmacDownloadUrlSigner.EXPIRES)),
+            params.get(HmacDownloadUrlSigner.SIGNATURE)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void willNotSignWithoutKey() {
+        new HmacDownloadUrlSigner("http://localhost:8081/", "", TTL_SECONDS, dateTimeSupplierNow);
+    }
+
+    private Map<String, String> queryParams(URI url) {
+        return UriComponentsBuilder.fromUri(url).build().getQueryParams().toSingleValueMap();
+    }
+}
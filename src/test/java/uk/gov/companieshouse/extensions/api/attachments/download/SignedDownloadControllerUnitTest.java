@@ -0,0 +1,97 @@
+package uk.gov.companieshouse.extensions.api.attachments.download;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import uk.gov.companieshouse.extensions.api.attachments.file.FileTransferApiClientResponse;
+import uk.gov.companieshouse.extensions.api.attachments.storage.AttachmentStorage;
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class SignedDownloadControllerUnitTest {
+
+    private static final String FILE_ID = "file1";
+
+    @Mock
+    private AttachmentStorage attachmentStorage;
+
+    @Mock
+    private ApiLogger logger;
+
+    private HmacDownloadUrlSigner signer;
+
+    private SignedDownloadController controller;
+
+    @Before
+    public void setup() {
+        signer = new HmacDownloadUrlSigner("http://localhost:4001/extensions/downloads", "secret", 60,
+            LocalDateTime::now);
+        controller = new SignedDownloadController(attachmentStorage, Optional.of(signer), logger);
+    }
+
+    @Test
+    public void willStreamFileForValidSignature() {
+        HttpServletResponse response = new MockHttpServletResponse();
+        FileTransferApiClientResponse downloadResponse = new FileTransferApiClientResponse();
+        downloadResponse.setHttpStatus(HttpStatus.OK);
+        when(attachmentStorage.download(FILE_ID, response)).thenReturn(downloadResponse);
+        Map<String, String> params = signedParams(FILE_ID);
+
+        ResponseEntity<Void> result = controller.download(FILE_ID,
+            Long.parseLong(params.get(HmacDownloadUrlSigner.EXPIRES)), params.get(HmacDownloadUrlSigner.SIGNATURE),
+            response);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+    }
+
+    @Test
+    public void willRefuseSignatureForAnotherFile() {
+        Map<String, String> params = signedParams("file2");
+
+        ResponseEntity<Void> result = controller.download(FILE_ID,
+            Long.parseLong(params.get(HmacDownloadUrlSigner.EXPIRES)), params.get(HmacDownloadUrlSigner.SIGNATURE),
+            new MockHttpServletResponse());
+
+        assertEquals(HttpStatus.FORBIDDEN, result.getStatusCode());
+        verify(attachmentStorage, never()).download(anyString(), any(HttpServletResponse.class));
+    }
+
+    @Test
+    public void willNotServeSignedUrlsWhenDownloadsAreProxied() {
+        SignedDownloadController proxyingController =
+            new SignedDownloadController(attachmentStorage, Optional.empty(), logger);
+
+        ResponseEntity<Void> result = proxyingController.download(FILE_ID, Long.MAX_VALUE, "signature",
+            new MockHttpServletResponse());
+
+        assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
+        verify(attachmentStorage, never()).download(anyString(), any(HttpServletResponse.class));
+    }
+
+    private Map<String, String> signedParams(String fileId) {
+        return UriComponentsBuilder.fromUri(signer.sign(fileId)).build().getQueryParams().toSingleValueMap();
+    }
+}
@@ -38,6 +38,7 @@ import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RequestCallback;
 import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestClientException;
@@ -219,6 +220,26 @@ public class FileTransferApiClientUnitTest {
         fileTransferApiClient.delete(FILE_ID);
     }
 
+    @Test
+    public void testHead_success() {
+        when(restTemplate.exchange(eq(DELETE_URL), eq(HttpMethod.HEAD), any(), eq(Void.class)))
+            .thenReturn(new ResponseEntity<>(HttpStatus.OK));
+
+        FileTransferApiClientResponse fileTransferApiClientResponse = fileTransferApiClient.head(FILE_ID);
+
+        assertEquals(HttpStatus.OK, fileTransferApiClientResponse.getHttpStatus());
+    }
+
+    @Test
+    public void testHead_FileNotFound() {
+        when(restTemplate.exchange(eq(DELETE_URL), eq(HttpMethod.HEAD), any(), eq(Void.class)))
+            .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+
+        FileTransferApiClientResponse fileTransferApiClientResponse = fileTransferApiClient.head(FILE_ID);
+
+        assertEquals(HttpStatus.NOT_FOUND, fileTransferApiClientResponse.getHttpStatus());
+    }
+
     private ResponseEntity<FileTransferApiResponse> apiSuccessResponse() {
         FileTransferApiResponse response = new FileTransferApiResponse();
         response.setId(FILE_ID);
@@ -0,0 +1,166 @@
+package uk.gov.companieshouse.extensions.api.attachments.inspection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.StreamUtils;
+
+import uk.gov.companieshouse.extensions.api.attachments.Attachment;
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+
+@Category(Unit.class)
+public class UploadInspectionUnitTest {
+
+    private static final String DOCX = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+
+    @Test
+    public void recordsInspectionResultsOnAttachment() throws IOException {
+        InspectedMultipartFile file = inspection(100, "text/plain")
+            .inspect(new MockMultipartFile("file", "file.pdf", "application/octet-stream", "abc".getBytes()));
+        Attachment attachment = new Attachment();
+
+        StreamUtils.drain(file.getInputStream());
+        file.complete(attachment);
+
+        assertNull(file.getRejection());
+        assertEquals(3, attachment.getSize());
+        assertEquals("text/plain", attachment.getContentType());
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", attachment.getSha256());
+    }
+
+    @Test
+    public void rejectsDisallowedTypeBeforeWholeUploadIsRead() throws IOException {
+        byte[] content = new byte[FileTypeInspector.HEAD_LENGTH * 4];
+        System.arraycopy("%PDF-".getBytes(), 0, content, 0, 5);
+        InspectedMultipartFile file = inspection(content.length, "text/plain")
+            .inspect(new MockMultipartFile("file", "file.txt", "text/plain", content));
+
+        InputStream stream = file.getInputStream();
+        byte[] buffer = new byte[FileTypeInspector.HEAD_LENGTH];
+        try {
+            // the type is known once the first chunk has been read
+            stream.read(buffer, 0, buffer.length);
+            fail();
+        } catch (UploadRejectedException e) {
+            assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, e.getStatus());
+        }
+        assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, file.getRejection().getStatus());
+    }
+
+    @Test
+    public void rejectsUploadOverSizeLimit() throws IOException {
+        InspectedMultipartFile file = inspection(4, "text/plain")
+            .inspect(new MockMultipartFile("file", "file.txt", "text/plain", "too long".getBytes()));
+
+        try {
+            file.complete(new Attachment());
+            fail();
+        } catch (UploadRejectedException e) {
+            assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, e.getStatus());
+        }
+    }
+
+    @Test
+    public void prefersDeclaredTypeAmongMatchingSignatures() {
+        byte[] zip = {0x50, 0x4B, 0x03, 0x04, 0x14, 0x00};
+
+        assertEquals(FileType.DOCX, FileType.detect(zip, DOCX));
+        assertEquals(FileType.JPEG, FileType.detect(new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}, "image/png"));
+        assertNull(FileType.detect(new byte[] {0x00, 0x01, 0x02}, "text/plain"));
+    }
+
+    @Test
+    public void acceptsZipContainingWordDocument() throws IOException {
+        byte[] docx = zip("[Content_Types].xml", "word/document.xml");
+        Attachment attachment = new Attachment();
+
+        complete(docx, DOCX, attachment);
+
+        assertEquals(DOCX, attachment.getContentType());
+    }
+
+    @Test
+    public void rejectsSpreadsheetDeclaredAsWordDocument() throws IOException {
+        byte[] xlsx = zip("[Content_Types].xml", "xl/workbook.xml");
+
+        assertRejected(xlsx, DOCX);
+    }
+
+    @Test
+    public void rejectsCompoundFileWithoutWordStream() throws IOException {
+        byte[] xls = new byte[FileTypeInspector.HEAD_LENGTH * 2];
+        byte[] signature = {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1};
+        System.arraycopy(signature, 0, xls, 0, signature.length);
+        byte[] workbook = "Workbook".getBytes(StandardCharsets.UTF_16LE);
+        System.arraycopy(workbook, 0, xls, FileTypeInspector.HEAD_LENGTH, workbook.length);
+
+        assertRejected(xls, "application/msword");
+    }
+
+    @Test
+    public void rejectsHtmlDeclaredAsText() throws IOException {
+        byte[] html = "<!DOCTYPE html><html><body>hello</body></html>".getBytes(StandardCharsets.US_ASCII);
+
+        assertRejected(html, "text/plain");
+    }
+
+    @Test
+    public void rejectsMarkupAfterFirstBytesOfText() throws IOException {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < FileTypeInspector.HEAD_LENGTH * 2) {
+            text.append("plain text, a < b and b > a\n");
+        }
+        text.append("<script>alert(1)</script>");
+
+        assertRejected(text.toString().getBytes(StandardCharsets.US_ASCII), "text/plain");
+    }
+
+    private void complete(byte[] content, String contentType, Attachment attachment) throws IOException {
+        InspectedMultipartFile file = inspection(content.length, contentType)
+            .inspect(new MockMultipartFile("file", "file", contentType, content));
+        StreamUtils.drain(file.getInputStream());
+        file.complete(attachment);
+    }
+
+    private void assertRejected(byte[] content, String contentType) throws IOException {
+        try {
+            complete(content, contentType, new Attachment());
+            fail();
+        } catch (UploadRejectedException e) {
+            assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, e.getStatus());
+        }
+    }
+
+    private static byte[] zip(String... entryNames) throws IOException {
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream entries = new ZipOutputStream(zip)) {
+            for (String name : entryNames) {
+                entries.putNextEntry(new ZipEntry(name));
+                entries.write(new byte[FileTypeInspector.HEAD_LENGTH]);
+                entries.closeEntry();
+            }
+        }
+        return zip.toByteArray();
+    }
+
+    private UploadInspection inspection(long maxBytes, String... allowedContentTypes) {
+        return new UploadInspection(Arrays.asList(
+            file -> new SizeLimitInspector(maxBytes),
+            file -> new FileTypeInspector(new HashSet<>(Arrays.asList(allowedContentTypes)), file.getContentType()),
+            file -> new DigestInspector()));
+    }
+}
@@ -0,0 +1,132 @@
+package uk.gov.companieshouse.extensions.api.attachments.storage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+
+import uk.gov.companieshouse.extensions.api.attachments.file.FileTransferApiClientResponse;
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+
+@Category(Unit.class)
+public class LocalAttachmentStorageUnitTest {
+
+    private static final byte[] CONTENT = "test text\n".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public final TemporaryFolder storageFolder = new TemporaryFolder();
+
+    private LocalAttachmentStorage storage;
+
+    private Path storageRoot;
+
+    @Before
+    public void setup() throws IOException {
+        storageRoot = storageFolder.newFolder("attachments").toPath();
+        storage = new LocalAttachmentStorage(storageRoot, () -> UUID.randomUUID().toString());
+    }
+
+    @Test
+    public void canDownloadUploadedFile() throws Exception {
+        FileTransferApiClientResponse uploaded = storage.upload(
+            new MockMultipartFile("file", "evidence.txt", "text/plain", CONTENT));
+
+        assertEquals(HttpStatus.OK, uploaded.getHttpStatus());
+        assertNotNull(uploaded.getFileId());
+        assertEquals(HttpStatus.OK, storage.head(uploaded.getFileId()).getHttpStatus());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FileTransferApiClientResponse downloaded = storage.download(uploaded.getFileId(), response);
+
+        assertEquals(HttpStatus.OK, downloaded.getHttpStatus());
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+        assertEquals("text/plain", response.getHeader(HttpHeaders.CONTENT_TYPE));
+        assertEquals("10", response.getHeader(HttpHeaders.CONTENT_LENGTH));
+        assertEquals("attachment; filename=\"evidence.txt\"", response.getHeader(HttpHeaders.CONTENT_DISPOSITION));
+    }
+
+    @Test
+    public void willStoreFileUnderGeneratedId() {
+        String fileId = "1b0f6a8e-3c1d-4f57-9a4e-5d2c8b7e6f10";
+        storage = new LocalAttachmentStorage(storageRoot, () -> fileId);
+
+        FileTransferApiClientResponse uploaded = storage.upload(
+            new MockMultipartFile("file", "evidence.txt", "text/plain", CONTENT));
+
+        assertEquals(fileId, uploaded.getFileId());
+        assertEquals(HttpStatus.OK, storage.head(fileId).getHttpStatus());
+    }
+
+    @Test
+    public void willServeDetectedContentTypeRatherThanDeclared() throws Exception {
+        String fileId = storage.upload(new MockMultipartFile("file", "evidence.png", "image/png", CONTENT))
+            .getFileId();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        storage.download(fileId, response);
+
+        assertEquals("text/plain", response.getHeader(HttpHeaders.CONTENT_TYPE));
+    }
+
+    @Test
+    public void canDeleteFile() {
+        String fileId = storage.upload(new MockMultipartFile("file", "evidence.txt", "text/plain", CONTENT))
+            .getFileId();
+
+        assertEquals(HttpStatus.NO_CONTENT, storage.delete(fileId).getHttpStatus());
+        assertEquals(HttpStatus.NOT_FOUND, storage.head(fileId).getHttpStatus());
+        assertEquals(HttpStatus.NOT_FOUND, storage.delete(fileId).getHttpStatus());
+        assertEquals(HttpStatus.NOT_FOUND, storage.download(fileId, new MockHttpServletResponse()).getHttpStatus());
+    }
+
+    @Test
+    public void willNotResolveIdOutsideStorage() throws Exception {
+        Files.write(storageRoot.getParent().resolve("outside"), CONTENT);
+
+        assertEquals(HttpStatus.NOT_FOUND, storage.head("../outside").getHttpStatus());
+    }
+
+    @Test
+    public void willKeepNothingFromFailedUpload() throws Exception {
+        MockMultipartFile failing = new MockMultipartFile("file", "evidence.txt", "text/plain", CONTENT) {
+            @Override
+            public InputStream getInputStream() {
+                return new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("rejected");
+                    }
+                };
+            }
+        };
+
+        try {
+            storage.upload(failing);
+            fail();
+        } catch(UncheckedIOException e) {
+            assertEquals("rejected", e.getCause().getMessage());
+        }
+        try (Stream<Path> files = Files.walk(storageRoot)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package uk.gov.companieshouse.extensions.api.attachments.upload;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+import uk.gov.companieshouse.service.ServiceException;
+import uk.gov.companieshouse.service.ServiceResult;
+import uk.gov.companieshouse.service.rest.response.PluggableResponseEntityFactory;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class ResumableUploadControllerUnitTest {
+
+    private static final String REQUEST_ID = "ABC";
+    private static final String REASON_ID = "MNB";
+    private static final String UPLOAD_ID = "upload1";
+    private static final String ATTACHMENTS_URI = "/company/00006400/extensions/requests/ABC/reasons/MNB/attachments";
+
+    @Mock
+    private ResumableUploadService resumableUploadService;
+
+    @Mock
+    private HttpServletRequest servletRequest;
+
+    @Mock
+    private ApiLogger logger;
+
+    private ResumableUploadController controller;
+
+    @Before
+    public void setup() {
+        controller = new ResumableUploadController(PluggableResponseEntityFactory.buildWithStandardFactories(),
+            resumableUploadService, logger);
+    }
+
+    @Test
+    public void willReturnNextOffsetForAcceptedChunk() throws Exception {
+        when(resumableUploadService.appendChunk(eq(UPLOAD_ID), eq(REQUEST_ID), eq(REASON_ID), eq(4L),
+            any())).thenReturn(8L);
+
+        ResponseEntity<Void> response = controller.uploadChunk(REQUEST_ID, REASON_ID, UPLOAD_ID, 4L, servletRequest);
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        assertEquals("8", response.getHeaders().getFirst(ResumableUploadController.UPLOAD_OFFSET));
+    }
+
+    @Test
+    public void willReturnConflictWithCurrentOffset() throws Exception {
+        when(resumableUploadService.appendChunk(eq(UPLOAD_ID), eq(REQUEST_ID), eq(REASON_ID), anyLong(),
+            any())).thenThrow(new UploadSessionException(HttpStatus.CONFLICT, "wrong offset", 4L));
+
+        ResponseEntity<Void> response = controller.uploadChunk(REQUEST_ID, REASON_ID, UPLOAD_ID, 0L, servletRequest);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("4", response.getHeaders().getFirst(ResumableUploadController.UPLOAD_OFFSET));
+    }
+
+    @Test
+    public void willCompleteUploadAgainstAttachmentsUri() throws Exception {
+        when(servletRequest.getRequestURI()).thenReturn(ATTACHMENTS_URI + "/uploads/" + UPLOAD_ID + "/complete");
+        when(resumableUploadService.complete(UPLOAD_ID, REQUEST_ID, REASON_ID, ATTACHMENTS_URI))
+            .thenReturn(ServiceResult.notFound());
+
+        controller.completeUpload(REQUEST_ID, REASON_ID, UPLOAD_ID, servletRequest);
+
+        verify(resumableUploadService).complete(UPLOAD_ID, REQUEST_ID, REASON_ID, ATTACHMENTS_URI);
+    }
+
+    @Test
+    public void willReturn404ForUnknownUpload() throws Exception {
+        when(resumableUploadService.getSession(UPLOAD_ID, REQUEST_ID, REASON_ID))
+            .thenThrow(new ServiceException("Upload upload1 not found for reason MNB"));
+
+        ResponseEntity<UploadSessionDTO> response = controller.getUploadSession(REQUEST_ID, REASON_ID, UPLOAD_ID);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+}
@@ -0,0 +1,310 @@
+package uk.gov.companieshouse.extensions.api.attachments.upload;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.REASON_ID;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.REQUEST_ID;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.dummyReasonEntity;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.dummyRequestEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.multipart.MultipartFile;
+
+import uk.gov.companieshouse.extensions.api.Utils.Utils;
+import uk.gov.companieshouse.extensions.api.attachments.Attachment;
+import uk.gov.companieshouse.extensions.api.attachments.AttachmentDTO;
+import uk.gov.companieshouse.extensions.api.attachments.AttachmentsService;
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestFullEntity;
+import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestsRepository;
+import uk.gov.companieshouse.service.ServiceException;
+import uk.gov.companieshouse.service.ServiceResult;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class ResumableUploadServiceUnitTest {
+
+    private static final String UPLOAD_ID = "upload1";
+    private static final String ATTACHMENTS_URI = "/company/00006400/extensions/requests/1234/reasons/abc/attachments";
+    private static final LocalDateTime NOW = LocalDateTime.of(2020, 1, 1, 12, 0);
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public final TemporaryFolder spoolFolder = new TemporaryFolder();
+
+    @Mock
+    private UploadSessionStore uploadSessionStore;
+
+    @Mock
+    private AttachmentsService attachmentsService;
+
+    @Mock
+    private ExtensionRequestsRepository requestsRepo;
+
+    @Mock
+    private Supplier<String> randomUUid;
+
+    @Mock
+    private Supplier<LocalDateTime> dateTimeSupplierNow;
+
+    @Mock
+    private ApiLogger apiLogger;
+
+    @Captor
+    private ArgumentCaptor<UploadSession> sessionCaptor;
+
+    private ChunkSpool chunkSpool;
+
+    private ResumableUploadService service;
+
+    @Before
+    public void setup() {
+        chunkSpool = new ChunkSpool(spoolFolder.getRoot().getPath());
+        service = new ResumableUploadService(uploadSessionStore, chunkSpool, attachmentsService, requestsRepo,
+            randomUUid, dateTimeSupplierNow, apiLogger, "10B", "4B", 60);
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+    }
+
+    @Test
+    public void canCreateSessionForReason() throws Exception {
+        ExtensionRequestFullEntity entity = dummyRequestEntity();
+        entity.addReason(dummyReasonEntity());
+        when(requestsRepo.findById(REQUEST_ID)).thenReturn(Optional.of(entity));
+        when(randomUUid.get()).thenReturn(UPLOAD_ID);
+
+        UploadSession session = service.createSession(createUploadSession(10), REQUEST_ID, REASON_ID);
+
+        verify(uploadSessionStore).insert(sessionCaptor.capture());
+        assertEquals(session, sessionCaptor.getValue());
+        assertEquals(UPLOAD_ID, session.getId());
+        assertEquals(0, session.getOffset());
+        assertEquals(10, session.getLength());
+        assertEquals(NOW.plusMinutes(60), session.getExpiresOn());
+    }
+
+    @Test
+    public void willRejectSessionLargerThanLimit() throws Exception {
+        try {
+            service.createSession(createUploadSession(11), REQUEST_ID, REASON_ID);
+            fail();
+        } catch(UploadSessionException e) {
+            assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, e.getStatus());
+        }
+        verify(uploadSessionStore, never()).insert(any(UploadSession.class));
+    }
+
+    @Test
+    public void willNotCreateSessionForMissingReason() throws Exception {
+        when(requestsRepo.findById(REQUEST_ID)).thenReturn(Optional.of(dummyRequestEntity()));
+
+        try {
+            service.createSession(createUploadSession(10), REQUEST_ID, REASON_ID);
+            fail();
+        } catch(ServiceException e) {
+            assertEquals("Reason abc not found in Request 1234", e.getMessage());
+        }
+    }
+
+    @Test
+    public void canAppendChunkAtSessionOffset() throws Exception {
+        when(uploadSessionStore.findById(UPLOAD_ID)).thenReturn(Optional.of(session(4)));
+        when(uploadSessionStore.appendChunk(eq(UPLOAD_ID), any(UploadChunk.class), eq(NOW.plusMinutes(60))))
+            .thenReturn(true);
+
+        long nextOffset = service.appendChunk(UPLOAD_ID, REQUEST_ID, REASON_ID, 4,
+            new ByteArrayInputStream(Arrays.copyOfRange(CONTENT, 4, 8)));
+
+        assertEquals(8, nextOffset);
+        File[] chunks = new File(spoolFolder.getRoot(), UPLOAD_ID).listFiles();
+        assertEquals(1, chunks.length);
+        assertArrayEquals("4567".getBytes(StandardCharsets.UTF_8), Files.readAllBytes(chunks[0].toPath()));
+    }
+
+    @Test
+    public void willRejectChunkAtWrongOffset() throws Exception {
+        when(uploadSessionStore.findById(UPLOAD_ID)).thenReturn(Optional.of(session(4)));
+
+        try {
+            service.appendChunk(UPLOAD_ID, REQUEST_ID, REASON_ID, 0, new ByteArrayInputStream(CONTENT));
+            fail();
+        } catch(UploadSessionException e) {
+            assertEquals(HttpStatus.CONFLICT, e.getStatus());
+            assertEquals(Long.valueOf(4), e.getOffset());
+        }
+        verify(uploadSessionStore, never()).appendChunk(anyString(), any(UploadChunk.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    public void willRejectChunkLongerThanChunkLimit() throws Exception {
+        when(uploadSessionStore.findById(UPLOAD_ID)).thenReturn(Optional.of(session(0)));
+
+        try {
+            service.appendChunk(UPLOAD_ID, REQUEST_ID, REASON_ID, 0, new ByteArrayInputStream(CONTENT));
+            fail();
+        } catch(UploadSessionException e) {
+            assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, e.getStatus());
+        }
+        assertEquals(0, new File(spoolFolder.getRoot(), UPLOAD_ID).listFiles().length);
+    }
+
+    @Test
+    public void willDiscardChunkAppendedConcurrently() throws Exception {
+        when(uploadSessionStore.findById(UPLOAD_ID))
+            .thenReturn(Optional.of(session(0)))
+            .thenReturn(Optional.of(session(4)));
+        when(uploadSessionStore.appendChunk(eq(UPLOAD_ID), any(UploadChunk.class), any(LocalDateTime.class)))
+            .thenReturn(false);
+
+        try {
+            service.appendChunk(UPLOAD_ID, REQUEST_ID, REASON_ID, 0,
+                new ByteArrayInputStream(Arrays.copyOfRange(CONTENT, 0, 4)));
+            fail();
+        } catch(UploadSessionException e) {
+            assertEquals(HttpStatus.CONFLICT, e.getStatus());
+            assertEquals(Long.valueOf(4), e.getOffset());
+        }
+        assertEquals(0, new File(spoolFolder.getRoot(), UPLOAD_ID).listFiles().length);
+    }
+
+    @Test
+    public void willCompleteUploadAsAttachmentFromSpooledChunks() throws Exception {
+        UploadSession session = spooledSession();
+        when(uploadSessionStore.findById(UPLOAD_ID)).thenReturn(Optional.of(session));
+        when(uploadSessionStore.claimCompletion(session, NOW.plusMinutes(60))).thenReturn(true);
+        ServiceResult<AttachmentDTO> accepted = ServiceResult.accepted(AttachmentDTO.builder()
+            .withAttachment(new Attachment()).withFile(Utils.mockMultipartFile()).build());
+        when(attachmentsService.addAttachment(any(MultipartFile.class), eq(ATTACHMENTS_URI), eq(REQUEST_ID),
+                eq(REASON_ID))).thenAnswer(invocation -> {
+                    MultipartFile file = invocation.getArgument(0);
+                    assertEquals("evidence.txt", file.getOriginalFilename());
+                    assertEquals(10, file.getSize());
+                    assertArrayEquals(CONTENT, file.getBytes());
+                    return accepted;
+                });
+
+        ServiceResult<AttachmentDTO> result = service.complete(UPLOAD_ID, REQUEST_ID, REASON_ID, ATTACHMENTS_URI);
+
+        assertEquals(accepted, result);
+        verify(uploadSessionStore).remove(UPLOAD_ID);
+        assertFalse(new File(spoolFolder.getRoot(), UPLOAD_ID).exists());
+    }
+
+    @Test
+    public void willNotCompleteUploadBeforeAllOfItIsReceived() throws Exception {
+        when(uploadSessionStore.findById(UPLOAD_ID)).thenReturn(Optional.of(session(4)));
+
+        try {
+            service.complete(UPLOAD_ID, REQUEST_ID, REASON_ID, ATTACHMENTS_URI);
+            fail();
+        } catch(UploadSessionException e) {
+            assertEquals(HttpStatus.CONFLICT, e.getStatus());
+            assertEquals(Long.valueOf(4), e.getOffset());
+        }
+        verify(attachmentsService, never()).addAttachment(any(MultipartFile.class), anyString(), anyString(),
+            anyString());
+    }
+
+    @Test
+    public void willKeepSessionWhenCompletionFails() throws Exception {
+        UploadSession session = spooledSession();
+        when(uploadSessionStore.findById(UPLOAD_ID)).thenReturn(Optional.of(session));
+        when(uploadSessionStore.claimCompletion(session, NOW.plusMinutes(60))).thenReturn(true);
+        when(attachmentsService.addAttachment(any(MultipartFile.class), anyString(), anyString(), anyString()))
+            .thenThrow(new ServiceException("No file id returned from file upload"));
+
+        try {
+            service.complete(UPLOAD_ID, REQUEST_ID, REASON_ID, ATTACHMENTS_URI);
+            fail();
+        } catch(ServiceException e) {
+            assertEquals("No file id returned from file upload", e.getMessage());
+        }
+        verify(uploadSessionStore).releaseCompletion(UPLOAD_ID);
+        verify(uploadSessionStore, never()).remove(UPLOAD_ID);
+        assertEquals(2, new File(spoolFolder.getRoot(), UPLOAD_ID).listFiles().length);
+    }
+
+    @Test
+    public void willNotFindExpiredSession() {
+        UploadSession session = session(0);
+        session.setExpiresOn(NOW.minusMinutes(1));
+        when(uploadSessionStore.findById(UPLOAD_ID)).thenReturn(Optional.of(session));
+
+        try {
+            service.getSession(UPLOAD_ID, REQUEST_ID, REASON_ID);
+            fail();
+        } catch(ServiceException e) {
+            assertEquals("Upload upload1 not found for reason abc", e.getMessage());
+        }
+    }
+
+    @Test
+    public void willRemoveExpiredSessionsWithTheirChunks() throws Exception {
+        spooledSession();
+        when(uploadSessionStore.findExpiredIds(NOW, 2)).thenReturn(Collections.singletonList(UPLOAD_ID));
+        when(uploadSessionStore.removeIfExpired(UPLOAD_ID, NOW)).thenReturn(true);
+
+        int removed = service.removeExpiredSessions(2);
+
+        assertEquals(1, removed);
+        assertFalse(new File(spoolFolder.getRoot(), UPLOAD_ID).exists());
+    }
+
+    private CreateUploadSession createUploadSession(long length) {
+        CreateUploadSession createUploadSession = new CreateUploadSession();
+        createUploadSession.setFileName("evidence.txt");
+        createUploadSession.setContentType("text/plain");
+        createUploadSession.setLength(length);
+        return createUploadSession;
+    }
+
+    private UploadSession session(long offset) {
+        UploadSession session = new UploadSession();
+        session.setId(UPLOAD_ID);
+        session.setRequestId(REQUEST_ID);
+        session.setReasonId(REASON_ID);
+        session.setFileName("evidence.txt");
+        session.setContentType("text/plain");
+        session.setLength(CONTENT.length);
+        session.setOffset(offset);
+        session.setExpiresOn(NOW.plusMinutes(30));
+        return session;
+    }
+
+    private UploadSession spooledSession() throws Exception {
+        UploadSession session = session(CONTENT.length);
+        session.getChunks().add(chunkSpool.write(UPLOAD_ID, 0,
+            new ByteArrayInputStream(Arrays.copyOfRange(CONTENT, 0, 6)), 6));
+        session.getChunks().add(chunkSpool.write(UPLOAD_ID, 6,
+            new ByteArrayInputStream(Arrays.copyOfRange(CONTENT, 6, 10)), 4));
+        return session;
+    }
+}
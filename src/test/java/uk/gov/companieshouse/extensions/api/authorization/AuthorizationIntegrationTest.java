@@ -40,6 +40,7 @@ import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestMapper;
 import uk.gov.companieshouse.extensions.api.requests.ExtensionsLinkKeys;
 import uk.gov.companieshouse.extensions.api.requests.RequestsController;
 import uk.gov.companieshouse.extensions.api.requests.RequestsService;
+import uk.gov.companieshouse.service.ServiceException;
 import uk.gov.companieshouse.service.links.Links;
 import uk.gov.companieshouse.service.rest.response.PluggableResponseEntityFactory;
 
@@ -68,7 +69,8 @@ public class AuthorizationIntegrationTest {
     private PluggableResponseEntityFactory responseEntityFactory;
 
     @Before
-    public void setup() {
+    public void setup() throws ServiceException {
+        when(attachmentsService.getAttachmentFileId(anyString(), anyString(), anyString())).thenReturn("123");
         FileTransferApiClientResponse transferResponse = new FileTransferApiClientResponse();
         transferResponse.setFileId("123");
         transferResponse.setHttpStatus(HttpStatus.OK);
@@ -0,0 +1,88 @@
+package uk.gov.companieshouse.extensions.api.deadline;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import javax.servlet.FilterChain;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.isolation.RequestClass;
+
+@Category(Unit.class)
+public class DeadlineFilterUnitTest {
+
+    private static final String ATTACHMENTS_URI =
+        "/company/00006400/extensions/requests/1234/reasons/abc/attachments";
+
+    private DeadlineFilter filter;
+    private long remainingDuringChain;
+
+    @Before
+    public void setup() {
+        Map<RequestClass, Long> defaults = new EnumMap<>(RequestClass.class);
+        defaults.put(RequestClass.API, 10_000L);
+        defaults.put(RequestClass.TRANSFER, 120_000L);
+        filter = new DeadlineFilter(defaults);
+    }
+
+    @Test
+    public void usesDefaultForRequestClass() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", ATTACHMENTS_URI), new MockHttpServletResponse(),
+            recordingChain());
+        assertBetween(9_000, 10_000, remainingDuringChain);
+
+        filter.doFilter(new MockHttpServletRequest("POST", ATTACHMENTS_URI), new MockHttpServletResponse(),
+            recordingChain());
+        assertBetween(119_000, 120_000, remainingDuringChain);
+    }
+
+    @Test
+    public void usesShorterTimeoutFromHeader() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", ATTACHMENTS_URI);
+        request.addHeader(DeadlineFilter.REQUEST_TIMEOUT, "2000");
+
+        filter.doFilter(request, new MockHttpServletResponse(), recordingChain());
+
+        assertBetween(1_000, 2_000, remainingDuringChain);
+    }
+
+    @Test
+    public void ignoresLongerOrInvalidTimeoutFromHeader() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", ATTACHMENTS_URI);
+        request.addHeader(DeadlineFilter.REQUEST_TIMEOUT, "600000");
+        filter.doFilter(request, new MockHttpServletResponse(), recordingChain());
+        assertBetween(9_000, 10_000, remainingDuringChain);
+
+        request = new MockHttpServletRequest("GET", ATTACHMENTS_URI);
+        request.addHeader(DeadlineFilter.REQUEST_TIMEOUT, "soon");
+        filter.doFilter(request, new MockHttpServletResponse(), recordingChain());
+        assertBetween(9_000, 10_000, remainingDuringChain);
+    }
+
+    @Test
+    public void clearsDeadlineAfterRequest() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", ATTACHMENTS_URI), new MockHttpServletResponse(),
+            recordingChain());
+
+        assertFalse(RequestDeadline.current().isPresent());
+    }
+
+    private FilterChain recordingChain() {
+        return (req, res) -> remainingDuringChain = RequestDeadline.current()
+            .map(Deadline::remainingMillis)
+            .orElse(-1L);
+    }
+
+    private static void assertBetween(long min, long max, long actual) {
+        assertTrue(actual + " not between " + min + " and " + max, actual >= min && actual <= max);
+    }
+}
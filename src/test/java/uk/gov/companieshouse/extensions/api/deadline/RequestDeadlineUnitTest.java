@@ -0,0 +1,73 @@
+package uk.gov.companieshouse.extensions.api.deadline;
+
+import static org.junit.Assert.assertEquals;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+
+@Category(Unit.class)
+public class RequestDeadlineUnitTest {
+
+    private long now;
+
+    @Before
+    public void setup() {
+        now = 0;
+    }
+
+    @After
+    public void tearDown() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    public void timeoutUnchangedWithoutDeadline() {
+        assertEquals(5000, RequestDeadline.limit(5000, "find"));
+        assertEquals(0, RequestDeadline.limit(0, "find"));
+    }
+
+    @Test
+    public void timeoutShortenedToTimeLeft() {
+        RequestDeadline.set(new Deadline(3000, () -> now));
+        now = 1_000_000_000L;
+
+        assertEquals(2000, RequestDeadline.limit(5000, "find"));
+        assertEquals(1000, RequestDeadline.limit(1000, "find"));
+        assertEquals(2000, RequestDeadline.limit(0, "find"));
+    }
+
+    @Test(expected = DeadlineExceededException.class)
+    public void refusesWorkOnceDeadlinePassed() {
+        RequestDeadline.set(new Deadline(3000, () -> now));
+        now = 3_000_000_000L;
+
+        RequestDeadline.check("save");
+    }
+
+    @Test
+    public void httpTimeoutsShortenedToTimeLeft() throws Exception {
+        RequestDeadline.set(new Deadline(3000, () -> now));
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost/files").openConnection();
+
+        new DeadlineClientHttpRequestFactory(1000, 60_000).prepareConnection(connection, "GET");
+
+        assertEquals(1000, connection.getConnectTimeout());
+        assertEquals(3000, connection.getReadTimeout());
+    }
+
+    @Test(expected = DeadlineExceededException.class)
+    public void httpCallRefusedOnceDeadlinePassed() throws Exception {
+        RequestDeadline.set(new Deadline(3000, () -> now));
+        now = 4_000_000_000L;
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost/files").openConnection();
+
+        new DeadlineClientHttpRequestFactory(1000, 60_000).prepareConnection(connection, "GET");
+    }
+}
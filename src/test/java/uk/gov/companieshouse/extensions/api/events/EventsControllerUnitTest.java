@@ -0,0 +1,87 @@
+package uk.gov.companieshouse.extensions.api.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Supplier;
+
+import org.bson.types.ObjectId;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class EventsControllerUnitTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2020, 3, 31, 9, 0);
+
+    @Mock
+    private RequestEventService requestEventService;
+
+    @Mock
+    private RequestEventStore requestEventStore;
+
+    @Mock
+    private Supplier<LocalDateTime> dateTimeSupplierNow;
+
+    @Test
+    public void canGetEvents() {
+        String after = new ObjectId().toHexString();
+        RequestEventFeed feed = new RequestEventFeed(Collections.emptyList(), after);
+        when(requestEventService.getFeed(after, 10)).thenReturn(feed);
+
+        ResponseEntity<RequestEventFeed> response = controller().getEvents(after, 10);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(feed, response.getBody());
+    }
+
+    @Test
+    public void rejectsInvalidCursorAndLimit() {
+        assertEquals(HttpStatus.BAD_REQUEST, controller().getEvents("not-a-cursor", 10).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller().getEvents(null, 0).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller().getEvents(null, 501).getStatusCode());
+        verifyZeroInteractions(requestEventService);
+    }
+
+    @Test
+    public void feedHoldsBackRecentEventsAndReturnsNextCursor() {
+        RequestEvent first = eventAt("5e82f4e0c1a2b3c4d5e6f701");
+        RequestEvent second = eventAt("5e82f4e0c1a2b3c4d5e6f702");
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(requestEventStore.findAfter(null, NOW.minusSeconds(5), 2)).thenReturn(Arrays.asList(first, second));
+        when(requestEventStore.findAfter("5e82f4e0c1a2b3c4d5e6f702", NOW.minusSeconds(5), 2))
+            .thenReturn(Collections.emptyList());
+        RequestEventService service = new RequestEventService(requestEventStore, dateTimeSupplierNow, 5);
+
+        RequestEventFeed page = service.getFeed(null, 2);
+        RequestEventFeed nextPage = service.getFeed(page.getNextCursor(), 2);
+
+        assertEquals(Arrays.asList(first, second), page.getItems());
+        assertEquals("5e82f4e0c1a2b3c4d5e6f702", page.getNextCursor());
+        assertEquals(0, nextPage.getItems().size());
+        assertEquals("5e82f4e0c1a2b3c4d5e6f702", nextPage.getNextCursor());
+    }
+
+    private EventsController controller() {
+        return new EventsController(requestEventService, 500);
+    }
+
+    private RequestEvent eventAt(String position) {
+        RequestEvent event = new RequestEvent();
+        event.setPosition(position);
+        return event;
+    }
+}
@@ -0,0 +1,88 @@
+package uk.gov.companieshouse.extensions.api.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.COMPANY_NUMBER;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.REQUEST_ID;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.dummyRequestEntity;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestFullEntity;
+import uk.gov.companieshouse.extensions.api.requests.Status;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class RequestEventRecorderUnitTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2020, 3, 31, 9, 0);
+    private static final String EVENT_ID = "event-1";
+
+    @Mock
+    private Supplier<String> randomUUID;
+
+    @Mock
+    private Supplier<LocalDateTime> dateTimeSupplierNow;
+
+    private RequestEventRecorder recorder;
+
+    @Before
+    public void setup() {
+        recorder = new RequestEventRecorder(randomUUID, dateTimeSupplierNow);
+    }
+
+    @Test
+    public void addsAttachmentEventToPendingEvents() {
+        when(randomUUID.get()).thenReturn(EVENT_ID);
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        ExtensionRequestFullEntity request = dummyRequestEntity();
+
+        recorder.attachmentAdded(request, "reason1", "attachment1");
+
+        assertEquals(1, request.getPendingEvents().size());
+        RequestEvent event = request.getPendingEvents().get(0);
+        assertEquals(EVENT_ID, event.getEventId());
+        assertEquals(RequestEventType.ATTACHMENT_ADDED, event.getType());
+        assertEquals(REQUEST_ID, event.getRequestId());
+        assertEquals(COMPANY_NUMBER, event.getCompanyNumber());
+        assertEquals("reason1", event.getReasonId());
+        assertEquals("attachment1", event.getAttachmentId());
+        assertEquals(NOW, event.getOccurredOn());
+    }
+
+    @Test
+    public void recordsStatusChange() {
+        when(randomUUID.get()).thenReturn(EVENT_ID);
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        ExtensionRequestFullEntity request = dummyRequestEntity();
+        request.setStatus(Status.SUBMITTED);
+
+        recorder.statusChanged(request, Status.OPEN);
+
+        RequestEvent event = request.getPendingEvents().get(0);
+        assertEquals(RequestEventType.STATUS_CHANGED, event.getType());
+        assertEquals(Status.OPEN, event.getPreviousStatus());
+        assertEquals(Status.SUBMITTED, event.getStatus());
+    }
+
+    @Test
+    public void doesNotRecordUnchangedStatus() {
+        ExtensionRequestFullEntity request = dummyRequestEntity();
+
+        recorder.statusChanged(request, request.getStatus());
+
+        assertTrue(request.getPendingEvents().isEmpty());
+        assertFalse(recorder.statusChangedEvent(REQUEST_ID, COMPANY_NUMBER, Status.OPEN, null).isPresent());
+    }
+}
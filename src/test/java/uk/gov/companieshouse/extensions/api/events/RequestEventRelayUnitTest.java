@@ -0,0 +1,97 @@
+package uk.gov.companieshouse.extensions.api.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.REQUEST_ID;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.dummyRequestEntity;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestFullEntity;
+import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestsRepository;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class RequestEventRelayUnitTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2020, 3, 31, 9, 0);
+
+    @Mock
+    private ExtensionRequestsRepository extensionRequestsRepository;
+
+    @Mock
+    private RequestEventStore requestEventStore;
+
+    @Mock
+    private Supplier<LocalDateTime> dateTimeSupplierNow;
+
+    @Mock
+    private ApiLogger logger;
+
+    private InMemoryRequestEventPublisher publisher;
+
+    private RequestEventRelay relay;
+
+    @Before
+    public void setup() {
+        publisher = new InMemoryRequestEventPublisher(10);
+        relay = new RequestEventRelay(extensionRequestsRepository, requestEventStore, publisher,
+            dateTimeSupplierNow, logger, 100);
+    }
+
+    @Test
+    public void relaysAndRemovesPendingEvents() {
+        ExtensionRequestFullEntity request = requestWithEvents("event-1", "event-2");
+        when(extensionRequestsRepository.findWithPendingEvents(100)).thenReturn(Collections.singletonList(request));
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+
+        relay.relayEvents();
+
+        verify(requestEventStore).ensureIndexes();
+        assertEquals(request.getPendingEvents(), publisher.getPublishedEvents());
+        RequestEvent relayed = publisher.getPublishedEvents().get(0);
+        assertNotNull(relayed.getPosition());
+        assertEquals(NOW, relayed.getRelayedOn());
+        verify(requestEventStore).insert(relayed);
+        verify(extensionRequestsRepository).removePendingEvents(REQUEST_ID, Arrays.asList("event-1", "event-2"));
+    }
+
+    @Test
+    public void keepsEventsThatCouldNotBeRelayed() {
+        ExtensionRequestFullEntity request = requestWithEvents("event-1");
+        when(extensionRequestsRepository.findWithPendingEvents(100)).thenReturn(Collections.singletonList(request));
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(requestEventStore.insert(any())).thenThrow(new RuntimeException("unavailable"));
+
+        relay.relayEvents();
+
+        assertEquals(0, publisher.getPublishedEvents().size());
+        verify(extensionRequestsRepository, never()).removePendingEvents(any(), any());
+    }
+
+    private ExtensionRequestFullEntity requestWithEvents(String... eventIds) {
+        ExtensionRequestFullEntity request = dummyRequestEntity();
+        for (String eventId : eventIds) {
+            RequestEvent event = new RequestEvent();
+            event.setEventId(eventId);
+            request.addPendingEvent(event);
+        }
+        return request;
+    }
+}
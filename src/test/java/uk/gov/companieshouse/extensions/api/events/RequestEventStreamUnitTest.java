@@ -0,0 +1,97 @@
+package uk.gov.companieshouse.extensions.api.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.REQUEST_ID;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class RequestEventStreamUnitTest {
+
+    private static final String LAST_EVENT_ID = "5e82f4e0c1a2b3c4d5e6f701";
+    private static final String LATEST_CURSOR = "5e82f4dc0000000000000000";
+
+    @Mock
+    private RequestEventService requestEventService;
+
+    @Mock
+    private RequestEventStore requestEventStore;
+
+    @Mock
+    private ApiLogger logger;
+
+    private RequestEventStream stream;
+
+    @Before
+    public void setup() {
+        stream = new RequestEventStream(requestEventService, requestEventStore, logger, 60000, 3000, 2);
+    }
+
+    @Test
+    public void doesNotReadFeedWithoutConnections() {
+        stream.pollEvents();
+
+        verifyZeroInteractions(requestEventService);
+    }
+
+    @Test
+    public void replaysMissedEventsOnReconnect() {
+        when(requestEventStore.findForRequestAfter(REQUEST_ID, LAST_EVENT_ID, 2))
+            .thenReturn(Collections.singletonList(event(REQUEST_ID, "5e82f4e0c1a2b3c4d5e6f702")));
+
+        stream.subscribe(REQUEST_ID, LAST_EVENT_ID);
+
+        assertEquals(1, stream.getConnectionCount());
+        verify(requestEventStore).findForRequestAfter(REQUEST_ID, LAST_EVENT_ID, 2);
+    }
+
+    @Test
+    public void ignoresInvalidLastEventId() {
+        stream.subscribe(REQUEST_ID, "not-an-id");
+
+        verify(requestEventStore, never()).findForRequestAfter(any(), any(), anyInt());
+    }
+
+    @Test
+    public void readsFeedUntilCaughtUp() {
+        stream.subscribe(REQUEST_ID, null);
+        RequestEventFeed full = new RequestEventFeed(Arrays.asList(
+            event(REQUEST_ID, "5e82f4e0c1a2b3c4d5e6f701"), event("other", "5e82f4e0c1a2b3c4d5e6f702")),
+            "5e82f4e0c1a2b3c4d5e6f702");
+        when(requestEventService.getLatestCursor()).thenReturn(LATEST_CURSOR);
+        when(requestEventService.getFeed(LATEST_CURSOR, 2)).thenReturn(full);
+        when(requestEventService.getFeed("5e82f4e0c1a2b3c4d5e6f702", 2))
+            .thenReturn(new RequestEventFeed(Collections.emptyList(), "5e82f4e0c1a2b3c4d5e6f702"));
+
+        stream.pollEvents();
+
+        verify(requestEventService).getFeed("5e82f4e0c1a2b3c4d5e6f702", 2);
+        assertEquals(1, stream.getConnectionCount());
+    }
+
+    private RequestEvent event(String requestId, String position) {
+        RequestEvent event = new RequestEvent();
+        event.setRequestId(requestId);
+        event.setPosition(position);
+        event.setType(RequestEventType.STATUS_CHANGED);
+        return event;
+    }
+}
@@ -0,0 +1,240 @@
+package uk.gov.companieshouse.extensions.api.idempotency;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class IdempotencyFilterUnitTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2020, 3, 31, 9, 0);
+    private static final String REQUESTS_URI = "/company/00006400/extensions/requests";
+    private static final String RECORD_ID = "user1:key1";
+    private static final String LEASE_ID = "lease1";
+    private static final byte[] BODY = "{\"id\":\"1234\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private Supplier<LocalDateTime> dateTimeSupplierNow;
+
+    @Mock
+    private Supplier<String> randomUUID;
+
+    @Mock
+    private ApiLogger logger;
+
+    @Captor
+    private ArgumentCaptor<IdempotencyRecord> recordCaptor;
+
+    private IdempotencyFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private int chainCalls;
+
+    @Before
+    public void setup() {
+        filter = new IdempotencyFilter(idempotencyRecordRepository, dateTimeSupplierNow, randomUUID, 300, logger);
+        request = new MockHttpServletRequest("POST", REQUESTS_URI);
+        request.addHeader("ERIC-identity", "user1");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY, "key1");
+        response = new MockHttpServletResponse();
+        chainCalls = 0;
+    }
+
+    @Test
+    public void storesSuccessfulResponse() throws Exception {
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(randomUUID.get()).thenReturn(LEASE_ID);
+
+        filter.doFilter(request, response, respondWith(201));
+
+        assertEquals(1, chainCalls);
+        assertEquals(201, response.getStatus());
+        assertArrayEquals(BODY, response.getContentAsByteArray());
+        verify(idempotencyRecordRepository).insert(any(IdempotencyRecord.class));
+        verify(idempotencyRecordRepository).complete(recordCaptor.capture());
+        IdempotencyRecord record = recordCaptor.getValue();
+        assertEquals(RECORD_ID, record.getId());
+        assertTrue(record.isCompleted());
+        assertEquals(201, record.getStatus());
+        assertEquals("/location", record.getLocation());
+        assertArrayEquals(BODY, record.getBody());
+        assertEquals(NOW, record.getCreatedOn());
+        assertEquals(LEASE_ID, record.getLeaseId());
+        assertEquals(NOW.plusSeconds(300), record.getPendingUntil());
+    }
+
+    @Test
+    public void removesRecordOfFailedRequest() throws Exception {
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(randomUUID.get()).thenReturn(LEASE_ID);
+
+        filter.doFilter(request, response, respondWith(404));
+
+        assertEquals(404, response.getStatus());
+        verify(idempotencyRecordRepository).release(recordCaptor.capture());
+        assertEquals(LEASE_ID, recordCaptor.getValue().getLeaseId());
+        verify(idempotencyRecordRepository, never()).complete(any());
+    }
+
+    @Test
+    public void takesOverRequestWhoseLeaseExpired() throws Exception {
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(randomUUID.get()).thenReturn(LEASE_ID);
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecord.class)))
+            .thenThrow(new DuplicateKeyException("duplicate"));
+        when(idempotencyRecordRepository.takeOverExpired(any(IdempotencyRecord.class), eq(NOW))).thenReturn(true);
+        when(idempotencyRecordRepository.complete(any(IdempotencyRecord.class))).thenReturn(true);
+
+        filter.doFilter(request, response, respondWith(201));
+
+        assertEquals(1, chainCalls);
+        assertEquals(201, response.getStatus());
+        assertNull(response.getHeader(IdempotencyFilter.IDEMPOTENT_REPLAYED));
+        verify(idempotencyRecordRepository, never()).findById(any());
+        verify(idempotencyRecordRepository).complete(recordCaptor.capture());
+        assertEquals(LEASE_ID, recordCaptor.getValue().getLeaseId());
+        assertEquals(NOW.plusSeconds(300), recordCaptor.getValue().getPendingUntil());
+    }
+
+    @Test
+    public void replaysStoredResponse() throws Exception {
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(randomUUID.get()).thenReturn(LEASE_ID);
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecord.class)))
+            .thenThrow(new DuplicateKeyException("duplicate"));
+        when(idempotencyRecordRepository.findById(RECORD_ID)).thenReturn(Optional.of(completedRecord(REQUESTS_URI)));
+
+        filter.doFilter(request, response, respondWith(201));
+
+        assertEquals(0, chainCalls);
+        assertEquals(201, response.getStatus());
+        assertEquals("/location", response.getHeader("Location"));
+        assertEquals("true", response.getHeader(IdempotencyFilter.IDEMPOTENT_REPLAYED));
+        assertArrayEquals(BODY, response.getContentAsByteArray());
+    }
+
+    @Test
+    public void rejectsRetryWhileInProgress() throws Exception {
+        IdempotencyRecord inProgress = completedRecord(REQUESTS_URI);
+        inProgress.setCompleted(false);
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(randomUUID.get()).thenReturn(LEASE_ID);
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecord.class)))
+            .thenThrow(new DuplicateKeyException("duplicate"));
+        when(idempotencyRecordRepository.findById(RECORD_ID)).thenReturn(Optional.of(inProgress));
+
+        filter.doFilter(request, response, respondWith(201));
+
+        assertEquals(0, chainCalls);
+        assertEquals(409, response.getStatus());
+    }
+
+    @Test
+    public void rejectsKeyReusedForDifferentRequest() throws Exception {
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(randomUUID.get()).thenReturn(LEASE_ID);
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecord.class)))
+            .thenThrow(new DuplicateKeyException("duplicate"));
+        when(idempotencyRecordRepository.findById(RECORD_ID))
+            .thenReturn(Optional.of(completedRecord(REQUESTS_URI + "/1234/reasons")));
+
+        filter.doFilter(request, response, respondWith(201));
+
+        assertEquals(0, chainCalls);
+        assertEquals(422, response.getStatus());
+    }
+
+    @Test
+    public void ignoresRequestsWithoutKey() throws Exception {
+        MockHttpServletRequest unkeyed = new MockHttpServletRequest("POST", REQUESTS_URI);
+        unkeyed.addHeader("ERIC-identity", "user1");
+
+        filter.doFilter(unkeyed, response, respondWith(201));
+
+        assertEquals(1, chainCalls);
+        verifyZeroInteractions(idempotencyRecordRepository);
+    }
+
+    @Test
+    public void ignoresOtherEndpoints() throws Exception {
+        MockHttpServletRequest patch = new MockHttpServletRequest("PATCH", REQUESTS_URI + "/1234");
+        patch.addHeader("ERIC-identity", "user1");
+        patch.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY, "key1");
+
+        filter.doFilter(patch, response, respondWith(204));
+
+        assertEquals(1, chainCalls);
+        verifyZeroInteractions(idempotencyRecordRepository);
+    }
+
+    @Test
+    public void appliesToAttachmentUploads() throws Exception {
+        MockHttpServletRequest upload = new MockHttpServletRequest("POST",
+            REQUESTS_URI + "/1234/reasons/reason1/attachments");
+        upload.addHeader("ERIC-identity", "user1");
+        upload.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY, "key1");
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(randomUUID.get()).thenReturn(LEASE_ID);
+
+        filter.doFilter(upload, response, respondWith(202));
+
+        verify(idempotencyRecordRepository).complete(recordCaptor.capture());
+        assertNull(recordCaptor.getValue().getContentType());
+    }
+
+    private FilterChain respondWith(int status) {
+        return (servletRequest, servletResponse) -> {
+            chainCalls++;
+            HttpServletResponse httpResponse = (HttpServletResponse) servletResponse;
+            httpResponse.setStatus(status);
+            httpResponse.setHeader("Location", "/location");
+            httpResponse.getOutputStream().write(BODY);
+        };
+    }
+
+    private IdempotencyRecord completedRecord(String requestUri) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(RECORD_ID);
+        record.setMethod("POST");
+        record.setRequestUri(requestUri);
+        record.setCompleted(true);
+        record.setStatus(201);
+        record.setLocation("/location");
+        record.setBody(BODY);
+        return record;
+    }
+}
@@ -0,0 +1,88 @@
+package uk.gov.companieshouse.extensions.api.isolation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+
+@Category(Unit.class)
+public class AdaptiveLimiterUnitTest {
+
+    @Test
+    public void admitsUpToLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 10, 100, 0.5, 0.5);
+
+        assertTrue(limiter.tryAcquire(RequestClass.API));
+        assertTrue(limiter.tryAcquire(RequestClass.API));
+        assertFalse(limiter.tryAcquire(RequestClass.API));
+        assertEquals(1, limiter.getRejected(RequestClass.API));
+
+        limiter.release();
+        assertTrue(limiter.tryAcquire(RequestClass.API));
+    }
+
+    @Test
+    public void shedsTransfersBeforeJsonRequests() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(4, 1, 10, 100, 0.5, 0.5);
+
+        assertTrue(limiter.tryAcquire(RequestClass.TRANSFER));
+        assertTrue(limiter.tryAcquire(RequestClass.TRANSFER));
+        assertFalse(limiter.tryAcquire(RequestClass.TRANSFER));
+        assertTrue(limiter.tryAcquire(RequestClass.API));
+        assertTrue(limiter.tryAcquire(RequestClass.API));
+
+        assertEquals(1, limiter.getRejected(RequestClass.TRANSFER));
+        assertEquals(0, limiter.getRejected(RequestClass.API));
+    }
+
+    @Test
+    public void slowRequestsShrinkLimitToMinimum() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(8, 3, 10, 100, 0.5, 0.5);
+
+        limiter.onSample(millis(0), 60, 50);
+        assertEquals(4, limiter.getLimit());
+
+        limiter.onSample(millis(100), 0, 500);
+        limiter.onSample(millis(1000), 0, 500);
+        assertEquals(3, limiter.getLimit());
+    }
+
+    @Test
+    public void burstOfSlowRequestsShrinksLimitOnce() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(8, 1, 10, 100, 0.5, 0.5);
+
+        limiter.onSample(millis(0), 0, 500);
+        limiter.onSample(millis(10), 0, 500);
+        limiter.onSample(millis(20), 0, 500);
+        assertEquals(4, limiter.getLimit());
+
+        limiter.onSample(millis(600), 0, 500);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void fastRequestsGrowLimitOnlyWhenInUse() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(4, 1, 5, 100, 0.5, 0.5);
+
+        limiter.onSample(millis(0), 0, 10);
+        assertEquals(4, limiter.getLimit());
+
+        limiter.tryAcquire(RequestClass.API);
+        limiter.tryAcquire(RequestClass.API);
+        limiter.onSample(millis(10), 0, 10);
+        assertEquals(5, limiter.getLimit());
+        limiter.tryAcquire(RequestClass.API);
+        limiter.onSample(millis(20), 0, 10);
+        assertEquals(5, limiter.getLimit());
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,79 @@
+package uk.gov.companieshouse.extensions.api.isolation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+
+@Category(Unit.class)
+public class BulkheadUnitTest {
+
+    @Test
+    public void admitsUpToTheConcurrencyLimit() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(RequestClass.API, 2, 0, 0);
+
+        assertTrue(bulkhead.tryAcquire());
+        assertTrue(bulkhead.tryAcquire());
+        assertEquals(2, bulkhead.getActive());
+        assertFalse(bulkhead.tryAcquire());
+        assertEquals(1, bulkhead.getRejected());
+
+        bulkhead.release();
+        assertTrue(bulkhead.tryAcquire());
+    }
+
+    @Test
+    public void rejectsAfterQueueTimeout() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(RequestClass.TRANSFER, 1, 1, 10);
+        assertTrue(bulkhead.tryAcquire());
+
+        assertFalse(bulkhead.tryAcquire());
+
+        assertEquals(0, bulkhead.getQueued());
+        assertEquals(1, bulkhead.getRejected());
+    }
+
+    @Test
+    public void queuedRequestTakesReleasedPermit() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(RequestClass.TRANSFER, 1, 1, 5000);
+        assertTrue(bulkhead.tryAcquire());
+        CountDownLatch admitted = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                if (bulkhead.tryAcquire()) {
+                    admitted.countDown();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        while (bulkhead.getQueued() == 0) {
+            Thread.sleep(1);
+        }
+
+        bulkhead.release();
+
+        assertTrue(admitted.await(5, TimeUnit.SECONDS));
+        assertEquals(0, bulkhead.getRejected());
+    }
+
+    @Test
+    public void rejectsImmediatelyWhenQueueIsFull() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(RequestClass.TRANSFER, 1, 0, 5000);
+        assertTrue(bulkhead.tryAcquire());
+
+        long start = System.nanoTime();
+        assertFalse(bulkhead.tryAcquire());
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertEquals(1, bulkhead.getRejected());
+    }
+}
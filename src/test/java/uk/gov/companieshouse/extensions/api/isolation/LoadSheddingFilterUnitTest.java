@@ -0,0 +1,105 @@
+package uk.gov.companieshouse.extensions.api.isolation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import javax.servlet.FilterChain;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class LoadSheddingFilterUnitTest {
+
+    private static final String REQUESTS_URI = "/company/00006400/extensions/requests";
+    private static final String ATTACHMENTS_URI = REQUESTS_URI + "/1234/reasons/abc/attachments";
+    private static final long NOW_MILLIS = 1_600_000_000_000L;
+
+    @Mock
+    private ApiLogger logger;
+
+    private AdaptiveLimiter limiter;
+    private LoadSheddingFilter filter;
+    private long nanoTime;
+    private int chainCalls;
+
+    @Before
+    public void setup() {
+        limiter = new AdaptiveLimiter(4, 2, 8, 1000, 0.5, 0.5);
+        filter = new LoadSheddingFilter(limiter, 2, () -> NOW_MILLIS, () -> nanoTime, logger);
+        nanoTime = 0;
+        chainCalls = 0;
+    }
+
+    @Test
+    public void handlesRequestWithinLimit() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", REQUESTS_URI), response, slowChain(10));
+
+        assertEquals(1, chainCalls);
+        assertEquals(200, response.getStatus());
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(1, limiter.getAverageServiceMs(), 0.001);
+    }
+
+    @Test
+    public void shedsRequestOverLimit() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire(RequestClass.API));
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", REQUESTS_URI), response, slowChain(10));
+
+        assertEquals(0, chainCalls);
+        assertEquals(503, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+    }
+
+    @Test
+    public void longQueueingShrinksLimit() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", REQUESTS_URI);
+        request.addHeader(LoadSheddingFilter.REQUEST_START, "t=" + (NOW_MILLIS - 1500));
+
+        filter.doFilter(request, new MockHttpServletResponse(), slowChain(10));
+
+        assertEquals(2, limiter.getLimit());
+        assertEquals(150, limiter.getAverageQueueingMs(), 0.001);
+    }
+
+    @Test
+    public void slowServiceShrinksLimit() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", REQUESTS_URI), new MockHttpServletResponse(),
+            slowChain(2000));
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void transfersAreNotSampled() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("POST", ATTACHMENTS_URI), new MockHttpServletResponse(),
+            slowChain(30_000));
+
+        assertEquals(1, chainCalls);
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    private FilterChain slowChain(long millis) {
+        return (req, res) -> {
+            chainCalls++;
+            nanoTime += millis * 1_000_000;
+        };
+    }
+}
@@ -0,0 +1,107 @@
+package uk.gov.companieshouse.extensions.api.isolation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import javax.servlet.FilterChain;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class RequestIsolationFilterUnitTest {
+
+    private static final String ATTACHMENTS_URI =
+        "/company/00006400/extensions/requests/1234/reasons/abc/attachments";
+
+    @Mock
+    private ApiLogger logger;
+
+    private Bulkhead transferBulkhead;
+    private Bulkhead apiBulkhead;
+    private RequestIsolationFilter filter;
+    private int chainCalls;
+
+    @Before
+    public void setup() {
+        transferBulkhead = new Bulkhead(RequestClass.TRANSFER, 1, 0, 0);
+        apiBulkhead = new Bulkhead(RequestClass.API, 1, 0, 0);
+        Map<RequestClass, Bulkhead> bulkheads = new EnumMap<>(RequestClass.class);
+        bulkheads.put(RequestClass.TRANSFER, transferBulkhead);
+        bulkheads.put(RequestClass.API, apiBulkhead);
+        filter = new RequestIsolationFilter(bulkheads, 2, logger);
+        chainCalls = 0;
+    }
+
+    @Test
+    public void classifiesTransfers() {
+        assertEquals(RequestClass.TRANSFER, RequestClass.of(new MockHttpServletRequest("POST", ATTACHMENTS_URI)));
+        assertEquals(RequestClass.TRANSFER,
+            RequestClass.of(new MockHttpServletRequest("PUT", ATTACHMENTS_URI + "/uploads/up1")));
+        assertEquals(RequestClass.TRANSFER,
+            RequestClass.of(new MockHttpServletRequest("GET", ATTACHMENTS_URI + "/file1/download")));
+    }
+
+    @Test
+    public void classifiesJsonEndpoints() {
+        assertEquals(RequestClass.API, RequestClass.of(new MockHttpServletRequest("GET", ATTACHMENTS_URI + "/file1")));
+        assertEquals(RequestClass.API,
+            RequestClass.of(new MockHttpServletRequest("DELETE", ATTACHMENTS_URI + "/file1")));
+        assertEquals(RequestClass.API,
+            RequestClass.of(new MockHttpServletRequest("POST", "/company/00006400/extensions/requests")));
+    }
+
+    @Test
+    public void passesRequestAndReleasesPermit() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("POST", ATTACHMENTS_URI), response, countingChain());
+
+        assertEquals(1, chainCalls);
+        assertEquals(200, response.getStatus());
+        assertEquals(0, transferBulkhead.getActive());
+    }
+
+    @Test
+    public void shedsTransferWhenTransfersAreAtCapacity() throws Exception {
+        assertTrue(transferBulkhead.tryAcquire());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("POST", ATTACHMENTS_URI), response, countingChain());
+
+        assertEquals(0, chainCalls);
+        assertEquals(503, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+        assertEquals(1, transferBulkhead.getRejected());
+    }
+
+    @Test
+    public void jsonRequestsUnaffectedByBusyTransfers() throws Exception {
+        assertTrue(transferBulkhead.tryAcquire());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", ATTACHMENTS_URI + "/file1"), response,
+            countingChain());
+
+        assertEquals(1, chainCalls);
+        assertEquals(200, response.getStatus());
+        assertEquals(0, apiBulkhead.getActive());
+    }
+
+    private FilterChain countingChain() {
+        return (req, res) -> chainCalls++;
+    }
+}
@@ -0,0 +1,79 @@
+package uk.gov.companieshouse.extensions.api.isolation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+
+@Category(Unit.class)
+public class SpoolBudgetUnitTest {
+
+    @Test
+    public void reservesUpToCapacity() throws Exception {
+        SpoolBudget budget = new SpoolBudget("disk", 100, 0, 0);
+
+        assertTrue(budget.tryReserve(60));
+        assertTrue(budget.tryReserve(40));
+        assertFalse(budget.tryReserve(1));
+        assertEquals(100, budget.getReservedBytes());
+
+        budget.release(40);
+        assertTrue(budget.tryReserve(30));
+        assertEquals(90, budget.getReservedBytes());
+        assertEquals(1, budget.getRejected());
+    }
+
+    @Test
+    public void rejectsReservationLargerThanCapacity() throws Exception {
+        SpoolBudget budget = new SpoolBudget("heap", 100, 5, 5000);
+
+        assertFalse(budget.tryReserve(101));
+
+        assertEquals(0, budget.getReservedBytes());
+        assertEquals(1, budget.getRejected());
+    }
+
+    @Test
+    public void rejectsAfterQueueTimeout() throws Exception {
+        SpoolBudget budget = new SpoolBudget("disk", 100, 1, 10);
+        assertTrue(budget.tryReserve(100));
+
+        assertFalse(budget.tryReserve(10));
+
+        assertEquals(0, budget.getQueued());
+        assertEquals(1, budget.getRejected());
+    }
+
+    @Test
+    public void waitingUploadAdmittedOnRelease() throws Exception {
+        SpoolBudget budget = new SpoolBudget("disk", 100, 1, 5000);
+        assertTrue(budget.tryReserve(80));
+        CountDownLatch admitted = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                if (budget.tryReserve(50)) {
+                    admitted.countDown();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        while (budget.getQueued() == 0) {
+            Thread.sleep(1);
+        }
+
+        assertFalse("a second upload may not wait when the queue is full", budget.tryReserve(10));
+        budget.release(80);
+
+        assertTrue(admitted.await(5, TimeUnit.SECONDS));
+        assertEquals(50, budget.getReservedBytes());
+    }
+}
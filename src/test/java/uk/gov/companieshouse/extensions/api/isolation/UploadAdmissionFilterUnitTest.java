@@ -0,0 +1,118 @@
+package uk.gov.companieshouse.extensions.api.isolation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import javax.servlet.FilterChain;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class UploadAdmissionFilterUnitTest {
+
+    private static final String ATTACHMENTS_URI =
+        "/company/00006400/extensions/requests/1234/reasons/abc/attachments";
+
+    @Mock
+    private ApiLogger logger;
+
+    private SpoolBudget heapBudget;
+    private SpoolBudget diskBudget;
+    private UploadAdmissionFilter filter;
+    private long reservedDuringChain;
+    private int chainCalls;
+
+    @Before
+    public void setup() {
+        heapBudget = new SpoolBudget("heap", 1000, 0, 0);
+        diskBudget = new SpoolBudget("disk", 10_000, 0, 0);
+        filter = new UploadAdmissionFilter(heapBudget, diskBudget, 500, 8000, 3, logger);
+        chainCalls = 0;
+    }
+
+    @Test
+    public void smallUploadReservesHeapUntilFinished() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(upload("POST", ATTACHMENTS_URI, 400), response, recordingChain(heapBudget));
+
+        assertEquals(1, chainCalls);
+        assertEquals(400, reservedDuringChain);
+        assertEquals(0, heapBudget.getReservedBytes());
+    }
+
+    @Test
+    public void largeUploadReservesDisk() throws Exception {
+        filter.doFilter(upload("POST", ATTACHMENTS_URI, 600), new MockHttpServletResponse(),
+            recordingChain(diskBudget));
+
+        assertEquals(600, reservedDuringChain);
+        assertEquals(0, heapBudget.getRejected());
+    }
+
+    @Test
+    public void chunkReservesDiskWhateverItsSize() throws Exception {
+        filter.doFilter(upload("PUT", ATTACHMENTS_URI + "/uploads/up1", 100), new MockHttpServletResponse(),
+            recordingChain(diskBudget));
+
+        assertEquals(100, reservedDuringChain);
+    }
+
+    @Test
+    public void uploadWithoutLengthReservesMaximumRequestSize() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", ATTACHMENTS_URI);
+
+        filter.doFilter(request, new MockHttpServletResponse(), recordingChain(diskBudget));
+
+        assertEquals(8000, reservedDuringChain);
+    }
+
+    @Test
+    public void refusesUploadBeforeReadingBodyWhenBudgetSpent() throws Exception {
+        assertTrue(diskBudget.tryReserve(9500));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(upload("POST", ATTACHMENTS_URI, 600), response, recordingChain(diskBudget));
+
+        assertEquals(0, chainCalls);
+        assertEquals(503, response.getStatus());
+        assertEquals("3", response.getHeader("Retry-After"));
+        assertEquals(9500, diskBudget.getReservedBytes());
+    }
+
+    @Test
+    public void ignoresRequestsThatAreNotUploads() throws Exception {
+        assertTrue(diskBudget.tryReserve(10_000));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", ATTACHMENTS_URI + "/file1/download"), response,
+            recordingChain(diskBudget));
+
+        assertEquals(1, chainCalls);
+        assertEquals(200, response.getStatus());
+    }
+
+    private MockHttpServletRequest upload(String method, String uri, int length) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setContent(new byte[length]);
+        return request;
+    }
+
+    private FilterChain recordingChain(SpoolBudget budget) {
+        return (req, res) -> {
+            chainCalls++;
+            reservedDuringChain = budget.getReservedBytes();
+        };
+    }
+}
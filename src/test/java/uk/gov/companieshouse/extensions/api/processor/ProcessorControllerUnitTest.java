@@ -0,0 +1,207 @@
+package uk.gov.companieshouse.extensions.api.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.REQUEST_ID;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.dummyRequestEntity;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestFullEntity;
+import uk.gov.companieshouse.extensions.api.requests.ProcessingLease;
+import uk.gov.companieshouse.extensions.api.requests.RequestBatchResponse;
+import uk.gov.companieshouse.extensions.api.requests.RequestField;
+import uk.gov.companieshouse.extensions.api.requests.RequestStatusUpdate;
+import uk.gov.companieshouse.extensions.api.requests.RequestStatusUpdateResult;
+import uk.gov.companieshouse.extensions.api.requests.RequestStatusUpdateResult.Outcome;
+import uk.gov.companieshouse.extensions.api.requests.RequestsService;
+import uk.gov.companieshouse.extensions.api.requests.Status;
+import uk.gov.companieshouse.extensions.api.response.ListResponse;
+import uk.gov.companieshouse.service.ServiceException;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class ProcessorControllerUnitTest {
+
+    private static final String WORKER_ID = "worker-1";
+
+    @Mock
+    private ProcessorService processorService;
+
+    @Mock
+    private RequestsService requestsService;
+
+    @Mock
+    private ApiLogger logger;
+
+    private ProcessorController processorController;
+
+    @Before
+    public void setup() {
+        processorController = new ProcessorController(processorService, requestsService, logger, 2, 2);
+    }
+
+    @Test
+    public void canClaimNextRequest() {
+        ExtensionRequestFullEntity entity = dummyRequestEntity();
+        when(processorService.claimNextRequest(WORKER_ID)).thenReturn(Optional.of(entity));
+
+        ResponseEntity<ExtensionRequestFullEntity> response =
+            processorController.claimNextRequest(leaseRequest(WORKER_ID, false));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(entity, response.getBody());
+    }
+
+    @Test
+    public void claimReturnsNoContentWhenNothingToClaim() {
+        when(processorService.claimNextRequest(WORKER_ID)).thenReturn(Optional.empty());
+
+        ResponseEntity<ExtensionRequestFullEntity> response =
+            processorController.claimNextRequest(leaseRequest(WORKER_ID, false));
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+    }
+
+    @Test
+    public void claimReturnsBadRequestWithoutWorkerId() {
+        ResponseEntity<ExtensionRequestFullEntity> response =
+            processorController.claimNextRequest(leaseRequest(" ", false));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyZeroInteractions(processorService);
+    }
+
+    @Test
+    public void canRenewLease() throws ServiceException {
+        LocalDateTime expiresOn = LocalDateTime.of(2020, 3, 31, 9, 5);
+        when(processorService.renewLease(REQUEST_ID, WORKER_ID)).thenReturn(expiresOn);
+
+        ResponseEntity<ProcessingLease> response =
+            processorController.renewLease(REQUEST_ID, leaseRequest(WORKER_ID, false));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(WORKER_ID, response.getBody().getOwner());
+        assertEquals(expiresOn, response.getBody().getExpiresOn());
+    }
+
+    @Test
+    public void renewReturnsConflictWhenLeaseNotHeld() throws ServiceException {
+        when(processorService.renewLease(REQUEST_ID, WORKER_ID)).thenThrow(new ServiceException("lost"));
+
+        ResponseEntity<ProcessingLease> response =
+            processorController.renewLease(REQUEST_ID, leaseRequest(WORKER_ID, false));
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        verify(logger).info("lost");
+    }
+
+    @Test
+    public void canReleaseLease() throws ServiceException {
+        ResponseEntity<Void> response =
+            processorController.releaseLease(REQUEST_ID, leaseRequest(WORKER_ID, true));
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        verify(processorService).releaseLease(REQUEST_ID, WORKER_ID, true);
+    }
+
+    @Test
+    public void releaseReturnsConflictWhenLeaseNotHeld() throws ServiceException {
+        doThrow(new ServiceException("lost")).when(processorService).releaseLease(REQUEST_ID, WORKER_ID, false);
+
+        ResponseEntity<Void> response =
+            processorController.releaseLease(REQUEST_ID, leaseRequest(WORKER_ID, false));
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
+    @Test
+    public void canUpdateStatuses() {
+        List<RequestStatusUpdate> updates = Arrays.asList(statusUpdate("1"), statusUpdate("2"));
+        List<RequestStatusUpdateResult> results = Arrays.asList(
+            new RequestStatusUpdateResult("1", Outcome.UPDATED),
+            new RequestStatusUpdateResult("2", Outcome.NOT_FOUND));
+        when(processorService.updateStatuses(updates)).thenReturn(results);
+
+        ResponseEntity<ListResponse<RequestStatusUpdateResult>> response =
+            processorController.updateStatuses(updates);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(results, response.getBody().getItems());
+    }
+
+    @Test
+    public void rejectsTooManyStatusUpdates() {
+        ResponseEntity<ListResponse<RequestStatusUpdateResult>> response = processorController.updateStatuses(
+            Arrays.asList(statusUpdate("1"), statusUpdate("2"), statusUpdate("3")));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyZeroInteractions(processorService);
+    }
+
+    @Test
+    public void rejectsEmptyStatusUpdates() {
+        ResponseEntity<ListResponse<RequestStatusUpdateResult>> response =
+            processorController.updateStatuses(Collections.emptyList());
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyZeroInteractions(processorService);
+    }
+
+    @Test
+    public void canFetchRequestsByIds() {
+        RequestBatchResponse batch =
+            new RequestBatchResponse(Collections.singletonList(dummyRequestEntity()), Collections.singletonList("2"));
+        when(requestsService.getExtensionsRequestsByIds(Arrays.asList(REQUEST_ID, "2"),
+            EnumSet.of(RequestField.STATUS))).thenReturn(batch);
+
+        ResponseEntity<RequestBatchResponse> response =
+            processorController.getRequestsByIds(Arrays.asList(REQUEST_ID, "2"), Arrays.asList("status", "unknown"));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(batch, response.getBody());
+    }
+
+    @Test
+    public void rejectsFetchOfTooManyRequests() {
+        ResponseEntity<RequestBatchResponse> response =
+            processorController.getRequestsByIds(Arrays.asList("1", "2", "3"), null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyZeroInteractions(requestsService);
+    }
+
+    private RequestStatusUpdate statusUpdate(String requestId) {
+        RequestStatusUpdate update = new RequestStatusUpdate();
+        update.setRequestId(requestId);
+        update.setStatus(Status.SUBMITTED);
+        return update;
+    }
+
+    private LeaseRequest leaseRequest(String workerId, boolean processed) {
+        LeaseRequest leaseRequest = new LeaseRequest();
+        leaseRequest.setWorkerId(workerId);
+        leaseRequest.setProcessed(processed);
+        return leaseRequest;
+    }
+}
@@ -0,0 +1,275 @@
+package uk.gov.companieshouse.extensions.api.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.COMPANY_NUMBER;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.REQUEST_ID;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.dummyRequestEntity;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import uk.gov.companieshouse.extensions.api.events.RequestEvent;
+import uk.gov.companieshouse.extensions.api.events.RequestEventRecorder;
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestFullEntity;
+import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestsRepository;
+import uk.gov.companieshouse.extensions.api.requests.RequestStatusUpdate;
+import uk.gov.companieshouse.extensions.api.requests.RequestStatusUpdateResult;
+import uk.gov.companieshouse.extensions.api.requests.RequestStatusUpdateResult.Outcome;
+import uk.gov.companieshouse.extensions.api.requests.Status;
+import uk.gov.companieshouse.extensions.api.summary.RequestSummaryService;
+import uk.gov.companieshouse.service.ServiceException;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class ProcessorServiceUnitTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2020, 3, 31, 9, 0);
+    private static final String WORKER_ID = "worker-1";
+
+    @Mock
+    private ExtensionRequestsRepository extensionRequestsRepository;
+
+    @Mock
+    private RequestSummaryService requestSummaryService;
+
+    @Mock
+    private RequestEventRecorder requestEventRecorder;
+
+    @Mock
+    private Supplier<LocalDateTime> dateTimeSupplierNow;
+
+    @Captor
+    private ArgumentCaptor<List<RequestStatusUpdate>> updatesCaptor;
+
+    private ProcessorService processorService;
+
+    @Before
+    public void setup() {
+        processorService = new ProcessorService(extensionRequestsRepository, requestSummaryService,
+            requestEventRecorder, dateTimeSupplierNow, 300);
+    }
+
+    @Test
+    public void canClaimNextRequest() {
+        ExtensionRequestFullEntity entity = dummyRequestEntity();
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(extensionRequestsRepository.claimNextSubmittedRequest(WORKER_ID, NOW, NOW.plusMinutes(5)))
+            .thenReturn(Optional.of(entity));
+
+        Optional<ExtensionRequestFullEntity> claimed = processorService.claimNextRequest(WORKER_ID);
+
+        assertSame(entity, claimed.get());
+    }
+
+    @Test
+    public void returnsEmptyWhenNothingToClaim() {
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(extensionRequestsRepository.claimNextSubmittedRequest(WORKER_ID, NOW, NOW.plusMinutes(5)))
+            .thenReturn(Optional.empty());
+
+        assertFalse(processorService.claimNextRequest(WORKER_ID).isPresent());
+    }
+
+    @Test
+    public void canRenewLease() throws ServiceException {
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(extensionRequestsRepository.renewProcessingLease(REQUEST_ID, WORKER_ID, NOW.plusMinutes(5)))
+            .thenReturn(true);
+
+        assertEquals(NOW.plusMinutes(5), processorService.renewLease(REQUEST_ID, WORKER_ID));
+    }
+
+    @Test
+    public void renewThrowsWhenLeaseNotHeld() {
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(extensionRequestsRepository.renewProcessingLease(REQUEST_ID, WORKER_ID, NOW.plusMinutes(5)))
+            .thenReturn(false);
+
+        try {
+            processorService.renewLease(REQUEST_ID, WORKER_ID);
+            fail();
+        } catch (ServiceException e) {
+            assertEquals("Request: 1234 is not leased to worker: worker-1", e.getMessage());
+        }
+    }
+
+    @Test
+    public void releasingProcessedRequestMarksItProcessed() throws ServiceException {
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(extensionRequestsRepository.releaseProcessingLease(REQUEST_ID, WORKER_ID, NOW)).thenReturn(true);
+
+        processorService.releaseLease(REQUEST_ID, WORKER_ID, true);
+
+        verify(extensionRequestsRepository).releaseProcessingLease(REQUEST_ID, WORKER_ID, NOW);
+    }
+
+    @Test
+    public void releasingUnprocessedRequestReturnsItToQueue() throws ServiceException {
+        when(extensionRequestsRepository.releaseProcessingLease(REQUEST_ID, WORKER_ID, null)).thenReturn(true);
+
+        processorService.releaseLease(REQUEST_ID, WORKER_ID, false);
+
+        verify(extensionRequestsRepository).releaseProcessingLease(REQUEST_ID, WORKER_ID, null);
+    }
+
+    @Test(expected = ServiceException.class)
+    public void releaseThrowsWhenLeaseNotHeld() throws ServiceException {
+        when(extensionRequestsRepository.releaseProcessingLease(any(), any(), any())).thenReturn(false);
+
+        processorService.releaseLease(REQUEST_ID, WORKER_ID, false);
+    }
+
+    @Test
+    public void bulkStatusUpdateReportsOutcomeOfEachItem() {
+        RequestStatusUpdate updated = statusUpdate("1");
+        RequestStatusUpdate missing = statusUpdate("2");
+        RequestStatusUpdate invalid = statusUpdate(null);
+        RequestStatusUpdate failed = statusUpdate("3");
+        RequestStatusUpdate conflicted = statusUpdate("4");
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(extensionRequestsRepository.findAllByIds(new HashSet<>(Arrays.asList("1", "2", "3", "4")),
+                Arrays.asList("companyNumber", "status")))
+            .thenReturn(Arrays.asList(existingRequest("1", Status.OPEN), existingRequest("3", Status.OPEN),
+                existingRequest("4", Status.OPEN)));
+        RequestEvent statusChanged = new RequestEvent();
+        when(requestEventRecorder.statusChangedEvent("1", COMPANY_NUMBER, Status.OPEN, Status.SUBMITTED))
+            .thenReturn(Optional.of(statusChanged));
+        when(requestEventRecorder.statusChangedEvent("3", COMPANY_NUMBER, Status.OPEN, Status.SUBMITTED))
+            .thenReturn(Optional.empty());
+        when(requestEventRecorder.statusChangedEvent("4", COMPANY_NUMBER, Status.OPEN, Status.SUBMITTED))
+            .thenReturn(Optional.empty());
+        Map<Integer, Outcome> notApplied = new HashMap<>();
+        notApplied.put(1, Outcome.FAILED);
+        notApplied.put(2, Outcome.CONFLICT);
+        when(extensionRequestsRepository.updateStatuses(any(),
+                eq(Arrays.asList(Status.OPEN, Status.OPEN, Status.OPEN)),
+                eq(Arrays.asList(Collections.singletonList(statusChanged), Collections.emptyList(),
+                    Collections.emptyList())),
+                eq(NOW)))
+            .thenReturn(notApplied);
+
+        List<RequestStatusUpdateResult> results =
+            processorService.updateStatuses(Arrays.asList(updated, missing, invalid, failed, conflicted));
+
+        assertEquals(5, results.size());
+        assertEquals("1", results.get(0).getRequestId());
+        assertEquals(Outcome.UPDATED, results.get(0).getOutcome());
+        assertEquals(Outcome.NOT_FOUND, results.get(1).getOutcome());
+        assertEquals(Outcome.INVALID, results.get(2).getOutcome());
+        assertEquals("3", results.get(3).getRequestId());
+        assertEquals(Outcome.FAILED, results.get(3).getOutcome());
+        assertEquals("4", results.get(4).getRequestId());
+        assertEquals(Outcome.CONFLICT, results.get(4).getOutcome());
+        verify(extensionRequestsRepository).updateStatuses(updatesCaptor.capture(), any(), any(), any());
+        assertEquals(Arrays.asList("1", "3", "4"), updatesCaptor.getValue().stream()
+            .map(RequestStatusUpdate::getRequestId).collect(Collectors.toList()));
+        verify(requestSummaryService).recordStatusChange(COMPANY_NUMBER, Status.OPEN, Status.SUBMITTED);
+        verifyNoMoreInteractions(requestSummaryService);
+    }
+
+    @Test
+    public void bulkStatusUpdateCombinesUpdatesForTheSameRequest() {
+        RequestStatusUpdate submit = statusUpdate("1");
+        RequestStatusUpdate reject = statusUpdate("1");
+        reject.setStatus(Status.REJECTED_MAX_EXT_LENGTH_EXCEEDED);
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(extensionRequestsRepository.findAllByIds(Collections.singleton("1"),
+                Arrays.asList("companyNumber", "status")))
+            .thenReturn(Collections.singletonList(existingRequest("1", Status.OPEN)));
+        RequestEvent submitted = new RequestEvent();
+        RequestEvent rejected = new RequestEvent();
+        when(requestEventRecorder.statusChangedEvent("1", COMPANY_NUMBER, Status.OPEN, Status.SUBMITTED))
+            .thenReturn(Optional.of(submitted));
+        when(requestEventRecorder.statusChangedEvent("1", COMPANY_NUMBER, Status.SUBMITTED,
+                Status.REJECTED_MAX_EXT_LENGTH_EXCEEDED))
+            .thenReturn(Optional.of(rejected));
+        when(extensionRequestsRepository.updateStatuses(any(), eq(Collections.singletonList(Status.OPEN)),
+                eq(Collections.singletonList(Arrays.asList(submitted, rejected))), eq(NOW)))
+            .thenReturn(Collections.emptyMap());
+
+        List<RequestStatusUpdateResult> results = processorService.updateStatuses(Arrays.asList(submit, reject));
+
+        assertEquals(Outcome.UPDATED, results.get(0).getOutcome());
+        assertEquals(Outcome.UPDATED, results.get(1).getOutcome());
+        verify(extensionRequestsRepository).updateStatuses(updatesCaptor.capture(), any(), any(), any());
+        assertEquals(1, updatesCaptor.getValue().size());
+        assertEquals(Status.REJECTED_MAX_EXT_LENGTH_EXCEEDED, updatesCaptor.getValue().get(0).getStatus());
+        verify(requestSummaryService).recordStatusChange(COMPANY_NUMBER, Status.OPEN,
+            Status.REJECTED_MAX_EXT_LENGTH_EXCEEDED);
+        verifyNoMoreInteractions(requestSummaryService);
+    }
+
+    @Test
+    public void bulkStatusUpdateLeavesSummaryAloneOnConflict() {
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(extensionRequestsRepository.findAllByIds(Collections.singleton("1"),
+                Arrays.asList("companyNumber", "status")))
+            .thenReturn(Collections.singletonList(existingRequest("1", Status.OPEN)));
+        when(requestEventRecorder.statusChangedEvent("1", COMPANY_NUMBER, Status.OPEN, Status.SUBMITTED))
+            .thenReturn(Optional.empty());
+        when(extensionRequestsRepository.updateStatuses(any(), any(), any(), eq(NOW)))
+            .thenReturn(Collections.singletonMap(0, Outcome.CONFLICT));
+
+        List<RequestStatusUpdateResult> results =
+            processorService.updateStatuses(Collections.singletonList(statusUpdate("1")));
+
+        assertEquals(Outcome.CONFLICT, results.get(0).getOutcome());
+        verifyZeroInteractions(requestSummaryService);
+    }
+
+    @Test
+    public void bulkStatusUpdateSkipsWriteWhenNothingFound() {
+        when(extensionRequestsRepository.findAllByIds(Collections.singleton("1"),
+                Arrays.asList("companyNumber", "status")))
+            .thenReturn(Collections.emptyList());
+
+        List<RequestStatusUpdateResult> results =
+            processorService.updateStatuses(Collections.singletonList(statusUpdate("1")));
+
+        assertEquals(Outcome.NOT_FOUND, results.get(0).getOutcome());
+        verify(extensionRequestsRepository, never()).updateStatuses(any(), any(), any(), any());
+    }
+
+    private ExtensionRequestFullEntity existingRequest(String id, Status status) {
+        ExtensionRequestFullEntity request = new ExtensionRequestFullEntity();
+        request.setId(id);
+        request.setCompanyNumber(COMPANY_NUMBER);
+        request.setStatus(status);
+        return request;
+    }
+
+    private RequestStatusUpdate statusUpdate(String requestId) {
+        RequestStatusUpdate update = new RequestStatusUpdate();
+        update.setRequestId(requestId);
+        update.setStatus(Status.SUBMITTED);
+        return update;
+    }
+}
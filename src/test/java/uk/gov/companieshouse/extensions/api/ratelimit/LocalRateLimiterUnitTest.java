@@ -0,0 +1,99 @@
+package uk.gov.companieshouse.extensions.api.ratelimit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+
+@Category(Unit.class)
+public class LocalRateLimiterUnitTest {
+
+    private static final RateLimit LIMIT = new RateLimit(3, 2);
+
+    private long now;
+    private LocalRateLimiter rateLimiter;
+
+    @Before
+    public void setup() {
+        now = 1_000_000;
+        rateLimiter = new LocalRateLimiter(4, 2, () -> now);
+    }
+
+    @Test
+    public void allowsBurstUpToCapacity() {
+        assertEquals(2, rateLimiter.tryTake("user:1", LIMIT).getRemaining());
+        assertEquals(1, rateLimiter.tryTake("user:1", LIMIT).getRemaining());
+        RateLimitDecision last = rateLimiter.tryTake("user:1", LIMIT);
+        assertTrue(last.isAllowed());
+        assertEquals(0, last.getRemaining());
+        assertEquals(3, last.getLimit());
+        assertEquals(2, last.getResetSeconds());
+
+        RateLimitDecision refused = rateLimiter.tryTake("user:1", LIMIT);
+        assertFalse(refused.isAllowed());
+        assertEquals(1, refused.getRetryAfterSeconds());
+    }
+
+    @Test
+    public void refillsAtRate() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryTake("user:1", LIMIT);
+        }
+        now += 250;
+        assertFalse(rateLimiter.tryTake("user:1", LIMIT).isAllowed());
+
+        now += 250;
+        assertTrue(rateLimiter.tryTake("user:1", LIMIT).isAllowed());
+        assertFalse(rateLimiter.tryTake("user:1", LIMIT).isAllowed());
+
+        now += 10_000;
+        assertEquals(2, rateLimiter.tryTake("user:1", LIMIT).getRemaining());
+    }
+
+    @Test
+    public void keysHaveSeparateBuckets() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryTake("user:1", LIMIT);
+        }
+
+        assertFalse(rateLimiter.tryTake("user:1", LIMIT).isAllowed());
+        assertTrue(rateLimiter.tryTake("user:2", LIMIT).isAllowed());
+    }
+
+    @Test
+    public void takesNothingWhenAnyBucketIsEmpty() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryTake("company:1", LIMIT);
+        }
+        Map<String, RateLimit> limits = new LinkedHashMap<>();
+        limits.put("user:1", LIMIT);
+        limits.put("company:1", LIMIT);
+
+        List<RateLimitDecision> decisions = rateLimiter.tryTakeAll(limits);
+
+        assertTrue(decisions.get(0).isAllowed());
+        assertFalse(decisions.get(1).isAllowed());
+        assertEquals(2, rateLimiter.tryTake("user:1", LIMIT).getRemaining());
+    }
+
+    @Test
+    public void dropsLeastRecentlyUsedBucketsOfFullStripe() {
+        rateLimiter = new LocalRateLimiter(1, 2, () -> now);
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryTake("user:1", LIMIT);
+        }
+        rateLimiter.tryTake("user:2", LIMIT);
+        rateLimiter.tryTake("user:3", LIMIT);
+
+        assertTrue(rateLimiter.tryTake("user:1", LIMIT).isAllowed());
+    }
+}
@@ -0,0 +1,143 @@
+package uk.gov.companieshouse.extensions.api.ratelimit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.client.result.UpdateResult;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class MongoRateLimiterUnitTest {
+
+    private static final String KEY = "company:00006400:API";
+    private static final String USER_KEY = "user:user1:API";
+    private static final RateLimit LIMIT = new RateLimit(5, 1);
+    private static final long NOW = 1_000_000;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Captor
+    private ArgumentCaptor<RateLimitBucket> bucketCaptor;
+
+    private MongoRateLimiter rateLimiter;
+
+    @Before
+    public void setup() {
+        rateLimiter = new MongoRateLimiter(mongoTemplate, () -> NOW);
+    }
+
+    @Test
+    public void createsFullBucketForNewKey() {
+        RateLimitDecision decision = rateLimiter.tryTake(KEY, LIMIT);
+
+        assertTrue(decision.isAllowed());
+        assertEquals(4, decision.getRemaining());
+        verify(mongoTemplate).insert(bucketCaptor.capture());
+        assertEquals(KEY, bucketCaptor.getValue().getId());
+        assertEquals(4, bucketCaptor.getValue().getTokens(), 0);
+        assertEquals(NOW, bucketCaptor.getValue().getUpdatedAt());
+    }
+
+    @Test
+    public void retriesWhenAnotherNodeCreatedBucket() {
+        when(mongoTemplate.findById(KEY, RateLimitBucket.class)).thenReturn(null, bucket(2, NOW));
+        when(mongoTemplate.insert(any(RateLimitBucket.class))).thenThrow(new DuplicateKeyException("exists"));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(RateLimitBucket.class)))
+            .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        RateLimitDecision decision = rateLimiter.tryTake(KEY, LIMIT);
+
+        assertTrue(decision.isAllowed());
+        assertEquals(1, decision.getRemaining());
+    }
+
+    @Test
+    public void retriesWhenAnotherNodeTookTokenFirst() {
+        when(mongoTemplate.findById(KEY, RateLimitBucket.class)).thenReturn(bucket(2, NOW), bucket(1, NOW));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(RateLimitBucket.class)))
+            .thenReturn(UpdateResult.acknowledged(0, 0L, null), UpdateResult.acknowledged(1, 1L, null));
+
+        RateLimitDecision decision = rateLimiter.tryTake(KEY, LIMIT);
+
+        assertTrue(decision.isAllowed());
+        assertEquals(0, decision.getRemaining());
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(Update.class),
+            eq(RateLimitBucket.class));
+    }
+
+    @Test
+    public void refusesWithoutWritingWhenEmpty() {
+        when(mongoTemplate.findById(KEY, RateLimitBucket.class)).thenReturn(bucket(0.5, NOW));
+
+        RateLimitDecision decision = rateLimiter.tryTake(KEY, LIMIT);
+
+        assertFalse(decision.isAllowed());
+        assertEquals(1, decision.getRetryAfterSeconds());
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class),
+            eq(RateLimitBucket.class));
+    }
+
+    @Test
+    public void allowsWhenBucketTooBusyToUpdate() {
+        when(mongoTemplate.findById(KEY, RateLimitBucket.class)).thenReturn(bucket(3, NOW));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(RateLimitBucket.class)))
+            .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertTrue(rateLimiter.tryTake(KEY, LIMIT).isAllowed());
+        verify(mongoTemplate, times(5)).updateFirst(any(Query.class), any(Update.class),
+            eq(RateLimitBucket.class));
+    }
+
+    @Test
+    public void takesNothingWhenAnyBucketIsEmpty() {
+        when(mongoTemplate.findById(KEY, RateLimitBucket.class)).thenReturn(bucket(3, NOW));
+        when(mongoTemplate.findById(USER_KEY, RateLimitBucket.class)).thenReturn(bucket(0.5, NOW));
+        Map<String, RateLimit> limits = new LinkedHashMap<>();
+        limits.put(KEY, LIMIT);
+        limits.put(USER_KEY, LIMIT);
+
+        List<RateLimitDecision> decisions = rateLimiter.tryTakeAll(limits);
+
+        assertTrue(decisions.get(0).isAllowed());
+        assertEquals(3, decisions.get(0).getRemaining());
+        assertFalse(decisions.get(1).isAllowed());
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class),
+            eq(RateLimitBucket.class));
+        verify(mongoTemplate, never()).insert(any(RateLimitBucket.class));
+    }
+
+    private RateLimitBucket bucket(double tokens, long updatedAt) {
+        RateLimitBucket bucket = new RateLimitBucket();
+        bucket.setId(KEY);
+        bucket.setTokens(tokens);
+        bucket.setUpdatedAt(updatedAt);
+        return bucket;
+    }
+}
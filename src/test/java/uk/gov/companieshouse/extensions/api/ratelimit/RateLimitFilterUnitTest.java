@@ -0,0 +1,146 @@
+package uk.gov.companieshouse.extensions.api.ratelimit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.FilterChain;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.isolation.RequestClass;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class RateLimitFilterUnitTest {
+
+    private static final String REQUESTS_URI = "/company/00006400/extensions/requests";
+    private static final String UPLOAD_URI = REQUESTS_URI + "/1234/reasons/abc/attachments";
+    private static final RateLimit USER_API = new RateLimit(10, 1);
+    private static final RateLimit USER_TRANSFER = new RateLimit(2, 1);
+    private static final RateLimit COMPANY_API = new RateLimit(20, 1);
+    private static final RateLimit COMPANY_TRANSFER = new RateLimit(4, 1);
+
+    @Mock
+    private RateLimiter rateLimiter;
+
+    @Mock
+    private ApiLogger logger;
+
+    private RateLimitFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private int chainCalls;
+
+    @Before
+    public void setup() {
+        Map<RequestClass, RateLimit> userLimits = new EnumMap<>(RequestClass.class);
+        userLimits.put(RequestClass.API, USER_API);
+        userLimits.put(RequestClass.TRANSFER, USER_TRANSFER);
+        Map<RequestClass, RateLimit> companyLimits = new EnumMap<>(RequestClass.class);
+        companyLimits.put(RequestClass.API, COMPANY_API);
+        companyLimits.put(RequestClass.TRANSFER, COMPANY_TRANSFER);
+        filter = new RateLimitFilter(rateLimiter, userLimits, companyLimits, logger);
+        request = new MockHttpServletRequest("GET", REQUESTS_URI);
+        request.addHeader("ERIC-identity", "user1");
+        response = new MockHttpServletResponse();
+        chainCalls = 0;
+    }
+
+    @Test
+    public void reportsBucketWithFewestRequestsLeft() throws Exception {
+        when(rateLimiter.tryTakeAll(limits("user:user1:API", USER_API, "company:00006400:API", COMPANY_API)))
+            .thenReturn(Arrays.asList(allowed(10, 7, 3), allowed(20, 4, 16)));
+
+        filter.doFilter(request, response, countingChain());
+
+        assertEquals(1, chainCalls);
+        assertEquals("20", response.getHeader(RateLimitFilter.RATE_LIMIT_LIMIT));
+        assertEquals("4", response.getHeader(RateLimitFilter.RATE_LIMIT_REMAINING));
+        assertEquals("16", response.getHeader(RateLimitFilter.RATE_LIMIT_RESET));
+    }
+
+    @Test
+    public void refusesWhenEitherBucketIsEmpty() throws Exception {
+        request = new MockHttpServletRequest("POST", UPLOAD_URI);
+        request.addHeader("ERIC-identity", "user1");
+        when(rateLimiter.tryTakeAll(limits("user:user1:TRANSFER", USER_TRANSFER,
+                "company:00006400:TRANSFER", COMPANY_TRANSFER)))
+            .thenReturn(Arrays.asList(new RateLimitDecision(false, 2, 0, 2, 1), allowed(4, 3, 1)));
+
+        filter.doFilter(request, response, countingChain());
+
+        assertEquals(0, chainCalls);
+        assertEquals(429, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertEquals("2", response.getHeader(RateLimitFilter.RATE_LIMIT_LIMIT));
+        assertEquals("0", response.getHeader(RateLimitFilter.RATE_LIMIT_REMAINING));
+    }
+
+    @Test
+    public void limitsByCompanyWithoutIdentity() throws Exception {
+        request = new MockHttpServletRequest("GET", REQUESTS_URI);
+        when(rateLimiter.tryTakeAll(Collections.singletonMap("company:00006400:API", COMPANY_API)))
+            .thenReturn(Collections.singletonList(allowed(20, 19, 1)));
+
+        filter.doFilter(request, response, countingChain());
+
+        assertEquals(1, chainCalls);
+        assertEquals("19", response.getHeader(RateLimitFilter.RATE_LIMIT_REMAINING));
+    }
+
+    @Test
+    public void passesRequestWithNothingToLimitBy() throws Exception {
+        request = new MockHttpServletRequest("GET", "/extensions/events");
+
+        filter.doFilter(request, response, countingChain());
+
+        assertEquals(1, chainCalls);
+        assertNull(response.getHeader(RateLimitFilter.RATE_LIMIT_LIMIT));
+        verifyZeroInteractions(rateLimiter);
+    }
+
+    @Test
+    public void passesRequestWhenLimiterFails() throws Exception {
+        when(rateLimiter.tryTakeAll(any()))
+            .thenThrow(new IllegalStateException("mongo unavailable"));
+
+        filter.doFilter(request, response, countingChain());
+
+        assertEquals(1, chainCalls);
+        assertEquals(200, response.getStatus());
+    }
+
+    private RateLimitDecision allowed(long limit, long remaining, long reset) {
+        return new RateLimitDecision(true, limit, remaining, reset, 0);
+    }
+
+    private Map<String, RateLimit> limits(String userKey, RateLimit userLimit,
+                                          String companyKey, RateLimit companyLimit) {
+        Map<String, RateLimit> limits = new LinkedHashMap<>();
+        limits.put(userKey, userLimit);
+        limits.put(companyKey, companyLimit);
+        return limits;
+    }
+
+    private FilterChain countingChain() {
+        return (req, res) -> chainCalls++;
+    }
+}
@@ -3,6 +3,7 @@ package uk.gov.companieshouse.extensions.api.reasons;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -16,6 +17,7 @@ import java.util.Arrays;
 import java.util.Optional;
 import java.util.function.Supplier;
 
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
@@ -31,8 +33,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import uk.gov.companieshouse.extensions.api.attachments.Attachment;
+import uk.gov.companieshouse.extensions.api.attachments.dedup.AttachmentFileIndex;
 import uk.gov.companieshouse.extensions.api.attachments.file.FileTransferApiClient;
 import uk.gov.companieshouse.extensions.api.attachments.file.FileTransferApiClientResponse;
+import uk.gov.companieshouse.extensions.api.events.RequestEventRecorder;
 import uk.gov.companieshouse.extensions.api.groups.Unit;
 import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
 import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestFullEntity;
@@ -70,12 +74,23 @@ public class ReasonServiceUnitTest {
     @Mock
     private ApiLogger logger;
 
+    @Mock
+    private RequestEventRecorder requestEventRecorder;
+
+    @Mock
+    private AttachmentFileIndex attachmentFileIndex;
+
     @Rule
     public final ExpectedException exception = ExpectedException.none();
 
     @Captor
     private ArgumentCaptor<ExtensionRequestFullEntity> captor;
 
+    @Before
+    public void setup() {
+        when(attachmentFileIndex.release(any(Attachment.class))).thenReturn(true);
+    }
+
     @Test
     public void canGetListOfReasons() throws ServiceException {
         ExtensionReasonMapper mapper = new ExtensionReasonMapper();
@@ -137,12 +152,13 @@ public class ReasonServiceUnitTest {
         ExtensionCreateReason dummyCreateReason = dummyCreateReason();
 
         ReasonsService service = new ReasonsService(requestsService, extensionRequestsRepository,
-            new ExtensionReasonMapper(), mockRandomUUid, fileTransferApiClient, logger);
+            new ExtensionReasonMapper(), mockRandomUUid, fileTransferApiClient, logger, requestEventRecorder, attachmentFileIndex);
         ServiceResult<ExtensionReasonDTO> result =
             service.addExtensionsReasonToRequest(dummyCreateReason,
                 REQUEST_ID, "dummyUri");
         verify(extensionRequestsRepository).save(captor.capture());
         verify(mockRandomUUid).get();
+        verify(requestEventRecorder).reasonAdded(extensionRequestFullEntity, "abc");
         ExtensionRequestFullEntity extensionRequestResult = captor.getValue();
         ExtensionReasonEntity extensionReasonResult = extensionRequestResult.getReasons().get(0);
 
@@ -209,6 +225,34 @@ public class ReasonServiceUnitTest {
         assertEquals(0, extensionRequestResult.getReasons().size());
     }
 
+    @Test
+    public void willKeepAttachmentFileStillSharedWithAnotherAttachment() {
+        ExtensionRequestFullEntity extensionRequestFullEntity = dummyRequestEntity();
+
+        Attachment attachment1 = new Attachment();
+        attachment1.setId("1234");
+        Attachment attachment2 = new Attachment();
+        attachment2.setId("5678");
+
+        ExtensionReasonEntity reason = dummyReasonEntity();
+        reason.setAttachments(Arrays.asList(attachment1, attachment2));
+        extensionRequestFullEntity.addReason(reason);
+
+        when(requestsService.getExtensionsRequestById(extensionRequestFullEntity.getId())).thenReturn(Optional.of(extensionRequestFullEntity));
+        when(attachmentFileIndex.release(attachment1)).thenReturn(false);
+
+        FileTransferApiClientResponse response = new FileTransferApiClientResponse();
+        response.setHttpStatus(HttpStatus.NO_CONTENT);
+        when(fileTransferApiClient.delete("5678")).thenReturn(response);
+
+        reasonsService.removeExtensionsReasonFromRequest(extensionRequestFullEntity.getId(),
+            reason.getId());
+
+        verify(fileTransferApiClient, never()).delete("1234");
+        verify(fileTransferApiClient).delete("5678");
+        verify(extensionRequestsRepository).save(extensionRequestFullEntity);
+    }
+
     @Test
     public void testClientErrorIsHandledOnRemoveReason() {
         ExtensionRequestFullEntity extensionRequestFullEntity = dummyRequestEntity();
@@ -17,8 +17,12 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.client.RestTemplate;
 
 import uk.gov.companieshouse.extensions.api.attachments.AttachmentsController;
+import uk.gov.companieshouse.extensions.api.attachments.download.SignedDownloadController;
+import uk.gov.companieshouse.extensions.api.attachments.upload.ResumableUploadController;
+import uk.gov.companieshouse.extensions.api.events.EventsController;
 import uk.gov.companieshouse.extensions.api.groups.Integration;
 import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+import uk.gov.companieshouse.extensions.api.processor.ProcessorController;
 import uk.gov.companieshouse.extensions.api.reasons.ReasonsController;
 
 @Category(Integration.class)
@@ -32,12 +36,27 @@ public class ErrorAttributesIntegrationTest {
     @MockBean
     private AttachmentsController attachmentsController;
 
+    @MockBean
+    private ResumableUploadController resumableUploadController;
+
     @MockBean
     private ReasonsController reasonsController;
 
     @MockBean
     private RequestsController requestsController;
 
+    @MockBean
+    private RequestListController requestListController;
+
+    @MockBean
+    private ProcessorController processorController;
+
+    @MockBean
+    private EventsController eventsController;
+
+    @MockBean
+    private SignedDownloadController signedDownloadController;
+
     @MockBean
     private RestTemplate restTemplate;
 
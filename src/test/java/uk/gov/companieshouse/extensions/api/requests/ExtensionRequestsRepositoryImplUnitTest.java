@@ -0,0 +1,66 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class ExtensionRequestsRepositoryImplUnitTest {
+
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2019, 10, 1, 0, 0);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private RequestReadCoalescer readCoalescer;
+
+    @Captor
+    private ArgumentCaptor<Query> queryCaptor;
+
+    private ExtensionRequestsRepositoryImpl repository;
+
+    @Before
+    public void setup() {
+        repository = new ExtensionRequestsRepositoryImpl(mongoTemplate, readCoalescer, 100);
+    }
+
+    @Test
+    public void willOnlyArchiveSubmittedRequestsOnceProcessed() {
+        when(mongoTemplate.find(any(Query.class), eq(ExtensionRequestFullEntity.class)))
+            .thenReturn(Collections.emptyList());
+
+        assertEquals(0, repository.archiveRequests(CUTOFF, 10));
+
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(ExtensionRequestFullEntity.class));
+        @SuppressWarnings("unchecked")
+        List<Document> conditions = (List<Document>) queryCaptor.getValue().getQueryObject().get("$and");
+        Document finished = new Document("$or", Arrays.asList(
+            new Document("status", Status.REJECTED_MAX_EXT_LENGTH_EXCEEDED.name()),
+            new Document("status", Status.SUBMITTED.name())
+                .append("processedOn", new Document("$exists", true))));
+        assertEquals(finished, conditions.get(0));
+    }
+}
@@ -0,0 +1,51 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class OpenRequestExpiryJobUnitTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2020, 3, 31, 2, 0);
+
+    @Mock
+    private RequestsService requestsService;
+
+    @Mock
+    private Supplier<LocalDateTime> dateTimeSupplierNow;
+
+    @Mock
+    private ApiLogger logger;
+
+    private OpenRequestExpiryJob job;
+
+    @Before
+    public void setup() {
+        job = new OpenRequestExpiryJob(requestsService, dateTimeSupplierNow, logger, 30, 50);
+    }
+
+    @Test
+    public void willDeleteRequestsOlderThanExpiryPeriod() {
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(requestsService.deleteExpiredOpenRequests(NOW.minusDays(30), 50)).thenReturn(3);
+
+        job.expireOpenRequests();
+
+        verify(requestsService).deleteExpiredOpenRequests(LocalDateTime.of(2020, 3, 1, 2, 0), 50);
+        verify(logger).info("Removed 3 expired OPEN requests");
+    }
+}
@@ -0,0 +1,56 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.COMPANY_NUMBER;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.dummyRequestDTO;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.dummyRequestEntity;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.response.ListResponse;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class ReactiveRequestListControllerUnitTest {
+
+    @InjectMocks
+    private ReactiveRequestListController controller;
+
+    @Mock
+    private RequestsService requestsService;
+
+    @Mock
+    private ExtensionRequestMapper mockExtensionRequestMapper;
+
+    @Test
+    public void canGetExtensionRequestList() {
+        ExtensionRequestFullEntity extensionRequestFullEntity = dummyRequestEntity();
+        ExtensionRequestFullDTO extensionRequestFullDTO = dummyRequestDTO();
+
+        when(requestsService.getExtensionsRequestListByCompanyNumberAsync(COMPANY_NUMBER))
+                .thenReturn(Mono.just(Collections.singletonList(extensionRequestFullEntity)));
+        when(mockExtensionRequestMapper.entityToDTO(extensionRequestFullEntity, Collections.emptySet()))
+                .thenReturn(extensionRequestFullDTO);
+
+        ResponseEntity<ListResponse<ExtensionRequestFullDTO>> response = controller
+                .getExtensionRequestsListByCompanyNumber(COMPANY_NUMBER, null).block();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(extensionRequestFullDTO, response.getBody().getItems().get(0));
+        verify(requestsService, never()).getExtensionsRequestListByCompanyNumber(COMPANY_NUMBER);
+    }
+}
@@ -0,0 +1,75 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.COMPANY_NUMBER;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class ReactiveRequestReaderUnitTest {
+
+    @Mock
+    private ReactiveMongoOperations mongoOperations;
+
+    private ReactiveRequestReader reader;
+
+    @Before
+    public void setup() {
+        reader = new ReactiveRequestReader(mongoOperations);
+    }
+
+    @Test
+    public void readsLiveRequestsOnly() {
+        ExtensionRequestFullEntity live = requestWithId("5c8a0c6c1e4f5a0001000003");
+        when(mongoOperations.find(any(Query.class), eq(ExtensionRequestFullEntity.class)))
+            .thenReturn(Flux.just(live));
+
+        List<ExtensionRequestFullEntity> requests = reader.findAllByCompanyNumber(COMPANY_NUMBER, false).block();
+
+        assertEquals(Collections.singletonList(live), requests);
+        verify(mongoOperations, never()).find(any(Query.class), eq(ExtensionRequestFullEntity.class), anyString());
+    }
+
+    @Test
+    public void mergesArchivedRequests() {
+        ExtensionRequestFullEntity live = requestWithId("5c8a0c6c1e4f5a0001000003");
+        ExtensionRequestFullEntity staleArchived = requestWithId("5c8a0c6c1e4f5a0001000003");
+        ExtensionRequestFullEntity archived = requestWithId("5c8a0c6c1e4f5a0001000001");
+        when(mongoOperations.find(any(Query.class), eq(ExtensionRequestFullEntity.class)))
+            .thenReturn(Flux.just(live));
+        when(mongoOperations.find(any(Query.class), eq(ExtensionRequestFullEntity.class),
+            eq(ExtensionRequestsRepositoryImpl.ARCHIVE_COLLECTION)))
+            .thenReturn(Flux.just(staleArchived, archived));
+
+        List<ExtensionRequestFullEntity> requests = reader.findAllByCompanyNumber(COMPANY_NUMBER, true).block();
+
+        assertEquals(Arrays.asList(live, archived), requests);
+    }
+
+    private ExtensionRequestFullEntity requestWithId(String id) {
+        ExtensionRequestFullEntity request = new ExtensionRequestFullEntity();
+        request.setId(id);
+        return request;
+    }
+}
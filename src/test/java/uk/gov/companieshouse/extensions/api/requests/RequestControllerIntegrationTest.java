@@ -3,11 +3,15 @@ package uk.gov.companieshouse.extensions.api.requests;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static uk.gov.companieshouse.extensions.api.Utils.Utils.COMPANY_NUMBER;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Supplier;
@@ -29,15 +33,19 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import uk.gov.companieshouse.extensions.api.Utils.Utils;
 import uk.gov.companieshouse.extensions.api.authorization.CompanyAuthorizationInterceptor;
+import uk.gov.companieshouse.extensions.api.events.RequestEventStream;
 import uk.gov.companieshouse.extensions.api.groups.Integration;
 import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+import uk.gov.companieshouse.extensions.api.summary.RequestSummary;
+import uk.gov.companieshouse.extensions.api.summary.RequestSummaryService;
 
 @Category(Integration.class)
 @RunWith(SpringRunner.class)
-@WebMvcTest(value = RequestsController.class)
+@WebMvcTest(value = {RequestsController.class, RequestListController.class})
 public class RequestControllerIntegrationTest {
 
     private static final String ROOT_URL = "/company/00006400/extensions/requests/";
@@ -61,6 +69,12 @@ public class RequestControllerIntegrationTest {
     @MockBean
     private ExtensionRequestMapper extensionRequestMapper;
 
+    @MockBean
+    private RequestSummaryService requestSummaryService;
+
+    @MockBean
+    private RequestEventStream requestEventStream;
+
     @MockBean
     private RestTemplate restTemplate;
 
@@ -112,8 +126,9 @@ public class RequestControllerIntegrationTest {
         List<ExtensionRequestFullEntity> extensionRequestFullEntityList = new ArrayList<>();
         extensionRequestFullEntityList.add(extensionRequestFullEntity);
 
-        when(requestsService.getExtensionsRequestListByCompanyNumber(COMPANY_NUMBER)).thenReturn(extensionRequestFullEntityList);
-        when(extensionRequestMapper.entityToDTO(extensionRequestFullEntity)).thenReturn
+        when(requestsService.getExtensionsRequestListByCompanyNumber(COMPANY_NUMBER))
+            .thenReturn(extensionRequestFullEntityList);
+        when(extensionRequestMapper.entityToDTO(extensionRequestFullEntity, Collections.emptySet())).thenReturn
             (extensionRequestFullDTO);
 
         MvcResult result = mockMvc.perform(requestBuilder).andReturn();
@@ -121,6 +136,51 @@ public class RequestControllerIntegrationTest {
 
     }
     
+    @Test
+    public void testGetRequestSummary() throws Exception {
+        RequestBuilder requestBuilder = MockMvcRequestBuilders
+            .get(ROOT_URL + "summary")
+            .accept(MediaType.APPLICATION_JSON);
+
+        RequestSummary summary = new RequestSummary();
+        summary.setCompanyNumber(COMPANY_NUMBER);
+        summary.addCount(Status.OPEN.name(), 2);
+        when(requestSummaryService.getSummary(COMPANY_NUMBER)).thenReturn(summary);
+
+        mockMvc.perform(requestBuilder)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.company_number").value(COMPANY_NUMBER))
+            .andExpect(jsonPath("$.counts.OPEN").value(2));
+    }
+
+    @Test
+    public void testStreamExtensionRequestEvents() throws Exception {
+        RequestBuilder requestBuilder = MockMvcRequestBuilders
+            .get(REQUEST_BY_ID_URL + "/events")
+            .header("Last-Event-ID", "5e82f4e0c1a2b3c4d5e6f701")
+            .accept(MediaType.TEXT_EVENT_STREAM);
+
+        when(requestsService.getExtensionsRequestById("a1")).thenReturn(Optional.of(Utils.dummyRequestEntity()));
+        when(requestEventStream.subscribe("a1", "5e82f4e0c1a2b3c4d5e6f701")).thenReturn(new SseEmitter());
+
+        mockMvc.perform(requestBuilder)
+            .andExpect(status().isOk())
+            .andExpect(request().asyncStarted())
+            .andExpect(header().string("X-Accel-Buffering", "no"));
+    }
+
+    @Test
+    public void testStreamEventsForMissingRequest() throws Exception {
+        RequestBuilder requestBuilder = MockMvcRequestBuilders
+            .get(REQUEST_BY_ID_URL + "/events")
+            .accept(MediaType.TEXT_EVENT_STREAM);
+
+        when(requestsService.getExtensionsRequestById("a1")).thenReturn(Optional.empty());
+
+        mockMvc.perform(requestBuilder)
+            .andExpect(status().isNotFound());
+    }
+
     @Test
     public void testGetSingleExtensionRequest() throws Exception {
         RequestBuilder requestBuilder = MockMvcRequestBuilders
@@ -144,7 +204,7 @@ public class RequestControllerIntegrationTest {
             .accept(MediaType.APPLICATION_JSON);
 
         MvcResult result = mockMvc.perform(requestBuilder).andReturn();
-        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(204, result.getResponse().getStatus());
     }
 
     private String buildMockRequest() {
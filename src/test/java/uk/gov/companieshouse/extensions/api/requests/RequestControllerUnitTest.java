@@ -1,9 +1,9 @@
 package uk.gov.companieshouse.extensions.api.requests;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -18,14 +18,17 @@ import static uk.gov.companieshouse.extensions.api.Utils.Utils.USER_ID;
 import static uk.gov.companieshouse.extensions.api.Utils.Utils.dummyRequestDTO;
 import static uk.gov.companieshouse.extensions.api.Utils.Utils.dummyRequestEntity;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -35,15 +38,18 @@ import org.junit.experimental.categories.Category;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import uk.gov.companieshouse.extensions.api.attachments.Attachment;
 import uk.gov.companieshouse.extensions.api.groups.Unit;
 import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
 import uk.gov.companieshouse.extensions.api.reasons.ExtensionReasonEntity;
-import uk.gov.companieshouse.extensions.api.response.ListResponse;
 import uk.gov.companieshouse.service.ServiceException;
 
 @Category(Unit.class)
@@ -71,6 +77,9 @@ public class RequestControllerUnitTest {
     @Mock
     private ApiLogger logger;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     @Before
     public void setup() throws UnsupportedEncodingException {
         when(mockHttpServletRequest.getRequestURI()).thenReturn(BASE_URL);
@@ -118,22 +127,24 @@ public class RequestControllerUnitTest {
     }
 
     @Test
-    public void canGetExtensionRequestList() {
+    public void canStreamExtensionRequestList() throws IOException {
         ExtensionRequestFullEntity extensionRequestFullEntity = dummyRequestEntity();
         ExtensionRequestFullDTO extensionRequestFullDTO = dummyRequestDTO();
-        List<ExtensionRequestFullEntity> extensionRequestFullEntityList = new ArrayList<>();
-        extensionRequestFullEntityList.add(extensionRequestFullEntity);
 
-        when(requestsService.getExtensionsRequestListByCompanyNumber(COMPANY_NUMBER))
-                .thenReturn(extensionRequestFullEntityList);
-        when(mockExtensionRequestMapper.entityToDTO(extensionRequestFullEntity)).thenReturn(extensionRequestFullDTO);
+        when(requestsService.streamExtensionsRequestListByCompanyNumber(COMPANY_NUMBER))
+                .thenReturn(Stream.of(extensionRequestFullEntity));
+        when(mockExtensionRequestMapper.entityToDTO(extensionRequestFullEntity, Collections.emptySet()))
+                .thenReturn(extensionRequestFullDTO);
 
-        ResponseEntity<ListResponse<ExtensionRequestFullDTO>> response = controller
-                .getExtensionRequestsListByCompanyNumber(COMPANY_NUMBER);
+        ResponseEntity<StreamingResponseBody> response = controller
+                .streamExtensionRequestsListByCompanyNumber(COMPANY_NUMBER, null);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+        String json = outputStream.toString("UTF-8");
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(1, response.getBody().getItems().size());
-        assertEquals(extensionRequestFullDTO, response.getBody().getItems().get(0));
+        assertTrue(json.contains("\"id\":\"" + extensionRequestFullDTO.getId() + "\""));
+        assertTrue(json.endsWith("\"total_results\":1}"));
     }
 
     @Test
@@ -162,6 +173,33 @@ public class RequestControllerUnitTest {
         assertNull(response.getBody());
     }
 
+    @Test
+    public void canGetExpandedSingleExtensionRequest() {
+        ExtensionRequestFullEntity extensionRequestFullEntity = dummyRequestEntity();
+        ExtensionRequestFullDTO extensionRequestFullDTO = dummyRequestDTO();
+        when(requestsService.getExtensionsRequestById("1234")).thenReturn(Optional.of(extensionRequestFullEntity));
+        when(mockExtensionRequestMapper.entityToDTO(extensionRequestFullEntity,
+                EnumSet.of(RequestExpansion.REASONS)))
+                .thenReturn(extensionRequestFullDTO);
+
+        ResponseEntity<ExtensionRequestFullDTO> response = controller
+                .getExpandedExtensionRequestById("1234", Collections.singletonList("reasons"));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(extensionRequestFullDTO, response.getBody());
+    }
+
+    @Test
+    public void canGetExpandedSingleExtensionRequest_NotFound() {
+        when(requestsService.getExtensionsRequestById("1234")).thenReturn(Optional.empty());
+
+        ResponseEntity<ExtensionRequestFullDTO> response = controller
+                .getExpandedExtensionRequestById("1234", Collections.singletonList("reasons"));
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
     @Test
     public void willReturn204WhenAPatchRequestIsSubmitted() throws ServiceException {
         when(requestsService.patchRequest(anyString(), any(RequestStatus.class)))
@@ -185,9 +223,22 @@ public class RequestControllerUnitTest {
     }
 
     @Test
-    public void canDeleteExtensionRequest() {
-        boolean response = controller.deleteExtensionRequestById("123");
-        assertFalse(response);
+    public void willReturn204WhenExtensionRequestIsDeleted() throws ServiceException {
+        when(requestsService.deleteExtensionsRequestById("123")).thenReturn(new ExtensionRequestFullEntity());
+
+        ResponseEntity<Void> response = controller.deleteExtensionRequestById("123");
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        verify(requestsService).deleteExtensionsRequestById("123");
+    }
+
+    @Test
+    public void willReturn404WhenDeletedRequestNotFound() throws ServiceException {
+        when(requestsService.deleteExtensionsRequestById("123")).thenThrow(new ServiceException("not found"));
+
+        ResponseEntity<Void> response = controller.deleteExtensionRequestById("123");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
     private ExtensionCreateRequest dummyRequest() {
@@ -0,0 +1,72 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.COMPANY_NUMBER;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.dummyRequestDTO;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.dummyRequestEntity;
+
+import java.util.Collections;
+import java.util.EnumSet;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.response.ListResponse;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class RequestListControllerUnitTest {
+
+    @InjectMocks
+    private RequestListController controller;
+
+    @Mock
+    private RequestsService requestsService;
+
+    @Mock
+    private ExtensionRequestMapper mockExtensionRequestMapper;
+
+    @Test
+    public void canGetExtensionRequestList() {
+        ExtensionRequestFullEntity extensionRequestFullEntity = dummyRequestEntity();
+        ExtensionRequestFullDTO extensionRequestFullDTO = dummyRequestDTO();
+
+        when(requestsService.getExtensionsRequestListByCompanyNumber(COMPANY_NUMBER))
+                .thenReturn(Collections.singletonList(extensionRequestFullEntity));
+        when(mockExtensionRequestMapper.entityToDTO(extensionRequestFullEntity, Collections.emptySet()))
+                .thenReturn(extensionRequestFullDTO);
+
+        ResponseEntity<ListResponse<ExtensionRequestFullDTO>> response = controller
+                .getExtensionRequestsListByCompanyNumber(COMPANY_NUMBER, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().getItems().size());
+        assertEquals(extensionRequestFullDTO, response.getBody().getItems().get(0));
+    }
+
+    @Test
+    public void canGetExtensionRequestListWithExpandedReasons() {
+        ExtensionRequestFullEntity extensionRequestFullEntity = dummyRequestEntity();
+        ExtensionRequestFullDTO extensionRequestFullDTO = dummyRequestDTO();
+
+        when(requestsService.getExtensionsRequestListByCompanyNumber(COMPANY_NUMBER))
+                .thenReturn(Collections.singletonList(extensionRequestFullEntity));
+        when(mockExtensionRequestMapper.entityToDTO(extensionRequestFullEntity,
+                EnumSet.of(RequestExpansion.REASONS, RequestExpansion.ATTACHMENTS)))
+                .thenReturn(extensionRequestFullDTO);
+
+        ResponseEntity<ListResponse<ExtensionRequestFullDTO>> response = controller
+                .getExtensionRequestsListByCompanyNumber(COMPANY_NUMBER, Collections.singletonList("attachments"));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(extensionRequestFullDTO, response.getBody().getItems().get(0));
+    }
+}
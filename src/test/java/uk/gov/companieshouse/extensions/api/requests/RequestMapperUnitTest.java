@@ -3,21 +3,39 @@ package uk.gov.companieshouse.extensions.api.requests;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static uk.gov.companieshouse.extensions.api.Utils.Utils.REQUEST_ID;
 import static uk.gov.companieshouse.extensions.api.Utils.Utils.TESTURI;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.dummyAttachment;
 import static uk.gov.companieshouse.extensions.api.Utils.Utils.dummyReasonEntity;
 import static uk.gov.companieshouse.extensions.api.Utils.Utils.dummyRequestEntity;
 
+import java.util.Collections;
+import java.util.EnumSet;
+
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
 
 import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.reasons.ExtensionReasonDTO;
 import uk.gov.companieshouse.extensions.api.reasons.ExtensionReasonEntity;
+import uk.gov.companieshouse.extensions.api.reasons.ExtensionReasonMapper;
 import uk.gov.companieshouse.service.links.Links;
 
 @Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
 public class RequestMapperUnitTest {
 
+    @Spy
+    private ExtensionReasonMapper reasonMapper;
+
+    @InjectMocks
+    private ExtensionRequestMapper injectedRequestMapper;
 
     @Test
     public void canMapEntityToDTO() {
@@ -51,4 +69,48 @@ public class RequestMapperUnitTest {
         assertEquals(createdBy.getForename(), dto.getCreatedBy().getForename());
         assertEquals(createdBy.getSurname(), dto.getCreatedBy().getSurname());
     }
+
+    @Test
+    public void willNotExpandReasonsByDefault() {
+        ExtensionRequestFullEntity dummyRequest = dummyRequestEntity();
+        dummyRequest.addReason(dummyReasonEntity());
+
+        ExtensionRequestFullDTO dto = injectedRequestMapper.entityToDTO(dummyRequest);
+
+        assertEquals(1, dto.getReasons().size());
+        assertTrue(dto.getExpandedReasons().isEmpty());
+    }
+
+    @Test
+    public void canExpandReasonsWithoutAttachmentDetails() {
+        ExtensionRequestFullEntity dummyRequest = dummyRequestEntity();
+        ExtensionReasonEntity dummyReason = dummyReasonEntity();
+        dummyReason.addAttachment(dummyAttachment());
+        dummyRequest.addReason(dummyReason);
+
+        ExtensionRequestFullDTO dto = injectedRequestMapper.entityToDTO(dummyRequest,
+            EnumSet.of(RequestExpansion.REASONS));
+
+        assertEquals(1, dto.getExpandedReasons().size());
+        ExtensionReasonDTO expandedReason = dto.getExpandedReasons().get(0);
+        assertEquals(dummyReason.getId(), expandedReason.getId());
+        assertEquals(dummyReason.getReason(), expandedReason.getReason());
+        assertNull(expandedReason.getAttachmentDetails());
+    }
+
+    @Test
+    public void canExpandReasonsWithAttachmentDetails() {
+        ExtensionRequestFullEntity dummyRequest = dummyRequestEntity();
+        ExtensionReasonEntity dummyReason = dummyReasonEntity();
+        dummyReason.addAttachment(dummyAttachment());
+        dummyRequest.addReason(dummyReason);
+
+        ExtensionRequestFullDTO dto = injectedRequestMapper.entityToDTO(dummyRequest,
+            RequestExpansion.fromParameters(Collections.singletonList("attachments")));
+
+        ExtensionReasonDTO expandedReason = dto.getExpandedReasons().get(0);
+        assertEquals(1, expandedReason.getAttachmentDetails().size());
+        assertEquals(dummyReason.getAttachments().get(0).getId(),
+            expandedReason.getAttachmentDetails().get(0).getId());
+    }
 }
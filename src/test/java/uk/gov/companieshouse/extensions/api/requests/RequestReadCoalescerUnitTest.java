@@ -0,0 +1,187 @@
+package uk.gov.companieshouse.extensions.api.requests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import uk.gov.companieshouse.extensions.api.deadline.Deadline;
+import uk.gov.companieshouse.extensions.api.deadline.DeadlineExceededException;
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+
+@Category(Unit.class)
+public class RequestReadCoalescerUnitTest {
+
+    private static final String REQUEST_ID = "1234";
+
+    private RequestReadCoalescer readCoalescer;
+    private ExecutorService executor;
+    private AtomicInteger queries;
+    private CountDownLatch queryStarted;
+    private CountDownLatch releaseQuery;
+    private ThreadLocal<Deadline> deadlines;
+    private AtomicLong now;
+
+    @Before
+    public void setup() {
+        deadlines = new ThreadLocal<>();
+        now = new AtomicLong();
+        readCoalescer = new RequestReadCoalescer(() -> Optional.ofNullable(deadlines.get()));
+        executor = Executors.newFixedThreadPool(2);
+        queries = new AtomicInteger();
+        queryStarted = new CountDownLatch(1);
+        releaseQuery = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentReadsShareOneQuery() throws Exception {
+        Document document = new Document("_id", REQUEST_ID);
+        Future<Document> first = executor.submit(() -> readCoalescer.read(REQUEST_ID, () -> blockingQuery(document)));
+        assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+
+        Future<Document> second = executor.submit(() -> readCoalescer.read(REQUEST_ID, () -> {
+            queries.incrementAndGet();
+            return new Document();
+        }));
+        waitUntilBlocked(second);
+        releaseQuery.countDown();
+
+        assertSame(document, first.get(5, TimeUnit.SECONDS));
+        assertSame(document, second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    public void readAfterQueryCompletesRunsNewQuery() {
+        Document first = readCoalescer.read(REQUEST_ID, () -> countedQuery(new Document("version", 1)));
+        Document second = readCoalescer.read(REQUEST_ID, () -> countedQuery(new Document("version", 2)));
+
+        assertEquals(1, first.get("version"));
+        assertEquals(2, second.get("version"));
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    public void readAfterWriteDoesNotJoinEarlierQuery() throws Exception {
+        Future<Document> first = executor.submit(
+            () -> readCoalescer.read(REQUEST_ID, () -> blockingQuery(new Document("version", 1))));
+        assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+
+        readCoalescer.forget(REQUEST_ID);
+        Document second = readCoalescer.read(REQUEST_ID, () -> countedQuery(new Document("version", 2)));
+        releaseQuery.countDown();
+
+        assertEquals(2, second.get("version"));
+        assertEquals(1, first.get(5, TimeUnit.SECONDS).get("version"));
+    }
+
+    @Test
+    public void failedQueryFailsReadsSharingIt() throws Exception {
+        Future<Document> first = executor.submit(() -> readCoalescer.read(REQUEST_ID, () -> {
+            blockingQuery(null);
+            throw new IllegalStateException("mongo unavailable");
+        }));
+        assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+        Future<Document> second = executor.submit(() -> readCoalescer.read(REQUEST_ID, Document::new));
+        waitUntilBlocked(second);
+        releaseQuery.countDown();
+
+        assertFailsWithIllegalState(first);
+        assertFailsWithIllegalState(second);
+    }
+
+    @Test
+    public void queryFailingOnFirstReadersDeadlineIsRetriedByWaitingRead() throws Exception {
+        Document document = new Document("_id", REQUEST_ID);
+        Future<Document> first = executor.submit(() -> {
+            deadlines.set(new Deadline(1, now::get));
+            return readCoalescer.read(REQUEST_ID, () -> {
+                blockingQuery(null);
+                throw new IllegalStateException("operation exceeded time limit");
+            });
+        });
+        assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+        Future<Document> second = executor.submit(() -> readCoalescer.read(REQUEST_ID, () -> countedQuery(document)));
+        waitUntilBlocked(second);
+        now.set(TimeUnit.SECONDS.toNanos(1));
+        releaseQuery.countDown();
+
+        assertFailsWithIllegalState(first);
+        assertSame(document, second.get(5, TimeUnit.SECONDS));
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    public void waitingReadGivesUpAtItsOwnDeadline() throws Exception {
+        Future<Document> first = executor.submit(
+            () -> readCoalescer.read(REQUEST_ID, () -> blockingQuery(new Document())));
+        assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+
+        Future<Document> second = executor.submit(() -> {
+            deadlines.set(Deadline.in(50));
+            return readCoalescer.read(REQUEST_ID, Document::new);
+        });
+        try {
+            second.get(5, TimeUnit.SECONDS);
+            fail("read should have given up");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof DeadlineExceededException);
+        } finally {
+            releaseQuery.countDown();
+        }
+        first.get(5, TimeUnit.SECONDS);
+    }
+
+    private Document blockingQuery(Document result) {
+        queries.incrementAndGet();
+        queryStarted.countDown();
+        try {
+            releaseQuery.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    private Document countedQuery(Document result) {
+        queries.incrementAndGet();
+        return result;
+    }
+
+    private static void waitUntilBlocked(Future<?> read) throws InterruptedException {
+        // the second read cannot signal that it has joined, so give it time to do so
+        Thread.sleep(100);
+        assertFalse(read.isDone());
+    }
+
+    private static void assertFailsWithIllegalState(Future<Document> read) throws Exception {
+        try {
+            read.get(5, TimeUnit.SECONDS);
+            fail("read should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+}
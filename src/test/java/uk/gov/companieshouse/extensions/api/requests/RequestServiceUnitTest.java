@@ -1,9 +1,12 @@
 package uk.gov.companieshouse.extensions.api.requests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -15,8 +18,14 @@ import static uk.gov.companieshouse.extensions.api.Utils.Utils.dummyCreateReques
 import static uk.gov.companieshouse.extensions.api.Utils.Utils.dummyRequestEntity;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -29,7 +38,16 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import uk.gov.companieshouse.extensions.api.attachments.Attachment;
+import uk.gov.companieshouse.extensions.api.attachments.AttachmentCleanupService;
+import uk.gov.companieshouse.extensions.api.events.RequestEvent;
+import uk.gov.companieshouse.extensions.api.events.RequestEventRecorder;
 import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.reasons.ExtensionReasonEntity;
+import uk.gov.companieshouse.extensions.api.summary.RequestSummaryService;
 import uk.gov.companieshouse.service.ServiceException;
 
 @Category(Unit.class)
@@ -45,6 +63,18 @@ public class RequestServiceUnitTest {
     @Mock
     private Supplier<LocalDateTime> dateTimeSupplierNow;
 
+    @Mock
+    private AttachmentCleanupService attachmentCleanupService;
+
+    @Mock
+    private RequestSummaryService requestSummaryService;
+
+    @Mock
+    private RequestEventRecorder requestEventRecorder;
+
+    @Captor
+    private ArgumentCaptor<List<Attachment>> attachmentsCaptor;
+
     @Captor
     private ArgumentCaptor<ExtensionRequestFullEntity> captor;
 
@@ -93,38 +123,82 @@ public class RequestServiceUnitTest {
     @Test
     public void willPatchFullRequestEntity() throws ServiceException {
         ExtensionRequestFullEntity extensionRequestFullEntity = new ExtensionRequestFullEntity();
+        extensionRequestFullEntity.setId("request");
         extensionRequestFullEntity.setStatus(Status.OPEN);
+        ExtensionRequestFullEntity patchedEntity = new ExtensionRequestFullEntity();
+        patchedEntity.setStatus(Status.SUBMITTED);
+        RequestEvent event = new RequestEvent();
         when(extensionRequestsRepository.findById(anyString()))
             .thenReturn(Optional.of(extensionRequestFullEntity));
-
-        when(extensionRequestsRepository.save(any(ExtensionRequestFullEntity.class)))
-            .thenReturn(extensionRequestFullEntity);
+        when(requestEventRecorder.statusChangedEvent("request", null, Status.OPEN, Status.SUBMITTED))
+            .thenReturn(Optional.of(event));
 
         RequestStatus status = new RequestStatus();
         status.setStatus(Status.SUBMITTED);
+        when(extensionRequestsRepository.patchStatus(eq("request"), eq(Status.OPEN), eq(status), eq(event), any()))
+            .thenReturn(Optional.of(patchedEntity));
         ExtensionRequestFullEntity entity = requestsService.patchRequest("request", status);
 
         verify(extensionRequestsRepository).findById("request");
-        verify(extensionRequestsRepository).save(extensionRequestFullEntity);
+        verify(extensionRequestsRepository, never()).save(any(ExtensionRequestFullEntity.class));
         assertEquals(Status.SUBMITTED, entity.getStatus());
+        verify(requestSummaryService).recordStatusChange(null, Status.OPEN, Status.SUBMITTED);
+    }
+
+    @Test
+    public void willRetryPatchWhenStatusChangedSinceRead() throws ServiceException {
+        ExtensionRequestFullEntity openEntity = new ExtensionRequestFullEntity();
+        openEntity.setStatus(Status.OPEN);
+        ExtensionRequestFullEntity submittedEntity = new ExtensionRequestFullEntity();
+        submittedEntity.setStatus(Status.SUBMITTED);
+        ExtensionRequestFullEntity patchedEntity = new ExtensionRequestFullEntity();
+        patchedEntity.setStatus(Status.REJECTED_MAX_EXT_LENGTH_EXCEEDED);
+        when(extensionRequestsRepository.findById("request"))
+            .thenReturn(Optional.of(openEntity), Optional.of(submittedEntity));
+        RequestStatus status = new RequestStatus();
+        status.setStatus(Status.REJECTED_MAX_EXT_LENGTH_EXCEEDED);
+        when(extensionRequestsRepository.patchStatus(eq("request"), eq(Status.OPEN), eq(status), any(), any()))
+            .thenReturn(Optional.empty());
+        when(extensionRequestsRepository.patchStatus(eq("request"), eq(Status.SUBMITTED), eq(status), any(), any()))
+            .thenReturn(Optional.of(patchedEntity));
+
+        ExtensionRequestFullEntity entity = requestsService.patchRequest("request", status);
+
+        assertEquals(Status.REJECTED_MAX_EXT_LENGTH_EXCEEDED, entity.getStatus());
+        verify(requestSummaryService, times(1)).recordStatusChange(any(), any(), any());
+        verify(requestSummaryService).recordStatusChange(null, Status.SUBMITTED, Status.REJECTED_MAX_EXT_LENGTH_EXCEEDED);
+    }
+
+    @Test
+    public void willRecordNewRequestInCompanySummary() {
+        ExtensionRequestFullEntity extensionRequestFullEntity = dummyRequestEntity();
+        when(extensionRequestsRepository.insert(any(ExtensionRequestFullEntity.class)))
+            .thenReturn(extensionRequestFullEntity);
+        when(extensionRequestsRepository.save(any(ExtensionRequestFullEntity.class)))
+            .thenReturn(extensionRequestFullEntity);
+
+        requestsService.insertExtensionsRequest(dummyCreateRequestEntity(), createdBy(), TESTURI, COMPANY_NUMBER);
+
+        verify(requestSummaryService).recordCreated(extensionRequestFullEntity);
+        verify(requestEventRecorder).requestCreated(extensionRequestFullEntity);
     }
 
     @Test
     public void willCorrectlyPatchFullRequestEntityWhenExtensionRequestIsRejected() throws ServiceException {
         ExtensionRequestFullEntity extensionRequestFullEntity = new ExtensionRequestFullEntity();
         extensionRequestFullEntity.setStatus(Status.OPEN);
+        ExtensionRequestFullEntity patchedEntity = new ExtensionRequestFullEntity();
+        patchedEntity.setStatus(Status.REJECTED_MAX_EXT_LENGTH_EXCEEDED);
         when(extensionRequestsRepository.findById(anyString()))
             .thenReturn(Optional.of(extensionRequestFullEntity));
 
-        when(extensionRequestsRepository.save(any(ExtensionRequestFullEntity.class)))
-            .thenReturn(extensionRequestFullEntity);
-
         RequestStatus status = new RequestStatus();
         status.setStatus(Status.REJECTED_MAX_EXT_LENGTH_EXCEEDED);
+        when(extensionRequestsRepository.patchStatus(eq("request"), eq(Status.OPEN), eq(status), any(), any()))
+            .thenReturn(Optional.of(patchedEntity));
         ExtensionRequestFullEntity entity = requestsService.patchRequest("request", status);
 
         verify(extensionRequestsRepository).findById("request");
-        verify(extensionRequestsRepository).save(extensionRequestFullEntity);
         assertEquals(Status.REJECTED_MAX_EXT_LENGTH_EXCEEDED, entity.getStatus());
     }
 
@@ -142,4 +216,187 @@ public class RequestServiceUnitTest {
         expectedException.expectMessage("Request: request1 cannot be found");
         requestsService.patchRequest("request1", status);
     }
+
+    @Test
+    public void willDeleteRequestAndQueueAllAttachmentsForCleanup() throws ServiceException {
+        ExtensionRequestFullEntity entity = dummyRequestEntity();
+        entity.addReason(reasonWithAttachments("reason1", "attachment1", "attachment2"));
+        entity.addReason(reasonWithAttachments("reason2", "attachment3"));
+        when(extensionRequestsRepository.findAndRemoveById(REQUEST_ID)).thenReturn(Optional.of(entity));
+
+        ExtensionRequestFullEntity deleted = requestsService.deleteExtensionsRequestById(REQUEST_ID);
+
+        assertEquals(entity, deleted);
+        verify(attachmentCleanupService).deleteAttachments(attachmentsCaptor.capture());
+        assertEquals(Arrays.asList("attachment1", "attachment2", "attachment3"),
+            attachmentsCaptor.getValue().stream().map(Attachment::getId).collect(Collectors.toList()));
+        verify(requestSummaryService).recordRemoved(entity.getCompanyNumber());
+    }
+
+    @Test
+    public void willNotQueueCleanupWhenDeletedRequestHasNoAttachments() throws ServiceException {
+        ExtensionRequestFullEntity entity = dummyRequestEntity();
+        entity.addReason(reasonWithAttachments("reason1"));
+        when(extensionRequestsRepository.findAndRemoveById(REQUEST_ID)).thenReturn(Optional.of(entity));
+
+        requestsService.deleteExtensionsRequestById(REQUEST_ID);
+
+        verify(attachmentCleanupService, never()).deleteAttachments(any());
+    }
+
+    @Test
+    public void willThrowServiceExceptionIfDeletedRequestNotFound() throws ServiceException {
+        when(extensionRequestsRepository.findAndRemoveById(REQUEST_ID)).thenReturn(Optional.empty());
+
+        expectedException.expect(ServiceException.class);
+        expectedException.expectMessage("Request: 1234 cannot be found");
+        requestsService.deleteExtensionsRequestById(REQUEST_ID);
+    }
+
+    @Test
+    public void willDeleteExpiredOpenRequestsInBatches() {
+        LocalDateTime cutoff = LocalDateTime.of(2020, 1, 1, 0, 0);
+        ExtensionRequestFullEntity expired1 = new ExtensionRequestFullEntity();
+        expired1.addReason(reasonWithAttachments("reason1", "attachment1"));
+        ExtensionRequestFullEntity expired3 = new ExtensionRequestFullEntity();
+
+        when(extensionRequestsRepository.findExpiredOpenRequestIds(cutoff, 2))
+            .thenReturn(Arrays.asList("expired1", "expired2"))
+            .thenReturn(Collections.singletonList("expired3"));
+        when(extensionRequestsRepository.findAndRemoveExpiredOpenRequest("expired1", cutoff))
+            .thenReturn(Optional.of(expired1));
+        // submitted after it was found, so no longer removed
+        when(extensionRequestsRepository.findAndRemoveExpiredOpenRequest("expired2", cutoff))
+            .thenReturn(Optional.empty());
+        when(extensionRequestsRepository.findAndRemoveExpiredOpenRequest("expired3", cutoff))
+            .thenReturn(Optional.of(expired3));
+
+        int deleted = requestsService.deleteExpiredOpenRequests(cutoff, 2);
+
+        assertEquals(2, deleted);
+        verify(extensionRequestsRepository, times(2)).findExpiredOpenRequestIds(cutoff, 2);
+        verify(attachmentCleanupService).deleteAttachments(expired1.getReasons().get(0).getAttachments());
+    }
+
+    @Test
+    public void willNotReadFromArchiveWhenFallbackDisabled() {
+        when(extensionRequestsRepository.findById(REQUEST_ID)).thenReturn(Optional.empty());
+
+        Optional<ExtensionRequestFullEntity> request = requestsService.getExtensionsRequestById(REQUEST_ID);
+
+        assertFalse(request.isPresent());
+        verify(extensionRequestsRepository, never()).findArchivedById(anyString());
+    }
+
+    @Test
+    public void willFallBackToArchiveForSingleRequest() {
+        ReflectionTestUtils.setField(requestsService, "archiveFallbackEnabled", true);
+        ExtensionRequestFullEntity archived = dummyRequestEntity();
+        when(extensionRequestsRepository.findById(REQUEST_ID)).thenReturn(Optional.empty());
+        when(extensionRequestsRepository.findArchivedById(REQUEST_ID)).thenReturn(Optional.of(archived));
+
+        Optional<ExtensionRequestFullEntity> request = requestsService.getExtensionsRequestById(REQUEST_ID);
+
+        assertEquals(archived, request.get());
+    }
+
+    @Test
+    public void willMergeArchivedRequestsIntoCompanyList() {
+        ReflectionTestUtils.setField(requestsService, "archiveFallbackEnabled", true);
+        ExtensionRequestFullEntity live = requestWithId("5c8a0c6c1e4f5a0001000003");
+        ExtensionRequestFullEntity staleArchived = requestWithId("5c8a0c6c1e4f5a0001000003");
+        ExtensionRequestFullEntity archived = requestWithId("5c8a0c6c1e4f5a0001000001");
+        ExtensionRequestFullEntity newerArchived = requestWithId("5c8a0c6c1e4f5a0001000004");
+        when(extensionRequestsRepository.findAllByCompanyNumber(eq(COMPANY_NUMBER), any(Sort.class)))
+            .thenReturn(Collections.singletonList(live));
+        when(extensionRequestsRepository.findAllArchivedByCompanyNumber(eq(COMPANY_NUMBER), any(Sort.class)))
+            .thenReturn(Arrays.asList(newerArchived, staleArchived, archived));
+
+        List<ExtensionRequestFullEntity> requests =
+            requestsService.getExtensionsRequestListByCompanyNumber(COMPANY_NUMBER);
+
+        assertEquals(Arrays.asList(newerArchived, live, archived), requests);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void willNotReadCompanyListAsyncWithoutReactiveReader() {
+        requestsService.getExtensionsRequestListByCompanyNumberAsync(COMPANY_NUMBER);
+    }
+
+    @Test
+    public void willDeleteArchivedRequestWhenFallbackEnabled() throws ServiceException {
+        ReflectionTestUtils.setField(requestsService, "archiveFallbackEnabled", true);
+        ExtensionRequestFullEntity archived = dummyRequestEntity();
+        when(extensionRequestsRepository.findAndRemoveById(REQUEST_ID)).thenReturn(Optional.empty());
+        when(extensionRequestsRepository.findAndRemoveArchivedById(REQUEST_ID)).thenReturn(Optional.of(archived));
+
+        ExtensionRequestFullEntity deleted = requestsService.deleteExtensionsRequestById(REQUEST_ID);
+
+        assertEquals(archived, deleted);
+    }
+
+    @Test
+    public void willArchiveRequestsUntilABatchIsNotFull() {
+        LocalDateTime cutoff = LocalDateTime.of(2020, 1, 1, 0, 0);
+        when(extensionRequestsRepository.archiveRequests(cutoff, 10))
+            .thenReturn(10)
+            .thenReturn(4);
+
+        int archived = requestsService.archiveRequests(cutoff, 10);
+
+        assertEquals(14, archived);
+        verify(extensionRequestsRepository).ensureArchiveIndexes();
+        verify(extensionRequestsRepository, times(2)).archiveRequests(cutoff, 10);
+    }
+
+    @Test
+    public void willFetchRequestsByIdsInRequestedOrder() {
+        ExtensionRequestFullEntity first = requestWithId("1");
+        ExtensionRequestFullEntity third = requestWithId("3");
+        when(extensionRequestsRepository.findAllByIds(
+                new LinkedHashSet<>(Arrays.asList("1", "2", "3")), Arrays.asList("status", "createdOn")))
+            .thenReturn(Arrays.asList(third, first));
+
+        RequestBatchResponse response = requestsService.getExtensionsRequestsByIds(
+            Arrays.asList("1", "2", "3", "1"), EnumSet.of(RequestField.STATUS, RequestField.CREATED_ON));
+
+        assertEquals(Arrays.asList(first, third), response.getItems());
+        assertEquals(Collections.singletonList("2"), response.getMissingIds());
+        verify(extensionRequestsRepository, never()).findAllArchivedByIds(any(), any());
+    }
+
+    @Test
+    public void willFetchMissingRequestsFromArchiveWhenFallbackEnabled() {
+        ReflectionTestUtils.setField(requestsService, "archiveFallbackEnabled", true);
+        ExtensionRequestFullEntity live = requestWithId("1");
+        ExtensionRequestFullEntity archived = requestWithId("2");
+        when(extensionRequestsRepository.findAllByIds(
+                new LinkedHashSet<>(Arrays.asList("1", "2", "3")), Collections.emptyList()))
+            .thenReturn(Collections.singletonList(live));
+        when(extensionRequestsRepository.findAllArchivedByIds(Arrays.asList("2", "3"), Collections.emptyList()))
+            .thenReturn(Collections.singletonList(archived));
+
+        RequestBatchResponse response = requestsService.getExtensionsRequestsByIds(
+            Arrays.asList("1", "2", "3"), Collections.emptySet());
+
+        assertEquals(Arrays.asList(live, archived), response.getItems());
+        assertEquals(Collections.singletonList("3"), response.getMissingIds());
+    }
+
+    private ExtensionRequestFullEntity requestWithId(String id) {
+        ExtensionRequestFullEntity request = new ExtensionRequestFullEntity();
+        request.setId(id);
+        return request;
+    }
+
+    private ExtensionReasonEntity reasonWithAttachments(String reasonId, String... attachmentIds) {
+        ExtensionReasonEntity reason = new ExtensionReasonEntity();
+        reason.setId(reasonId);
+        for (String attachmentId : attachmentIds) {
+            Attachment attachment = new Attachment();
+            attachment.setId(attachmentId);
+            reason.addAttachment(attachment);
+        }
+        return reason;
+    }
 }
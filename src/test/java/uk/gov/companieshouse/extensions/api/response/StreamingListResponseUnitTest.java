@@ -0,0 +1,112 @@
+package uk.gov.companieshouse.extensions.api.response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+@Category(Unit.class)
+public class StreamingListResponseUnitTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void willWriteTheSameJsonAsListResponse() throws IOException {
+        String expected = objectMapper.writeValueAsString(ListResponse.<String>builder()
+            .withEtag("etag")
+            .withItemsPerPage(10)
+            .withStartIndex(0)
+            .withItems(Arrays.asList("item1", "item2"))
+            .build());
+
+        StreamingListResponse<String> response = StreamingListResponse.<String>builder()
+            .withObjectMapper(objectMapper)
+            .withEtag("etag")
+            .withItemsPerPage(10)
+            .withStartIndex(0)
+            .withItems(Stream.of("item1", "item2"))
+            .build();
+
+        assertEquals(expected, write(response));
+    }
+
+    @Test
+    public void willWriteEmptyItemsIfNotSet() throws IOException {
+        StreamingListResponse<String> response = StreamingListResponse.<String>builder()
+            .withObjectMapper(objectMapper)
+            .build();
+
+        assertEquals("{" +
+            "\"etag\":null," +
+            "\"items\":[]," +
+            "\"items_per_page\":0," +
+            "\"start_index\":0," +
+            "\"total_results\":0}", write(response));
+    }
+
+    @Test
+    public void willCloseTheItemStreamOnceWritten() throws IOException {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        StreamingListResponse<String> response = StreamingListResponse.<String>builder()
+            .withObjectMapper(objectMapper)
+            .withItems(Stream.of("item1").onClose(() -> closed.set(true)))
+            .build();
+
+        write(response);
+
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void willLogAndAbortWithoutClosingTheJsonWhenReadingFails() throws IOException {
+        ApiLogger logger = mock(ApiLogger.class);
+        AtomicBoolean closed = new AtomicBoolean(false);
+        Stream<String> items = Stream.of("item1", "item2")
+            .map(item -> {
+                if ("item2".equals(item)) {
+                    throw new IllegalStateException("cursor lost");
+                }
+                return item;
+            })
+            .onClose(() -> closed.set(true));
+        StreamingListResponse<String> response = StreamingListResponse.<String>builder()
+            .withObjectMapper(objectMapper)
+            .withLogger(logger)
+            .withItems(items)
+            .build();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try {
+            response.writeTo(outputStream);
+            fail("Expected the failure to be rethrown");
+        } catch (IllegalStateException e) {
+            assertEquals("cursor lost", e.getMessage());
+        }
+
+        verify(logger).error(any(String.class), any(IllegalStateException.class));
+        assertEquals("{\"etag\":null,\"items\":[\"item1\"", outputStream.toString("UTF-8"));
+        assertTrue(closed.get());
+    }
+
+    private String write(StreamingListResponse<String> response) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.writeTo(outputStream);
+        return outputStream.toString("UTF-8");
+    }
+}
@@ -0,0 +1,80 @@
+package uk.gov.companieshouse.extensions.api.routing;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+
+@Category(Unit.class)
+public class ReadRoutingInterceptorUnitTest {
+
+    private final ReadRoutingInterceptor interceptor = new ReadRoutingInterceptor();
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @After
+    public void tearDown() {
+        ReadRouting.clear();
+    }
+
+    @Test
+    public void allowsSecondaryForMarkedGet() throws Exception {
+        interceptor.preHandle(new MockHttpServletRequest("GET", "/"), response, handler("list"));
+
+        assertTrue(ReadRouting.isSecondaryAllowed());
+    }
+
+    @Test
+    public void usesPrimaryForUnmarkedGet() throws Exception {
+        interceptor.preHandle(new MockHttpServletRequest("GET", "/"), response, handler("single"));
+
+        assertFalse(ReadRouting.isSecondaryAllowed());
+    }
+
+    @Test
+    public void usesPrimaryForMarkedMethodOtherThanGet() throws Exception {
+        interceptor.preHandle(new MockHttpServletRequest("POST", "/"), response, handler("list"));
+
+        assertFalse(ReadRouting.isSecondaryAllowed());
+    }
+
+    @Test
+    public void clearsRoutingWhenRequestCompletes() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        interceptor.preHandle(request, response, handler("list"));
+
+        interceptor.afterCompletion(request, response, handler("list"), null);
+
+        assertFalse(ReadRouting.isSecondaryAllowed());
+    }
+
+    @Test
+    public void clearsRoutingWhenResponseIsStreamed() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        interceptor.preHandle(request, response, handler("list"));
+
+        interceptor.afterConcurrentHandlingStarted(request, response, handler("list"));
+
+        assertFalse(ReadRouting.isSecondaryAllowed());
+    }
+
+    private HandlerMethod handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Endpoints(), Endpoints.class.getMethod(name));
+    }
+
+    public static class Endpoints {
+
+        @SecondaryReads
+        public void list() {
+        }
+
+        public void single() {
+        }
+    }
+}
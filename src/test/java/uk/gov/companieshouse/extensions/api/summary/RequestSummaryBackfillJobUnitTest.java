@@ -0,0 +1,42 @@
+package uk.gov.companieshouse.extensions.api.summary;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.logger.ApiLogger;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class RequestSummaryBackfillJobUnitTest {
+
+    @Mock
+    private RequestSummaryService requestSummaryService;
+
+    @Mock
+    private ApiLogger logger;
+
+    private RequestSummaryBackfillJob job;
+
+    @Before
+    public void setup() {
+        job = new RequestSummaryBackfillJob(requestSummaryService, logger);
+    }
+
+    @Test
+    public void willBackfillSummaries() {
+        when(requestSummaryService.backfillSummaries()).thenReturn(2);
+
+        job.backfillSummaries();
+
+        verify(requestSummaryService).backfillSummaries();
+        verify(logger).info("Backfilled 2 request summaries");
+    }
+}
@@ -0,0 +1,203 @@
+package uk.gov.companieshouse.extensions.api.summary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.COMPANY_NUMBER;
+import static uk.gov.companieshouse.extensions.api.Utils.Utils.REQUEST_ID;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import uk.gov.companieshouse.extensions.api.groups.Unit;
+import uk.gov.companieshouse.extensions.api.requests.ExtensionRequestFullEntity;
+import uk.gov.companieshouse.extensions.api.requests.Status;
+
+@Category(Unit.class)
+@RunWith(MockitoJUnitRunner.class)
+public class RequestSummaryServiceUnitTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2020, 3, 31, 9, 0);
+
+    @Mock
+    private RequestSummaryRepository requestSummaryRepository;
+
+    @Mock
+    private Supplier<LocalDateTime> dateTimeSupplierNow;
+
+    private RequestSummaryService requestSummaryService;
+
+    @Before
+    public void setup() {
+        requestSummaryService = new RequestSummaryService(requestSummaryRepository, dateTimeSupplierNow);
+    }
+
+    @Test
+    public void willReturnStoredSummaryWithAllStatuses() {
+        RequestSummary stored = summary(Status.OPEN, 2);
+        when(requestSummaryRepository.findById(COMPANY_NUMBER)).thenReturn(Optional.of(stored));
+
+        RequestSummary summary = requestSummaryService.getSummary(COMPANY_NUMBER);
+
+        assertSame(stored, summary);
+        assertEquals(Integer.valueOf(2), summary.getCounts().get("OPEN"));
+        assertEquals(Integer.valueOf(0), summary.getCounts().get("SUBMITTED"));
+        assertEquals(Integer.valueOf(0), summary.getCounts().get("REJECTED_MAX_EXT_LENGTH_EXCEEDED"));
+        verify(requestSummaryRepository, never()).buildSummary(any(), any());
+    }
+
+    @Test
+    public void willCountRequestsWithoutStoringWhenSummaryMissing() {
+        RequestSummary built = summary(Status.SUBMITTED, 1);
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(requestSummaryRepository.findById(COMPANY_NUMBER)).thenReturn(Optional.empty());
+        when(requestSummaryRepository.buildSummary(COMPANY_NUMBER, NOW)).thenReturn(built);
+
+        RequestSummary summary = requestSummaryService.getSummary(COMPANY_NUMBER);
+
+        assertSame(built, summary);
+        assertEquals(Integer.valueOf(1), summary.getCounts().get("SUBMITTED"));
+        verify(requestSummaryRepository, never()).replaceIfUnchanged(any(), any());
+        verify(requestSummaryRepository, never()).insert(any(RequestSummary.class));
+    }
+
+    @Test
+    public void willCountRequestsWhenSummaryIncomplete() {
+        RequestSummary incremented = summary(Status.OPEN, 1);
+        incremented.setComplete(false);
+        RequestSummary built = summary(Status.OPEN, 3);
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(requestSummaryRepository.findById(COMPANY_NUMBER)).thenReturn(Optional.of(incremented));
+        when(requestSummaryRepository.buildSummary(COMPANY_NUMBER, NOW)).thenReturn(built);
+
+        assertSame(built, requestSummaryService.getSummary(COMPANY_NUMBER));
+    }
+
+    @Test
+    public void willRebuildAgainWhenRequestCreatedDuringBuild() {
+        RequestSummary before = summary(Status.OPEN, 1);
+        before.setComplete(false);
+        before.setRevision(5);
+        RequestSummary afterCreate = summary(Status.OPEN, 2);
+        afterCreate.setComplete(false);
+        afterCreate.setRevision(6);
+        RequestSummary staleBuild = summary(Status.OPEN, 2);
+        RequestSummary freshBuild = summary(Status.OPEN, 3);
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(requestSummaryRepository.findById(COMPANY_NUMBER))
+            .thenReturn(Optional.of(before))
+            .thenReturn(Optional.of(afterCreate));
+        when(requestSummaryRepository.buildSummary(COMPANY_NUMBER, NOW))
+            .thenReturn(staleBuild)
+            .thenReturn(freshBuild);
+        // the create's increment moved the revision on while the first build was counting
+        when(requestSummaryRepository.replaceIfUnchanged(staleBuild, 5L)).thenReturn(false);
+        when(requestSummaryRepository.replaceIfUnchanged(freshBuild, 6L)).thenReturn(true);
+
+        assertTrue(requestSummaryService.rebuildSummary(COMPANY_NUMBER));
+
+        verify(requestSummaryRepository).replaceIfUnchanged(freshBuild, 6L);
+    }
+
+    @Test
+    public void willGiveUpRebuildThatKeepsRacing() {
+        RequestSummary built = summary(Status.OPEN, 1);
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(requestSummaryRepository.findById(COMPANY_NUMBER)).thenReturn(Optional.empty());
+        when(requestSummaryRepository.buildSummary(COMPANY_NUMBER, NOW)).thenReturn(built);
+        when(requestSummaryRepository.replaceIfUnchanged(built, null)).thenReturn(false);
+
+        assertFalse(requestSummaryService.rebuildSummary(COMPANY_NUMBER));
+
+        verify(requestSummaryRepository, times(3)).replaceIfUnchanged(built, null);
+    }
+
+    @Test
+    public void willBackfillOnlyIncompleteSummaries() {
+        RequestSummary complete = summary(Status.OPEN, 1);
+        complete.setCompanyNumber("00000001");
+        RequestSummary built = summary(Status.SUBMITTED, 1);
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(requestSummaryRepository.findCompanyNumbers())
+            .thenReturn(new TreeSet<>(Arrays.asList("00000001", COMPANY_NUMBER)));
+        when(requestSummaryRepository.findById("00000001")).thenReturn(Optional.of(complete));
+        when(requestSummaryRepository.findById(COMPANY_NUMBER)).thenReturn(Optional.empty());
+        when(requestSummaryRepository.buildSummary(COMPANY_NUMBER, NOW)).thenReturn(built);
+        when(requestSummaryRepository.replaceIfUnchanged(built, null)).thenReturn(true);
+
+        assertEquals(1, requestSummaryService.backfillSummaries());
+
+        verify(requestSummaryRepository, never()).buildSummary("00000001", NOW);
+    }
+
+    @Test
+    public void willRecordCreatedRequest() {
+        ExtensionRequestFullEntity request = new ExtensionRequestFullEntity();
+        request.setId(REQUEST_ID);
+        request.setCompanyNumber(COMPANY_NUMBER);
+        request.setStatus(Status.OPEN);
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+
+        requestSummaryService.recordCreated(request);
+
+        verify(requestSummaryRepository).recordCreated(COMPANY_NUMBER, Status.OPEN, REQUEST_ID, NOW);
+    }
+
+    @Test
+    public void willRecordStatusChange() {
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+
+        requestSummaryService.recordStatusChange(COMPANY_NUMBER, Status.OPEN, Status.SUBMITTED);
+
+        verify(requestSummaryRepository).recordStatusChange(COMPANY_NUMBER, Status.OPEN, Status.SUBMITTED, NOW);
+    }
+
+    @Test
+    public void willIgnoreUnchangedStatus() {
+        requestSummaryService.recordStatusChange(COMPANY_NUMBER, Status.OPEN, Status.OPEN);
+        requestSummaryService.recordStatusChange(COMPANY_NUMBER, Status.OPEN, null);
+
+        verifyZeroInteractions(requestSummaryRepository);
+    }
+
+    @Test
+    public void willRebuildSummaryWhenRequestRemoved() {
+        RequestSummary stored = summary(Status.OPEN, 2);
+        stored.setRevision(3);
+        RequestSummary built = summary(Status.OPEN, 1);
+        when(dateTimeSupplierNow.get()).thenReturn(NOW);
+        when(requestSummaryRepository.findById(COMPANY_NUMBER)).thenReturn(Optional.of(stored));
+        when(requestSummaryRepository.buildSummary(COMPANY_NUMBER, NOW)).thenReturn(built);
+        when(requestSummaryRepository.replaceIfUnchanged(built, 3L)).thenReturn(true);
+
+        requestSummaryService.recordRemoved(COMPANY_NUMBER);
+
+        verify(requestSummaryRepository).markIncomplete(COMPANY_NUMBER);
+        verify(requestSummaryRepository).replaceIfUnchanged(built, 3L);
+    }
+
+    private RequestSummary summary(Status status, int count) {
+        RequestSummary summary = new RequestSummary();
+        summary.setCompanyNumber(COMPANY_NUMBER);
+        summary.addCount(status.name(), count);
+        summary.setComplete(true);
+        return summary;
+    }
+}